@@ -3,11 +3,13 @@ package com.banking.account.controller;
 import com.banking.account.entity.Account;
 import com.banking.account.entity.Transaction;
 import com.banking.account.service.AccountService;
+import com.banking.shared.dto.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/accounts")
@@ -35,6 +37,17 @@ public class AccountController {
         return ResponseEntity.ok(accounts);
     }
 
+    @GetMapping("/user/{userId}/total")
+    public ResponseEntity<?> getPortfolioTotal(@PathVariable String userId,
+                                               @RequestParam(defaultValue = "USD") String currency) {
+        try {
+            Map<String, Object> portfolio = accountService.getPortfolioTotal(userId, currency.toUpperCase());
+            return ResponseEntity.ok(portfolio);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @GetMapping("/transactions")
     public ResponseEntity<List<Transaction>> getAllTransactions() {
         List<Transaction> transactions = accountService.getAllTransactions();
@@ -4,10 +4,16 @@ import com.banking.account.entity.Account;
 import com.banking.account.entity.Transaction;
 import com.banking.account.repository.AccountRepository;
 import com.banking.account.repository.TransactionRepository;
+import com.banking.shared.fx.FxRateTable;
+import com.banking.shared.fx.FxRates;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -19,6 +25,9 @@ public class AccountService {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private FxRateTable fxRateTable;
+
     public List<Account> getAllAccounts() {
         return accountRepository.findAll();
     }
@@ -31,6 +40,35 @@ public class AccountService {
         return accountRepository.findByUserId(userId);
     }
 
+    /**
+     * The user's balances summed in {@code currency}. All accounts are converted at one rate
+     * version and the exact products are summed, so the total is rounded once rather than
+     * collecting a rounding error per account.
+     */
+    public Map<String, Object> getPortfolioTotal(String userId, String currency) {
+        FxRates rates = fxRateTable.snapshot();
+        BigDecimal total = BigDecimal.ZERO;
+        List<Map<String, Object>> accounts = new ArrayList<>();
+        for (Account account : accountRepository.findByUserId(userId)) {
+            BigDecimal converted = rates.convertExact(account.getBalance(), account.getCurrency(), currency);
+            total = total.add(converted);
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("accountId", account.getId());
+            line.put("currency", account.getCurrency());
+            line.put("balance", account.getBalance());
+            line.put("rate", rates.rate(account.getCurrency(), currency));
+            line.put("converted", rates.round(converted, currency, fxRateTable.getRounding()));
+            accounts.add(line);
+        }
+        Map<String, Object> portfolio = new LinkedHashMap<>();
+        portfolio.put("userId", userId);
+        portfolio.put("currency", currency);
+        portfolio.put("total", rates.round(total, currency, fxRateTable.getRounding()));
+        portfolio.put("rateVersion", rates.getVersion());
+        portfolio.put("accounts", accounts);
+        return portfolio;
+    }
+
     public List<Transaction> getAllTransactions() {
         return transactionRepository.findAll();
     }
@@ -3,6 +3,7 @@ package com.banking.gateway.controller;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -31,6 +32,15 @@ public class GatewayController {
     @Value("${services.deposit.url:http://localhost:8087}")
     private String depositServiceUrl;
 
+    @Value("${services.withdrawal.url:http://localhost:8088}")
+    private String withdrawalServiceUrl;
+
+    @Value("${services.transfer.url:http://localhost:8089}")
+    private String transferServiceUrl;
+
+    @Value("${services.notification.url:http://localhost:8091}")
+    private String notificationServiceUrl;
+
     private final RestTemplate restTemplate = new RestTemplate();
 
     @RequestMapping(value = "/auth/**", method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE})
@@ -63,6 +73,21 @@ public class GatewayController {
         return routeRequest(depositServiceUrl, request, body);
     }
 
+    @RequestMapping(value = "/withdrawals/**", method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE})
+    public ResponseEntity<String> routeWithdrawal(HttpServletRequest request, @RequestBody(required = false) String body) {
+        return routeRequest(withdrawalServiceUrl, request, body);
+    }
+
+    @RequestMapping(value = "/transfers/**", method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE})
+    public ResponseEntity<String> routeTransfer(HttpServletRequest request, @RequestBody(required = false) String body) {
+        return routeRequest(transferServiceUrl, request, body);
+    }
+
+    @RequestMapping(value = "/notifications/**", method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE})
+    public ResponseEntity<String> routeNotification(HttpServletRequest request, @RequestBody(required = false) String body) {
+        return routeRequest(notificationServiceUrl, request, body);
+    }
+
     private ResponseEntity<String> routeRequest(String serviceUrl, HttpServletRequest request, String body) {
         try {
             String path = request.getRequestURI().substring("/api".length());
@@ -86,6 +111,9 @@ public class GatewayController {
 
             ResponseEntity<String> response = restTemplate.exchange(targetUrl, method, entity, String.class);
             return response;
+        } catch (HttpStatusCodeException e) {
+            // Pass the service's own error through, e.g. a 409 for a request still in progress
+            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsString());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("{\"error\":\"Gateway routing failed: " + e.getMessage() + "\"}");
@@ -0,0 +1,73 @@
+package com.banking.gateway.controller;
+
+import com.banking.gateway.dto.PushEvent;
+import com.banking.gateway.service.StreamAuthenticator;
+import com.banking.gateway.service.SubscriptionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@CrossOrigin(origins = "*")
+public class StreamController {
+
+    @Autowired
+    private SubscriptionRegistry subscriptionRegistry;
+
+    @Autowired
+    private StreamAuthenticator streamAuthenticator;
+
+    /**
+     * Opens the user's event stream. Requires a token issued to that user, as a bearer token or,
+     * for browsers' EventSource which cannot set headers, the {@code access_token} parameter.
+     */
+    @GetMapping(value = "/api/stream/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@PathVariable String userId,
+                                             @RequestHeader(value = "Authorization", required = false) String authorization,
+                                             @RequestParam(value = "access_token", required = false) String accessToken) {
+        String token = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : accessToken;
+        if (token == null || token.isBlank()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String subject;
+        try {
+            subject = streamAuthenticator.authenticate(token);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (subject == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!subject.equals(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(subscriptionRegistry.subscribe(userId));
+    }
+
+    /** Called by the backend services; not routed by the ingress. */
+    @PostMapping("/internal/events")
+    public ResponseEntity<Map<String, Object>> publish(@RequestBody List<PushEvent> events) {
+        int delivered = 0;
+        for (PushEvent event : events) {
+            if (event.getUserId() == null || event.getType() == null) {
+                continue;
+            }
+            // Serialized once here; every stream of the user shares the same payload string
+            String payload = event.getData() != null ? event.getData().toString() : "{}";
+            delivered += subscriptionRegistry.publish(event.getUserId(), event.getType(), payload);
+        }
+        return ResponseEntity.ok(Map.of("delivered", delivered));
+    }
+
+    @GetMapping("/api/stream/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(Map.of("subscribers", subscriptionRegistry.getSubscriberCount()));
+    }
+}
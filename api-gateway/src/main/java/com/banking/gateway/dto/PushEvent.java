@@ -0,0 +1,19 @@
+package com.banking.gateway.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/** An event published by a backend service for delivery to a user's open streams. */
+public class PushEvent {
+    private String userId;
+    private String type;
+    private JsonNode data;
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public JsonNode getData() { return data; }
+    public void setData(JsonNode data) { this.data = data; }
+}
@@ -0,0 +1,54 @@
+package com.banking.gateway.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+/**
+ * Checks the token presented when a stream is opened with the auth service, which verifies the
+ * signature and expiry and consults the shared revocation list. A stream is checked once, when
+ * it opens; it ends at the stream's max age like any other.
+ */
+@Service
+public class StreamAuthenticator {
+
+    private final String authServiceUrl;
+    private final RestTemplate restTemplate;
+
+    public StreamAuthenticator(@Value("${services.auth.url:http://localhost:8081}") String authServiceUrl) {
+        this.authServiceUrl = authServiceUrl;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(1000);
+        requestFactory.setReadTimeout(2000);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    /**
+     * The id of the user the token was issued to, or {@code null} if the auth service rejects
+     * it. Throws {@link IllegalStateException} when the auth service cannot be reached.
+     */
+    @SuppressWarnings("unchecked")
+    public String authenticate(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        try {
+            Map<String, Object> body = restTemplate.exchange(authServiceUrl + "/api/auth/validate", HttpMethod.GET,
+                    new HttpEntity<>(headers), Map.class).getBody();
+            Object user = body != null ? body.get("user") : null;
+            Object id = user instanceof Map ? ((Map<String, Object>) user).get("id") : null;
+            return id != null ? id.toString() : null;
+        } catch (HttpStatusCodeException e) {
+            return null;
+        } catch (ResourceAccessException e) {
+            throw new IllegalStateException("Auth service unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.banking.gateway.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open server-sent event streams, by user. Publishing only appends to each of the user's
+ * stream buffers and schedules a drain on a small sender pool, so a slow client never holds up
+ * the publisher or other users. Buffers hold at most {@code buffer-size} events; when one
+ * overflows the oldest event is dropped and the client is sent a {@code resync} event telling
+ * it to reload.
+ *
+ * Streams that have been quiet for {@code heartbeat-ms} get a comment line so proxies keep the
+ * connection open and dead clients are detected; a stream with no successful write for
+ * {@code idle-timeout-ms} is closed. Streams end after {@code max-age-ms} and browsers
+ * reconnect on their own, which spreads connections across instances over time.
+ */
+@Service
+public class SubscriptionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriptionRegistry.class);
+
+    private static final Event HEARTBEAT = new Event(null, null);
+    private static final Subscription[] NONE = new Subscription[0];
+
+    private final Map<String, Subscription[]> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final long heartbeatMillis;
+    private final long idleTimeoutMillis;
+    private final long maxAgeMillis;
+
+    private final Counter deliveredCounter;
+    private final Counter droppedCounter;
+    private final Counter evictedCounter;
+
+    public SubscriptionRegistry(@Value("${stream.buffer-size:32}") int bufferSize,
+                                @Value("${stream.max-per-user:5}") int maxPerUser,
+                                @Value("${stream.heartbeat-ms:15000}") long heartbeatMillis,
+                                @Value("${stream.idle-timeout-ms:60000}") long idleTimeoutMillis,
+                                @Value("${stream.max-age-ms:1800000}") long maxAgeMillis,
+                                @Value("${stream.sender-threads:8}") int senderThreads,
+                                MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.maxPerUser = maxPerUser;
+        this.heartbeatMillis = heartbeatMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxAgeMillis = maxAgeMillis;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "stream-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.deliveredCounter = Counter.builder("banking_gateway_stream_events_total")
+            .description("Events buffered for delivery to open streams")
+            .tag("service", "gateway")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("banking_gateway_stream_dropped_total")
+            .description("Events dropped because a stream buffer was full")
+            .tag("service", "gateway")
+            .register(meterRegistry);
+        this.evictedCounter = Counter.builder("banking_gateway_stream_evicted_total")
+            .description("Streams closed for being idle or exceeding the per-user limit")
+            .tag("service", "gateway")
+            .register(meterRegistry);
+        Gauge.builder("banking_gateway_stream_subscribers", subscriberCount, AtomicInteger::get)
+            .description("Open event streams")
+            .tag("service", "gateway")
+            .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(String userId) {
+        SseEmitter emitter = new SseEmitter(maxAgeMillis);
+        Subscription subscription = new Subscription(userId, emitter);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(e -> remove(subscription));
+
+        Subscription[] evicted = new Subscription[1];
+        subscriptions.compute(userId, (k, current) -> {
+            Subscription[] existing = current != null ? current : NONE;
+            if (existing.length >= maxPerUser) {
+                // Oldest first; drop it to make room
+                evicted[0] = existing[0];
+                existing = Arrays.copyOfRange(existing, 1, existing.length);
+            }
+            Subscription[] updated = Arrays.copyOf(existing, existing.length + 1);
+            updated[existing.length] = subscription;
+            return updated;
+        });
+        subscriberCount.incrementAndGet();
+        if (evicted[0] != null) {
+            // Already out of the map, so closing it below does not count it again
+            subscriberCount.decrementAndGet();
+            evictedCounter.increment();
+            evicted[0].close();
+        }
+        // Sent straight away so the client knows the stream is live and proxies flush headers
+        subscription.offer(new Event("connected", "{}"));
+        return emitter;
+    }
+
+    /** Buffers the event on every open stream of the user; returns how many streams that was. */
+    public int publish(String userId, String type, String payload) {
+        Subscription[] current = subscriptions.get(userId);
+        if (current == null) {
+            return 0;
+        }
+        Event event = new Event(type, payload);
+        for (Subscription subscription : current) {
+            subscription.offer(event);
+        }
+        deliveredCounter.increment(current.length);
+        return current.length;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Scheduled(fixedDelayString = "${stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Subscription[] userSubscriptions : subscriptions.values()) {
+            for (Subscription subscription : userSubscriptions) {
+                long quiet = now - subscription.lastWrite;
+                if (quiet >= idleTimeoutMillis) {
+                    evictedCounter.increment();
+                    subscription.close();
+                } else if (quiet >= heartbeatMillis) {
+                    subscription.offer(HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Subscription[] userSubscriptions : subscriptions.values()) {
+            for (Subscription subscription : userSubscriptions) {
+                subscription.close();
+            }
+        }
+        senders.shutdownNow();
+    }
+
+    private void remove(Subscription subscription) {
+        boolean[] removed = new boolean[1];
+        subscriptions.computeIfPresent(subscription.userId, (k, current) -> {
+            int index = Arrays.asList(current).indexOf(subscription);
+            if (index < 0) {
+                return current;
+            }
+            removed[0] = true;
+            if (current.length == 1) {
+                return null;
+            }
+            Subscription[] updated = new Subscription[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            return updated;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private static final class Event {
+        final String type;
+        final String payload;
+
+        Event(String type, String payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+
+    private final class Subscription {
+        final String userId;
+        final SseEmitter emitter;
+        // Guarded by this; the deque is only allocated once something is published
+        private ArrayDeque<Event> buffer;
+        private boolean draining;
+        private boolean overflowed;
+        volatile long lastWrite = System.currentTimeMillis();
+        volatile boolean closed;
+
+        Subscription(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            if (closed) {
+                return;
+            }
+            synchronized (this) {
+                if (buffer == null) {
+                    buffer = new ArrayDeque<>(4);
+                }
+                if (buffer.size() >= bufferSize) {
+                    buffer.poll();
+                    overflowed = true;
+                    droppedCounter.increment();
+                }
+                buffer.add(event);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                Event event;
+                boolean resync;
+                synchronized (this) {
+                    event = buffer.poll();
+                    if (event == null || closed) {
+                        draining = false;
+                        if (buffer.isEmpty()) {
+                            buffer = null;
+                        }
+                        return;
+                    }
+                    resync = overflowed;
+                    overflowed = false;
+                }
+                try {
+                    if (resync) {
+                        emitter.send(SseEmitter.event().name("resync").data("{}"));
+                    }
+                    if (event == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(event.type).data(event.payload));
+                    }
+                    lastWrite = System.currentTimeMillis();
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Stream for user {} closed: {}", userId, e.getMessage());
+                    close();
+                }
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            remove(this);
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // Already completed by the container
+            }
+        }
+    }
+}
@@ -1,22 +1,48 @@
 package com.banking.audit.controller;
 
+import com.banking.audit.dto.AuditCursor;
+import com.banking.audit.dto.AuditExportJob;
+import com.banking.audit.dto.AuditExportRequest;
+import com.banking.audit.dto.AuditLogSliceResponse;
+import com.banking.audit.dto.AuditSearchResult;
 import com.banking.audit.entity.AuditLog;
+import com.banking.audit.service.AuditExportService;
 import com.banking.audit.service.AuditService;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/audit")
 @CrossOrigin(origins = "*")
 public class AuditController {
 
+    private static final int MAX_SCROLL_SIZE = 1000;
+    private static final int MAX_SEARCH_LIMIT = 500;
+
     @Autowired
     private AuditService auditService;
+
+    @Autowired
+    private AuditExportService auditExportService;
     
     private final Counter auditRequestsCounter;
 
@@ -30,20 +56,182 @@ public class AuditController {
     @PostMapping("/log")
     public ResponseEntity<AuditLog> createAuditLog(@RequestBody AuditLog auditLog) {
         auditRequestsCounter.increment();
+        if (!auditService.admit(auditLog)) {
+            // Counted in a per-minute aggregate rather than stored on its own
+            return ResponseEntity.accepted().body(auditLog);
+        }
+        if (auditService.isAsyncIngestion()) {
+            if (!auditService.submitAuditLog(auditLog)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(auditLog);
+            }
+            return ResponseEntity.accepted().body(auditLog);
+        }
         AuditLog saved = auditService.createAuditLog(auditLog);
         return ResponseEntity.ok(saved);
     }
 
+    @PostMapping("/logs/batch")
+    public ResponseEntity<Map<String, Object>> createAuditLogs(@RequestBody List<AuditLog> auditLogs) {
+        auditRequestsCounter.increment();
+        List<AuditLog> admitted = auditService.admit(auditLogs);
+        int accepted = auditService.createAuditLogs(admitted);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("received", auditLogs.size());
+        response.put("accepted", accepted);
+        response.put("aggregated", auditLogs.size() - admitted.size());
+        response.put("dropped", admitted.size() - accepted);
+        
+        if (auditService.isAsyncIngestion()) {
+            return ResponseEntity.accepted().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/logs")
     public ResponseEntity<Page<AuditLog>> getAuditLogs(
             @RequestParam(required = false) String userId,
             @RequestParam(required = false) String action,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
             Pageable pageable) {
         auditRequestsCounter.increment();
-        Page<AuditLog> logs = auditService.getAuditLogs(userId, action, pageable);
+        Page<AuditLog> logs = auditService.getAuditLogs(userId, action, from, to, pageable);
         return ResponseEntity.ok(logs);
     }
 
+    /**
+     * Keyset pagination over {@code (created_at, id)}, newest first. Pass the returned
+     * {@code nextCursor} as {@code cursor} to fetch the next slice; no total is computed, so
+     * deep pages cost the same as the first.
+     */
+    @GetMapping("/logs/scroll")
+    public ResponseEntity<AuditLogSliceResponse> scrollAuditLogs(
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        auditRequestsCounter.increment();
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Slice<AuditLog> logs;
+        try {
+            logs = auditService.getAuditLogsAfter(userId, action, from, to, AuditCursor.decode(cursor), size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(new AuditLogSliceResponse(logs));
+    }
+
+    /**
+     * Full-text search, e.g. {@code q=acc-001 AND failed OR 10.0.0.7}. Terms are ANDed unless
+     * separated by {@code OR}. Returns the newest {@code limit} matches and whether more match.
+     * Archived logs are not searched: a {@code from} inside the archive is a 400, and without
+     * one the search starts after it, reported as {@code searchedFrom}.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "50") int limit) {
+        auditRequestsCounter.increment();
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        AuditSearchResult result;
+        try {
+            result = auditService.search(q, from, to, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("query", q);
+        response.put("hasMore", result.hasMore());
+        if (result.getSearchedFrom() != null) {
+            response.put("searchedFrom", result.getSearchedFrom());
+        }
+        response.put("results", result.getResults());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streams every audit log in {@code [from, to)} as NDJSON or CSV, oldest first. The window is
+     * read in parallel time shards but memory use does not grow with the size of the export.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Integer shardMinutes) {
+        auditRequestsCounter.increment();
+        AuditExportService.StreamingExport export;
+        try {
+            export = auditExportService.prepareStream(from, to, format, shardMinutes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        boolean csv = "csv".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+            .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=audit-export." + (csv ? "csv" : "ndjson"))
+            .body(export::writeTo);
+    }
+
+    /** Starts a resumable export to file; poll the returned job for progress. */
+    @PostMapping("/exports")
+    public ResponseEntity<AuditExportJob> startExport(@RequestBody AuditExportRequest request) {
+        auditRequestsCounter.increment();
+        try {
+            return ResponseEntity.accepted().body(auditExportService.startExport(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/exports/{id}")
+    public ResponseEntity<AuditExportJob> getExport(@PathVariable String id) {
+        auditRequestsCounter.increment();
+        AuditExportJob job = auditExportService.getExport(id);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /** Continues a failed or interrupted export from its last completed shard. */
+    @PostMapping("/exports/{id}/resume")
+    public ResponseEntity<AuditExportJob> resumeExport(@PathVariable String id) {
+        auditRequestsCounter.increment();
+        try {
+            AuditExportJob job = auditExportService.resumeExport(id);
+            return job != null ? ResponseEntity.accepted().body(job) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/exports/{id}/download")
+    public ResponseEntity<Resource> downloadExport(@PathVariable String id) {
+        auditRequestsCounter.increment();
+        Path file = auditExportService.getExportFile(id);
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + file.getFileName())
+            .body(new FileSystemResource(file));
+    }
+
     @GetMapping("/logs/{id}")
     public ResponseEntity<AuditLog> getAuditLog(@PathVariable String id) {
         auditRequestsCounter.increment();
@@ -0,0 +1,70 @@
+package com.banking.audit.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of an export to file. Persisted as the job's manifest after every completed shard, so
+ * {@code completedShards} and {@code committedBytes} always describe a valid prefix of the
+ * output that a resumed run can continue from.
+ */
+public class AuditExportJob {
+
+    public enum Status { RUNNING, COMPLETED, FAILED, INTERRUPTED }
+
+    private String id;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String format;
+    private int shardMinutes;
+    private int totalShards;
+    private int completedShards;
+    private long committedBytes;
+    private long rows;
+    private Status status;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private double rowsPerSecond;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public LocalDateTime getFrom() { return from; }
+    public void setFrom(LocalDateTime from) { this.from = from; }
+
+    public LocalDateTime getTo() { return to; }
+    public void setTo(LocalDateTime to) { this.to = to; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public int getShardMinutes() { return shardMinutes; }
+    public void setShardMinutes(int shardMinutes) { this.shardMinutes = shardMinutes; }
+
+    public int getTotalShards() { return totalShards; }
+    public void setTotalShards(int totalShards) { this.totalShards = totalShards; }
+
+    public int getCompletedShards() { return completedShards; }
+    public void setCompletedShards(int completedShards) { this.completedShards = completedShards; }
+
+    public long getCommittedBytes() { return committedBytes; }
+    public void setCommittedBytes(long committedBytes) { this.committedBytes = committedBytes; }
+
+    public long getRows() { return rows; }
+    public void setRows(long rows) { this.rows = rows; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public double getRowsPerSecond() { return rowsPerSecond; }
+    public void setRowsPerSecond(double rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
+}
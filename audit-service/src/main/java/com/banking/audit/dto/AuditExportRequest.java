@@ -0,0 +1,23 @@
+package com.banking.audit.dto;
+
+import java.time.LocalDateTime;
+
+public class AuditExportRequest {
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String format = "ndjson";
+    private Integer shardMinutes;
+
+    public LocalDateTime getFrom() { return from; }
+    public void setFrom(LocalDateTime from) { this.from = from; }
+
+    public LocalDateTime getTo() { return to; }
+    public void setTo(LocalDateTime to) { this.to = to; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public Integer getShardMinutes() { return shardMinutes; }
+    public void setShardMinutes(Integer shardMinutes) { this.shardMinutes = shardMinutes; }
+}
@@ -0,0 +1,28 @@
+package com.banking.audit.dto;
+
+import com.banking.audit.entity.AuditLog;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+public class AuditLogSliceResponse {
+
+    private final List<AuditLog> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    public AuditLogSliceResponse(Slice<AuditLog> slice) {
+        this.content = slice.getContent();
+        this.size = slice.getNumberOfElements();
+        this.hasNext = slice.hasNext();
+        this.nextCursor = slice.hasNext() && slice.hasContent()
+                ? AuditCursor.of(content.get(content.size() - 1)).encode()
+                : null;
+    }
+
+    public List<AuditLog> getContent() { return content; }
+    public int getSize() { return size; }
+    public boolean isHasNext() { return hasNext; }
+    public String getNextCursor() { return nextCursor; }
+}
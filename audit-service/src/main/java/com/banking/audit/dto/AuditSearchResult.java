@@ -0,0 +1,27 @@
+package com.banking.audit.dto;
+
+import com.banking.audit.entity.AuditLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class AuditSearchResult {
+
+    private final List<AuditLog> results;
+    private final boolean hasMore;
+    private final LocalDateTime searchedFrom;
+
+    public AuditSearchResult(List<AuditLog> results, boolean hasMore) {
+        this(results, hasMore, null);
+    }
+
+    public AuditSearchResult(List<AuditLog> results, boolean hasMore, LocalDateTime searchedFrom) {
+        this.results = results;
+        this.hasMore = hasMore;
+        this.searchedFrom = searchedFrom;
+    }
+
+    public List<AuditLog> getResults() { return results; }
+    public boolean hasMore() { return hasMore; }
+    public LocalDateTime getSearchedFrom() { return searchedFrom; }
+}
@@ -1,10 +1,16 @@
 package com.banking.audit.entity;
 
+import com.banking.audit.enums.AuditSeverity;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "audit_logs")
+@Table(name = "audit_logs", indexes = {
+    @Index(name = "idx_audit_logs_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_audit_logs_user_created_at_id", columnList = "user_id, created_at, id"),
+    @Index(name = "idx_audit_logs_action_created_at_id", columnList = "action, created_at, id"),
+    @Index(name = "idx_audit_logs_user_action_created_at_id", columnList = "user_id, action, created_at, id")
+})
 public class AuditLog {
     @Id
     private String id;
@@ -29,6 +35,10 @@ public class AuditLog {
     
     @Column(name = "status")
     private String status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "severity")
+    private AuditSeverity severity;
     
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -63,6 +73,9 @@ public class AuditLog {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
+    public AuditSeverity getSeverity() { return severity; }
+    public void setSeverity(AuditSeverity severity) { this.severity = severity; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
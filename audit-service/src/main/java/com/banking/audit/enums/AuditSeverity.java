@@ -0,0 +1,8 @@
+package com.banking.audit.enums;
+
+public enum AuditSeverity {
+    CRITICAL,
+    HIGH,
+    NORMAL,
+    LOW
+}
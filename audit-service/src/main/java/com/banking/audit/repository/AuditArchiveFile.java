@@ -0,0 +1,489 @@
+package com.banking.audit.repository;
+
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.enums.AuditSeverity;
+import com.banking.shared.util.BloomFilter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * One immutable columnar archive file. Rows are sorted by {@code (created_at, id)} and each
+ * column is stored as its own deflate-compressed block:
+ *
+ * <pre>
+ * header:  magic, version, rowCount, min/max created_at (epoch micros), min/max user id,
+ *          dictionaries for action, resource, status and severity, min/max id and a Bloom
+ *          filter of the ids, compressed length of each column
+ * columns: id | created_at (varint deltas) | user_id | action, resource, status (varint
+ *          dictionary codes) | details | ip_address | user_agent | severity (dictionary code)
+ * </pre>
+ *
+ * The header is small and read on startup so files can be pruned by time, user and action
+ * without touching their columns, and a lookup by id skips every file whose id range or
+ * filter rules the id out. Queries inflate only the columns they need. Version 1 files
+ * predate severity; they have no severity dictionary or column and read back without one.
+ * Files before version 3 have no id range or filter and are always searched by id.
+ */
+final class AuditArchiveFile {
+
+    static final String SUFFIX = ".col";
+
+    private static final int MAGIC = 0x41554443;
+    private static final byte VERSION = 3;
+    private static final double ID_FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+    static final int ID = 0;
+    static final int CREATED_AT = 1;
+    static final int USER_ID = 2;
+    static final int ACTION = 3;
+    static final int RESOURCE = 4;
+    static final int STATUS = 5;
+    static final int DETAILS = 6;
+    static final int IP_ADDRESS = 7;
+    static final int USER_AGENT = 8;
+    static final int SEVERITY = 9;
+    private static final int COLUMNS = 10;
+
+    final Path path;
+    final int rowCount;
+    final long minMicros;
+    final long maxMicros;
+    final String minUser;
+    final String maxUser;
+    final String[] actions;
+    final String[] resources;
+    final String[] statuses;
+    final String[] severities;
+    final String minId;
+    final String maxId;
+    private final BloomFilter idFilter;
+    private final int columnCount;
+    private final long[] columnOffsets;
+    private final int[] columnLengths;
+    final long sizeBytes;
+
+    private AuditArchiveFile(Path path, int rowCount, long minMicros, long maxMicros, String minUser, String maxUser,
+                             String[] actions, String[] resources, String[] statuses, String[] severities,
+                             String minId, String maxId, BloomFilter idFilter,
+                             int columnCount, long[] columnOffsets, int[] columnLengths, long sizeBytes) {
+        this.path = path;
+        this.rowCount = rowCount;
+        this.minMicros = minMicros;
+        this.maxMicros = maxMicros;
+        this.minUser = minUser;
+        this.maxUser = maxUser;
+        this.actions = actions;
+        this.resources = resources;
+        this.statuses = statuses;
+        this.severities = severities;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.idFilter = idFilter;
+        this.columnCount = columnCount;
+        this.columnOffsets = columnOffsets;
+        this.columnLengths = columnLengths;
+        this.sizeBytes = sizeBytes;
+    }
+
+    /**
+     * Writes {@code rows} to {@code target} via a temporary file and an atomic rename, so a
+     * file that exists under its final name is always complete.
+     */
+    static AuditArchiveFile write(Path target, List<AuditLog> rows) throws IOException {
+        List<AuditLog> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(AuditLog::getCreatedAt).thenComparing(AuditLog::getId));
+
+        Map<String, Integer> actionCodes = new LinkedHashMap<>();
+        Map<String, Integer> resourceCodes = new LinkedHashMap<>();
+        Map<String, Integer> statusCodes = new LinkedHashMap<>();
+        Map<String, Integer> severityCodes = new LinkedHashMap<>();
+        String minUser = null;
+        String maxUser = null;
+        String minId = null;
+        String maxId = null;
+        BloomFilter idFilter = new BloomFilter(sorted.size(), ID_FILTER_FALSE_POSITIVE_RATE);
+        for (AuditLog row : sorted) {
+            String id = row.getId();
+            idFilter.put(id);
+            minId = minId == null || id.compareTo(minId) < 0 ? id : minId;
+            maxId = maxId == null || id.compareTo(maxId) > 0 ? id : maxId;
+            code(actionCodes, row.getAction());
+            code(resourceCodes, row.getResource());
+            code(statusCodes, row.getStatus());
+            code(severityCodes, severityName(row));
+            String user = row.getUserId();
+            if (user != null) {
+                minUser = minUser == null || user.compareTo(minUser) < 0 ? user : minUser;
+                maxUser = maxUser == null || user.compareTo(maxUser) > 0 ? user : maxUser;
+            }
+        }
+        long minMicros = toMicros(sorted.get(0).getCreatedAt());
+        long maxMicros = toMicros(sorted.get(sorted.size() - 1).getCreatedAt());
+
+        byte[][] columns = new byte[COLUMNS][];
+        columns[ID] = compress(out -> sorted.forEach(r -> writeString(out, r.getId())));
+        columns[CREATED_AT] = compress(out -> {
+            long previous = minMicros;
+            for (AuditLog row : sorted) {
+                long micros = toMicros(row.getCreatedAt());
+                writeVarLong(out, micros - previous);
+                previous = micros;
+            }
+        });
+        columns[USER_ID] = compress(out -> sorted.forEach(r -> writeString(out, r.getUserId())));
+        columns[ACTION] = compress(out -> sorted.forEach(r -> writeVarLong(out, actionCodes.get(key(r.getAction())))));
+        columns[RESOURCE] = compress(out -> sorted.forEach(r -> writeVarLong(out, resourceCodes.get(key(r.getResource())))));
+        columns[STATUS] = compress(out -> sorted.forEach(r -> writeVarLong(out, statusCodes.get(key(r.getStatus())))));
+        columns[DETAILS] = compress(out -> sorted.forEach(r -> writeString(out, r.getDetails())));
+        columns[IP_ADDRESS] = compress(out -> sorted.forEach(r -> writeString(out, r.getIpAddress())));
+        columns[USER_AGENT] = compress(out -> sorted.forEach(r -> writeString(out, r.getUserAgent())));
+        columns[SEVERITY] = compress(out -> sorted.forEach(r -> writeVarLong(out, severityCodes.get(key(severityName(r))))));
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     Channels.newOutputStream(channel)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(sorted.size());
+            out.writeLong(minMicros);
+            out.writeLong(maxMicros);
+            writeString(out, minUser);
+            writeString(out, maxUser);
+            writeDictionary(out, actionCodes);
+            writeDictionary(out, resourceCodes);
+            writeDictionary(out, statusCodes);
+            writeDictionary(out, severityCodes);
+            writeString(out, minId);
+            writeString(out, maxId);
+            long[] words = idFilter.words();
+            out.writeInt(idFilter.getHashCount());
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            for (byte[] column : columns) {
+                out.writeInt(column.length);
+            }
+            for (byte[] column : columns) {
+                out.write(column);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        return open(target);
+    }
+
+    /** Reads only the header; columns are loaded on demand by {@link #columns()}. */
+    static AuditArchiveFile open(Path path) throws IOException {
+        try (InputStream raw = Files.newInputStream(path);
+             CountingInputStream counting = new CountingInputStream(new BufferedInputStream(raw));
+             DataInputStream in = new DataInputStream(counting)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an audit archive file: " + path);
+            }
+            byte version = in.readByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported audit archive version " + version + ": " + path);
+            }
+            int rowCount = in.readInt();
+            long minMicros = in.readLong();
+            long maxMicros = in.readLong();
+            String minUser = readString(in);
+            String maxUser = readString(in);
+            String[] actions = readDictionary(in);
+            String[] resources = readDictionary(in);
+            String[] statuses = readDictionary(in);
+            String[] severities = version >= 2 ? readDictionary(in) : new String[0];
+            String minId = null;
+            String maxId = null;
+            BloomFilter idFilter = null;
+            if (version >= 3) {
+                minId = readString(in);
+                maxId = readString(in);
+                int hashCount = in.readInt();
+                long[] words = new long[in.readInt()];
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = in.readLong();
+                }
+                idFilter = new BloomFilter(words, hashCount);
+            }
+            int columnCount = version >= 2 ? COLUMNS : SEVERITY;
+            int[] lengths = new int[COLUMNS];
+            for (int i = 0; i < columnCount; i++) {
+                lengths[i] = in.readInt();
+            }
+            long[] offsets = new long[COLUMNS];
+            long offset = counting.count;
+            for (int i = 0; i < columnCount; i++) {
+                offsets[i] = offset;
+                offset += lengths[i];
+            }
+            return new AuditArchiveFile(path, rowCount, minMicros, maxMicros, minUser, maxUser,
+                    actions, resources, statuses, severities, minId, maxId, idFilter, columnCount, offsets, lengths,
+                    Files.size(path));
+        }
+    }
+
+    Columns columns() {
+        return new Columns();
+    }
+
+    /** Lazily inflated view of this file's columns; not thread-safe, use one per query. */
+    final class Columns {
+        private final Object[] decoded = new Object[COLUMNS];
+        private FileChannel channel;
+
+        String[] strings(int column) throws IOException {
+            if (decoded[column] == null) {
+                String[] values = new String[rowCount];
+                DataInputStream in = inflate(column);
+                for (int i = 0; i < rowCount; i++) {
+                    values[i] = readString(in);
+                }
+                decoded[column] = values;
+            }
+            return (String[]) decoded[column];
+        }
+
+        long[] micros() throws IOException {
+            if (decoded[CREATED_AT] == null) {
+                long[] values = new long[rowCount];
+                DataInputStream in = inflate(CREATED_AT);
+                long previous = minMicros;
+                for (int i = 0; i < rowCount; i++) {
+                    previous += readVarLong(in);
+                    values[i] = previous;
+                }
+                decoded[CREATED_AT] = values;
+            }
+            return (long[]) decoded[CREATED_AT];
+        }
+
+        int[] codes(int column) throws IOException {
+            if (decoded[column] == null) {
+                int[] values = new int[rowCount];
+                DataInputStream in = inflate(column);
+                for (int i = 0; i < rowCount; i++) {
+                    values[i] = (int) readVarLong(in);
+                }
+                decoded[column] = values;
+            }
+            return (int[]) decoded[column];
+        }
+
+        AuditLog row(int index) throws IOException {
+            AuditLog auditLog = new AuditLog();
+            auditLog.setId(strings(ID)[index]);
+            auditLog.setCreatedAt(toLocalDateTime(micros()[index]));
+            auditLog.setUserId(strings(USER_ID)[index]);
+            auditLog.setAction(actions[codes(ACTION)[index]]);
+            auditLog.setResource(resources[codes(RESOURCE)[index]]);
+            auditLog.setStatus(statuses[codes(STATUS)[index]]);
+            auditLog.setDetails(strings(DETAILS)[index]);
+            auditLog.setIpAddress(strings(IP_ADDRESS)[index]);
+            auditLog.setUserAgent(strings(USER_AGENT)[index]);
+            if (columnCount > SEVERITY) {
+                String severity = severities[codes(SEVERITY)[index]];
+                auditLog.setSeverity(severity != null ? AuditSeverity.valueOf(severity) : null);
+            }
+            return auditLog;
+        }
+
+        private DataInputStream inflate(int column) throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(columnLengths[column]);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, columnOffsets[column] + buffer.position()) < 0) {
+                    throw new EOFException("Truncated audit archive file: " + path);
+                }
+            }
+            return new DataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(new ByteArrayInputStream(buffer.array()), new Inflater())));
+        }
+
+        void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // read-only channel, nothing to lose
+                }
+            }
+        }
+    }
+
+    /** Header-only test: {@code false} means the file certainly does not hold {@code id}. */
+    boolean mayContainId(String id) {
+        if (minId != null && (id.compareTo(minId) < 0 || id.compareTo(maxId) > 0)) {
+            return false;
+        }
+        return idFilter == null || idFilter.mightContain(id);
+    }
+
+    int actionCode(String action) {
+        return Arrays.asList(actions).indexOf(action);
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime toLocalDateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private interface ColumnWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] compress(ColumnWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 64 * 1024))) {
+            writer.write(out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String severityName(AuditLog row) {
+        return row.getSeverity() != null ? row.getSeverity().name() : null;
+    }
+
+    private static String key(String value) {
+        return value == null ? "\0" : value;
+    }
+
+    private static void code(Map<String, Integer> codes, String value) {
+        codes.putIfAbsent(key(value), codes.size());
+    }
+
+    private static void writeDictionary(DataOutputStream out, Map<String, Integer> codes) throws IOException {
+        out.writeInt(codes.size());
+        for (String value : codes.keySet()) {
+            writeString(out, "\0".equals(value) ? null : value);
+        }
+    }
+
+    private static String[] readDictionary(DataInputStream in) throws IOException {
+        String[] values = new String[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    /** Varint length + 1, so 0 encodes {@code null}; then UTF-8 bytes. */
+    private static void writeString(DataOutputStream out, String value) {
+        try {
+            if (value == null) {
+                writeVarLong(out, 0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length + 1L);
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) {
+        try {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.banking.audit.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * The {@code audit_archive_files} table: one row per archive file, written before the hot rows
+ * it holds are deleted. It is the shared record of what the archive must contain, which lets
+ * an instance check that its archive directory really is the shared one before it deletes
+ * anything. Archiving runs under a session advisory lock so only one instance archives at a
+ * time; the lock goes away with the session if that instance dies.
+ */
+@Repository
+@ConditionalOnExpression("${audit.archive.enabled:false} and '${audit.store.backend:jpa}' == 'jpa'")
+public class AuditArchiveManifest {
+
+    // Arbitrary application-wide key for pg_try_advisory_lock; "AUDA" in ASCII
+    private static final long ARCHIVE_LOCK_KEY = 0x41554441L;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_archive_files (name, row_count, min_created_at, max_created_at, size_bytes) "
+            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (name) DO NOTHING";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs {@code task} while holding the archive lock. Returns {@code false} without running it
+     * when another instance holds the lock.
+     */
+    public boolean runExclusively(Runnable task) {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                return false;
+            }
+            try {
+                task.run();
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    public void record(String name, int rowCount, Timestamp minCreatedAt, Timestamp maxCreatedAt, long sizeBytes) {
+        jdbcTemplate.update(INSERT_SQL, name, rowCount, minCreatedAt, maxCreatedAt, sizeBytes);
+    }
+
+    public List<String> fileNames() {
+        return jdbcTemplate.queryForList("SELECT name FROM audit_archive_files", String.class);
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setLong(1, ARCHIVE_LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
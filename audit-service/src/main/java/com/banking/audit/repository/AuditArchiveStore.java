@@ -0,0 +1,388 @@
+package com.banking.audit.repository;
+
+import com.banking.audit.dto.AuditCursor;
+import com.banking.audit.entity.AuditLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cold tier for aged audit logs: a directory of immutable {@link AuditArchiveFile}s. File
+ * headers are loaded at startup; queries prune files by their time range, user id range and
+ * action dictionary before inflating any column, and only the filter columns are inflated
+ * until a row is known to be in the result.
+ *
+ * Ordering matches the hot table's keyset order, {@code (created_at, id)} descending.
+ *
+ * The directory must be storage every instance shares and that outlives pods, such as a
+ * ReadWriteMany volume: rows deleted from the hot table exist nowhere else. It counts as such
+ * only if it holds the {@value #STORE_MARKER} file, which is created when the volume is
+ * provisioned and never by the service, and every file in the {@link AuditArchiveManifest}.
+ * Files written by other instances are picked up every {@code refresh-ms}.
+ */
+@Repository
+@ConditionalOnExpression("${audit.archive.enabled:false} and '${audit.store.backend:jpa}' == 'jpa'")
+public class AuditArchiveStore {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditArchiveStore.class);
+
+    public static final String STORE_MARKER = ".audit-archive-store";
+
+    private static final Comparator<Hit> ORDER = Comparator.<Hit>comparingLong(h -> h.micros).thenComparing(h -> h.id);
+
+    private final Path dir;
+    private final AuditArchiveManifest manifest;
+    private final List<AuditArchiveFile> files = new CopyOnWriteArrayList<>();
+
+    public AuditArchiveStore(@Value("${audit.archive.dir:data/audit-archive}") String dir,
+                             AuditArchiveManifest manifest,
+                             MeterRegistry meterRegistry) throws IOException {
+        this.dir = Paths.get(dir);
+        this.manifest = manifest;
+        Files.createDirectories(this.dir);
+        openNewFiles();
+        log.info("Opened audit archive {}: {} files, {} rows", this.dir, files.size(), rowCount());
+
+        Gauge.builder("banking_audit_archive_files", files, List::size)
+            .description("Audit archive files on disk")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        Gauge.builder("banking_audit_archive_rows", this, AuditArchiveStore::rowCount)
+            .description("Audit log rows held in the archive")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        Gauge.builder("banking_audit_archive_bytes", this, AuditArchiveStore::sizeBytes)
+            .description("Compressed size of the audit archive")
+            .tag("service", "audit")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Writes {@code rows} as one archive file named after its time range and records it in the
+     * manifest. If that file already exists (a previous run wrote it but did not finish deleting
+     * the hot rows), it is reused.
+     */
+    public synchronized void append(List<AuditLog> rows) throws IOException {
+        AuditLog first = rows.stream().min(Comparator.comparing(AuditLog::getCreatedAt)).orElseThrow();
+        AuditLog last = rows.stream().max(Comparator.comparing(AuditLog::getCreatedAt)).orElseThrow();
+        Path target = dir.resolve(String.format("audit-%d-%d-%d%s",
+                AuditArchiveFile.toMicros(first.getCreatedAt()), AuditArchiveFile.toMicros(last.getCreatedAt()),
+                rows.size(), AuditArchiveFile.SUFFIX));
+        AuditArchiveFile file = files.stream().filter(f -> f.path.equals(target)).findFirst().orElse(null);
+        if (file == null) {
+            file = AuditArchiveFile.write(target, rows);
+            files.add(file);
+        }
+        manifest.record(target.getFileName().toString(), file.rowCount, Timestamp.valueOf(first.getCreatedAt()),
+                Timestamp.valueOf(last.getCreatedAt()), file.sizeBytes);
+    }
+
+    /**
+     * Why rows must not be moved into this directory, or {@code null} if it is the shared store:
+     * it holds the provisioning marker and every file the manifest lists.
+     */
+    public String sharedStoreProblem() {
+        if (!Files.exists(dir.resolve(STORE_MARKER))) {
+            return dir.toAbsolutePath() + " has no " + STORE_MARKER + " marker; mount the shared archive volume there";
+        }
+        refresh();
+        Set<String> present = new HashSet<>();
+        files.forEach(f -> present.add(f.path.getFileName().toString()));
+        for (String name : manifest.fileNames()) {
+            if (!present.contains(name)) {
+                return dir.toAbsolutePath() + " lacks archived file " + name + "; it is not the shared archive";
+            }
+        }
+        return null;
+    }
+
+    /** Opens archive files that other instances have written since the last look. */
+    @Scheduled(fixedDelayString = "${audit.archive.refresh-ms:10000}")
+    public void refresh() {
+        try {
+            openNewFiles();
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not refresh audit archive {}", dir, e);
+        }
+    }
+
+    private synchronized void openNewFiles() throws IOException {
+        Set<Path> known = new HashSet<>();
+        files.forEach(f -> known.add(f.path));
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + AuditArchiveFile.SUFFIX)) {
+            for (Path path : stream) {
+                if (!known.contains(path)) {
+                    files.add(AuditArchiveFile.open(path));
+                }
+            }
+        }
+    }
+
+    public long rowCount() {
+        return files.stream().mapToLong(f -> f.rowCount).sum();
+    }
+
+    /** Creation time of the newest archived row, or {@code null} when the archive is empty. */
+    public LocalDateTime newest() {
+        return files.stream().mapToLong(f -> f.maxMicros).max()
+                .stream().mapToObj(AuditArchiveFile::toLocalDateTime).findFirst().orElse(null);
+    }
+
+    public long sizeBytes() {
+        return files.stream().mapToLong(f -> f.sizeBytes).sum();
+    }
+
+    /** Inflates the id column only of files whose id range and filter admit {@code id}. */
+    public Optional<AuditLog> findById(String id) {
+        for (AuditArchiveFile file : files) {
+            if (!file.mayContainId(id)) {
+                continue;
+            }
+            AuditArchiveFile.Columns columns = file.columns();
+            try {
+                String[] ids = columns.strings(AuditArchiveFile.ID);
+                for (int i = 0; i < ids.length; i++) {
+                    if (id.equals(ids[i])) {
+                        return Optional.of(columns.row(i));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                columns.close();
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** Whether any archived row matches; stops at the first one found. */
+    public boolean exists(String userId, String action, LocalDateTime from, LocalDateTime to) {
+        return !top(new Filter(userId, action, from, to, null), 1).isEmpty();
+    }
+
+    /** Offset query, newest first. */
+    public List<AuditLog> find(String userId, String action, LocalDateTime from, LocalDateTime to,
+                               long offset, int limit) {
+        List<AuditLog> top = top(new Filter(userId, action, from, to, null), (int) Math.min(Integer.MAX_VALUE, offset + limit));
+        return offset >= top.size() ? List.of() : top.subList((int) offset, top.size());
+    }
+
+    /** Keyset query, newest first, strictly after {@code after}. Returns at most {@code limit} rows. */
+    public List<AuditLog> findAfter(String userId, String action, LocalDateTime from, LocalDateTime to,
+                                    AuditCursor after, int limit) {
+        return top(new Filter(userId, action, from, to, after), limit);
+    }
+
+    /**
+     * Streams archived rows with {@code from <= created_at < to} in ascending
+     * {@code (created_at, id)} order: a k-way merge over the files whose time range overlaps
+     * the window, normally one or two.
+     */
+    public void scan(LocalDateTime from, LocalDateTime to, Consumer<AuditLog> sink) {
+        Filter filter = new Filter(null, null, from, to, null);
+        PriorityQueue<Hit> heads = new PriorityQueue<>(ORDER);
+        Map<AuditArchiveFile, AuditArchiveFile.Columns> opened = new IdentityHashMap<>();
+        try {
+            for (AuditArchiveFile file : files) {
+                if (!filter.mayMatch(file)) {
+                    continue;
+                }
+                AuditArchiveFile.Columns columns = file.columns();
+                opened.put(file, columns);
+                Hit head = nextInRange(file, columns, filter, 0);
+                if (head != null) {
+                    heads.add(head);
+                }
+            }
+            while (!heads.isEmpty()) {
+                Hit hit = heads.poll();
+                AuditArchiveFile.Columns columns = opened.get(hit.file);
+                sink.accept(columns.row(hit.index));
+                Hit next = nextInRange(hit.file, columns, filter, hit.index + 1);
+                if (next != null) {
+                    heads.add(next);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            opened.values().forEach(AuditArchiveFile.Columns::close);
+        }
+    }
+
+    private static Hit nextInRange(AuditArchiveFile file, AuditArchiveFile.Columns columns, Filter filter, int start)
+            throws IOException {
+        long[] micros = columns.micros();
+        if (start == 0) {
+            int lower = Arrays.binarySearch(micros, filter.fromMicros);
+            if (lower < 0) {
+                start = -lower - 1;
+            } else {
+                while (lower > 0 && micros[lower - 1] == filter.fromMicros) {
+                    lower--;
+                }
+                start = lower;
+            }
+        }
+        for (int i = start; i < file.rowCount; i++) {
+            if (micros[i] >= filter.toMicros) {
+                return null;
+            }
+            if (micros[i] >= filter.fromMicros) {
+                return new Hit(file, i, micros[i], columns.strings(AuditArchiveFile.ID)[i]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps the newest {@code k} matches in a min-heap. Files are visited newest first and the
+     * walk stops once a file's max timestamp falls below the heap's minimum; within a file rows
+     * are walked newest first and the scan stops at the first row that cannot enter the heap.
+     */
+    private List<AuditLog> top(Filter filter, int k) {
+        if (k <= 0) {
+            return List.of();
+        }
+        List<AuditArchiveFile> ordered = new ArrayList<>(files);
+        ordered.sort(Comparator.comparingLong((AuditArchiveFile f) -> f.maxMicros).reversed());
+
+        PriorityQueue<Hit> heap = new PriorityQueue<>(ORDER);
+        Map<AuditArchiveFile, AuditArchiveFile.Columns> opened = new IdentityHashMap<>();
+        try {
+            for (AuditArchiveFile file : ordered) {
+                if (heap.size() == k && file.maxMicros < heap.peek().micros) {
+                    break;
+                }
+                if (!filter.mayMatch(file)) {
+                    continue;
+                }
+                AuditArchiveFile.Columns columns = file.columns();
+                opened.put(file, columns);
+                long[] micros = columns.micros();
+                String[] ids = columns.strings(AuditArchiveFile.ID);
+                for (int i = file.rowCount - 1; i >= 0; i--) {
+                    if (!filter.matches(file, columns, i)) {
+                        continue;
+                    }
+                    Hit hit = new Hit(file, i, micros[i], ids[i]);
+                    if (heap.size() < k) {
+                        heap.add(hit);
+                    } else if (ORDER.compare(hit, heap.peek()) > 0) {
+                        heap.poll();
+                        heap.add(hit);
+                    } else {
+                        break;
+                    }
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(heap);
+            hits.sort(ORDER.reversed());
+            List<AuditLog> rows = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                rows.add(opened.get(hit.file).row(hit.index));
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            opened.values().forEach(AuditArchiveFile.Columns::close);
+        }
+    }
+
+    private static final class Filter {
+        final String userId;
+        final String action;
+        final long fromMicros;
+        final long toMicros;
+        final long afterMicros;
+        final String afterId;
+        private AuditArchiveFile codedFile;
+        private int actionCode;
+
+        Filter(String userId, String action, LocalDateTime from, LocalDateTime to, AuditCursor after) {
+            this.userId = userId;
+            this.action = action;
+            this.fromMicros = from != null ? AuditArchiveFile.toMicros(from) : Long.MIN_VALUE;
+            this.toMicros = to != null ? AuditArchiveFile.toMicros(to) : Long.MAX_VALUE;
+            this.afterMicros = after != null ? AuditArchiveFile.toMicros(after.getCreatedAt()) : Long.MAX_VALUE;
+            this.afterId = after != null ? after.getId() : null;
+        }
+
+        /** Pruning on header statistics only. */
+        boolean mayMatch(AuditArchiveFile file) {
+            if (file.maxMicros < fromMicros || file.minMicros >= toMicros || file.minMicros > afterMicros) {
+                return false;
+            }
+            if (userId != null && (file.minUser == null
+                    || userId.compareTo(file.minUser) < 0 || userId.compareTo(file.maxUser) > 0)) {
+                return false;
+            }
+            return action == null || file.actionCode(action) >= 0;
+        }
+
+        boolean matches(AuditArchiveFile file, AuditArchiveFile.Columns columns, int i) throws IOException {
+            long micros = columns.micros()[i];
+            if (micros < fromMicros || micros >= toMicros) {
+                return false;
+            }
+            if (afterId != null && (micros > afterMicros
+                    || micros == afterMicros && columns.strings(AuditArchiveFile.ID)[i].compareTo(afterId) >= 0)) {
+                return false;
+            }
+            if (action != null && columns.codes(AuditArchiveFile.ACTION)[i] != actionCode(file)) {
+                return false;
+            }
+            return userId == null || userId.equals(columns.strings(AuditArchiveFile.USER_ID)[i]);
+        }
+
+        private int actionCode(AuditArchiveFile file) {
+            if (codedFile != file) {
+                codedFile = file;
+                actionCode = file.actionCode(action);
+            }
+            return actionCode;
+        }
+    }
+
+    private static final class Hit {
+        final AuditArchiveFile file;
+        final int index;
+        final long micros;
+        final String id;
+
+        Hit(AuditArchiveFile file, int index, long micros, String id) {
+            this.file = file;
+            this.index = index;
+            this.micros = micros;
+            this.id = id;
+        }
+    }
+}
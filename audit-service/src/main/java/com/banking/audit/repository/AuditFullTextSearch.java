@@ -0,0 +1,95 @@
+package com.banking.audit.repository;
+
+import com.banking.audit.dto.AuditSearchResult;
+import com.banking.audit.entity.AuditLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search over {@code audit_logs} with PostgreSQL text search. The inverted index is
+ * the {@code idx_audit_logs_search} GIN index, maintained by PostgreSQL as rows are written;
+ * the document here is the same expression, and every instance searches the one shared table.
+ * Each term is its own {@code plainto_tsquery}, ANDed within a group and ORed across groups.
+ *
+ * Nothing is counted. The range is walked newest first in windows of {@code created_at} that
+ * start at one hour and double, each asking only for the rows still missing, so a common term
+ * is answered from the newest window and never sorts more than one window of matches. One row
+ * beyond {@code limit} is read to tell whether more match. Rows already moved to the archive
+ * are not searched; {@link com.banking.audit.service.AuditService#search} keeps the range out
+ * of it.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "audit.store", name = "backend", havingValue = "jpa", matchIfMissing = true)
+public class AuditFullTextSearch {
+
+    // Must match the expression of idx_audit_logs_search in the schema
+    private static final String DOCUMENT = "to_tsvector('simple', coalesce(details, '') || ' ' || coalesce(resource, '') "
+            + "|| ' ' || coalesce(user_agent, '') || ' ' || coalesce(ip_address, ''))";
+
+    // Both ends come off idx_audit_logs_created_at_id
+    private static final String BOUNDS_SQL = "SELECT min(created_at), max(created_at) FROM audit_logs";
+
+    private static final Duration FIRST_WINDOW = Duration.ofHours(1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** The newest {@code limit} logs matching the query groups, and whether more match. */
+    public AuditSearchResult search(List<List<String>> groups, LocalDateTime from, LocalDateTime to, int limit) {
+        LocalDateTime[] bounds = jdbcTemplate.queryForObject(BOUNDS_SQL, (rs, rowNum) -> new LocalDateTime[] {
+                toLocalDateTime(rs.getTimestamp(1)), toLocalDateTime(rs.getTimestamp(2))});
+        if (bounds == null || bounds[0] == null) {
+            return new AuditSearchResult(List.of(), false);
+        }
+        LocalDateTime lower = from != null && from.isAfter(bounds[0]) ? from : bounds[0];
+        // created_at is stored in microseconds, so this is just past the newest row
+        LocalDateTime upper = bounds[1].plusNanos(1_000);
+        if (to != null && to.isBefore(upper)) {
+            upper = to;
+        }
+
+        StringBuilder query = new StringBuilder();
+        List<Object> terms = new ArrayList<>();
+        for (List<String> group : groups) {
+            query.append(query.length() == 0 ? "(" : " || (");
+            for (int i = 0; i < group.size(); i++) {
+                query.append(i == 0 ? "" : " && ").append("plainto_tsquery('simple', ?)");
+                terms.add(group.get(i));
+            }
+            query.append(")");
+        }
+        String sql = "SELECT " + AuditLogBatchWriter.COLUMNS + " FROM audit_logs WHERE " + DOCUMENT + " @@ (" + query
+                + ") AND created_at >= ? AND created_at < ? ORDER BY created_at DESC, id DESC LIMIT ?";
+
+        List<AuditLog> logs = new ArrayList<>();
+        Duration window = FIRST_WINDOW;
+        LocalDateTime windowEnd = upper;
+        while (windowEnd.isAfter(lower) && logs.size() <= limit) {
+            LocalDateTime windowStart = windowEnd.minus(window);
+            if (windowStart.isBefore(lower)) {
+                windowStart = lower;
+            }
+            List<Object> args = new ArrayList<>(terms);
+            args.add(Timestamp.valueOf(windowStart));
+            args.add(Timestamp.valueOf(windowEnd));
+            args.add(limit + 1 - logs.size());
+            logs.addAll(jdbcTemplate.query(sql, AuditLogBatchWriter.ROW_MAPPER, args.toArray()));
+            windowEnd = windowStart;
+            window = window.multipliedBy(2);
+        }
+        boolean hasMore = logs.size() > limit;
+        return new AuditSearchResult(hasMore ? logs.subList(0, limit) : logs, hasMore);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
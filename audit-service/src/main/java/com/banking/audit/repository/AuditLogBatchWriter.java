@@ -0,0 +1,120 @@
+package com.banking.audit.repository;
+
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.enums.AuditSeverity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Multi-row audit inserts over plain JDBC. Each call is one JDBC batch in one transaction,
+ * so a flush of N events costs a single commit. Inserts are idempotent on the id so replaying
+ * a batch whose commit outcome was unknown is safe.
+ */
+@Repository
+public class AuditLogBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_logs (id, user_id, action, resource, details, ip_address, user_agent, status, severity, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING";
+
+    static final String COLUMNS =
+            "id, user_id, action, resource, details, ip_address, user_agent, status, severity, created_at";
+
+    private static final String SELECT_OLDEST_SQL =
+            "SELECT " + COLUMNS + " FROM audit_logs WHERE created_at < ? ORDER BY created_at, id LIMIT ?";
+
+    private static final String SELECT_RANGE_SQL =
+            "SELECT " + COLUMNS + " FROM audit_logs WHERE created_at >= ? AND created_at < ? ORDER BY created_at, id";
+
+    private static final String SELECT_BY_IDS_SQL = "SELECT " + COLUMNS + " FROM audit_logs WHERE id = ANY (?)";
+
+    private static final int STREAM_FETCH_SIZE = 5_000;
+
+    private static final String DELETE_SQL = "DELETE FROM audit_logs WHERE id = ?";
+
+    static final RowMapper<AuditLog> ROW_MAPPER = (rs, rowNum) -> {
+        AuditLog log = new AuditLog();
+        log.setId(rs.getString("id"));
+        log.setUserId(rs.getString("user_id"));
+        log.setAction(rs.getString("action"));
+        log.setResource(rs.getString("resource"));
+        log.setDetails(rs.getString("details"));
+        log.setIpAddress(rs.getString("ip_address"));
+        log.setUserAgent(rs.getString("user_agent"));
+        log.setStatus(rs.getString("status"));
+        String severity = rs.getString("severity");
+        log.setSeverity(severity != null ? AuditSeverity.valueOf(severity) : null);
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        log.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        return log;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public void insertBatch(List<AuditLog> logs) {
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.batchUpdate(INSERT_SQL, logs, logs.size(), (ps, log) -> {
+                ps.setString(1, log.getId());
+                ps.setString(2, log.getUserId());
+                ps.setString(3, log.getAction());
+                ps.setString(4, log.getResource());
+                ps.setString(5, log.getDetails());
+                ps.setString(6, log.getIpAddress());
+                ps.setString(7, log.getUserAgent());
+                ps.setString(8, log.getStatus());
+                ps.setString(9, log.getSeverity() != null ? log.getSeverity().name() : null);
+                ps.setTimestamp(10, log.getCreatedAt() != null ? Timestamp.valueOf(log.getCreatedAt()) : null);
+            }));
+    }
+
+    /** The rows among {@code ids} that exist, in no particular order, in one round trip. */
+    public List<AuditLog> findByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(SELECT_BY_IDS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", ids.toArray())), ROW_MAPPER);
+    }
+
+    /** Oldest rows created before {@code cutoff}, in {@code (created_at, id)} order. */
+    public List<AuditLog> findOldest(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.query(SELECT_OLDEST_SQL, ROW_MAPPER, Timestamp.valueOf(cutoff), limit);
+    }
+
+    /**
+     * Streams a time range through a forward-only cursor. PgJDBC only honours the fetch size
+     * inside a transaction, so the query runs in one; memory stays at one fetch of rows.
+     */
+    public void streamRange(LocalDateTime from, LocalDateTime to, Consumer<AuditLog> sink) {
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(SELECT_RANGE_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(STREAM_FETCH_SIZE);
+                ps.setTimestamp(1, Timestamp.valueOf(from));
+                ps.setTimestamp(2, Timestamp.valueOf(to));
+                return ps;
+            }, (RowCallbackHandler) rs -> sink.accept(ROW_MAPPER.mapRow(rs, rs.getRow()))));
+    }
+
+    public void deleteBatch(List<AuditLog> logs) {
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.batchUpdate(DELETE_SQL, logs, logs.size(), (ps, log) -> ps.setString(1, log.getId())));
+    }
+}
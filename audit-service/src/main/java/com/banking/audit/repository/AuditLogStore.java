@@ -0,0 +1,49 @@
+package com.banking.audit.repository;
+
+import com.banking.audit.dto.AuditCursor;
+import com.banking.audit.entity.AuditLog;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage backend for audit logs, selected with {@code audit.store.backend}
+ * ({@code jpa} by default, or {@code segment}).
+ */
+public interface AuditLogStore {
+
+    AuditLog save(AuditLog auditLog);
+
+    void saveAll(List<AuditLog> auditLogs);
+
+    Optional<AuditLog> findById(String id);
+
+    /** The logs among {@code ids} that exist, in no particular order, fetched together. */
+    List<AuditLog> findAllById(Collection<String> ids);
+
+    /**
+     * Filters are optional; {@code null} means "any". The time range is inclusive of
+     * {@code from} and exclusive of {@code to}.
+     */
+    Page<AuditLog> find(String userId, String action, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    /**
+     * Keyset variant of {@link #find}: newest first, starting strictly after {@code after}
+     * ({@code null} for the first page), with no total count. Cost does not grow with depth.
+     */
+    Slice<AuditLog> findAfter(String userId, String action, LocalDateTime from, LocalDateTime to,
+                              AuditCursor after, int limit);
+
+    /**
+     * Streams every log with {@code from <= created_at < to} to {@code sink} in ascending
+     * {@code (created_at, id)} order without materializing the range. Exceptions thrown by the
+     * sink abort the scan and propagate.
+     */
+    void scan(LocalDateTime from, LocalDateTime to, Consumer<AuditLog> sink);
+}
@@ -0,0 +1,134 @@
+package com.banking.audit.repository;
+
+import com.banking.audit.dto.AuditCursor;
+import com.banking.audit.entity.AuditLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(prefix = "audit.store", name = "backend", havingValue = "jpa", matchIfMissing = true)
+public class JpaAuditLogStore implements AuditLogStore {
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private AuditLogBatchWriter auditLogBatchWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public AuditLog save(AuditLog auditLog) {
+        return auditLogRepository.save(auditLog);
+    }
+
+    @Override
+    public void saveAll(List<AuditLog> auditLogs) {
+        auditLogBatchWriter.insertBatch(auditLogs);
+    }
+
+    @Override
+    public Optional<AuditLog> findById(String id) {
+        return auditLogRepository.findById(id);
+    }
+
+    @Override
+    public List<AuditLog> findAllById(Collection<String> ids) {
+        return auditLogBatchWriter.findByIds(ids);
+    }
+
+    @Override
+    public Page<AuditLog> find(String userId, String action, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        if (from != null || to != null) {
+            return auditLogRepository.findAll(matching(userId, action, from, to), pageable);
+        }
+        if (userId != null && action != null) {
+            return auditLogRepository.findByUserIdAndAction(userId, action, pageable);
+        } else if (userId != null) {
+            return auditLogRepository.findByUserId(userId, pageable);
+        } else if (action != null) {
+            return auditLogRepository.findByAction(action, pageable);
+        } else {
+            return auditLogRepository.findAll(pageable);
+        }
+    }
+
+    @Override
+    public void scan(LocalDateTime from, LocalDateTime to, Consumer<AuditLog> sink) {
+        auditLogBatchWriter.streamRange(from, to, sink);
+    }
+
+    /**
+     * Seeks on {@code (created_at, id)} so each page is an index range scan on one of the
+     * composite indexes, whatever its depth. The redundant {@code created_at <= ?} bound gives
+     * the planner a range start that the OR alone would hide. Fetches one extra row to tell
+     * whether another page follows instead of counting.
+     */
+    @Override
+    public Slice<AuditLog> findAfter(String userId, String action, LocalDateTime from, LocalDateTime to,
+                                     AuditCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AuditLog> query = cb.createQuery(AuditLog.class);
+        Root<AuditLog> root = query.from(AuditLog.class);
+
+        List<Predicate> predicates = predicates(root, cb, userId, action, from, to);
+        if (after != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), after.getCreatedAt()));
+            predicates.add(cb.or(
+                    cb.lessThan(root.get("createdAt"), after.getCreatedAt()),
+                    cb.lessThan(root.get("id"), after.getId())));
+        }
+        query.where(predicates.toArray(new Predicate[0]))
+             .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+
+        List<AuditLog> rows = entityManager.createQuery(query)
+                .setMaxResults(limit + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > limit;
+        List<AuditLog> content = hasNext ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        return new SliceImpl<>(content, Pageable.ofSize(limit), hasNext);
+    }
+
+    private static Specification<AuditLog> matching(String userId, String action, LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) ->
+                cb.and(predicates(root, cb, userId, action, from, to).toArray(new Predicate[0]));
+    }
+
+    private static List<Predicate> predicates(Root<AuditLog> root, CriteriaBuilder cb, String userId, String action,
+                                              LocalDateTime from, LocalDateTime to) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (userId != null) {
+            predicates.add(cb.equal(root.get("userId"), userId));
+        }
+        if (action != null) {
+            predicates.add(cb.equal(root.get("action"), action));
+        }
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(root.get("createdAt"), to));
+        }
+        return predicates;
+    }
+}
@@ -0,0 +1,643 @@
+package com.banking.audit.repository;
+
+import com.banking.audit.dto.AuditCursor;
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.enums.AuditSeverity;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only audit store on local disk. Records are appended sequentially to fixed-size,
+ * preallocated segment files and fsynced once per batch; each segment is memory-mapped for
+ * reads. Record layout is {@code [int length][int crc32c][payload]}, so a torn write at the
+ * tail is detected and discarded when the segment is rescanned on startup.
+ *
+ * Indexes live in memory and are rebuilt from the segments at startup: record locations and
+ * timestamps by append sequence, a sparse min/max time index per block of records, and
+ * posting lists by user id and by action. Results come back newest first; the pageable's
+ * sort is not applied.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "audit.store", name = "backend", havingValue = "segment")
+public class SegmentedAuditLogStore implements AuditLogStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedAuditLogStore.class);
+
+    private static final int HEADER_BYTES = 8;
+    private static final int TIME_BLOCK = 1024;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path dir;
+    private final int segmentSize;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Object writeMutex = new Object();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] locations = new long[TIME_BLOCK];
+    private long[] timestamps = new long[TIME_BLOCK];
+    private long[] blockMin = new long[16];
+    private long[] blockMax = new long[16];
+    private int count;
+    private final Map<String, IntList> byUser = new HashMap<>();
+    private final Map<String, IntList> byAction = new HashMap<>();
+    private final Map<String, Integer> byId = new HashMap<>();
+
+    public SegmentedAuditLogStore(@Value("${audit.store.segment.dir:data/audit-segments}") String dir,
+                                  @Value("${audit.store.segment.size-mb:64}") long segmentSizeMb) throws IOException {
+        // Segments are mapped whole and record positions are ints, so a segment stays below 2 GiB
+        if (segmentSizeMb < 1 || segmentSizeMb > Integer.MAX_VALUE / (1024 * 1024)) {
+            throw new IllegalArgumentException("audit.store.segment.size-mb must be between 1 and 2047: " + segmentSizeMb);
+        }
+        this.dir = Paths.get(dir);
+        this.segmentSize = (int) (segmentSizeMb * 1024 * 1024);
+        Files.createDirectories(this.dir);
+        recover();
+    }
+
+    @Override
+    public AuditLog save(AuditLog auditLog) {
+        saveAll(List.of(auditLog));
+        return auditLog;
+    }
+
+    @Override
+    public void saveAll(List<AuditLog> batch) {
+        synchronized (writeMutex) {
+            // Replays (e.g. spilled batches) must not append a second copy of an event
+            List<AuditLog> auditLogs = new ArrayList<>(batch.size());
+            lock.readLock().lock();
+            try {
+                for (AuditLog auditLog : batch) {
+                    if (auditLog.getId() == null || !byId.containsKey(auditLog.getId())) {
+                        auditLogs.add(auditLog);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (auditLogs.isEmpty()) {
+                return;
+            }
+
+            // Encode up front so a bad record fails the batch before anything is written
+            byte[][] records = new byte[auditLogs.size()][];
+            for (int i = 0; i < auditLogs.size(); i++) {
+                AuditLog auditLog = auditLogs.get(i);
+                if (auditLog.getCreatedAt() == null) {
+                    auditLog.setCreatedAt(LocalDateTime.now());
+                }
+                records[i] = encodeRecord(auditLog);
+                if (records[i].length > segmentSize) {
+                    throw new IllegalArgumentException("Audit record of " + records[i].length + " bytes exceeds segment size");
+                }
+            }
+
+            // Each run is indexed as soon as it is on disk, so a failure part way through a batch
+            // leaves the index matching the segments: earlier runs stay, the failed one is dropped
+            long[] newLocations = new long[auditLogs.size()];
+            Segment segment = segments.get(segments.size() - 1);
+            ByteBuffer run = ByteBuffer.allocate(Math.min(segmentSize, 1 << 20));
+            int runStart = segment.writePosition;
+            int runFirst = 0;
+            try {
+                for (int i = 0; i < auditLogs.size(); i++) {
+                    byte[] record = records[i];
+                    if (segment.writePosition + record.length > segmentSize) {
+                        writeRun(segment, run, runStart);
+                        segment.channel.force(false);
+                        indexRun(auditLogs, newLocations, runFirst, i);
+                        runFirst = i;
+                        segment = openSegment(segment.index + 1);
+                        segments.add(segment);
+                        runStart = 0;
+                    }
+                    if (run.remaining() < record.length) {
+                        writeRun(segment, run, runStart);
+                        indexRun(auditLogs, newLocations, runFirst, i);
+                        runFirst = i;
+                        runStart = segment.writePosition;
+                        if (run.capacity() < record.length) {
+                            run = ByteBuffer.allocate(record.length);
+                        }
+                    }
+                    newLocations[i] = ((long) segment.index << 32) | segment.writePosition;
+                    run.put(record);
+                    segment.writePosition += record.length;
+                }
+                writeRun(segment, run, runStart);
+                segment.channel.force(false);
+                indexRun(auditLogs, newLocations, runFirst, auditLogs.size());
+            } catch (IOException e) {
+                // The failed run may be partly on disk; cut the segment there so recovery stops
+                // at the same place and the next append overwrites it
+                segment.writePosition = runStart;
+                try {
+                    segment.channel.write(ByteBuffer.allocate(HEADER_BYTES), runStart);
+                } catch (IOException ignored) {
+                    // Recovery still stops at the first record whose CRC does not match
+                }
+                throw new UncheckedIOException("Could not append audit records", e);
+            }
+        }
+    }
+
+    private void indexRun(List<AuditLog> auditLogs, long[] newLocations, int from, int to) {
+        lock.writeLock().lock();
+        try {
+            for (int i = from; i < to; i++) {
+                AuditLog auditLog = auditLogs.get(i);
+                index(newLocations[i], auditLog.getId(), auditLog.getUserId(), auditLog.getAction(),
+                        toMicros(auditLog.getCreatedAt()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<AuditLog> findById(String id) {
+        lock.readLock().lock();
+        try {
+            Integer seq = byId.get(id);
+            return seq == null ? Optional.empty() : Optional.of(read(locations[seq]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<AuditLog> findAllById(Collection<String> ids) {
+        List<AuditLog> found = new ArrayList<>(ids.size());
+        lock.readLock().lock();
+        try {
+            for (String id : ids) {
+                Integer seq = byId.get(id);
+                if (seq != null) {
+                    found.add(read(locations[seq]));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    @Override
+    public Page<AuditLog> find(String userId, String action, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        boolean timeFiltered = from != null || to != null;
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+
+        lock.readLock().lock();
+        try {
+            IntList candidates = candidates(userId, action);
+
+            List<AuditLog> content = new ArrayList<>();
+            long total = 0;
+            if (candidates != null) {
+                for (int i = candidates.size - 1; i >= 0; i--) {
+                    int seq = candidates.values[i];
+                    if (timeFiltered && !inRange(timestamps[seq], fromMicros, toMicros)) {
+                        continue;
+                    }
+                    if (total >= offset && content.size() < limit) {
+                        content.add(read(locations[seq]));
+                    }
+                    total++;
+                }
+            } else if (!timeFiltered) {
+                total = count;
+                for (long seq = count - 1 - offset; seq >= 0 && content.size() < limit; seq--) {
+                    content.add(read(locations[(int) seq]));
+                }
+            } else {
+                // Sparse time index: skip whole blocks whose min/max cannot overlap the range
+                for (int block = (count - 1) / TIME_BLOCK; block >= 0; block--) {
+                    if (blockMax[block] < fromMicros || blockMin[block] >= toMicros) {
+                        continue;
+                    }
+                    int end = Math.min(count, (block + 1) * TIME_BLOCK);
+                    for (int seq = end - 1; seq >= block * TIME_BLOCK; seq--) {
+                        if (!inRange(timestamps[seq], fromMicros, toMicros)) {
+                            continue;
+                        }
+                        if (total >= offset && content.size() < limit) {
+                            content.add(read(locations[seq]));
+                        }
+                        total++;
+                    }
+                }
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keyset pages follow append order, which is this store's natural ordering; the cursor's
+     * id is resolved to its append position and the scan resumes just below it.
+     */
+    @Override
+    public Slice<AuditLog> findAfter(String userId, String action, LocalDateTime from, LocalDateTime to,
+                                     AuditCursor after, int limit) {
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        boolean timeFiltered = from != null || to != null;
+
+        lock.readLock().lock();
+        try {
+            int start = count;
+            if (after != null) {
+                Integer seq = byId.get(after.getId());
+                if (seq == null) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                start = seq;
+            }
+
+            List<AuditLog> content = new ArrayList<>();
+            boolean hasNext = false;
+            IntList candidates = candidates(userId, action);
+            if (candidates != null) {
+                int i = Arrays.binarySearch(candidates.values, 0, candidates.size, start);
+                for (i = (i >= 0 ? i : -i - 1) - 1; i >= 0 && !hasNext; i--) {
+                    int seq = candidates.values[i];
+                    if (timeFiltered && !inRange(timestamps[seq], fromMicros, toMicros)) {
+                        continue;
+                    }
+                    if (content.size() == limit) {
+                        hasNext = true;
+                    } else {
+                        content.add(read(locations[seq]));
+                    }
+                }
+            } else {
+                for (int seq = start - 1; seq >= 0 && !hasNext; seq--) {
+                    boolean blockStart = seq == start - 1 || seq % TIME_BLOCK == TIME_BLOCK - 1;
+                    if (timeFiltered && blockStart) {
+                        // Sparse time index: jump over blocks that cannot overlap the range
+                        int block = seq / TIME_BLOCK;
+                        if (blockMax[block] < fromMicros || blockMin[block] >= toMicros) {
+                            seq = block * TIME_BLOCK;
+                            continue;
+                        }
+                    }
+                    if (timeFiltered && !inRange(timestamps[seq], fromMicros, toMicros)) {
+                        continue;
+                    }
+                    if (content.size() == limit) {
+                        hasNext = true;
+                    } else {
+                        content.add(read(locations[seq]));
+                    }
+                }
+            }
+            return new SliceImpl<>(content, Pageable.ofSize(limit), hasNext);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks the blocks of the sparse time index that overlap the range, taking the read lock one
+     * block at a time, and reads the records from the mapped segments without it. Append order
+     * is nearly time order, so a match waits in a small heap only until no later block can hold
+     * an earlier timestamp; memory is bounded by that disorder, not by the size of the range.
+     * Records appended after the scan starts are not included.
+     */
+    @Override
+    public void scan(LocalDateTime from, LocalDateTime to, Consumer<AuditLog> sink) {
+        long fromMicros = toMicros(from);
+        long toMicros = toMicros(to);
+        int end;
+        int[] blocks;
+        // laterMin[i]: no in-range record in blocks[i..] is older than this
+        long[] laterMin;
+        int overlapping = 0;
+        lock.readLock().lock();
+        try {
+            end = count;
+            blocks = new int[(end + TIME_BLOCK - 1) / TIME_BLOCK];
+            for (int block = 0; block < blocks.length; block++) {
+                if (blockMax[block] >= fromMicros && blockMin[block] < toMicros) {
+                    blocks[overlapping++] = block;
+                }
+            }
+            laterMin = new long[overlapping + 1];
+            laterMin[overlapping] = Long.MAX_VALUE;
+            for (int i = overlapping - 1; i >= 0; i--) {
+                laterMin[i] = Math.min(Math.max(blockMin[blocks[i]], fromMicros), laterMin[i + 1]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // {timestamp, seq, location}; seq keeps append order among equal timestamps
+        PriorityQueue<long[]> pending = new PriorityQueue<>(
+                Comparator.<long[]>comparingLong(entry -> entry[0]).thenComparingLong(entry -> entry[1]));
+        for (int i = 0; i < overlapping; i++) {
+            int first = blocks[i] * TIME_BLOCK;
+            int last = Math.min(end, first + TIME_BLOCK);
+            lock.readLock().lock();
+            try {
+                for (int seq = first; seq < last; seq++) {
+                    if (inRange(timestamps[seq], fromMicros, toMicros)) {
+                        pending.add(new long[] {timestamps[seq], seq, locations[seq]});
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            while (!pending.isEmpty() && pending.peek()[0] < laterMin[i + 1]) {
+                sink.accept(read(pending.poll()[2]));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (writeMutex) {
+            for (Segment segment : segments) {
+                try {
+                    segment.channel.close();
+                } catch (IOException e) {
+                    log.warn("Could not close audit segment {}", segment.path, e);
+                }
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        TreeMap<Integer, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                files.put(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), path);
+            }
+        }
+        if (files.isEmpty()) {
+            segments.add(openSegment(0));
+            return;
+        }
+        for (int index : files.keySet()) {
+            Segment segment = openSegment(index);
+            segments.add(segment);
+            scan(segment);
+        }
+        log.info("Recovered {} audit records from {} segments in {}", count, segments.size(), dir);
+    }
+
+    private void scan(Segment segment) {
+        int position = 0;
+        CRC32C crc = new CRC32C();
+        while (position + HEADER_BYTES <= segmentSize) {
+            int length = segment.map.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > segmentSize) {
+                break;
+            }
+            ByteBuffer payload = segment.map.slice(position + HEADER_BYTES, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != segment.map.getInt(position + 4)) {
+                log.warn("Discarding torn audit record at {}:{}", segment.path.getFileName(), position);
+                break;
+            }
+            AuditLog auditLog = decode(payload);
+            index(((long) segment.index << 32) | position, auditLog.getId(), auditLog.getUserId(),
+                    auditLog.getAction(), toMicros(auditLog.getCreatedAt()));
+            position += HEADER_BYTES + length;
+        }
+        segment.writePosition = position;
+    }
+
+    private Segment openSegment(int index) throws IOException {
+        Path path = dir.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            if (file.length() < segmentSize) {
+                file.setLength(segmentSize);
+            }
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(index, path, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, segmentSize));
+    }
+
+    private static void writeRun(Segment segment, ByteBuffer run, int position) throws IOException {
+        run.flip();
+        while (run.hasRemaining()) {
+            position += segment.channel.write(run, position);
+        }
+        run.clear();
+    }
+
+    private void index(long location, String id, String userId, String action, long micros) {
+        if (id != null && byId.containsKey(id)) {
+            return;
+        }
+        if (count == locations.length) {
+            locations = Arrays.copyOf(locations, count * 2);
+            timestamps = Arrays.copyOf(timestamps, count * 2);
+        }
+        int seq = count++;
+        locations[seq] = location;
+        timestamps[seq] = micros;
+
+        int block = seq / TIME_BLOCK;
+        if (block == blockMin.length) {
+            blockMin = Arrays.copyOf(blockMin, block * 2);
+            blockMax = Arrays.copyOf(blockMax, block * 2);
+        }
+        if (seq % TIME_BLOCK == 0) {
+            blockMin[block] = micros;
+            blockMax[block] = micros;
+        } else {
+            blockMin[block] = Math.min(blockMin[block], micros);
+            blockMax[block] = Math.max(blockMax[block], micros);
+        }
+
+        if (id != null) {
+            byId.put(id, seq);
+        }
+        if (userId != null) {
+            byUser.computeIfAbsent(userId, k -> new IntList()).add(seq);
+        }
+        if (action != null) {
+            byAction.computeIfAbsent(action, k -> new IntList()).add(seq);
+        }
+    }
+
+    private IntList candidates(String userId, String action) {
+        if (userId != null && action != null) {
+            return IntList.intersect(byUser.get(userId), byAction.get(action));
+        } else if (userId != null) {
+            return byUser.getOrDefault(userId, IntList.EMPTY);
+        } else if (action != null) {
+            return byAction.getOrDefault(action, IntList.EMPTY);
+        }
+        return null;
+    }
+
+    private AuditLog read(long location) {
+        Segment segment = segments.get((int) (location >>> 32));
+        int position = (int) location;
+        int length = segment.map.getInt(position);
+        return decode(segment.map.slice(position + HEADER_BYTES, length));
+    }
+
+    private static boolean inRange(long micros, long fromMicros, long toMicros) {
+        return micros >= fromMicros && micros < toMicros;
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static byte[] encodeRecord(AuditLog auditLog) {
+        String[] fields = {auditLog.getId(), auditLog.getUserId(), auditLog.getAction(), auditLog.getResource(),
+                auditLog.getDetails(), auditLog.getIpAddress(), auditLog.getUserAgent(), auditLog.getStatus(),
+                auditLog.getSeverity() != null ? auditLog.getSeverity().name() : null};
+        byte[][] encoded = new byte[fields.length][];
+        int payloadLength = 12;
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = fields[i] != null ? fields[i].getBytes(StandardCharsets.UTF_8) : null;
+            payloadLength += 4 + (encoded[i] != null ? encoded[i].length : 0);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+        buffer.putInt(payloadLength).putInt(0);
+        buffer.putLong(auditLog.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(auditLog.getCreatedAt().getNano());
+        for (byte[] field : encoded) {
+            if (field == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(field.length).put(field);
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_BYTES, payloadLength);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    private static AuditLog decode(ByteBuffer payload) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setCreatedAt(LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC));
+        auditLog.setId(readString(payload));
+        auditLog.setUserId(readString(payload));
+        auditLog.setAction(readString(payload));
+        auditLog.setResource(readString(payload));
+        auditLog.setDetails(readString(payload));
+        auditLog.setIpAddress(readString(payload));
+        auditLog.setUserAgent(readString(payload));
+        auditLog.setStatus(readString(payload));
+        // Severity was added later; records written before it end after the status
+        if (payload.hasRemaining()) {
+            String severity = readString(payload);
+            auditLog.setSeverity(severity != null ? AuditSeverity.valueOf(severity) : null);
+        }
+        return auditLog;
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+        private final int index;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer map;
+        private int writePosition;
+
+        Segment(int index, Path path, FileChannel channel, MappedByteBuffer map) {
+            this.index = index;
+            this.path = path;
+            this.channel = channel;
+            this.map = map;
+        }
+    }
+
+    /** Growable, append-only list of ascending sequence numbers. */
+    private static final class IntList {
+        static final IntList EMPTY = new IntList();
+
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        static IntList intersect(IntList a, IntList b) {
+            IntList result = new IntList();
+            if (a == null || b == null) {
+                return result;
+            }
+            int i = 0;
+            int j = 0;
+            while (i < a.size && j < b.size) {
+                if (a.values[i] < b.values[j]) {
+                    i++;
+                } else if (a.values[i] > b.values[j]) {
+                    j++;
+                } else {
+                    result.add(a.values[i]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.banking.audit.service;
+
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.repository.AuditArchiveManifest;
+import com.banking.audit.repository.AuditArchiveStore;
+import com.banking.audit.repository.AuditLogBatchWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves audit rows older than {@code retention-days} out of the hot table into the columnar
+ * archive, {@code rows-per-file} rows at a time, oldest first. Each chunk is written and
+ * fsynced and recorded in the manifest before its rows are deleted; if the delete does not
+ * happen, the next run selects the same rows, finds the file already present and only retries
+ * the delete.
+ *
+ * Only one instance archives at a time, under the manifest's advisory lock, and only into a
+ * directory that passes {@link AuditArchiveStore#sharedStoreProblem()}; otherwise the run
+ * deletes nothing.
+ */
+@Service
+@ConditionalOnExpression("${audit.archive.enabled:false} and '${audit.store.backend:jpa}' == 'jpa'")
+public class AuditArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditArchiveService.class);
+
+    @Autowired
+    private AuditLogBatchWriter auditLogBatchWriter;
+
+    @Autowired
+    private AuditArchiveStore auditArchiveStore;
+
+    @Autowired
+    private AuditArchiveManifest auditArchiveManifest;
+
+    private final int retentionDays;
+    private final int rowsPerFile;
+    private final Counter archivedCounter;
+
+    public AuditArchiveService(@Value("${audit.archive.retention-days:30}") int retentionDays,
+                               @Value("${audit.archive.rows-per-file:100000}") int rowsPerFile,
+                               MeterRegistry meterRegistry) {
+        this.retentionDays = retentionDays;
+        this.rowsPerFile = rowsPerFile;
+        this.archivedCounter = Counter.builder("banking_audit_archived_total")
+            .description("Audit log rows moved from the hot table to the archive")
+            .tag("service", "audit")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${audit.archive.interval-ms:3600000}",
+               initialDelayString = "${audit.archive.initial-delay-ms:60000}")
+    public void archive() {
+        String problem = auditArchiveStore.sharedStoreProblem();
+        if (problem != null) {
+            log.error("Audit archiving skipped: {}", problem);
+            return;
+        }
+        if (!auditArchiveManifest.runExclusively(this::archiveOldRows)) {
+            log.debug("Audit archiving is running on another instance");
+        }
+    }
+
+    private void archiveOldRows() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long moved = 0;
+        try {
+            List<AuditLog> rows;
+            do {
+                rows = auditLogBatchWriter.findOldest(cutoff, rowsPerFile);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                auditArchiveStore.append(rows);
+                auditLogBatchWriter.deleteBatch(rows);
+                archivedCounter.increment(rows.size());
+                moved += rows.size();
+            } while (rows.size() == rowsPerFile);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Audit archiving stopped after {} rows, will retry", moved, e);
+            return;
+        }
+        if (moved > 0) {
+            log.info("Archived {} audit rows older than {}; archive now {} rows in {} bytes",
+                    moved, cutoff, auditArchiveStore.rowCount(), auditArchiveStore.sizeBytes());
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package com.banking.audit.service;
+
+import com.banking.audit.dto.AuditExportJob;
+import com.banking.audit.dto.AuditExportRequest;
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.repository.AuditArchiveStore;
+import com.banking.audit.repository.AuditLogStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Bulk audit export. The requested window is split into fixed-length time shards; up to
+ * {@code parallelism} shards are read at once, each through a forward-only scan of the archive
+ * and then the hot store, and encoded into small chunks on a bounded queue. The writer drains
+ * the shards strictly in order, so output is sorted by time while memory stays bounded by
+ * {@code parallelism * queue-chunks * chunk-bytes} whatever the size of the export.
+ *
+ * With the jpa backend every shard being read holds a pooled connection for its streaming
+ * query, so {@code max-concurrent} and {@code parallelism} are lowered at startup until all
+ * exports together cannot hold more shards than the connection pool has connections.
+ *
+ * File exports write a manifest after every completed shard recording how many shards and
+ * bytes of output are final. A resumed export truncates the file to that point and continues
+ * with the next shard.
+ */
+@Service
+public class AuditExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditExportService.class);
+
+    private static final byte[] END = new byte[0];
+    private static final String CSV_HEADER =
+            "id,created_at,user_id,action,resource,status,severity,ip_address,user_agent,details\n";
+
+    @Autowired
+    private AuditLogStore auditLogStore;
+
+    @Autowired(required = false)
+    private AuditArchiveStore auditArchiveStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Path dir;
+    private final int parallelism;
+    private final int defaultShardMinutes;
+    private final int chunkBytes;
+    private final int queueChunks;
+    private final Semaphore running;
+    private final ExecutorService jobRunner;
+    private final Map<String, AuditExportJob> jobs = new ConcurrentHashMap<>();
+    private final Counter exportedRows;
+    private final AtomicInteger activeExports = new AtomicInteger();
+
+    public AuditExportService(@Value("${audit.export.dir:data/audit-exports}") String dir,
+                              @Value("${audit.export.parallelism:4}") int parallelism,
+                              @Value("${audit.export.shard-minutes:60}") int defaultShardMinutes,
+                              @Value("${audit.export.chunk-bytes:65536}") int chunkBytes,
+                              @Value("${audit.export.queue-chunks:16}") int queueChunks,
+                              @Value("${audit.export.max-concurrent:2}") int maxConcurrent,
+                              @Value("${audit.store.backend:jpa}") String backend,
+                              @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                              MeterRegistry meterRegistry) {
+        if ("jpa".equals(backend) && parallelism * maxConcurrent > poolSize) {
+            int cappedConcurrent = Math.max(1, Math.min(maxConcurrent, poolSize));
+            int cappedParallelism = Math.max(1, Math.min(parallelism, poolSize / cappedConcurrent));
+            log.warn("audit.export parallelism {} x max-concurrent {} exceeds the connection pool ({}); using {} x {}",
+                    parallelism, maxConcurrent, poolSize, cappedParallelism, cappedConcurrent);
+            parallelism = cappedParallelism;
+            maxConcurrent = cappedConcurrent;
+        }
+        this.dir = Paths.get(dir);
+        this.parallelism = parallelism;
+        this.defaultShardMinutes = defaultShardMinutes;
+        this.chunkBytes = chunkBytes;
+        this.queueChunks = queueChunks;
+        this.running = new Semaphore(maxConcurrent);
+        this.jobRunner = Executors.newFixedThreadPool(maxConcurrent, daemonThreads("audit-export-job-"));
+
+        this.exportedRows = Counter.builder("banking_audit_export_rows_total")
+            .description("Audit log rows written by exports")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        Gauge.builder("banking_audit_export_active", activeExports, AtomicInteger::get)
+            .description("Audit exports currently running")
+            .tag("service", "audit")
+            .register(meterRegistry);
+    }
+
+    /** Loads manifests; exports that were running when the service stopped become resumable. */
+    @PostConstruct
+    public void loadJobs() throws IOException {
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> manifests = Files.newDirectoryStream(dir, "export-*.json")) {
+            for (Path manifest : manifests) {
+                AuditExportJob job = objectMapper.readValue(manifest.toFile(), AuditExportJob.class);
+                if (job.getStatus() == AuditExportJob.Status.RUNNING) {
+                    job.setStatus(AuditExportJob.Status.INTERRUPTED);
+                    writeManifest(job);
+                }
+                jobs.put(job.getId(), job);
+            }
+        }
+    }
+
+    public AuditExportJob startExport(AuditExportRequest request) {
+        String format = validate(request.getFrom(), request.getTo(), request.getFormat(), request.getShardMinutes());
+        AuditExportJob job = new AuditExportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setFrom(request.getFrom());
+        job.setTo(request.getTo());
+        job.setFormat(format);
+        job.setShardMinutes(request.getShardMinutes() != null ? request.getShardMinutes() : defaultShardMinutes);
+        job.setTotalShards(shards(job.getFrom(), job.getTo(), job.getShardMinutes()).size());
+        submit(job);
+        return job;
+    }
+
+    public AuditExportJob resumeExport(String id) {
+        AuditExportJob job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        synchronized (job) {
+            if (job.getStatus() != AuditExportJob.Status.FAILED && job.getStatus() != AuditExportJob.Status.INTERRUPTED) {
+                throw new IllegalArgumentException("Export " + id + " is " + job.getStatus());
+            }
+            submit(job);
+        }
+        return job;
+    }
+
+    public AuditExportJob getExport(String id) {
+        return jobs.get(id);
+    }
+
+    /** The finished output file, or {@code null} if the export does not exist or is not complete. */
+    public Path getExportFile(String id) {
+        AuditExportJob job = jobs.get(id);
+        return job != null && job.getStatus() == AuditExportJob.Status.COMPLETED ? outputPath(job) : null;
+    }
+
+    /** An export that has been validated and admitted, to be written to a response body. */
+    public interface StreamingExport {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Validates the request and reserves an export slot up front, so a bad or rejected request
+     * fails before the response is committed. The slot is released once the body is written.
+     */
+    public StreamingExport prepareStream(LocalDateTime from, LocalDateTime to, String format, Integer shardMinutes) {
+        String normalized = validate(from, to, format, shardMinutes);
+        List<LocalDateTime[]> shards = shards(from, to, shardMinutes != null ? shardMinutes : defaultShardMinutes);
+        acquire();
+        return out -> {
+            long started = System.nanoTime();
+            long[] rows = new long[1];
+            try {
+                if ("csv".equals(normalized)) {
+                    out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+                }
+                export(shards, 0, normalized, out, (shard, shardRows) -> rows[0] += shardRows);
+                out.flush();
+                log.info("Streamed audit export {} to {}: {} rows in {} ms", from, to, rows[0],
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            } finally {
+                release();
+            }
+        };
+    }
+
+    private void submit(AuditExportJob job) {
+        acquire();
+        job.setStatus(AuditExportJob.Status.RUNNING);
+        job.setError(null);
+        job.setStartedAt(LocalDateTime.now());
+        job.setFinishedAt(null);
+        jobs.put(job.getId(), job);
+        writeManifestQuietly(job);
+        jobRunner.execute(() -> {
+            try {
+                runJob(job);
+            } finally {
+                release();
+            }
+        });
+    }
+
+    private void runJob(AuditExportJob job) {
+        long started = System.nanoTime();
+        long rowsAtStart = job.getRows();
+        Path output = outputPath(job);
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(job.getCommittedBytes());
+            channel.position(job.getCommittedBytes());
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), chunkBytes);
+            if (job.getCommittedBytes() == 0 && "csv".equals(job.getFormat())) {
+                out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+            }
+
+            List<LocalDateTime[]> shards = shards(job.getFrom(), job.getTo(), job.getShardMinutes());
+            export(shards, job.getCompletedShards(), job.getFormat(), out, (shard, rows) -> {
+                out.flush();
+                channel.force(false);
+                synchronized (job) {
+                    job.setCompletedShards(shard + 1);
+                    job.setCommittedBytes(channel.position());
+                    job.setRows(job.getRows() + rows);
+                    job.setRowsPerSecond(rate(job.getRows() - rowsAtStart, started));
+                }
+                writeManifest(job);
+            });
+
+            synchronized (job) {
+                job.setStatus(AuditExportJob.Status.COMPLETED);
+                job.setFinishedAt(LocalDateTime.now());
+            }
+            log.info("Audit export {} completed: {} rows, {} bytes, {} rows/s", job.getId(), job.getRows(),
+                    job.getCommittedBytes(), Math.round(job.getRowsPerSecond()));
+        } catch (IOException | RuntimeException e) {
+            synchronized (job) {
+                job.setStatus(AuditExportJob.Status.FAILED);
+                job.setError(e.getMessage());
+                job.setFinishedAt(LocalDateTime.now());
+            }
+            log.warn("Audit export {} failed after {} of {} shards", job.getId(), job.getCompletedShards(),
+                    job.getTotalShards(), e);
+        }
+        writeManifestQuietly(job);
+    }
+
+    private interface ShardListener {
+        void completed(int shard, long rows) throws IOException;
+    }
+
+    /**
+     * Keeps up to {@code parallelism} shards in flight and writes them in order. When a shard
+     * completes the next one is started, so readers stay busy while the writer catches up.
+     */
+    private void export(List<LocalDateTime[]> shards, int firstShard, String format, OutputStream out,
+                        ShardListener listener) throws IOException {
+        ExecutorService readers = Executors.newFixedThreadPool(parallelism, daemonThreads("audit-export-reader-"));
+        Deque<ShardPipe> window = new ArrayDeque<>();
+        activeExports.incrementAndGet();
+        try {
+            int next = firstShard;
+            while (window.size() < parallelism && next < shards.size()) {
+                window.add(startShard(readers, next, shards.get(next++), format));
+            }
+            while (!window.isEmpty()) {
+                ShardPipe pipe = window.poll();
+                long rows = pipe.drainTo(out);
+                exportedRows.increment(rows);
+                listener.completed(pipe.index, rows);
+                if (next < shards.size()) {
+                    window.add(startShard(readers, next, shards.get(next++), format));
+                }
+            }
+        } finally {
+            window.forEach(pipe -> pipe.cancelled = true);
+            readers.shutdownNow();
+            activeExports.decrementAndGet();
+        }
+    }
+
+    private ShardPipe startShard(ExecutorService readers, int index, LocalDateTime[] range, String format) {
+        ShardPipe pipe = new ShardPipe(index, range[0], range[1], format);
+        readers.execute(pipe);
+        return pipe;
+    }
+
+    /** One shard: a reader thread encodes rows into chunks, the writer takes them in order. */
+    private final class ShardPipe implements Runnable {
+        final int index;
+        final LocalDateTime from;
+        final LocalDateTime to;
+        final String format;
+        final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(queueChunks);
+        volatile boolean cancelled;
+        volatile Throwable error;
+        long rows;
+
+        ShardPipe(int index, LocalDateTime from, LocalDateTime to, String format) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+            this.format = format;
+        }
+
+        @Override
+        public void run() {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(chunkBytes + 4096);
+            try {
+                Consumer<AuditLog> sink = auditLog -> {
+                    encode(auditLog, format, buffer);
+                    rows++;
+                    if (buffer.size() >= chunkBytes) {
+                        put(buffer.toByteArray());
+                        buffer.reset();
+                    }
+                };
+                if (auditArchiveStore != null) {
+                    auditArchiveStore.scan(from, to, sink);
+                }
+                auditLogStore.scan(from, to, sink);
+                if (buffer.size() > 0) {
+                    put(buffer.toByteArray());
+                }
+            } catch (Throwable e) {
+                error = e;
+            }
+            if (!cancelled) {
+                try {
+                    put(END);
+                } catch (CancellationException ignored) {
+                    // the writer is gone
+                }
+            }
+        }
+
+        private void put(byte[] chunk) {
+            try {
+                while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    if (cancelled) {
+                        throw new CancellationException("Audit export shard " + index + " cancelled");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Audit export shard " + index + " interrupted");
+            }
+        }
+
+        long drainTo(OutputStream out) throws IOException {
+            try {
+                while (true) {
+                    byte[] chunk = chunks.take();
+                    if (chunk == END) {
+                        break;
+                    }
+                    out.write(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Audit export interrupted");
+            }
+            if (error != null) {
+                throw new IOException("Audit export shard " + index + " (" + from + " to " + to + ") failed", error);
+            }
+            return rows;
+        }
+    }
+
+    private void encode(AuditLog auditLog, String format, ByteArrayOutputStream out) {
+        try {
+            if ("csv".equals(format)) {
+                StringBuilder line = new StringBuilder(256);
+                csv(line, auditLog.getId()).append(',');
+                csv(line, auditLog.getCreatedAt() != null ? auditLog.getCreatedAt().toString() : null).append(',');
+                csv(line, auditLog.getUserId()).append(',');
+                csv(line, auditLog.getAction()).append(',');
+                csv(line, auditLog.getResource()).append(',');
+                csv(line, auditLog.getStatus()).append(',');
+                csv(line, auditLog.getSeverity() != null ? auditLog.getSeverity().name() : null).append(',');
+                csv(line, auditLog.getIpAddress()).append(',');
+                csv(line, auditLog.getUserAgent()).append(',');
+                csv(line, auditLog.getDetails()).append('\n');
+                out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+            } else {
+                out.write(objectMapper.writeValueAsBytes(auditLog));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StringBuilder csv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private String validate(LocalDateTime from, LocalDateTime to, String format, Integer shardMinutes) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("from and to are required and from must be before to");
+        }
+        String normalized = format != null ? format.toLowerCase(Locale.ROOT) : "ndjson";
+        if (!"ndjson".equals(normalized) && !"csv".equals(normalized)) {
+            throw new IllegalArgumentException("format must be ndjson or csv");
+        }
+        if (shardMinutes != null && shardMinutes < 1) {
+            throw new IllegalArgumentException("shardMinutes must be positive");
+        }
+        return normalized;
+    }
+
+    private static List<LocalDateTime[]> shards(LocalDateTime from, LocalDateTime to, int shardMinutes) {
+        List<LocalDateTime[]> shards = new ArrayList<>();
+        Duration step = Duration.ofMinutes(shardMinutes);
+        for (LocalDateTime start = from; start.isBefore(to); start = start.plus(step)) {
+            LocalDateTime end = start.plus(step);
+            shards.add(new LocalDateTime[] {start, end.isAfter(to) ? to : end});
+        }
+        return shards;
+    }
+
+    private void acquire() {
+        if (!running.tryAcquire()) {
+            throw new IllegalStateException("Too many audit exports running");
+        }
+    }
+
+    private void release() {
+        running.release();
+    }
+
+    private Path outputPath(AuditExportJob job) {
+        return dir.resolve("export-" + job.getId() + ("csv".equals(job.getFormat()) ? ".csv" : ".ndjson"));
+    }
+
+    private void writeManifest(AuditExportJob job) throws IOException {
+        Path manifest = dir.resolve("export-" + job.getId() + ".json");
+        Path tmp = dir.resolve("export-" + job.getId() + ".json.tmp");
+        byte[] bytes;
+        synchronized (job) {
+            bytes = objectMapper.writeValueAsBytes(job);
+        }
+        Files.write(tmp, bytes);
+        Files.move(tmp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeManifestQuietly(AuditExportJob job) {
+        try {
+            writeManifest(job);
+        } catch (IOException e) {
+            log.warn("Could not write manifest for audit export {}", job.getId(), e);
+        }
+    }
+
+    private static double rate(long rows, long startedNanos) {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        return seconds > 0 ? rows / seconds : 0;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
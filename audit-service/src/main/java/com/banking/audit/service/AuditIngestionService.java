@@ -0,0 +1,313 @@
+package com.banking.audit.service;
+
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.repository.AuditLogStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous audit ingestion. Events go into a bounded ring buffer and return immediately;
+ * flusher threads drain it in batches of up to {@code batch-size}, or whatever arrived within
+ * {@code flush-interval-ms}, and hand each batch to the {@link AuditLogStore} in one call (one
+ * JDBC batch and commit, or one fsync for the segment store).
+ *
+ * When the buffer is full the configured {@link OverflowPolicy} applies. Batches that fail to
+ * insert are spilled to disk regardless of policy and replayed later, so a database outage
+ * does not lose events.
+ */
+@Service
+public class AuditIngestionService {
+
+    public enum OverflowPolicy { BLOCK, DROP, SPILL }
+
+    private static final Logger log = LoggerFactory.getLogger(AuditIngestionService.class);
+
+    @Autowired
+    private AuditLogStore auditLogStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AuditSearchIndex auditSearchIndex;
+
+    @Autowired
+    private AuditSamplingPolicy auditSamplingPolicy;
+
+    private final boolean async;
+    private final BlockingQueue<AuditLog> buffer;
+    private final int bufferCapacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int flusherCount;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillDir;
+
+    private final Counter acceptedCounter;
+    private final Counter droppedCounter;
+    private final Counter spilledCounter;
+    private final Timer flushTimer;
+
+    private final List<Thread> flushers = new ArrayList<>();
+    private volatile boolean running;
+    private BufferedWriter spillWriter;
+    private Path spillFile;
+
+    public AuditIngestionService(@Value("${audit.ingestion.mode:sync}") String mode,
+                                 @Value("${audit.ingestion.buffer-capacity:65536}") int bufferCapacity,
+                                 @Value("${audit.ingestion.batch-size:500}") int batchSize,
+                                 @Value("${audit.ingestion.flush-interval-ms:50}") long flushIntervalMs,
+                                 @Value("${audit.ingestion.flushers:2}") int flusherCount,
+                                 @Value("${audit.ingestion.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                                 @Value("${audit.ingestion.spill-dir:data/audit-spill}") String spillDir,
+                                 MeterRegistry meterRegistry) {
+        this.async = "async".equalsIgnoreCase(mode);
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.bufferCapacity = bufferCapacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.flusherCount = flusherCount;
+        this.overflowPolicy = overflowPolicy;
+        this.spillDir = Paths.get(spillDir);
+
+        this.acceptedCounter = Counter.builder("banking_audit_ingest_accepted_total")
+            .description("Audit events accepted into the ingestion buffer")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("banking_audit_ingest_dropped_total")
+            .description("Audit events dropped because the ingestion buffer was full")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        this.spilledCounter = Counter.builder("banking_audit_ingest_spilled_total")
+            .description("Audit events written to the spill directory")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        this.flushTimer = Timer.builder("banking_audit_ingest_flush_seconds")
+            .description("Time to insert one batch of audit events")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        Gauge.builder("banking_audit_ingest_buffer_depth", buffer, BlockingQueue::size)
+            .description("Audit events waiting to be flushed")
+            .tag("service", "audit")
+            .register(meterRegistry);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /** Fraction of the ingestion buffer in use; always 0 in sync mode. */
+    public double backlogRatio() {
+        return async ? (double) buffer.size() / bufferCapacity : 0;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < flusherCount; i++) {
+            Thread flusher = new Thread(this::flushLoop, "audit-flusher-" + (i + 1));
+            flusher.setDaemon(true);
+            flusher.start();
+            flushers.add(flusher);
+        }
+        log.info("Async audit ingestion: buffer {}, batch {}, {} flushers, overflow {}",
+                buffer.remainingCapacity(), batchSize, flusherCount, overflowPolicy);
+    }
+
+    /**
+     * Assigns an id and hands the event to the buffer. Returns {@code false} only when the
+     * event was dropped under {@link OverflowPolicy#DROP}.
+     */
+    public boolean submit(AuditLog auditLog) {
+        if (auditLog.getId() == null) {
+            auditLog.setId(UUID.randomUUID().toString());
+        }
+        if (buffer.offer(auditLog)) {
+            acceptedCounter.increment();
+            return true;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    buffer.put(auditLog);
+                    acceptedCounter.increment();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    spill(List.of(auditLog));
+                    return true;
+                }
+            case SPILL:
+                spill(List.of(auditLog));
+                return true;
+            default:
+                droppedCounter.increment();
+                return false;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread flusher : flushers) {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        synchronized (this) {
+            closeSpillWriter();
+        }
+    }
+
+    private void flushLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    AuditLog next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        try {
+            long started = System.nanoTime();
+            auditLogStore.saveAll(batch);
+            long elapsed = System.nanoTime() - started;
+            flushTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            auditSamplingPolicy.recordWriteLatency(elapsed);
+            auditSearchIndex.index(batch);
+        } catch (RuntimeException e) {
+            log.warn("Audit batch of {} failed to insert, spilling to disk", batch.size(), e);
+            spill(batch);
+        }
+    }
+
+    private synchronized void spill(List<AuditLog> logs) {
+        try {
+            if (spillWriter == null) {
+                Files.createDirectories(spillDir);
+                spillFile = spillDir.resolve("spill-" + System.currentTimeMillis() + "-" + UUID.randomUUID() + ".ndjson");
+                spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            }
+            for (AuditLog auditLog : logs) {
+                spillWriter.write(objectMapper.writeValueAsString(auditLog));
+                spillWriter.newLine();
+            }
+            spillWriter.flush();
+            spilledCounter.increment(logs.size());
+        } catch (IOException e) {
+            droppedCounter.increment(logs.size());
+            log.error("Could not spill {} audit events to {}", logs.size(), spillDir, e);
+        }
+    }
+
+    /**
+     * Re-inserts spilled events. The active spill file is closed first so it can be replayed
+     * too; new overflow starts a fresh file.
+     */
+    @Scheduled(fixedDelayString = "${audit.ingestion.spill-replay-interval-ms:30000}")
+    public void replaySpill() {
+        if (!Files.isDirectory(spillDir)) {
+            return;
+        }
+        synchronized (this) {
+            closeSpillWriter();
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir, "spill-*.ndjson")) {
+            for (Path file : files) {
+                replayFile(file);
+            }
+        } catch (IOException e) {
+            log.warn("Could not list audit spill directory {}", spillDir, e);
+        }
+    }
+
+    private void replayFile(Path file) {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(objectMapper.readValue(line, AuditLog.class));
+                if (batch.size() == batchSize) {
+                    auditLogStore.saveAll(batch);
+                    auditSearchIndex.index(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                auditLogStore.saveAll(batch);
+                auditSearchIndex.index(batch);
+            }
+            Files.delete(file);
+            log.info("Replayed audit spill file {}", file.getFileName());
+        } catch (IOException | RuntimeException e) {
+            // Inserts ignore existing ids, so rows that made it in are skipped on the next pass
+            log.warn("Replay of audit spill file {} failed, will retry", file.getFileName(), e);
+        }
+    }
+
+    private void closeSpillWriter() {
+        if (spillWriter == null) {
+            return;
+        }
+        try {
+            spillWriter.close();
+        } catch (IOException e) {
+            log.warn("Could not close audit spill file {}", spillFile, e);
+        }
+        spillWriter = null;
+        spillFile = null;
+    }
+}
@@ -0,0 +1,322 @@
+package com.banking.audit.service;
+
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.enums.AuditSeverity;
+import com.banking.audit.repository.AuditLogStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load-aware admission for audit events. Every event gets a severity: the one the caller sent
+ * or the one implied by its action, whichever is more severe, so money movement cannot be
+ * downgraded by a client. CRITICAL and HIGH events are always persisted.
+ *
+ * The load level comes from the ingestion backlog (fraction of the buffer in use) and a moving
+ * average of store write latency:
+ * <ul>
+ *   <li>NORMAL: everything is persisted.</li>
+ *   <li>DEGRADED: LOW events are sampled at {@code low-sample-rate}.</li>
+ *   <li>SHEDDING: LOW events are only counted; NORMAL events are sampled at
+ *       {@code normal-sample-rate}.</li>
+ * </ul>
+ * Events that are not persisted are folded into per-minute counters by action, severity and
+ * status, written as one summary log per key once the minute has closed.
+ */
+@Component
+public class AuditSamplingPolicy {
+
+    public enum Level { NORMAL, DEGRADED, SHEDDING }
+
+    private static final Logger log = LoggerFactory.getLogger(AuditSamplingPolicy.class);
+
+    private static final double LATENCY_WEIGHT = 0.2;
+    private static final long LATENCY_STALE_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    @Autowired
+    private AuditLogStore auditLogStore;
+
+    @Autowired
+    private AuditSearchIndex auditSearchIndex;
+
+    private final boolean enabled;
+    private final List<String> criticalActions;
+    private final List<String> highActions;
+    private final List<String> lowActions;
+    private final double backlogThreshold;
+    private final double backlogSevereThreshold;
+    private final double latencyThresholdMillis;
+    private final double latencySevereThresholdMillis;
+    private final double lowSampleRate;
+    private final double normalSampleRate;
+
+    private volatile double writeLatencyMillis;
+    private volatile long lastLatencySample;
+    private volatile Level level = Level.NORMAL;
+
+    private final Map<AggregateKey, LongAdder> aggregates = new ConcurrentHashMap<>();
+    private final Map<AuditSeverity, Counter> persisted = new EnumMap<>(AuditSeverity.class);
+    private final Map<AuditSeverity, Counter> sampled = new EnumMap<>(AuditSeverity.class);
+    private final Map<AuditSeverity, Counter> aggregated = new EnumMap<>(AuditSeverity.class);
+
+    public AuditSamplingPolicy(@Value("${audit.policy.enabled:true}") boolean enabled,
+                               @Value("${audit.policy.critical-actions:TRANSFER,DEPOSIT,WITHDRAW,PAYMENT}") String criticalActions,
+                               @Value("${audit.policy.high-actions:LOGIN_FAILED,REVOKE,PASSWORD,ROLE,ACCOUNT_CREATE,ACCOUNT_CLOSE}") String highActions,
+                               @Value("${audit.policy.low-actions:VIEW,PAGE_VIEW,BALANCE_READ,READ,LIST,SEARCH}") String lowActions,
+                               @Value("${audit.policy.backlog-threshold:0.5}") double backlogThreshold,
+                               @Value("${audit.policy.backlog-severe-threshold:0.8}") double backlogSevereThreshold,
+                               @Value("${audit.policy.latency-threshold-ms:250}") double latencyThresholdMillis,
+                               @Value("${audit.policy.latency-severe-threshold-ms:1000}") double latencySevereThresholdMillis,
+                               @Value("${audit.policy.low-sample-rate:0.05}") double lowSampleRate,
+                               @Value("${audit.policy.normal-sample-rate:0.25}") double normalSampleRate,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.criticalActions = prefixes(criticalActions);
+        this.highActions = prefixes(highActions);
+        this.lowActions = prefixes(lowActions);
+        this.backlogThreshold = backlogThreshold;
+        this.backlogSevereThreshold = backlogSevereThreshold;
+        this.latencyThresholdMillis = latencyThresholdMillis;
+        this.latencySevereThresholdMillis = latencySevereThresholdMillis;
+        this.lowSampleRate = lowSampleRate;
+        this.normalSampleRate = normalSampleRate;
+
+        for (AuditSeverity severity : AuditSeverity.values()) {
+            persisted.put(severity, decisionCounter(meterRegistry, severity, "persisted"));
+            sampled.put(severity, decisionCounter(meterRegistry, severity, "sampled"));
+            aggregated.put(severity, decisionCounter(meterRegistry, severity, "aggregated"));
+        }
+        Gauge.builder("banking_audit_policy_level", this, policy -> policy.level.ordinal())
+            .description("Audit admission level: 0 normal, 1 degraded, 2 shedding")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        Gauge.builder("banking_audit_policy_write_latency_ms", this, AuditSamplingPolicy::currentLatencyMillis)
+            .description("Moving average of audit store write latency used by the admission policy")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        Gauge.builder("banking_audit_policy_pending_aggregates", aggregates, Map::size)
+            .description("Per-minute audit aggregates not yet written")
+            .tag("service", "audit")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Assigns the event's severity and decides whether it is persisted individually. Returns
+     * {@code false} when it was folded into a per-minute aggregate instead.
+     */
+    public boolean admit(AuditLog auditLog, double backlog) {
+        AuditSeverity severity = classify(auditLog);
+        auditLog.setSeverity(severity);
+        if (!enabled || severity == AuditSeverity.CRITICAL || severity == AuditSeverity.HIGH) {
+            persisted.get(severity).increment();
+            return true;
+        }
+
+        Level current = level(backlog);
+        double rate;
+        if (current == Level.NORMAL) {
+            rate = 1.0;
+        } else if (severity == AuditSeverity.LOW) {
+            rate = current == Level.DEGRADED ? lowSampleRate : 0.0;
+        } else {
+            rate = current == Level.SHEDDING ? normalSampleRate : 1.0;
+        }
+
+        if (rate >= 1.0) {
+            persisted.get(severity).increment();
+            return true;
+        }
+        if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            sampled.get(severity).increment();
+            return true;
+        }
+        aggregate(auditLog);
+        aggregated.get(severity).increment();
+        return false;
+    }
+
+    /** Reports how long one store write (a single save or a whole batch) took. */
+    public void recordWriteLatency(long nanos) {
+        double millis = nanos / 1_000_000.0;
+        double previous = currentLatencyMillis();
+        writeLatencyMillis = previous == 0 ? millis : previous + LATENCY_WEIGHT * (millis - previous);
+        lastLatencySample = System.nanoTime();
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    AuditSeverity classify(AuditLog auditLog) {
+        AuditSeverity implied = AuditSeverity.NORMAL;
+        String action = auditLog.getAction() != null ? auditLog.getAction().toUpperCase(Locale.ROOT) : "";
+        if (matches(action, criticalActions)) {
+            implied = AuditSeverity.CRITICAL;
+        } else if (matches(action, highActions)) {
+            implied = AuditSeverity.HIGH;
+        } else if (matches(action, lowActions)) {
+            implied = AuditSeverity.LOW;
+        }
+        AuditSeverity requested = auditLog.getSeverity();
+        return requested != null && requested.ordinal() < implied.ordinal() ? requested : implied;
+    }
+
+    private Level level(double backlog) {
+        double latency = currentLatencyMillis();
+        Level current;
+        if (backlog >= backlogSevereThreshold || latency >= latencySevereThresholdMillis) {
+            current = Level.SHEDDING;
+        } else if (backlog >= backlogThreshold || latency >= latencyThresholdMillis) {
+            current = Level.DEGRADED;
+        } else {
+            current = Level.NORMAL;
+        }
+        if (current != level) {
+            log.info("Audit admission level {} -> {} (backlog {}, write latency {} ms)",
+                    level, current, String.format("%.2f", backlog), String.format("%.1f", latency));
+            level = current;
+        }
+        return current;
+    }
+
+    /** The moving average, ignored once no write has been reported for a while. */
+    private double currentLatencyMillis() {
+        return System.nanoTime() - lastLatencySample > LATENCY_STALE_NANOS ? 0 : writeLatencyMillis;
+    }
+
+    private void aggregate(AuditLog auditLog) {
+        LocalDateTime createdAt = auditLog.getCreatedAt() != null ? auditLog.getCreatedAt() : LocalDateTime.now();
+        AggregateKey key = new AggregateKey(createdAt.toEpochSecond(ZoneOffset.UTC) / 60,
+                auditLog.getAction(), auditLog.getSeverity(), auditLog.getStatus());
+        aggregates.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Writes one summary log per closed minute, a minute after it closes so late increments
+     * still land. Failed writes are merged back and retried.
+     */
+    @Scheduled(fixedDelayString = "${audit.policy.aggregate-flush-interval-ms:15000}")
+    public void flushAggregates() {
+        flushAggregates(LocalDateTime.now().toEpochSecond(ZoneOffset.UTC) / 60 - 1);
+    }
+
+    @PreDestroy
+    public void flushAllAggregates() {
+        flushAggregates(Long.MAX_VALUE);
+    }
+
+    private void flushAggregates(long beforeMinute) {
+        Map<AggregateKey, Long> closed = new HashMap<>();
+        for (AggregateKey key : aggregates.keySet()) {
+            if (key.minute < beforeMinute) {
+                LongAdder count = aggregates.remove(key);
+                if (count != null) {
+                    closed.put(key, count.sum());
+                }
+            }
+        }
+        if (closed.isEmpty()) {
+            return;
+        }
+
+        List<AuditLog> summaries = new ArrayList<>(closed.size());
+        closed.forEach((key, count) -> summaries.add(summary(key, count)));
+        try {
+            auditLogStore.saveAll(summaries);
+            auditSearchIndex.index(summaries);
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} audit aggregates, will retry", summaries.size(), e);
+            closed.forEach((key, count) -> aggregates.computeIfAbsent(key, k -> new LongAdder()).add(count));
+        }
+    }
+
+    private static AuditLog summary(AggregateKey key, long count) {
+        LocalDateTime minute = LocalDateTime.ofEpochSecond(key.minute * 60, 0, ZoneOffset.UTC);
+        AuditLog summary = new AuditLog();
+        summary.setId(UUID.randomUUID().toString());
+        summary.setAction(key.action);
+        summary.setSeverity(key.severity);
+        summary.setStatus(key.status);
+        summary.setResource("audit-aggregate");
+        summary.setDetails("{\"aggregated\":true,\"count\":" + count + ",\"minute\":\"" + minute + "\"}");
+        summary.setCreatedAt(minute);
+        return summary;
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, AuditSeverity severity, String decision) {
+        return Counter.builder("banking_audit_policy_decisions_total")
+            .description("Audit admission decisions by severity")
+            .tag("service", "audit")
+            .tag("severity", severity.name())
+            .tag("decision", decision)
+            .register(meterRegistry);
+    }
+
+    private static List<String> prefixes(String csv) {
+        return Arrays.stream(csv.split(","))
+                .map(String::trim)
+                .filter(prefix -> !prefix.isEmpty())
+                .map(prefix -> prefix.toUpperCase(Locale.ROOT))
+                .toList();
+    }
+
+    private static boolean matches(String action, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (action.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class AggregateKey {
+        final long minute;
+        final String action;
+        final AuditSeverity severity;
+        final String status;
+
+        AggregateKey(long minute, String action, AuditSeverity severity, String status) {
+            this.minute = minute;
+            this.action = action;
+            this.severity = severity;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof AggregateKey other)) {
+                return false;
+            }
+            return minute == other.minute && severity == other.severity
+                    && Objects.equals(action, other.action) && Objects.equals(status, other.status);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(minute, action, severity, status);
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.banking.audit.service;
+
+import com.banking.audit.entity.AuditLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over {@code details}, {@code resource}, {@code userAgent} and
+ * {@code ipAddress}. Each indexed log gets a sequential document number; per document only its
+ * id (two longs for UUIDs) and creation time are kept. Each term maps to a posting list of
+ * document numbers, delta + varint encoded in blocks of {@value #BLOCK} with a skip entry per
+ * block, so AND queries leapfrog through the shorter lists without decoding the longer ones.
+ *
+ * Queries are a disjunction of conjunctions: whitespace or {@code AND} joins terms, {@code OR}
+ * separates alternatives. Tokens are lowercased and split on anything other than letters,
+ * digits and {@code . - _ @}, so IPs, account numbers and e-mail addresses stay whole.
+ *
+ * The index is append-only. A log indexed twice (spill replay, rebuild racing live writes) is
+ * returned and counted once, since hits are deduplicated by id before they are counted.
+ *
+ * Only the segment backend uses it: its logs live on the local disk of one instance, so a
+ * per-instance index matches what that instance stores. With the jpa backend every instance
+ * shares {@code audit_logs} and searches it through
+ * {@link com.banking.audit.repository.AuditFullTextSearch}; there the index stays empty.
+ */
+@Component
+public class AuditSearchIndex {
+
+    private static final int BLOCK = 128;
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private long[] idHigh = new long[1024];
+    private long[] idLow = new long[1024];
+    private long[] micros = new long[1024];
+    private final Map<Integer, String> otherIds = new HashMap<>();
+    private int docCount;
+
+    private final boolean enabled;
+    private final Timer searchTimer;
+
+    public AuditSearchIndex(MeterRegistry meterRegistry, @Value("${audit.store.backend:jpa}") String backend) {
+        this.enabled = "segment".equals(backend);
+        this.searchTimer = Timer.builder("banking_audit_search_seconds")
+            .description("Time to evaluate an audit search query against the index")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        Gauge.builder("banking_audit_search_documents", this, AuditSearchIndex::documentCount)
+            .description("Audit logs in the search index")
+            .tag("service", "audit")
+            .register(meterRegistry);
+        Gauge.builder("banking_audit_search_terms", this, AuditSearchIndex::termCount)
+            .description("Distinct terms in the audit search index")
+            .tag("service", "audit")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void index(List<AuditLog> auditLogs) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (AuditLog auditLog : auditLogs) {
+                add(auditLog);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(AuditLog auditLog) {
+        index(List.of(auditLog));
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of matching logs, newest first, at most {@code limit}, together with the
+     * total number of matches. {@code from} is inclusive, {@code to} exclusive; either may be
+     * {@code null}.
+     */
+    public SearchResult search(String query, LocalDateTime from, LocalDateTime to, int limit) {
+        List<List<String>> groups = parse(query);
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        return searchTimer.record(() -> {
+            lock.readLock().lock();
+            try {
+                int[] matches = new int[0];
+                for (List<String> group : groups) {
+                    matches = union(matches, intersect(group));
+                }
+
+                // Keyed by UUID or the raw id, so a log indexed twice is counted once
+                Set<Object> distinct = new HashSet<>();
+                PriorityQueue<Integer> newest = new PriorityQueue<>(Comparator.comparingLong(doc -> micros[doc]));
+                int total = 0;
+                for (int doc : matches) {
+                    if (micros[doc] < fromMicros || micros[doc] >= toMicros || !distinct.add(key(doc))) {
+                        continue;
+                    }
+                    total++;
+                    newest.add(doc);
+                    if (newest.size() > limit) {
+                        newest.poll();
+                    }
+                }
+                List<Integer> docs = new ArrayList<>(newest);
+                docs.sort(Comparator.comparingLong((Integer doc) -> micros[doc]).reversed());
+                List<String> ids = new ArrayList<>(docs.size());
+                for (int doc : docs) {
+                    ids.add(id(doc));
+                }
+                return new SearchResult(ids, total);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    /** Parsed query in disjunctive form; throws {@link IllegalArgumentException} if empty. */
+    public static List<List<String>> parse(String query) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        if (query != null) {
+            for (String word : query.trim().split("\\s+")) {
+                if ("OR".equals(word)) {
+                    if (!current.isEmpty()) {
+                        groups.add(current);
+                    }
+                    current = new ArrayList<>();
+                } else if (!"AND".equals(word)) {
+                    current.addAll(tokenize(word));
+                }
+            }
+        }
+        if (!current.isEmpty()) {
+            groups.add(current);
+        }
+        if (groups.isEmpty()) {
+            throw new IllegalArgumentException("Empty search query");
+        }
+        return groups;
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean part = i < text.length() && isTermChar(text.charAt(i));
+            if (part && start < 0) {
+                start = i;
+            } else if (!part && start >= 0) {
+                addTerm(terms, text, start, i);
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static boolean isTermChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_' || c == '@';
+    }
+
+    private static void addTerm(Set<String> terms, String text, int start, int end) {
+        // Trim punctuation that ends a sentence or wraps a value, e.g. "failed." or "-acc-001-"
+        while (start < end && !Character.isLetterOrDigit(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && !Character.isLetterOrDigit(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end > start && end - start <= MAX_TERM_LENGTH) {
+            terms.add(text.substring(start, end).toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private void add(AuditLog auditLog) {
+        if (auditLog.getId() == null) {
+            return;
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        terms.addAll(tokenize(auditLog.getDetails()));
+        terms.addAll(tokenize(auditLog.getResource()));
+        terms.addAll(tokenize(auditLog.getUserAgent()));
+        terms.addAll(tokenize(auditLog.getIpAddress()));
+
+        int doc = docCount;
+        if (doc == micros.length) {
+            int capacity = doc + (doc >> 1);
+            idHigh = Arrays.copyOf(idHigh, capacity);
+            idLow = Arrays.copyOf(idLow, capacity);
+            micros = Arrays.copyOf(micros, capacity);
+        }
+        UUID uuid = parseUuid(auditLog.getId());
+        if (uuid != null) {
+            idHigh[doc] = uuid.getMostSignificantBits();
+            idLow[doc] = uuid.getLeastSignificantBits();
+        } else {
+            otherIds.put(doc, auditLog.getId());
+        }
+        micros[doc] = auditLog.getCreatedAt() != null ? toMicros(auditLog.getCreatedAt()) : 0;
+        for (String term : terms) {
+            postings.computeIfAbsent(term, t -> new PostingList()).add(doc);
+        }
+        docCount++;
+    }
+
+    private String id(int doc) {
+        return key(doc).toString();
+    }
+
+    private Object key(int doc) {
+        String other = otherIds.get(doc);
+        return other != null ? other : new UUID(idHigh[doc], idLow[doc]);
+    }
+
+    /** Leapfrog intersection, driven by the shortest list. */
+    private int[] intersect(List<String> terms) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        PostingList.Cursor lead = lists.get(0).cursor();
+        PostingList.Cursor[] others = new PostingList.Cursor[lists.size() - 1];
+        for (int i = 1; i < lists.size(); i++) {
+            others[i - 1] = lists.get(i).cursor();
+        }
+        int[] result = new int[lists.get(0).size];
+        int count = 0;
+        int doc = lead.next();
+        outer:
+        while (doc >= 0) {
+            for (PostingList.Cursor other : others) {
+                int found = other.advance(doc);
+                if (found < 0) {
+                    break outer;
+                }
+                if (found > doc) {
+                    doc = lead.advance(found);
+                    continue outer;
+                }
+            }
+            result[count++] = doc;
+            doc = lead.next();
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j == b.length || i < a.length && a[i] < b[j]) {
+                next = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            result[n++] = next;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    public static final class SearchResult {
+        private final List<String> ids;
+        private final int total;
+
+        SearchResult(List<String> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<String> getIds() { return ids; }
+        public int getTotal() { return total; }
+    }
+
+    /**
+     * Ascending document numbers, delta + varint encoded. Every {@value #BLOCK} entries a new
+     * block starts with an absolute value, and its first document and byte offset are recorded
+     * so a cursor can skip whole blocks.
+     */
+    private static final class PostingList {
+        private byte[] data = new byte[8];
+        private int length;
+        private int size;
+        private int last = -1;
+        private int[] blockFirst = new int[1];
+        private int[] blockOffset = new int[1];
+        private int blocks;
+
+        void add(int doc) {
+            if (doc == last) {
+                return;
+            }
+            int value;
+            if (size % BLOCK == 0) {
+                if (blocks == blockFirst.length) {
+                    blockFirst = Arrays.copyOf(blockFirst, blocks * 2);
+                    blockOffset = Arrays.copyOf(blockOffset, blocks * 2);
+                }
+                blockFirst[blocks] = doc;
+                blockOffset[blocks] = length;
+                blocks++;
+                value = doc;
+            } else {
+                value = doc - last;
+            }
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+            last = doc;
+            size++;
+        }
+
+        Cursor cursor() {
+            return new Cursor();
+        }
+
+        /** Forward-only reader over a snapshot of the list taken under the read lock. */
+        final class Cursor {
+            private final int end = size;
+            private int index;
+            private int offset;
+            private int current = -1;
+
+            /** Next document, or -1 when exhausted. */
+            int next() {
+                if (index == end) {
+                    return -1;
+                }
+                int value = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[offset++];
+                    value |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+                current = index % BLOCK == 0 ? value : current + value;
+                index++;
+                return current;
+            }
+
+            /** First document {@code >= target}, or -1 when exhausted. */
+            int advance(int target) {
+                if (current >= target) {
+                    return current;
+                }
+                int block = Arrays.binarySearch(blockFirst, 0, blocks, target);
+                block = block >= 0 ? block : -block - 2;
+                if (block > 0 && block * BLOCK > index) {
+                    // Block starts hold absolute values, so decoding can resume there
+                    index = block * BLOCK;
+                    offset = blockOffset[block];
+                }
+                int doc;
+                do {
+                    doc = next();
+                } while (doc >= 0 && doc < target);
+                return doc;
+            }
+        }
+    }
+}
@@ -1,40 +1,277 @@
 package com.banking.audit.service;
 
+import com.banking.audit.dto.AuditCursor;
+import com.banking.audit.dto.AuditSearchResult;
 import com.banking.audit.entity.AuditLog;
-import com.banking.audit.repository.AuditLogRepository;
+import com.banking.audit.repository.AuditArchiveStore;
+import com.banking.audit.repository.AuditFullTextSearch;
+import com.banking.audit.repository.AuditLogStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 public class AuditService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuditService.class);
+
+    private static final int REBUILD_CHUNK = 10_000;
+
+    @Autowired
+    private AuditLogStore auditLogStore;
+
+    @Autowired
+    private AuditIngestionService auditIngestionService;
+
+    @Autowired(required = false)
+    private AuditArchiveStore auditArchiveStore;
+
+    @Autowired
+    private AuditSearchIndex auditSearchIndex;
+
+    @Autowired(required = false)
+    private AuditFullTextSearch auditFullTextSearch;
+
     @Autowired
-    private AuditLogRepository auditLogRepository;
+    private AuditSamplingPolicy auditSamplingPolicy;
+
+    @Value("${audit.search.rebuild-on-startup:true}")
+    private boolean rebuildSearchIndex;
 
     public AuditLog createAuditLog(AuditLog auditLog) {
         if (auditLog.getId() == null) {
             auditLog.setId(UUID.randomUUID().toString());
         }
-        return auditLogRepository.save(auditLog);
+        long started = System.nanoTime();
+        AuditLog saved = auditLogStore.save(auditLog);
+        auditSamplingPolicy.recordWriteLatency(System.nanoTime() - started);
+        auditSearchIndex.index(saved);
+        return saved;
     }
 
-    public Page<AuditLog> getAuditLogs(String userId, String action, Pageable pageable) {
-        if (userId != null && action != null) {
-            return auditLogRepository.findByUserIdAndAction(userId, action, pageable);
-        } else if (userId != null) {
-            return auditLogRepository.findByUserId(userId, pageable);
-        } else if (action != null) {
-            return auditLogRepository.findByAction(action, pageable);
-        } else {
-            return auditLogRepository.findAll(pageable);
+    /**
+     * Applies the load-aware sampling policy. Returns {@code false} when the event was folded
+     * into a per-minute aggregate and must not be stored on its own.
+     */
+    public boolean admit(AuditLog auditLog) {
+        return auditSamplingPolicy.admit(auditLog, auditIngestionService.backlogRatio());
+    }
+
+    public List<AuditLog> admit(List<AuditLog> auditLogs) {
+        double backlog = auditIngestionService.backlogRatio();
+        List<AuditLog> admitted = new ArrayList<>(auditLogs.size());
+        for (AuditLog auditLog : auditLogs) {
+            if (auditSamplingPolicy.admit(auditLog, backlog)) {
+                admitted.add(auditLog);
+            }
         }
+        return admitted;
+    }
+
+    public boolean isAsyncIngestion() {
+        return auditIngestionService.isAsync();
+    }
+
+    public boolean submitAuditLog(AuditLog auditLog) {
+        return auditIngestionService.submit(auditLog);
+    }
+
+    /**
+     * Stores a batch of events and returns how many were accepted. In async mode they are
+     * queued; otherwise they are written to the store in a single batch.
+     */
+    public int createAuditLogs(List<AuditLog> auditLogs) {
+        if (auditLogs.isEmpty()) {
+            return 0;
+        }
+        if (auditIngestionService.isAsync()) {
+            int accepted = 0;
+            for (AuditLog auditLog : auditLogs) {
+                if (auditIngestionService.submit(auditLog)) {
+                    accepted++;
+                }
+            }
+            return accepted;
+        }
+        for (AuditLog auditLog : auditLogs) {
+            if (auditLog.getId() == null) {
+                auditLog.setId(UUID.randomUUID().toString());
+            }
+        }
+        long started = System.nanoTime();
+        auditLogStore.saveAll(auditLogs);
+        auditSamplingPolicy.recordWriteLatency(System.nanoTime() - started);
+        auditSearchIndex.index(auditLogs);
+        return auditLogs.size();
+    }
+
+    /**
+     * Offset pages over the hot store followed by the archive. Archived rows are older than
+     * anything left in the hot table, so the archive is only read once the hot rows for the
+     * filter are exhausted. Counting the archive would mean reading it on every page, so the
+     * total is exact for the hot tier only; while archived rows remain beyond the page it is
+     * reported as one more than the rows seen so far, which keeps {@code hasNext} right.
+     */
+    public Page<AuditLog> getAuditLogs(String userId, String action, LocalDateTime from, LocalDateTime to,
+                                       Pageable pageable) {
+        Page<AuditLog> hot = auditLogStore.find(userId, action, from, to, pageable);
+        if (auditArchiveStore == null) {
+            return hot;
+        }
+        if (pageable.isUnpaged()) {
+            List<AuditLog> content = new ArrayList<>(hot.getContent());
+            content.addAll(auditArchiveStore.find(userId, action, from, to, 0, Integer.MAX_VALUE));
+            return new PageImpl<>(content, pageable, content.size());
+        }
+        int missing = pageable.getPageSize() - hot.getNumberOfElements();
+        if (missing == 0) {
+            boolean pageEndsHotTier = pageable.getOffset() + pageable.getPageSize() >= hot.getTotalElements();
+            long total = pageEndsHotTier && auditArchiveStore.exists(userId, action, from, to)
+                    ? hot.getTotalElements() + 1 : hot.getTotalElements();
+            return new PageImpl<>(hot.getContent(), pageable, total);
+        }
+        long archiveOffset = Math.max(0, pageable.getOffset() - hot.getTotalElements());
+        List<AuditLog> archived = auditArchiveStore.find(userId, action, from, to, archiveOffset, missing + 1);
+        boolean more = archived.size() > missing;
+        List<AuditLog> content = new ArrayList<>(hot.getContent());
+        content.addAll(more ? archived.subList(0, missing) : archived);
+        long total = pageable.getOffset() + content.size() + (more ? 1 : 0);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Keyset slices merged across the hot store and the archive by {@code (created_at, id)}.
+     * The archive is skipped while the hot slice is full and still newer than anything archived.
+     */
+    public Slice<AuditLog> getAuditLogsAfter(String userId, String action, LocalDateTime from, LocalDateTime to,
+                                             AuditCursor after, int size) {
+        Slice<AuditLog> hot = auditLogStore.findAfter(userId, action, from, to, after, size);
+        if (auditArchiveStore == null) {
+            return hot;
+        }
+        LocalDateTime newestArchived = auditArchiveStore.newest();
+        if (newestArchived == null || hot.getNumberOfElements() == size
+                && hot.getContent().get(size - 1).getCreatedAt().isAfter(newestArchived)) {
+            return hot;
+        }
+
+        Map<String, AuditLog> merged = new LinkedHashMap<>();
+        hot.forEach(auditLog -> merged.put(auditLog.getId(), auditLog));
+        auditArchiveStore.findAfter(userId, action, from, to, after, size + 1)
+                .forEach(auditLog -> merged.putIfAbsent(auditLog.getId(), auditLog));
+        List<AuditLog> rows = new ArrayList<>(merged.values());
+        rows.sort(Comparator.comparing(AuditLog::getCreatedAt).thenComparing(AuditLog::getId).reversed());
+        boolean hasNext = hot.hasNext() || rows.size() > size;
+        List<AuditLog> content = rows.size() > size ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, Pageable.ofSize(size), hasNext);
     }
 
     public AuditLog getAuditLog(String id) {
-        return auditLogRepository.findById(id).orElse(null);
+        AuditLog auditLog = auditLogStore.findById(id).orElse(null);
+        if (auditLog == null && auditArchiveStore != null) {
+            auditLog = auditArchiveStore.findById(id).orElse(null);
+        }
+        return auditLog;
+    }
+
+    /**
+     * Full-text search over details, resource, user agent and IP address. With the jpa backend
+     * the query runs in PostgreSQL against the hot table, so every instance gives the same
+     * answer. With the segment backend matching ids come from this instance's in-memory index
+     * and the logs are loaded in one batch.
+     *
+     * Archived logs are not searchable. A range starting at or before the newest archived log is
+     * rejected; without {@code from} the search starts just after it, reported as
+     * {@code searchedFrom}.
+     */
+    public AuditSearchResult search(String query, LocalDateTime from, LocalDateTime to, int limit) {
+        List<List<String>> groups = AuditSearchIndex.parse(query);
+        LocalDateTime newestArchived = auditArchiveStore != null ? auditArchiveStore.newest() : null;
+        if (newestArchived == null) {
+            return search(query, groups, from, to, limit);
+        }
+        if (from != null) {
+            if (!from.isAfter(newestArchived)) {
+                throw new IllegalArgumentException("Logs up to " + newestArchived
+                        + " are archived and cannot be searched; use a later 'from' or export the range");
+            }
+            return search(query, groups, from, to, limit);
+        }
+        // Search bounds are inclusive, so start one microsecond past the archive
+        LocalDateTime searchedFrom = newestArchived.plusNanos(1_000);
+        AuditSearchResult result = search(query, groups, searchedFrom, to, limit);
+        return new AuditSearchResult(result.getResults(), result.hasMore(), searchedFrom);
+    }
+
+    private AuditSearchResult search(String query, List<List<String>> groups, LocalDateTime from, LocalDateTime to,
+                                     int limit) {
+        if (auditFullTextSearch != null) {
+            return auditFullTextSearch.search(groups, from, to, limit);
+        }
+        AuditSearchIndex.SearchResult hits = auditSearchIndex.search(query, from, to, limit);
+        Map<String, AuditLog> byId = new HashMap<>();
+        for (AuditLog auditLog : auditLogStore.findAllById(hits.getIds())) {
+            byId.put(auditLog.getId(), auditLog);
+        }
+        List<AuditLog> logs = new ArrayList<>(hits.getIds().size());
+        for (String id : hits.getIds()) {
+            AuditLog auditLog = byId.get(id);
+            if (auditLog != null) {
+                logs.add(auditLog);
+            }
+        }
+        return new AuditSearchResult(logs, hits.getTotal() > hits.getIds().size());
+    }
+
+    /**
+     * The search index lives in memory, so with the segment backend it is rebuilt from the store
+     * after startup, newest first, on a background thread. Logs written meanwhile are indexed as
+     * usual.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSearchIndex() {
+        if (!rebuildSearchIndex || !auditSearchIndex.isEnabled()) {
+            return;
+        }
+        Thread rebuild = new Thread(() -> {
+            long started = System.currentTimeMillis();
+            long indexed = 0;
+            try {
+                AuditCursor cursor = null;
+                Slice<AuditLog> chunk;
+                do {
+                    chunk = getAuditLogsAfter(null, null, null, null, cursor, REBUILD_CHUNK);
+                    if (!chunk.hasContent()) {
+                        break;
+                    }
+                    auditSearchIndex.index(chunk.getContent());
+                    indexed += chunk.getNumberOfElements();
+                    cursor = AuditCursor.of(chunk.getContent().get(chunk.getNumberOfElements() - 1));
+                } while (chunk.hasNext());
+                log.info("Rebuilt audit search index from {} logs in {} ms", indexed, System.currentTimeMillis() - started);
+            } catch (RuntimeException e) {
+                log.warn("Audit search index rebuild stopped after {} logs", indexed, e);
+            }
+        }, "audit-search-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
     }
 }
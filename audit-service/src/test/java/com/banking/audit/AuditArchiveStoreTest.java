@@ -0,0 +1,132 @@
+package com.banking.audit;
+
+import com.banking.audit.dto.AuditCursor;
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.enums.AuditSeverity;
+import com.banking.audit.repository.AuditArchiveManifest;
+import com.banking.audit.repository.AuditArchiveStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AuditArchiveStoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Mock
+    private AuditArchiveManifest manifest;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private AuditArchiveStore open() throws IOException {
+        return new AuditArchiveStore(dir.toString(), manifest, new SimpleMeterRegistry());
+    }
+
+    private List<AuditLog> rows(int first, int count) {
+        List<AuditLog> rows = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            AuditLog row = new AuditLog();
+            row.setId(String.format("id-%04d", i));
+            row.setUserId("user" + i % 3);
+            row.setAction(i % 2 == 0 ? "LOGIN" : "TRANSFER");
+            row.setResource("/api/accounts/" + i);
+            row.setDetails(i % 5 == 0 ? null : "details " + i);
+            row.setIpAddress("10.0.0." + i % 255);
+            row.setUserAgent("junit");
+            row.setStatus("SUCCESS");
+            row.setSeverity(i % 2 == 0 ? AuditSeverity.HIGH : AuditSeverity.CRITICAL);
+            row.setCreatedAt(START.plusSeconds(i).plusNanos(123_000));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    void testRowsRoundTripThroughAFileAndAReopen() throws IOException {
+        // Given
+        List<AuditLog> written = rows(0, 50);
+
+        // When
+        open().append(written);
+        AuditArchiveStore reopened = open();
+
+        // Then
+        AuditLog expected = written.get(17);
+        AuditLog read = reopened.findById(expected.getId()).orElseThrow();
+        assertEquals(expected.getUserId(), read.getUserId());
+        assertEquals(expected.getAction(), read.getAction());
+        assertEquals(expected.getResource(), read.getResource());
+        assertEquals(expected.getDetails(), read.getDetails());
+        assertEquals(expected.getIpAddress(), read.getIpAddress());
+        assertEquals(expected.getSeverity(), read.getSeverity());
+        assertEquals(expected.getCreatedAt(), read.getCreatedAt());
+        assertNull(reopened.findById("id-0015").orElseThrow().getDetails());
+        assertTrue(reopened.findById("id-9999").isEmpty());
+        assertEquals(50, reopened.rowCount());
+        verify(manifest).record(anyString(), eq(50), any(), any(), anyLong());
+    }
+
+    @Test
+    void testQueriesReturnNewestFirstAcrossFiles() throws IOException {
+        // Given
+        AuditArchiveStore store = open();
+        store.append(rows(0, 20));
+        store.append(rows(20, 20));
+
+        // When
+        List<AuditLog> page = store.find(null, "LOGIN", null, null, 2, 3);
+        List<AuditLog> after = store.findAfter("user1", null, null, null, AuditCursor.of(rows(25, 1).get(0)), 2);
+        List<AuditLog> scanned = new ArrayList<>();
+        store.scan(START.plusSeconds(18), START.plusSeconds(22), scanned::add);
+
+        // Then
+        assertEquals(List.of("id-0034", "id-0032", "id-0030"), page.stream().map(AuditLog::getId).toList());
+        assertEquals(List.of("id-0022", "id-0019"), after.stream().map(AuditLog::getId).toList());
+        assertEquals(List.of("id-0018", "id-0019", "id-0020", "id-0021"), scanned.stream().map(AuditLog::getId).toList());
+        assertTrue(store.exists("user2", "TRANSFER", null, null));
+        assertFalse(store.exists("user9", null, null, null));
+    }
+
+    @Test
+    void testStoreWithoutMarkerOrManifestFilesIsNotShared() throws IOException {
+        // Given
+        AuditArchiveStore store = open();
+        when(manifest.fileNames()).thenReturn(List.of());
+
+        // When
+        String withoutMarker = store.sharedStoreProblem();
+        Files.createFile(dir.resolve(AuditArchiveStore.STORE_MARKER));
+        String withMarker = store.sharedStoreProblem();
+        when(manifest.fileNames()).thenReturn(List.of("audit-1-2-3.col"));
+        String missingFile = store.sharedStoreProblem();
+
+        // Then
+        assertNotNull(withoutMarker);
+        assertNull(withMarker);
+        assertNotNull(missingFile);
+        verify(manifest, never()).record(anyString(), anyInt(), any(), any(), anyLong());
+    }
+}
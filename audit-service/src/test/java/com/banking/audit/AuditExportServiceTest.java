@@ -0,0 +1,162 @@
+package com.banking.audit;
+
+import com.banking.audit.dto.AuditExportJob;
+import com.banking.audit.dto.AuditExportRequest;
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.repository.AuditLogStore;
+import com.banking.audit.service.AuditExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuditExportServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = START.plusHours(4);
+
+    @Mock
+    private AuditLogStore auditLogStore;
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private AuditExportService open() throws IOException {
+        // 2 shards in flight, 64-byte chunks so every shard spans several chunks
+        AuditExportService service = new AuditExportService(dir.toString(), 2, 60, 64, 4, 1, "segment", 10,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "auditLogStore", auditLogStore);
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        service.loadJobs();
+        return service;
+    }
+
+    /** Three rows per hour; the first hour is slowest so later shards finish before it. */
+    private void stubRows(AtomicBoolean failThirdShard) {
+        doAnswer(inv -> {
+            LocalDateTime from = inv.getArgument(0);
+            Consumer<AuditLog> sink = inv.getArgument(2);
+            int hour = from.getHour();
+            if (hour == 0) {
+                Thread.sleep(100);
+            }
+            for (int i = 0; i < 3; i++) {
+                sink.accept(row(hour, i));
+                if (hour == 2 && i == 1 && failThirdShard.getAndSet(false)) {
+                    throw new IllegalStateException("connection reset");
+                }
+            }
+            return null;
+        }).when(auditLogStore).scan(any(), any(), any());
+    }
+
+    private static AuditLog row(int hour, int i) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setId("h" + hour + "-" + i);
+        auditLog.setUserId("user1");
+        auditLog.setAction("LOGIN");
+        auditLog.setStatus("SUCCESS");
+        auditLog.setCreatedAt(START.plusHours(hour).plusMinutes(i));
+        return auditLog;
+    }
+
+    private static List<String> expectedIds() {
+        List<String> ids = new ArrayList<>();
+        for (int hour = 0; hour < 4; hour++) {
+            for (int i = 0; i < 3; i++) {
+                ids.add("h" + hour + "-" + i);
+            }
+        }
+        return ids;
+    }
+
+    private static List<String> csvIds(String csv) {
+        List<String> ids = new ArrayList<>();
+        String[] lines = csv.split("\n");
+        for (int i = 1; i < lines.length; i++) {
+            ids.add(lines[i].substring(0, lines[i].indexOf(',')));
+        }
+        return ids;
+    }
+
+    private static AuditExportJob await(AuditExportService service, String id) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        AuditExportJob job = service.getExport(id);
+        while (job.getStatus() == AuditExportJob.Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        return job;
+    }
+
+    @Test
+    void testStreamedExportIsInTimeOrderWhateverOrderShardsFinish() throws IOException {
+        // Given
+        stubRows(new AtomicBoolean(false));
+        AuditExportService service = open();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        service.prepareStream(START, END, "csv", null).writeTo(out);
+
+        // Then
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("id,created_at,"));
+        assertEquals(expectedIds(), csvIds(csv));
+    }
+
+    @Test
+    void testFailedExportResumesFromManifestWithoutDuplicates() throws Exception {
+        // Given
+        stubRows(new AtomicBoolean(true));
+        AuditExportRequest request = new AuditExportRequest();
+        request.setFrom(START);
+        request.setTo(END);
+        request.setFormat("csv");
+        AuditExportService service = open();
+
+        // When
+        AuditExportJob failed = await(service, service.startExport(request).getId());
+        Path output = dir.resolve("export-" + failed.getId() + ".csv");
+        long committed = failed.getCommittedBytes();
+        long written = Files.size(output);
+        // A restarted instance only has the manifest to go on
+        AuditExportService restarted = open();
+        AuditExportJob resumed = await(restarted, restarted.resumeExport(failed.getId()).getId());
+
+        // Then
+        assertEquals(AuditExportJob.Status.FAILED, failed.getStatus());
+        assertEquals(2, failed.getCompletedShards());
+        assertTrue(written > committed, "the failed shard left a partial tail");
+        assertEquals(AuditExportJob.Status.COMPLETED, resumed.getStatus());
+        assertEquals(4, resumed.getCompletedShards());
+        assertEquals(12, resumed.getRows());
+        assertEquals(expectedIds(), csvIds(Files.readString(output)));
+    }
+}
@@ -0,0 +1,119 @@
+package com.banking.audit;
+
+import com.banking.audit.dto.AuditSearchResult;
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.repository.AuditFullTextSearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class AuditFullTextSearchTest {
+
+    private static final LocalDateTime OLDEST = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime NEWEST = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private AuditFullTextSearch auditFullTextSearch;
+
+    /** The created_at window and row limit of every search query, in order. */
+    private final List<Object[]> windows = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT min(created_at)"), any(RowMapper.class)))
+                .thenReturn(new LocalDateTime[] {OLDEST, NEWEST});
+    }
+
+    /** One match every {@code everyMinutes} minutes, newest first, counting back from the newest row. */
+    @SuppressWarnings("unchecked")
+    private void stubMatches(int everyMinutes) {
+        when(jdbcTemplate.query(startsWith("SELECT id,"), any(RowMapper.class), any(Object[].class))).thenAnswer(inv -> {
+            Object[] args = (Object[]) inv.getRawArguments()[2];
+            LocalDateTime start = ((Timestamp) args[args.length - 3]).toLocalDateTime();
+            LocalDateTime end = ((Timestamp) args[args.length - 2]).toLocalDateTime();
+            int limit = (Integer) args[args.length - 1];
+            windows.add(new Object[] {start, end, limit});
+            List<AuditLog> rows = new ArrayList<>();
+            for (LocalDateTime at = NEWEST; !at.isBefore(start) && rows.size() < limit; at = at.minusMinutes(everyMinutes)) {
+                if (at.isBefore(end)) {
+                    AuditLog auditLog = new AuditLog();
+                    auditLog.setId(at.toString());
+                    auditLog.setCreatedAt(at);
+                    rows.add(auditLog);
+                }
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    void testCommonTermIsAnsweredFromTheNewestWindowWithoutCounting() {
+        // Given: a match every ten minutes fills the first window
+        stubMatches(10);
+
+        // When
+        AuditSearchResult result = auditFullTextSearch.search(List.of(List.of("login")), null, null, 1);
+
+        // Then
+        assertEquals(List.of(NEWEST.toString()), result.getResults().stream().map(AuditLog::getId).toList());
+        assertTrue(result.hasMore());
+        assertEquals(1, windows.size());
+        assertEquals(2, windows.get(0)[2]);
+        verify(jdbcTemplate, never()).query(contains("count("), any(RowMapper.class), any(Object[].class));
+    }
+
+    @Test
+    void testRareTermWalksDoublingWindowsDownToFrom() {
+        // Given: a match every 100 hours, searched back to a week before the newest row
+        stubMatches(6000);
+        LocalDateTime from = NEWEST.minusDays(7);
+
+        // When
+        AuditSearchResult result = auditFullTextSearch.search(List.of(List.of("acc-001")), from, null, 10);
+
+        // Then: 1h, 2h, 4h ... windows until the range runs out at from
+        assertEquals(2, result.getResults().size());
+        assertFalse(result.hasMore());
+        assertEquals(8, windows.size());
+        for (int i = 1; i < windows.size(); i++) {
+            assertEquals(windows.get(i - 1)[0], windows.get(i)[1]);
+        }
+        assertEquals(from, windows.get(windows.size() - 1)[0]);
+        assertEquals(9, windows.get(windows.size() - 1)[2]);
+    }
+
+    @Test
+    void testEmptyTableIsNotSearched() {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("SELECT min(created_at)"), any(RowMapper.class)))
+                .thenReturn(new LocalDateTime[] {null, null});
+
+        // When
+        AuditSearchResult result = auditFullTextSearch.search(List.of(List.of("login")), null, null, 10);
+
+        // Then
+        assertTrue(result.getResults().isEmpty());
+        assertFalse(result.hasMore());
+        assertTrue(windows.isEmpty());
+    }
+}
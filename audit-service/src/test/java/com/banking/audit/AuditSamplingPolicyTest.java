@@ -0,0 +1,127 @@
+package com.banking.audit;
+
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.enums.AuditSeverity;
+import com.banking.audit.repository.AuditLogStore;
+import com.banking.audit.service.AuditSamplingPolicy;
+import com.banking.audit.service.AuditSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuditSamplingPolicyTest {
+
+    @Mock
+    private AuditLogStore auditLogStore;
+
+    @Mock
+    private AuditSearchIndex auditSearchIndex;
+
+    private AuditSamplingPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Sample rates of zero make every sampling decision deterministic
+        policy = new AuditSamplingPolicy(true, "TRANSFER,PAYMENT", "LOGIN_FAILED", "VIEW,READ",
+                0.5, 0.8, 250, 1000, 0.0, 0.0, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(policy, "auditLogStore", auditLogStore);
+        ReflectionTestUtils.setField(policy, "auditSearchIndex", auditSearchIndex);
+    }
+
+    private AuditLog event(String action, AuditSeverity requested) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setAction(action);
+        auditLog.setSeverity(requested);
+        auditLog.setStatus("SUCCESS");
+        auditLog.setCreatedAt(LocalDateTime.of(2025, 1, 1, 10, 0, 30));
+        return auditLog;
+    }
+
+    @Test
+    void testNormalLevelPersistsEverything() {
+        // When
+        boolean low = policy.admit(event("VIEW_ACCOUNT", null), 0.1);
+        boolean normal = policy.admit(event("UPDATE_PROFILE", null), 0.1);
+
+        // Then
+        assertTrue(low);
+        assertTrue(normal);
+        assertEquals(AuditSamplingPolicy.Level.NORMAL, policy.getLevel());
+    }
+
+    @Test
+    void testDegradedLevelSamplesLowEventsOnly() {
+        // When
+        boolean low = policy.admit(event("VIEW_ACCOUNT", null), 0.6);
+        boolean normal = policy.admit(event("UPDATE_PROFILE", null), 0.6);
+
+        // Then
+        assertFalse(low);
+        assertTrue(normal);
+        assertEquals(AuditSamplingPolicy.Level.DEGRADED, policy.getLevel());
+    }
+
+    @Test
+    void testSheddingLevelSamplesNormalEventsAndKeepsMoneyMovement() {
+        // Given
+        AuditLog downgraded = event("TRANSFER_OUT", AuditSeverity.LOW);
+
+        // When
+        boolean normal = policy.admit(event("UPDATE_PROFILE", null), 0.9);
+        boolean transfer = policy.admit(downgraded, 0.9);
+        boolean high = policy.admit(event("LOGIN_FAILED", null), 0.9);
+
+        // Then
+        assertFalse(normal);
+        assertTrue(transfer);
+        assertTrue(high);
+        assertEquals(AuditSeverity.CRITICAL, downgraded.getSeverity());
+        assertEquals(AuditSamplingPolicy.Level.SHEDDING, policy.getLevel());
+    }
+
+    @Test
+    void testSlowWritesRaiseTheLevelWithoutBacklog() {
+        // Given
+        policy.recordWriteLatency(2_000_000_000L);
+
+        // When
+        boolean normal = policy.admit(event("UPDATE_PROFILE", null), 0.0);
+
+        // Then
+        assertFalse(normal);
+        assertEquals(AuditSamplingPolicy.Level.SHEDDING, policy.getLevel());
+    }
+
+    @Test
+    void testDroppedEventsAreFlushedAsOneSummaryPerMinute() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            policy.admit(event("VIEW_ACCOUNT", null), 0.9);
+        }
+
+        // When
+        policy.flushAllAggregates();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AuditLog>> summaries = ArgumentCaptor.forClass(List.class);
+        verify(auditLogStore).saveAll(summaries.capture());
+        assertEquals(1, summaries.getValue().size());
+        AuditLog summary = summaries.getValue().get(0);
+        assertEquals("VIEW_ACCOUNT", summary.getAction());
+        assertEquals(AuditSeverity.LOW, summary.getSeverity());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), summary.getCreatedAt());
+        assertTrue(summary.getDetails().contains("\"count\":3"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.banking.audit;
+
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.service.AuditSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSearchIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    private AuditSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AuditSearchIndex(new SimpleMeterRegistry(), "segment");
+        index.index(List.of(
+                auditLog("a", "Transfer from ACC-001 failed.", "10.0.0.7", 0),
+                auditLog("b", "Transfer from acc-001 completed", "10.0.0.8", 1),
+                auditLog("c", "Login failed for alice@example.com", "10.0.0.7", 2),
+                auditLog("d", "Deposit to acc-002 failed", "10.0.0.9", 3)));
+    }
+
+    private AuditLog auditLog(String id, String details, String ip, int minutes) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setId(id);
+        auditLog.setDetails(details);
+        auditLog.setIpAddress(ip);
+        auditLog.setResource("/api/audit");
+        auditLog.setCreatedAt(START.plusMinutes(minutes));
+        return auditLog;
+    }
+
+    @Test
+    void testTermsAreAndedWithinAGroup() {
+        // When
+        AuditSearchIndex.SearchResult implicit = index.search("acc-001 failed", null, null, 10);
+        AuditSearchIndex.SearchResult explicit = index.search("acc-001 AND failed", null, null, 10);
+
+        // Then
+        assertEquals(List.of("a"), implicit.getIds());
+        assertEquals(1, implicit.getTotal());
+        assertEquals(implicit.getIds(), explicit.getIds());
+    }
+
+    @Test
+    void testGroupsAreOredNewestFirst() {
+        // When
+        AuditSearchIndex.SearchResult result = index.search("acc-002 OR alice@example.com OR 10.0.0.7", null, null, 10);
+
+        // Then
+        assertEquals(List.of("d", "c", "a"), result.getIds());
+        assertEquals(3, result.getTotal());
+    }
+
+    @Test
+    void testLimitAndTimeRangeApplyAfterMatching() {
+        // When
+        AuditSearchIndex.SearchResult limited = index.search("failed", null, null, 2);
+        AuditSearchIndex.SearchResult ranged = index.search("failed", START.plusMinutes(1), START.plusMinutes(3), 10);
+
+        // Then
+        assertEquals(List.of("d", "c"), limited.getIds());
+        assertEquals(3, limited.getTotal());
+        assertEquals(List.of("c"), ranged.getIds());
+    }
+
+    @Test
+    void testLogIndexedTwiceIsCountedOnce() {
+        // Given
+        index.index(auditLog("a", "Transfer from ACC-001 failed.", "10.0.0.7", 0));
+
+        // When
+        AuditSearchIndex.SearchResult result = index.search("acc-001", null, null, 10);
+
+        // Then
+        assertEquals(List.of("b", "a"), result.getIds());
+        assertEquals(2, result.getTotal());
+    }
+
+    @Test
+    void testIndexIsDisabledOutsideTheSegmentBackend() {
+        // Given
+        AuditSearchIndex jpaIndex = new AuditSearchIndex(new SimpleMeterRegistry(), "jpa");
+
+        // When
+        jpaIndex.index(auditLog("a", "Transfer failed", null, 0));
+
+        // Then
+        assertFalse(jpaIndex.isEnabled());
+        assertEquals(0, jpaIndex.documentCount());
+    }
+
+    @Test
+    void testEmptyQueryIsRejected() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> AuditSearchIndex.parse("  OR AND "));
+        assertEquals(List.of(List.of("acc-001", "failed"), List.of("10.0.0.7")),
+                AuditSearchIndex.parse("ACC-001 failed. OR 10.0.0.7"));
+    }
+}
@@ -0,0 +1,160 @@
+package com.banking.audit;
+
+import com.banking.audit.entity.AuditLog;
+import com.banking.audit.repository.SegmentedAuditLogStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedAuditLogStoreTest {
+
+    private static final String SEGMENT = "segment-000000000000.log";
+
+    @TempDir
+    Path dir;
+
+    private AuditLog auditLog(String id, String userId, String details) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setId(id);
+        auditLog.setUserId(userId);
+        auditLog.setAction("LOGIN");
+        auditLog.setDetails(details);
+        auditLog.setStatus("SUCCESS");
+        auditLog.setCreatedAt(LocalDateTime.of(2025, 1, 1, 10, 0));
+        return auditLog;
+    }
+
+    private SegmentedAuditLogStore open() throws IOException {
+        return new SegmentedAuditLogStore(dir.toString(), 1);
+    }
+
+    private List<String> ids(SegmentedAuditLogStore store) {
+        Page<AuditLog> page = store.find(null, null, null, null, Pageable.unpaged());
+        List<String> ids = new ArrayList<>();
+        page.forEach(auditLog -> ids.add(auditLog.getId()));
+        return ids;
+    }
+
+    @Test
+    void testRecoveryDiscardsTornTail() throws IOException {
+        // Given
+        SegmentedAuditLogStore store = open();
+        store.saveAll(List.of(auditLog("a", "user1", "one"), auditLog("b", "user1", "two")));
+        store.close();
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve(SEGMENT).toFile(), "rw")) {
+            long second = 8 + readInt(file, 0);
+            long tail = second + 8 + readInt(file, second);
+            file.seek(tail);
+            // A header whose payload never made it to disk
+            file.writeInt(64);
+            file.writeInt(0x12345678);
+        }
+
+        // When
+        SegmentedAuditLogStore recovered = open();
+        recovered.save(auditLog("c", "user2", "three"));
+        recovered.close();
+        SegmentedAuditLogStore reopened = open();
+
+        // Then
+        assertEquals(List.of("c", "b", "a"), ids(reopened));
+        assertEquals("three", reopened.findById("c").orElseThrow().getDetails());
+        reopened.close();
+    }
+
+    @Test
+    void testRecoveryStopsAtCrcMismatch() throws IOException {
+        // Given
+        SegmentedAuditLogStore store = open();
+        store.saveAll(List.of(auditLog("a", "user1", "one"), auditLog("b", "user1", "two"),
+                auditLog("c", "user1", "three")));
+        store.close();
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve(SEGMENT).toFile(), "rw")) {
+            long second = 8 + readInt(file, 0);
+            // Flip the last payload byte of the second record
+            long lastByte = second + 8 + readInt(file, second) - 1;
+            file.seek(lastByte);
+            int value = file.read();
+            file.seek(lastByte);
+            file.write(value ^ 0xFF);
+        }
+
+        // When
+        SegmentedAuditLogStore recovered = open();
+
+        // Then
+        assertEquals(List.of("a"), ids(recovered));
+        assertTrue(recovered.findById("c").isEmpty());
+        recovered.close();
+    }
+
+    @Test
+    void testBatchRollsOverSegmentsAndSurvivesRestart() throws IOException {
+        // Given
+        String details = "x".repeat(300 * 1024);
+        List<AuditLog> batch = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            batch.add(auditLog("id-" + i, i % 2 == 0 ? "even" : "odd", details));
+        }
+
+        // When
+        SegmentedAuditLogStore store = open();
+        store.saveAll(batch);
+        store.saveAll(batch.subList(0, 2));
+        store.close();
+        SegmentedAuditLogStore reopened = open();
+
+        // Then
+        assertEquals(8, ids(reopened).size());
+        assertEquals(4, reopened.find("even", null, null, null, Pageable.unpaged()).getTotalElements());
+        assertEquals(details, reopened.findById("id-7").orElseThrow().getDetails());
+        reopened.close();
+    }
+
+    @Test
+    void testScanReturnsRangeInTimeOrderAcrossBlocks() throws IOException {
+        // Given: 3000 records in append order, every tenth stamped 1000 seconds early
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<AuditLog> batch = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            AuditLog auditLog = auditLog("id-" + i, "user1", null);
+            auditLog.setCreatedAt(start.plusSeconds(i % 10 == 0 ? i - 1000 : i));
+            batch.add(auditLog);
+        }
+        SegmentedAuditLogStore store = open();
+        store.saveAll(batch);
+
+        // When
+        List<LocalDateTime> scanned = new ArrayList<>();
+        store.scan(start.plusSeconds(100), start.plusSeconds(2900), auditLog -> scanned.add(auditLog.getCreatedAt()));
+
+        // Then
+        List<LocalDateTime> sorted = new ArrayList<>(scanned);
+        sorted.sort(null);
+        assertEquals(sorted, scanned);
+        assertEquals(2520 + 190, scanned.size());
+        store.close();
+    }
+
+    @Test
+    void testSegmentSizeIsRangeChecked() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> new SegmentedAuditLogStore(dir.toString(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new SegmentedAuditLogStore(dir.toString(), 2048));
+    }
+
+    private static int readInt(RandomAccessFile file, long position) throws IOException {
+        file.seek(position);
+        return file.readInt();
+    }
+}
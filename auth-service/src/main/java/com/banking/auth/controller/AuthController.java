@@ -1,8 +1,10 @@
 package com.banking.auth.controller;
 
+import com.banking.auth.dto.TokenClaims;
 import com.banking.auth.entity.User;
 import com.banking.auth.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -47,12 +49,44 @@ public class AuthController {
             token = token.substring(7);
         }
         
-        User user = authService.validateToken(token);
+        TokenClaims claims = authService.validateToken(token);
+        
+        Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put("id", claims.getUserId());
+        userInfo.put("username", claims.getUsername());
+        userInfo.put("role", claims.getRole());
         
         Map<String, Object> response = new HashMap<>();
         response.put("valid", true);
-        response.put("user", user);
+        response.put("user", userInfo);
+        response.put("expiresAt", claims.getExpiresAt());
         
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader("Authorization") String token) {
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        authService.logout(token);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/users/{userId}/revoke-sessions")
+    public ResponseEntity<Void> revokeSessions(@RequestHeader("Authorization") String token,
+                                               @PathVariable String userId) {
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        TokenClaims caller = authService.validateToken(token);
+        if (!caller.getUserId().equals(userId) && !"ADMIN".equals(caller.getRole())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        authService.revokeAllSessions(userId);
+        return ResponseEntity.noContent().build();
+    }
 }
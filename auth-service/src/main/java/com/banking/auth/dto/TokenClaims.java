@@ -0,0 +1,30 @@
+package com.banking.auth.dto;
+
+public class TokenClaims {
+    private final String tokenId;
+    private final String userId;
+    private final String username;
+    private final String role;
+    private final long issuedAt;
+    private final long expiresAt;
+    private final String keyId;
+
+    public TokenClaims(String tokenId, String userId, String username, String role,
+                       long issuedAt, long expiresAt, String keyId) {
+        this.tokenId = tokenId;
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.keyId = keyId;
+    }
+
+    public String getTokenId() { return tokenId; }
+    public String getUserId() { return userId; }
+    public String getUsername() { return username; }
+    public String getRole() { return role; }
+    public long getIssuedAt() { return issuedAt; }
+    public long getExpiresAt() { return expiresAt; }
+    public String getKeyId() { return keyId; }
+}
@@ -0,0 +1,12 @@
+package com.banking.auth.exception;
+
+import com.banking.shared.exception.BankingException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class LoginCapacityExceededException extends BankingException {
+    public LoginCapacityExceededException() {
+        super("LOGIN_CAPACITY_EXCEEDED", "Too many concurrent logins, retry shortly");
+    }
+}
@@ -0,0 +1,79 @@
+package com.banking.auth.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * The {@code token_revocations} table, the record of revocations shared by every auth-service
+ * instance. A row revokes either one token id ({@code T}) or every token a user was issued
+ * before {@code not_before} ({@code U}); it is needed until {@code expires_at}. Rows are
+ * stamped with the database clock, so readers can follow the table by time without trusting
+ * their own clocks.
+ */
+@Repository
+public class TokenRevocationStore {
+
+    public static final String TOKEN = "T";
+    public static final String USER = "U";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO token_revocations (kind, subject, not_before, expires_at) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (kind, subject) DO UPDATE SET "
+            + "not_before = GREATEST(token_revocations.not_before, EXCLUDED.not_before), "
+            + "expires_at = GREATEST(token_revocations.expires_at, EXCLUDED.expires_at), "
+            + "recorded_at = CURRENT_TIMESTAMP";
+
+    private static final String FIND_SQL =
+            "SELECT kind, subject, not_before, expires_at, recorded_at FROM token_revocations "
+            + "WHERE expires_at > ? AND recorded_at >= ?";
+
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM token_revocations WHERE expires_at <= ?";
+
+    /** One row of the table. */
+    public static final class Revocation {
+        private final String kind;
+        private final String subject;
+        private final long notBefore;
+        private final long expiresAt;
+        private final Timestamp recordedAt;
+
+        public Revocation(String kind, String subject, long notBefore, long expiresAt, Timestamp recordedAt) {
+            this.kind = kind;
+            this.subject = subject;
+            this.notBefore = notBefore;
+            this.expiresAt = expiresAt;
+            this.recordedAt = recordedAt;
+        }
+
+        public String getKind() { return kind; }
+        public String getSubject() { return subject; }
+        public long getNotBefore() { return notBefore; }
+        public long getExpiresAt() { return expiresAt; }
+        public Timestamp getRecordedAt() { return recordedAt; }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void revokeToken(String tokenId, long expiresAt) {
+        jdbcTemplate.update(INSERT_SQL, TOKEN, tokenId, 0L, expiresAt);
+    }
+
+    public void revokeUser(String userId, long notBefore, long keepUntil) {
+        jdbcTemplate.update(INSERT_SQL, USER, userId, notBefore, keepUntil);
+    }
+
+    /** Revocations still in force at {@code now} (epoch seconds) recorded at or after {@code since}. */
+    public List<Revocation> findSince(long now, Timestamp since) {
+        return jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> new Revocation(rs.getString(1), rs.getString(2),
+                rs.getLong(3), rs.getLong(4), rs.getTimestamp(5)), now, since);
+    }
+
+    public int deleteExpired(long now) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, now);
+    }
+}
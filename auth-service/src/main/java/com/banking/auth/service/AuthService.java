@@ -1,52 +1,76 @@
 package com.banking.auth.service;
 
+import com.banking.auth.dto.TokenClaims;
 import com.banking.auth.entity.User;
-import com.banking.auth.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Base64;
 import java.util.Optional;
 
 @Service
 public class AuthService {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserLookupService userLookupService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private PasswordService passwordService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     public User authenticate(String username, String password) {
-        Optional<User> userOpt = userRepository.findByUsername(username);
+        Optional<User> userOpt = userLookupService.findByUsername(username);
         
-        if (userOpt.isPresent()) {
+        PasswordService.Verification verification =
+                passwordService.verify(password, userOpt.map(User::getPassword).orElse(null));
+        if (userOpt.isPresent() && verification.matches()) {
             User user = userOpt.get();
-            if ("password".equals(password)) {
-                return user;
+            if (verification.getUpgradedHash() != null) {
+                userLookupService.save(withPassword(user, verification.getUpgradedHash()));
             }
+            return user;
         }
         
         throw new RuntimeException("Invalid credentials");
     }
 
     public String generateToken(User user) {
-        String tokenData = user.getId() + ":" + user.getUsername() + ":" + System.currentTimeMillis();
-        return Base64.getEncoder().encodeToString(tokenData.getBytes());
+        return tokenService.issue(user);
     }
 
-    public User validateToken(String token) {
-        try {
-            String decoded = new String(Base64.getDecoder().decode(token));
-            String[] parts = decoded.split(":");
-            if (parts.length >= 2) {
-                String userId = parts[0];
-                Optional<User> userOpt = userRepository.findById(userId);
-                if (userOpt.isPresent()) {
-                    return userOpt.get();
-                }
-            }
-        } catch (Exception e) {
-            // Token validation failed
+    public TokenClaims validateToken(String token) {
+        TokenClaims claims = tokenService.verify(token);
+        if (claims == null || tokenRevocationService.isRevoked(claims)) {
+            throw new RuntimeException("Invalid token");
         }
-        
-        throw new RuntimeException("Invalid token");
+        return claims;
+    }
+
+    public void logout(String token) {
+        tokenRevocationService.revoke(validateToken(token));
+    }
+
+    public void revokeAllSessions(String userId) {
+        tokenRevocationService.revokeAllForUser(userId);
+    }
+
+    /** Cached users are shared between requests, so the rehash is saved on a copy. */
+    private static User withPassword(User user, String password) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setPassword(password);
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setEmail(user.getEmail());
+        copy.setRole(user.getRole());
+        copy.setStatus(user.getStatus());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        return copy;
     }
 }
@@ -0,0 +1,179 @@
+package com.banking.auth.service;
+
+import com.banking.auth.exception.LoginCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt hashing on a dedicated, bounded pool so a login burst cannot tie up every request
+ * thread. The cost factor is calibrated at startup to roughly {@code target-hash-millis} on
+ * this host; stored hashes below that cost (or legacy plaintext values) are upgraded on the
+ * next successful login.
+ */
+@Service
+public class PasswordService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordService.class);
+
+    private final int cost;
+    private final String dummyHash;
+    private final ThreadPoolExecutor executor;
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordService(@Value("${auth.password.target-hash-millis:250}") long targetHashMillis,
+                           @Value("${auth.password.min-cost:10}") int minCost,
+                           @Value("${auth.password.max-cost:16}") int maxCost,
+                           @Value("${auth.password.hash-threads:0}") int hashThreads,
+                           @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+                           MeterRegistry meterRegistry) {
+        this.cost = calibrate(targetHashMillis, minCost, maxCost);
+        this.dummyHash = BCrypt.hashpw("dummy-password", BCrypt.gensalt(cost));
+
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = Timer.builder("banking_auth_password_hash_seconds")
+            .description("Time spent computing or checking a password hash")
+            .tag("service", "auth")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("banking_auth_login_rejected_total")
+            .description("Logins rejected because the hashing queue was full")
+            .tag("service", "auth")
+            .register(meterRegistry);
+        Gauge.builder("banking_auth_login_queue_depth", executor, e -> e.getQueue().size())
+            .description("Logins waiting for a password hashing thread")
+            .tag("service", "auth")
+            .register(meterRegistry);
+
+        log.info("Password hashing: bcrypt cost {}, {} threads, queue capacity {}", cost, threads, queueCapacity);
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public String hash(String rawPassword) {
+        return submit(() -> timedHash(rawPassword));
+    }
+
+    /**
+     * Checks the password and, when it matches a hash weaker than the calibrated cost, returns
+     * a replacement hash computed in the same task. A {@code null} stored value still burns one
+     * hash so unknown usernames take as long as wrong passwords.
+     */
+    public Verification verify(String rawPassword, String storedHash) {
+        return submit(() -> {
+            if (rawPassword == null) {
+                return Verification.FAILED;
+            }
+            if (storedHash == null) {
+                timedCheck(rawPassword, dummyHash);
+                return Verification.FAILED;
+            }
+            if (!isBcrypt(storedHash)) {
+                boolean matches = MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                        storedHash.getBytes(StandardCharsets.UTF_8));
+                return matches ? new Verification(true, timedHash(rawPassword)) : Verification.FAILED;
+            }
+            if (!timedCheck(rawPassword, storedHash)) {
+                return Verification.FAILED;
+            }
+            return new Verification(true, costOf(storedHash) < cost ? timedHash(rawPassword) : null);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new LoginCapacityExceededException();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private String timedHash(String rawPassword) {
+        return hashTimer.record(() -> BCrypt.hashpw(rawPassword, BCrypt.gensalt(cost)));
+    }
+
+    private boolean timedCheck(String rawPassword, String hash) {
+        return hashTimer.record(() -> BCrypt.checkpw(rawPassword, hash));
+    }
+
+    private static boolean isBcrypt(String value) {
+        return value.length() == 60 && value.startsWith("$2") && value.charAt(6) == '$';
+    }
+
+    private static int costOf(String bcryptHash) {
+        return Integer.parseInt(bcryptHash.substring(4, 6));
+    }
+
+    // Each extra cost step doubles the work, so one timed hash at the minimum is enough to extrapolate
+    private static int calibrate(long targetMillis, int minCost, int maxCost) {
+        String salt = BCrypt.gensalt(minCost);
+        BCrypt.hashpw("calibration", salt);
+        long start = System.nanoTime();
+        BCrypt.hashpw("calibration", salt);
+        double millis = Math.max((System.nanoTime() - start) / 1_000_000.0, 0.001);
+
+        int steps = (int) Math.floor(Math.log(targetMillis / millis) / Math.log(2));
+        return Math.max(minCost, Math.min(maxCost, minCost + steps));
+    }
+
+    public static final class Verification {
+        static final Verification FAILED = new Verification(false, null);
+
+        private final boolean matches;
+        private final String upgradedHash;
+
+        Verification(boolean matches, String upgradedHash) {
+            this.matches = matches;
+            this.upgradedHash = upgradedHash;
+        }
+
+        public boolean matches() { return matches; }
+        public String getUpgradedHash() { return upgradedHash; }
+    }
+}
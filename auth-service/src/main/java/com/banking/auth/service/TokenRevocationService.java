@@ -0,0 +1,198 @@
+package com.banking.auth.service;
+
+import com.banking.auth.dto.TokenClaims;
+import com.banking.auth.repository.TokenRevocationStore;
+import com.banking.auth.repository.TokenRevocationStore.Revocation;
+import com.banking.shared.util.BloomFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked tokens, bucketed by expiry window. A token can only ever be in the bucket for its
+ * own expiry, so a check is one map lookup, one Bloom probe and - only on a Bloom hit - one
+ * exact-set lookup. Whole buckets are dropped once their window has passed, which is what
+ * keeps the structure bounded. User-wide revocations ("log out everywhere") are a not-before
+ * time per user, kept until every token issued before it has expired.
+ *
+ * The buckets are a local cache of the shared {@code token_revocations} table. A revocation is
+ * written there before it is applied locally, and every instance loads the table on startup
+ * and then polls it every {@code refresh-ms} for rows recorded since its last poll, so a token
+ * revoked through one instance is rejected by the others within one refresh interval.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // Rows become visible when their transaction commits, which can be a little after recorded_at
+    private static final long WATERMARK_OVERLAP_MILLIS = 5000;
+
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, UserRevocation> userRevocations = new ConcurrentHashMap<>();
+    private final long windowSeconds;
+    private final long expectedPerWindow;
+    private final double falsePositiveRate;
+    private final long tokenTtlSeconds;
+    private final TokenRevocationStore store;
+    private final Clock clock;
+    private long lastRecordedMillis;
+
+    @Autowired
+    public TokenRevocationService(@Value("${auth.revocation.window-seconds:300}") long windowSeconds,
+                                  @Value("${auth.revocation.expected-per-window:100000}") long expectedPerWindow,
+                                  @Value("${auth.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                  TokenRevocationStore store,
+                                  TokenService tokenService,
+                                  MeterRegistry meterRegistry) {
+        this(windowSeconds, expectedPerWindow, falsePositiveRate, tokenService.getTtlSeconds(), store,
+                Clock.systemUTC());
+        Gauge.builder("banking_auth_revoked_tokens", this, TokenRevocationService::revokedTokenCount)
+            .description("Revoked tokens that have not yet expired")
+            .tag("service", "auth")
+            .register(meterRegistry);
+    }
+
+    public TokenRevocationService(long windowSeconds, long expectedPerWindow, double falsePositiveRate,
+                                  long tokenTtlSeconds, TokenRevocationStore store, Clock clock) {
+        this.windowSeconds = windowSeconds;
+        this.expectedPerWindow = expectedPerWindow;
+        this.falsePositiveRate = falsePositiveRate;
+        this.tokenTtlSeconds = tokenTtlSeconds;
+        this.store = store;
+        this.clock = clock;
+    }
+
+    public boolean isRevoked(TokenClaims claims) {
+        UserRevocation userRevocation = userRevocations.get(claims.getUserId());
+        if (userRevocation != null && claims.getIssuedAt() < userRevocation.notBefore) {
+            return true;
+        }
+        Bucket bucket = buckets.get(claims.getExpiresAt() / windowSeconds);
+        return bucket != null
+                && bucket.filter.mightContain(claims.getTokenId())
+                && bucket.tokenIds.contains(claims.getTokenId());
+    }
+
+    public void revoke(TokenClaims claims) {
+        if (claims.getExpiresAt() <= now()) {
+            return;
+        }
+        store.revokeToken(claims.getTokenId(), claims.getExpiresAt());
+        addToken(claims.getTokenId(), claims.getExpiresAt());
+    }
+
+    /**
+     * Revokes the tokens the user was issued before the current second. Issue times are whole
+     * seconds, so a token from the same second - such as the one from a login straight after
+     * - stays valid.
+     */
+    public void revokeAllForUser(String userId) {
+        long notBefore = now();
+        long keepUntil = notBefore + tokenTtlSeconds;
+        store.revokeUser(userId, notBefore, keepUntil);
+        addUser(userId, notBefore, keepUntil);
+    }
+
+    @PostConstruct
+    public void load() {
+        refresh();
+        log.info("Loaded {} revoked tokens and {} user revocations", revokedTokenCount(), userRevocations.size());
+    }
+
+    /** Applies the revocations other instances recorded since the last refresh. */
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh-ms:1000}")
+    public synchronized void refresh() {
+        try {
+            // Re-reading the overlap is harmless: applying a revocation twice changes nothing
+            Timestamp since = new Timestamp(Math.max(0, lastRecordedMillis - WATERMARK_OVERLAP_MILLIS));
+            long latest = lastRecordedMillis;
+            for (Revocation revocation : store.findSince(now(), since)) {
+                if (TokenRevocationStore.TOKEN.equals(revocation.getKind())) {
+                    addToken(revocation.getSubject(), revocation.getExpiresAt());
+                } else if (TokenRevocationStore.USER.equals(revocation.getKind())) {
+                    addUser(revocation.getSubject(), revocation.getNotBefore(), revocation.getExpiresAt());
+                }
+                latest = Math.max(latest, revocation.getRecordedAt().getTime());
+            }
+            lastRecordedMillis = latest;
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh token revocations, serving the cached ones", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.prune-interval-ms:60000}")
+    public void prune() {
+        long now = now();
+        buckets.keySet().removeIf(window -> (window + 1) * windowSeconds <= now);
+        userRevocations.values().removeIf(r -> r.keepUntil <= now);
+        try {
+            store.deleteExpired(now);
+        } catch (RuntimeException e) {
+            log.warn("Could not delete expired token revocations", e);
+        }
+    }
+
+    public long revokedTokenCount() {
+        long count = 0;
+        for (Bucket bucket : buckets.values()) {
+            count += bucket.tokenIds.size();
+        }
+        return count;
+    }
+
+    private void addToken(String tokenId, long expiresAt) {
+        if (expiresAt <= now()) {
+            return;
+        }
+        Bucket bucket = buckets.computeIfAbsent(expiresAt / windowSeconds,
+                w -> new Bucket(expectedPerWindow, falsePositiveRate));
+        // Exact set first, so a concurrent reader that passes the filter always finds the id
+        if (bucket.tokenIds.add(tokenId)) {
+            bucket.filter.put(tokenId);
+        }
+    }
+
+    private void addUser(String userId, long notBefore, long keepUntil) {
+        if (keepUntil <= now()) {
+            return;
+        }
+        userRevocations.merge(userId, new UserRevocation(notBefore, keepUntil),
+                (a, b) -> a.notBefore >= b.notBefore ? a : b);
+    }
+
+    private long now() {
+        return clock.millis() / 1000;
+    }
+
+    private static final class Bucket {
+        private final BloomFilter filter;
+        private final Set<String> tokenIds = ConcurrentHashMap.newKeySet();
+
+        Bucket(long expectedInsertions, double falsePositiveRate) {
+            this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        }
+    }
+
+    private static final class UserRevocation {
+        private final long notBefore;
+        private final long keepUntil;
+
+        UserRevocation(long notBefore, long keepUntil) {
+            this.notBefore = notBefore;
+            this.keepUntil = keepUntil;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.banking.auth.service;
+
+import com.banking.auth.dto.TokenClaims;
+import com.banking.auth.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Issues and verifies HMAC-SHA256 signed tokens of the form {@code kid.payload.signature}, where
+ * the payload carries a random token id, the user id, username, role, issue and expiry times.
+ * Verification only needs the signing keys, so it never touches the database. Every
+ * configured key is accepted for verification while only the active key signs, which
+ * lets a new key be rolled out before the old one is retired.
+ *
+ * The signing key checked into application.yml is for local runs only: the service refuses to
+ * start with it unless a development profile is active.
+ */
+@Service
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char FIELD_SEPARATOR = '\n';
+    static final String DEV_SIGNING_SECRET = "change-me-dev-only-signing-secret-0123456789";
+    private static final Profiles DEV_PROFILES = Profiles.of("default | dev | local | docker | test");
+
+    private final Map<String, SigningKey> keys = new HashMap<>();
+    private final SigningKey activeKey;
+    private final long ttlSeconds;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    public TokenService(@Value("${auth.token.signing-keys}") String signingKeys,
+                        @Value("${auth.token.active-key-id}") String activeKeyId,
+                        @Value("${auth.token.ttl-seconds:3600}") long ttlSeconds,
+                        Environment environment) {
+        this(signingKeys, activeKeyId, ttlSeconds, Clock.systemUTC());
+        if (keys.values().stream().anyMatch(SigningKey::isDevSecret) && !environment.acceptsProfiles(DEV_PROFILES)) {
+            throw new IllegalStateException("The development signing key is configured outside a development profile; "
+                    + "set AUTH_TOKEN_SIGNING_KEYS");
+        }
+    }
+
+    public TokenService(String signingKeys, String activeKeyId, long ttlSeconds, Clock clock) {
+        for (String entry : signingKeys.split(",")) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0 || eq == entry.length() - 1) {
+                throw new IllegalArgumentException("Signing keys must be configured as kid=secret[,kid=secret]");
+            }
+            String kid = entry.substring(0, eq).trim();
+            if (kid.indexOf('.') >= 0) {
+                throw new IllegalArgumentException("Signing key id must not contain '.': " + kid);
+            }
+            keys.put(kid, new SigningKey(kid, entry.substring(eq + 1).trim()));
+        }
+        this.activeKey = keys.get(activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalArgumentException("Active signing key not configured: " + activeKeyId);
+        }
+        this.ttlSeconds = ttlSeconds;
+        this.clock = clock;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public String issue(User user) {
+        byte[] tokenId = new byte[16];
+        random.nextBytes(tokenId);
+        long issuedAt = clock.millis() / 1000;
+        String payload = encode(tokenId) + FIELD_SEPARATOR + user.getId() + FIELD_SEPARATOR + user.getUsername()
+                + FIELD_SEPARATOR + user.getRole() + FIELD_SEPARATOR + issuedAt + FIELD_SEPARATOR
+                + (issuedAt + ttlSeconds);
+        String signingInput = activeKey.id + "." + encode(payload.getBytes(StandardCharsets.UTF_8));
+        return signingInput + "." + encode(activeKey.sign(signingInput));
+    }
+
+    /**
+     * Returns the claims carried by the token, or {@code null} if the token is malformed,
+     * signed with an unknown key, tampered with or expired.
+     */
+    public TokenClaims verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot) {
+            return null;
+        }
+        SigningKey key = keys.get(token.substring(0, firstDot));
+        if (key == null) {
+            return null;
+        }
+
+        try {
+            byte[] expected = key.sign(token.substring(0, lastDot));
+            byte[] actual = Base64.getUrlDecoder().decode(token.substring(lastDot + 1));
+            if (!MessageDigest.isEqual(expected, actual)) {
+                return null;
+            }
+
+            String payload = new String(Base64.getUrlDecoder().decode(token.substring(firstDot + 1, lastDot)),
+                    StandardCharsets.UTF_8);
+            String[] fields = payload.split(String.valueOf(FIELD_SEPARATOR), -1);
+            if (fields.length != 6) {
+                return null;
+            }
+            long expiresAt = Long.parseLong(fields[5]);
+            if (clock.millis() / 1000 >= expiresAt) {
+                return null;
+            }
+            return new TokenClaims(fields[0], fields[1], fields[2], fields[3], Long.parseLong(fields[4]),
+                    expiresAt, key.id);
+        } catch (IllegalArgumentException e) {
+            // Bad Base64 or a non-numeric timestamp
+            return null;
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static final class SigningKey {
+        private final String id;
+        private final boolean devSecret;
+        private final ThreadLocal<Mac> mac;
+
+        SigningKey(String id, String secret) {
+            this.id = id;
+            this.devSecret = DEV_SIGNING_SECRET.equals(secret);
+            SecretKeySpec spec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac m = Mac.getInstance(ALGORITHM);
+                    m.init(spec);
+                    return m;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Cannot initialise " + ALGORITHM, e);
+                }
+            });
+        }
+
+        boolean isDevSecret() {
+            return devSecret;
+        }
+
+        byte[] sign(String input) {
+            return mac.get().doFinal(input.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.banking.auth.service;
+
+import com.banking.auth.entity.User;
+import com.banking.auth.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache in front of {@link UserRepository}. Users are held by id, with a
+ * username to id index beside it. Usernames that do not exist are remembered for a short
+ * negative TTL so credential-stuffing runs against unknown names stay in memory.
+ * Writes must go through {@link #save(User)} so both indexes are invalidated, and must save
+ * a copy: cached users are shared between requests and are never modified in place.
+ */
+@Service
+public class UserLookupService {
+
+    private static final String UNKNOWN = "";
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> usersById;
+    private final Cache<String, String> idsByUsername;
+    private final Counter negativeHits;
+
+    public UserLookupService(UserRepository userRepository,
+                             @Value("${auth.user-cache.max-size:100000}") long maxSize,
+                             @Value("${auth.user-cache.ttl-seconds:300}") long ttlSeconds,
+                             @Value("${auth.user-cache.negative-ttl-seconds:30}") long negativeTtlSeconds,
+                             MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        long ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        long negativeTtlNanos = Duration.ofSeconds(negativeTtlSeconds).toNanos();
+
+        this.usersById = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build();
+        this.idsByUsername = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new Expiry<String, String>() {
+                @Override
+                public long expireAfterCreate(String username, String id, long currentTime) {
+                    return UNKNOWN.equals(id) ? negativeTtlNanos : ttlNanos;
+                }
+
+                @Override
+                public long expireAfterUpdate(String username, String id, long currentTime, long currentDuration) {
+                    return expireAfterCreate(username, id, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String username, String id, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "banking_auth_users_by_id", "service", "auth");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByUsername, "banking_auth_users_by_username", "service", "auth");
+        this.negativeHits = Counter.builder("banking_auth_user_cache_negative_hits_total")
+            .description("Username lookups answered from the negative cache")
+            .tag("service", "auth")
+            .register(meterRegistry);
+    }
+
+    public Optional<User> findById(String id) {
+        User user = usersById.getIfPresent(id);
+        if (user != null) {
+            return Optional.of(user);
+        }
+        Optional<User> loaded = userRepository.findById(id);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    public Optional<User> findByUsername(String username) {
+        String id = idsByUsername.getIfPresent(username);
+        if (UNKNOWN.equals(id)) {
+            negativeHits.increment();
+            return Optional.empty();
+        }
+        if (id != null) {
+            User user = usersById.getIfPresent(id);
+            // The index can outlive a rename; only trust it if the user still has this name
+            if (user != null && username.equals(user.getUsername())) {
+                return Optional.of(user);
+            }
+        }
+
+        Optional<User> loaded = userRepository.findByUsername(username);
+        if (loaded.isPresent()) {
+            put(loaded.get());
+        } else {
+            idsByUsername.put(username, UNKNOWN);
+        }
+        return loaded;
+    }
+
+    /**
+     * Saves the user and evicts its entries once the save commits, so a failed or rolled back
+     * save leaves the cache matching the database.
+     */
+    public User save(User user) {
+        User existing = user.getId() != null ? usersById.getIfPresent(user.getId()) : null;
+        String previousUsername = existing != null ? existing.getUsername() : null;
+        User saved = userRepository.save(user);
+        afterCommit(() -> {
+            usersById.invalidate(saved.getId());
+            idsByUsername.invalidate(saved.getUsername());
+            if (previousUsername != null) {
+                idsByUsername.invalidate(previousUsername);
+            }
+        });
+        return saved;
+    }
+
+    public void invalidate(String id) {
+        User existing = usersById.getIfPresent(id);
+        usersById.invalidate(id);
+        if (existing != null) {
+            idsByUsername.invalidate(existing.getUsername());
+        }
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    private void put(User user) {
+        usersById.put(user.getId(), user);
+        idsByUsername.put(user.getUsername(), user.getId());
+    }
+}
@@ -0,0 +1,72 @@
+package com.banking.auth;
+
+import com.banking.auth.service.PasswordService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordServiceTest {
+
+    private PasswordService passwordService;
+
+    @BeforeEach
+    void setUp() {
+        // Pin the cost to 5 so calibration is deterministic and fast
+        passwordService = new PasswordService(1, 5, 5, 1, 4, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordService.shutdown();
+    }
+
+    @Test
+    void testHashAndVerify() {
+        // Given
+        String hash = passwordService.hash("s3cret");
+
+        // When
+        PasswordService.Verification ok = passwordService.verify("s3cret", hash);
+        PasswordService.Verification wrong = passwordService.verify("guess", hash);
+
+        // Then
+        assertEquals(5, passwordService.getCost());
+        assertTrue(ok.matches());
+        assertNull(ok.getUpgradedHash());
+        assertFalse(wrong.matches());
+    }
+
+    @Test
+    void testWeakerHashIsUpgraded() {
+        // Given
+        String weakHash = BCrypt.hashpw("s3cret", BCrypt.gensalt(4));
+
+        // When
+        PasswordService.Verification result = passwordService.verify("s3cret", weakHash);
+
+        // Then
+        assertTrue(result.matches());
+        assertNotNull(result.getUpgradedHash());
+        assertTrue(result.getUpgradedHash().startsWith("$2a$05$"));
+    }
+
+    @Test
+    void testLegacyPlaintextIsUpgraded() {
+        // When
+        PasswordService.Verification result = passwordService.verify("password", "password");
+
+        // Then
+        assertTrue(result.matches());
+        assertTrue(BCrypt.checkpw("password", result.getUpgradedHash()));
+        assertFalse(passwordService.verify("wrong", "password").matches());
+    }
+
+    @Test
+    void testUnknownUserNeverMatches() {
+        assertFalse(passwordService.verify("password", null).matches());
+    }
+}
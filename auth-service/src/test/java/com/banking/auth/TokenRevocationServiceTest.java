@@ -0,0 +1,137 @@
+package com.banking.auth;
+
+import com.banking.auth.dto.TokenClaims;
+import com.banking.auth.repository.TokenRevocationStore;
+import com.banking.auth.service.TokenRevocationService;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationServiceTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-01-01T10:00:00Z"), ZoneOffset.UTC);
+    private final long now = clock.millis() / 1000;
+    private final InMemoryRevocationStore store = new InMemoryRevocationStore();
+
+    private TokenRevocationService newService(Clock clock) {
+        TokenRevocationService service = new TokenRevocationService(300, 1000, 0.01, 3600, store, clock);
+        service.load();
+        return service;
+    }
+
+    private TokenClaims claims(String tokenId, String userId, long issuedAt) {
+        return new TokenClaims(tokenId, userId, "john.doe", "CUSTOMER", issuedAt, issuedAt + 3600, "k1");
+    }
+
+    @Test
+    void testRevokedTokenSurvivesRestart() {
+        // Given
+        TokenRevocationService service = newService(clock);
+        TokenClaims revoked = claims("token-a", "user1", now);
+        TokenClaims other = claims("token-b", "user1", now);
+
+        // When
+        service.revoke(revoked);
+        TokenRevocationService restarted = newService(clock);
+
+        // Then
+        assertTrue(service.isRevoked(revoked));
+        assertFalse(service.isRevoked(other));
+        assertTrue(restarted.isRevoked(revoked));
+        assertFalse(restarted.isRevoked(other));
+    }
+
+    @Test
+    void testRevocationReachesOtherInstancesOnRefresh() {
+        // Given
+        TokenRevocationService first = newService(clock);
+        TokenRevocationService second = newService(clock);
+        TokenClaims token = claims("token-a", "user1", now - 10);
+
+        // When
+        first.revoke(token);
+        first.revokeAllForUser("user2");
+        boolean seenBeforeRefresh = second.isRevoked(token);
+        second.refresh();
+
+        // Then
+        assertFalse(seenBeforeRefresh);
+        assertTrue(second.isRevoked(token));
+        assertTrue(second.isRevoked(claims("token-b", "user2", now - 10)));
+    }
+
+    @Test
+    void testRevokeAllForUserOnlyAffectsOlderTokens() {
+        // Given
+        TokenRevocationService service = newService(clock);
+        TokenClaims before = claims("token-a", "user1", now - 1);
+        TokenClaims otherUser = claims("token-b", "user2", now - 1);
+
+        // When
+        service.revokeAllForUser("user1");
+
+        // Then
+        assertTrue(service.isRevoked(before));
+        assertFalse(service.isRevoked(otherUser));
+        assertFalse(service.isRevoked(claims("token-c", "user1", now)));
+        assertFalse(service.isRevoked(claims("token-d", "user1", now + 5)));
+    }
+
+    @Test
+    void testExpiredRevocationsArePruned() {
+        // Given
+        TokenRevocationService service = newService(clock);
+        service.revoke(claims("token-a", "user1", now));
+        assertEquals(1, service.revokedTokenCount());
+
+        // When
+        TokenRevocationService later = newService(Clock.offset(clock, Duration.ofHours(2)));
+        later.prune();
+
+        // Then
+        assertEquals(0, later.revokedTokenCount());
+        assertTrue(store.rows.isEmpty());
+    }
+
+    /** The table, with a strictly increasing recorded_at standing in for the database clock. */
+    private static final class InMemoryRevocationStore extends TokenRevocationStore {
+        private final Map<String, Revocation> rows = new LinkedHashMap<>();
+        private long tick = 1_000_000;
+
+        @Override
+        public void revokeToken(String tokenId, long expiresAt) {
+            rows.put(TOKEN + tokenId, new Revocation(TOKEN, tokenId, 0, expiresAt, new Timestamp(tick++)));
+        }
+
+        @Override
+        public void revokeUser(String userId, long notBefore, long keepUntil) {
+            rows.put(USER + userId, new Revocation(USER, userId, notBefore, keepUntil, new Timestamp(tick++)));
+        }
+
+        @Override
+        public List<Revocation> findSince(long now, Timestamp since) {
+            List<Revocation> found = new ArrayList<>();
+            rows.values().stream()
+                .filter(r -> r.getExpiresAt() > now && !r.getRecordedAt().before(since))
+                .forEach(found::add);
+            return found;
+        }
+
+        @Override
+        public int deleteExpired(long now) {
+            int before = rows.size();
+            rows.values().removeIf(r -> r.getExpiresAt() <= now);
+            return before - rows.size();
+        }
+    }
+}
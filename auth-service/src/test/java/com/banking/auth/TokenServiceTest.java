@@ -0,0 +1,101 @@
+package com.banking.auth;
+
+import com.banking.auth.dto.TokenClaims;
+import com.banking.auth.entity.User;
+import com.banking.auth.service.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceTest {
+
+    private static final String KEYS = "k1=first-signing-secret-for-tests,k2=second-signing-secret-for-tests";
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-01-01T10:00:00Z"), ZoneOffset.UTC);
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId("user1");
+        user.setUsername("john.doe");
+        user.setRole("CUSTOMER");
+    }
+
+    @Test
+    void testIssueAndVerify() {
+        // Given
+        TokenService tokenService = new TokenService(KEYS, "k1", 3600, clock);
+
+        // When
+        TokenClaims claims = tokenService.verify(tokenService.issue(user));
+
+        // Then
+        assertNotNull(claims);
+        assertNotNull(claims.getTokenId());
+        assertEquals("user1", claims.getUserId());
+        assertEquals("john.doe", claims.getUsername());
+        assertEquals("CUSTOMER", claims.getRole());
+        assertEquals(clock.millis() / 1000, claims.getIssuedAt());
+        assertEquals(clock.millis() / 1000 + 3600, claims.getExpiresAt());
+        assertEquals("k1", claims.getKeyId());
+    }
+
+    @Test
+    void testTamperedTokenIsRejected() {
+        // Given
+        TokenService tokenService = new TokenService(KEYS, "k1", 3600, clock);
+        String token = tokenService.issue(user);
+        user.setRole("ADMIN");
+        String forgedPayload = new TokenService("k1=attacker-secret", "k1", 3600, clock).issue(user).split("\\.")[1];
+        String[] parts = token.split("\\.");
+
+        // When / Then
+        assertNull(tokenService.verify(parts[0] + "." + forgedPayload + "." + parts[2]));
+        assertNull(tokenService.verify("not-a-token"));
+        assertNull(tokenService.verify(null));
+    }
+
+    @Test
+    void testExpiredTokenIsRejected() {
+        // Given
+        String token = new TokenService(KEYS, "k1", 60, clock).issue(user);
+        TokenService later = new TokenService(KEYS, "k1", 60, Clock.offset(clock, Duration.ofSeconds(61)));
+
+        // When / Then
+        assertNull(later.verify(token));
+    }
+
+    @Test
+    void testRotatedKeyStillVerifies() {
+        // Given
+        String oldToken = new TokenService(KEYS, "k1", 3600, clock).issue(user);
+        TokenService rotated = new TokenService(KEYS, "k2", 3600, clock);
+
+        // When / Then
+        assertNotNull(rotated.verify(oldToken));
+        assertEquals("k2", rotated.verify(rotated.issue(user)).getKeyId());
+        assertNull(new TokenService("k2=second-signing-secret-for-tests", "k2", 3600, clock).verify(oldToken));
+    }
+
+    @Test
+    void testDevSigningKeyIsRefusedOutsideDevProfiles() {
+        // Given
+        String devKeys = "dev-1=change-me-dev-only-signing-secret-0123456789";
+        MockEnvironment k8s = new MockEnvironment();
+        k8s.setActiveProfiles("k8s");
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> new TokenService(devKeys, "dev-1", 3600, k8s));
+        assertNotNull(new TokenService(devKeys, "dev-1", 3600, new MockEnvironment()));
+        assertNotNull(new TokenService(KEYS, "k1", 3600, k8s));
+    }
+}
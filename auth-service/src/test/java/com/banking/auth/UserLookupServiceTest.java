@@ -0,0 +1,121 @@
+package com.banking.auth;
+
+import com.banking.auth.entity.User;
+import com.banking.auth.repository.UserRepository;
+import com.banking.auth.service.UserLookupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserLookupServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserLookupService userLookupService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        userLookupService = new UserLookupService(userRepository, 100, 300, 30, new SimpleMeterRegistry());
+
+        user = new User();
+        user.setId("user1");
+        user.setUsername("john.doe");
+    }
+
+    @Test
+    void testRepeatedLookupsHitRepositoryOnce() {
+        // Given
+        when(userRepository.findByUsername("john.doe")).thenReturn(Optional.of(user));
+
+        // When
+        userLookupService.findByUsername("john.doe");
+        Optional<User> byName = userLookupService.findByUsername("john.doe");
+        Optional<User> byId = userLookupService.findById("user1");
+
+        // Then
+        assertTrue(byName.isPresent());
+        assertTrue(byId.isPresent());
+        verify(userRepository, times(1)).findByUsername("john.doe");
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void testUnknownUsernameIsNegativelyCached() {
+        // Given
+        when(userRepository.findByUsername("nobody")).thenReturn(Optional.empty());
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertFalse(userLookupService.findByUsername("nobody").isPresent());
+        }
+
+        // Then
+        verify(userRepository, times(1)).findByUsername("nobody");
+    }
+
+    @Test
+    void testSaveInvalidatesCachedEntries() {
+        // Given
+        when(userRepository.findByUsername("john.doe")).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+        userLookupService.findByUsername("john.doe");
+
+        // When
+        userLookupService.save(user);
+        userLookupService.findByUsername("john.doe");
+
+        // Then
+        verify(userRepository, times(2)).findByUsername("john.doe");
+    }
+
+    @Test
+    void testSaveInsideATransactionEvictsOnlyAfterCommit() {
+        // Given
+        when(userRepository.findByUsername("john.doe")).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+        userLookupService.findByUsername("john.doe");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            userLookupService.save(user);
+            userLookupService.findByUsername("john.doe");
+            verify(userRepository, times(1)).findByUsername("john.doe");
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        userLookupService.findByUsername("john.doe");
+
+        // Then
+        verify(userRepository, times(2)).findByUsername("john.doe");
+    }
+
+    @Test
+    void testFailedSaveKeepsCachedEntries() {
+        // Given
+        when(userRepository.findByUsername("john.doe")).thenReturn(Optional.of(user));
+        when(userRepository.save(any())).thenThrow(new IllegalStateException("connection reset"));
+        userLookupService.findByUsername("john.doe");
+
+        // When
+        assertThrows(IllegalStateException.class, () -> userLookupService.save(user));
+        Optional<User> cached = userLookupService.findByUsername("john.doe");
+
+        // Then
+        assertSame(user, cached.orElseThrow());
+        verify(userRepository, times(1)).findByUsername("john.doe");
+    }
+}
@@ -0,0 +1,70 @@
+package com.banking.auth.benchmark;
+
+import com.banking.auth.dto.TokenClaims;
+import com.banking.auth.entity.User;
+import com.banking.auth.service.TokenService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validate throughput of signed tokens against the previous Base64 + findById scheme.
+ * The legacy path resolves users from an in-memory map, so it is a lower bound: the real
+ * path adds a Postgres round trip on top. Run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TokenValidationBenchmark {
+
+    private TokenService tokenService;
+    private String signedToken;
+    private String legacyToken;
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId("user1");
+        user.setUsername("john.doe");
+        user.setRole("CUSTOMER");
+        users.put(user.getId(), user);
+
+        tokenService = new TokenService("bench=benchmark-signing-secret-0123456789", "bench", 3600,
+                Clock.systemUTC());
+        signedToken = tokenService.issue(user);
+
+        String tokenData = user.getId() + ":" + user.getUsername() + ":" + System.currentTimeMillis();
+        legacyToken = Base64.getEncoder().encodeToString(tokenData.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public TokenClaims signedValidate() {
+        return tokenService.verify(signedToken);
+    }
+
+    @Benchmark
+    public User legacyValidate() {
+        String decoded = new String(Base64.getDecoder().decode(legacyToken), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(":");
+        return users.get(parts[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
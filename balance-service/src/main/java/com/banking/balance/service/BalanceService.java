@@ -2,6 +2,7 @@ package com.banking.balance.service;
 
 import com.banking.balance.entity.BalanceHistory;
 import com.banking.balance.repository.BalanceHistoryRepository;
+import com.banking.shared.push.PushPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -17,17 +18,31 @@ public class BalanceService {
     @Autowired
     private BalanceHistoryRepository balanceHistoryRepository;
 
+    @Autowired
+    private PushPublisher pushPublisher;
+
     private final RestTemplate restTemplate = new RestTemplate();
 
     public BigDecimal getCurrentBalance(String accountId) {
+        return balanceOf(accountId, fetchAccount(accountId));
+    }
+
+    private Map<String, Object> fetchAccount(String accountId) {
         try {
             // Call account service to get current balance
             String url = "http://localhost:8084/api/accounts/" + accountId;
-            Map<String, Object> account = restTemplate.getForObject(url, Map.class);
-            if (account != null && account.containsKey("balance")) {
+            return restTemplate.getForObject(url, Map.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private BigDecimal balanceOf(String accountId, Map<String, Object> account) {
+        if (account != null) {
+            if (account.containsKey("balance")) {
                 return new BigDecimal(account.get("balance").toString());
             }
-        } catch (Exception e) {
+        } else {
             // Fallback: get latest balance from history
             BalanceHistory latest = balanceHistoryRepository.findTopByAccountIdOrderByCreatedAtDesc(accountId);
             if (latest != null) {
@@ -42,7 +57,8 @@ public class BalanceService {
     }
 
     public BalanceHistory updateBalance(String accountId, BigDecimal changeAmount, String changeType, String referenceId) {
-        BigDecimal currentBalance = getCurrentBalance(accountId);
+        Map<String, Object> account = fetchAccount(accountId);
+        BigDecimal currentBalance = balanceOf(accountId, account);
         BigDecimal newBalance = currentBalance.add(changeAmount);
 
         BalanceHistory history = new BalanceHistory();
@@ -54,6 +70,10 @@ public class BalanceService {
         history.setChangeType(changeType);
         history.setReferenceId(referenceId);
 
-        return balanceHistoryRepository.save(history);
+        BalanceHistory saved = balanceHistoryRepository.save(history);
+        if (account != null && account.get("userId") != null) {
+            pushPublisher.publishBalance(account.get("userId").toString(), accountId, newBalance, changeAmount, changeType);
+        }
+        return saved;
     }
 }
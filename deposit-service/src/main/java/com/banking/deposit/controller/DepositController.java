@@ -1,14 +1,30 @@
 package com.banking.deposit.controller;
 
 import com.banking.deposit.entity.Deposit;
+import com.banking.deposit.entity.DepositFile;
+import com.banking.deposit.enums.DepositFileFormat;
+import com.banking.deposit.service.DepositIngestionService;
 import com.banking.deposit.service.DepositService;
+import com.banking.shared.dto.ApiResponse;
+import com.banking.shared.exception.IdempotencyKeyException;
+import com.banking.shared.idempotency.IdempotentResult;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/deposits")
@@ -17,6 +33,9 @@ public class DepositController {
 
     @Autowired
     private DepositService depositService;
+
+    @Autowired
+    private DepositIngestionService depositIngestionService;
     
     private final Counter depositRequestsCounter;
 
@@ -28,10 +47,17 @@ public class DepositController {
     }
 
     @PostMapping
-    public ResponseEntity<Deposit> createDeposit(@RequestBody Deposit deposit) {
+    public ResponseEntity<?> createDeposit(@RequestBody Deposit deposit,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         depositRequestsCounter.increment();
-        Deposit created = depositService.createDeposit(deposit);
-        return ResponseEntity.ok(created);
+        try {
+            IdempotentResult<Deposit> created = depositService.createDeposit(deposit, idempotencyKey);
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(created.isReplayed()))
+                    .body(created.getBody());
+        } catch (IdempotencyKeyException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        }
     }
 
     @GetMapping
@@ -41,6 +67,42 @@ public class DepositController {
         return ResponseEntity.ok(deposits);
     }
 
+    /**
+     * Loads a bulk deposit file sent as the raw request body. Loading continues in the
+     * background; poll the returned file for progress and fetch its report of rejected lines.
+     */
+    @PostMapping("/files")
+    public ResponseEntity<DepositFile> uploadDepositFile(HttpServletRequest request,
+                                                         @RequestParam(defaultValue = "CSV") String format,
+                                                         @RequestParam(required = false) String name) throws IOException {
+        DepositFileFormat fileFormat;
+        try {
+            fileFormat = DepositFileFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        DepositFile file = depositIngestionService.ingest(request.getInputStream(), name, fileFormat);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(file);
+    }
+
+    @GetMapping("/files/{id}")
+    public ResponseEntity<DepositFile> getDepositFile(@PathVariable String id) {
+        DepositFile file = depositIngestionService.getFile(id);
+        return file != null ? ResponseEntity.ok(file) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/files/{id}/report")
+    public ResponseEntity<Resource> getDepositFileReport(@PathVariable String id) {
+        DepositFile file = depositIngestionService.getFile(id);
+        if (file == null || !Files.exists(Paths.get(file.getReportPath()))) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + id + "-rejects.csv\"")
+                .body(new FileSystemResource(file.getReportPath()));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Deposit> getDeposit(@PathVariable String id) {
         depositRequestsCounter.increment();
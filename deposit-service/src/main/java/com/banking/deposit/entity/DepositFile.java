@@ -0,0 +1,123 @@
+package com.banking.deposit.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A bulk deposit file being or having been loaded. {@code committedOffset} is the byte offset
+ * in the file up to which rows are stored, {@code committedLines} the number of lines before
+ * it and {@code reportBytes} the length of the rejects report at that point; they are saved in
+ * the same transaction as each chunk of deposits, so an interrupted load resumes from the last
+ * chunk written.
+ */
+@Entity
+@Table(name = "deposit_files")
+public class DepositFile {
+    @Id
+    private String id;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "format")
+    private String format;
+
+    @Column(name = "source_path")
+    private String sourcePath;
+
+    @Column(name = "report_path")
+    private String reportPath;
+
+    @Column(name = "status")
+    private String status;
+
+    @Column(name = "file_size")
+    private long fileSize;
+
+    @Column(name = "committed_offset")
+    private long committedOffset;
+
+    @Column(name = "committed_lines")
+    private long committedLines;
+
+    @Column(name = "report_bytes")
+    private long reportBytes;
+
+    @Column(name = "total_rows")
+    private long totalRows;
+
+    @Column(name = "accepted_rows")
+    private long acceptedRows;
+
+    @Column(name = "rejected_rows")
+    private long rejectedRows;
+
+    @Column(name = "accepted_amount")
+    private BigDecimal acceptedAmount = BigDecimal.ZERO;
+
+    @Column(name = "error")
+    private String error;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public DepositFile() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public String getSourcePath() { return sourcePath; }
+    public void setSourcePath(String sourcePath) { this.sourcePath = sourcePath; }
+
+    public String getReportPath() { return reportPath; }
+    public void setReportPath(String reportPath) { this.reportPath = reportPath; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getFileSize() { return fileSize; }
+    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+
+    public long getCommittedOffset() { return committedOffset; }
+    public void setCommittedOffset(long committedOffset) { this.committedOffset = committedOffset; }
+
+    public long getCommittedLines() { return committedLines; }
+    public void setCommittedLines(long committedLines) { this.committedLines = committedLines; }
+
+    public long getReportBytes() { return reportBytes; }
+    public void setReportBytes(long reportBytes) { this.reportBytes = reportBytes; }
+
+    public long getTotalRows() { return totalRows; }
+    public void setTotalRows(long totalRows) { this.totalRows = totalRows; }
+
+    public long getAcceptedRows() { return acceptedRows; }
+    public void setAcceptedRows(long acceptedRows) { this.acceptedRows = acceptedRows; }
+
+    public long getRejectedRows() { return rejectedRows; }
+    public void setRejectedRows(long rejectedRows) { this.rejectedRows = rejectedRows; }
+
+    public BigDecimal getAcceptedAmount() { return acceptedAmount; }
+    public void setAcceptedAmount(BigDecimal acceptedAmount) { this.acceptedAmount = acceptedAmount; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -0,0 +1,6 @@
+package com.banking.deposit.enums;
+
+public enum DepositFileFormat {
+    CSV,
+    FIXED_WIDTH
+}
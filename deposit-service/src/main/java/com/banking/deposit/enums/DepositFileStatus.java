@@ -0,0 +1,7 @@
+package com.banking.deposit.enums;
+
+public enum DepositFileStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
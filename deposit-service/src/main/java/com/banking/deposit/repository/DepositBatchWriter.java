@@ -0,0 +1,86 @@
+package com.banking.deposit.repository;
+
+import com.banking.deposit.entity.Deposit;
+import com.banking.deposit.entity.DepositFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk deposit writes over plain JDBC: each chunk of a deposit file is one batched insert plus
+ * the file's progress update, committed together.
+ */
+@Repository
+public class DepositBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO deposits (id, account_id, amount, currency, deposit_method, reference_number, status, "
+            + "description, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING";
+
+    private static final String PROGRESS_SQL =
+            "UPDATE deposit_files SET committed_offset = ?, committed_lines = ?, report_bytes = ?, total_rows = ?, "
+            + "accepted_rows = ?, rejected_rows = ?, accepted_amount = ? WHERE id = ?";
+
+    private static final String EXISTING_ACCOUNTS_SQL = "SELECT id FROM accounts WHERE id = ANY (?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the chunk's deposits and records the file's progress in one transaction. Deposit
+     * ids are derived from the file and line, so a chunk written again after a restart inserts
+     * nothing twice.
+     */
+    @Transactional
+    public void writeChunk(List<Deposit> deposits, DepositFile progress) {
+        if (!deposits.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Deposit deposit = deposits.get(i);
+                    ps.setString(1, deposit.getId());
+                    ps.setString(2, deposit.getAccountId());
+                    ps.setBigDecimal(3, deposit.getAmount());
+                    ps.setString(4, deposit.getCurrency());
+                    ps.setString(5, deposit.getDepositMethod());
+                    ps.setString(6, deposit.getReferenceNumber());
+                    ps.setString(7, deposit.getStatus());
+                    ps.setString(8, deposit.getDescription());
+                    ps.setTimestamp(9, Timestamp.valueOf(deposit.getCreatedAt()));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return deposits.size();
+                }
+            });
+        }
+        jdbcTemplate.update(PROGRESS_SQL, progress.getCommittedOffset(), progress.getCommittedLines(),
+                progress.getReportBytes(), progress.getTotalRows(), progress.getAcceptedRows(), progress.getRejectedRows(),
+                progress.getAcceptedAmount(), progress.getId());
+    }
+
+    /** The ids among {@code accountIds} that exist, in one query. */
+    public Set<String> findExistingAccounts(Collection<String> accountIds) {
+        Set<String> existing = new HashSet<>();
+        if (accountIds.isEmpty()) {
+            return existing;
+        }
+        jdbcTemplate.query(EXISTING_ACCOUNTS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", accountIds.toArray())),
+                rs -> {
+                    existing.add(rs.getString(1));
+                });
+        return existing;
+    }
+}
@@ -0,0 +1,12 @@
+package com.banking.deposit.repository;
+
+import com.banking.deposit.entity.DepositFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DepositFileRepository extends JpaRepository<DepositFile, String> {
+    List<DepositFile> findByStatus(String status);
+}
@@ -0,0 +1,103 @@
+package com.banking.deposit.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a file line by line through a memory-mapped window that slides along the file, so
+ * reading costs no copies beyond the line itself and memory stays at one window whatever the
+ * file size. Lines end with {@code \n} or {@code \r\n}; a line may not be longer than the window.
+ * A UTF-8 byte order mark at the start of the file is skipped.
+ */
+final class DepositFileReader implements Closeable {
+
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowBytes;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private byte[] scratch = new byte[512];
+
+    DepositFileReader(Path path, long startOffset, int windowBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowBytes = windowBytes;
+        this.position = startOffset == 0 && startsWithBom() ? BOM.length : startOffset;
+    }
+
+    /** Byte offset of the start of the next line. */
+    long position() {
+        return position;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /** The next line without its terminator, or {@code null} at the end of the file. */
+    String nextLine() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        while (true) {
+            if (window == null || position >= windowStart + window.limit()) {
+                remap(position);
+            }
+            int start = (int) (position - windowStart);
+            int limit = window.limit();
+            int end = start;
+            while (end < limit && window.get(end) != '\n') {
+                end++;
+            }
+            boolean terminated = end < limit;
+            if (terminated || windowStart + limit >= size) {
+                int length = end - start;
+                if (length > 0 && window.get(end - 1) == '\r') {
+                    length--;
+                }
+                position = windowStart + (terminated ? end + 1 : end);
+                return decode(start, length);
+            }
+            if (start == 0) {
+                throw new IOException("Line at offset " + position + " is longer than " + windowBytes + " bytes");
+            }
+            // The line runs past the window; map a new one starting at the line
+            remap(position);
+        }
+    }
+
+    private boolean startsWithBom() throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(BOM.length);
+        channel.read(head, 0);
+        return Arrays.equals(head.array(), BOM);
+    }
+
+    private void remap(long at) throws IOException {
+        windowStart = at;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, at, Math.min(windowBytes, size - at));
+    }
+
+    private String decode(int start, int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
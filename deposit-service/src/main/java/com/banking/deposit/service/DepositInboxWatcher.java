@@ -0,0 +1,125 @@
+package com.banking.deposit.service;
+
+import com.banking.deposit.enums.DepositFileFormat;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads deposit files dropped into {@code deposit.ingest.inbox-dir}: {@code .csv} files as CSV,
+ * {@code .txt}, {@code .dat} and {@code .fw} files as fixed width. Senders must write under
+ * another name (a leading dot, or a {@code .tmp} or {@code .part} suffix) and rename when done,
+ * so a file is never picked up half written. The directory is rescanned on every change and
+ * every {@code poll-ms}, which also covers events the watch service dropped.
+ */
+@Service
+public class DepositInboxWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(DepositInboxWatcher.class);
+
+    @Autowired
+    private DepositIngestionService depositIngestionService;
+
+    private final boolean enabled;
+    private final Path inboxDir;
+    private final long pollMillis;
+    private volatile boolean running;
+    private Thread watcher;
+
+    public DepositInboxWatcher(@Value("${deposit.ingest.watch-enabled:false}") boolean enabled,
+                               @Value("${deposit.ingest.inbox-dir:/tmp/deposit-ingest/inbox}") String inboxDir,
+                               @Value("${deposit.ingest.poll-ms:30000}") long pollMillis) {
+        this.enabled = enabled;
+        this.inboxDir = Paths.get(inboxDir);
+        this.pollMillis = pollMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(inboxDir);
+        running = true;
+        watcher = new Thread(this::watchLoop, "deposit-inbox-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for deposit files", inboxDir);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    private void watchLoop() {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            inboxDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (running) {
+                scan();
+                WatchKey key = watchService.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Watching {} failed; deposit files there are no longer picked up", inboxDir, e);
+        }
+    }
+
+    private void scan() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inboxDir)) {
+            for (Path file : files) {
+                DepositFileFormat format = formatOf(file.getFileName().toString());
+                if (format == null || !Files.isRegularFile(file)) {
+                    continue;
+                }
+                try {
+                    depositIngestionService.ingestInboxFile(file, format);
+                    log.info("Picked up deposit file {}", file.getFileName());
+                } catch (IOException | RuntimeException e) {
+                    log.error("Picking up deposit file {} failed", file, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Listing {} failed", inboxDir, e);
+        }
+    }
+
+    static DepositFileFormat formatOf(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.startsWith(".") || lower.endsWith(".tmp") || lower.endsWith(".part")) {
+            return null;
+        }
+        if (lower.endsWith(".csv")) {
+            return DepositFileFormat.CSV;
+        }
+        if (lower.endsWith(".txt") || lower.endsWith(".dat") || lower.endsWith(".fw")) {
+            return DepositFileFormat.FIXED_WIDTH;
+        }
+        return null;
+    }
+}
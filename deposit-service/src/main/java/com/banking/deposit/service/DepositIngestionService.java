@@ -0,0 +1,433 @@
+package com.banking.deposit.service;
+
+import com.banking.deposit.entity.Deposit;
+import com.banking.deposit.entity.DepositFile;
+import com.banking.deposit.enums.DepositFileFormat;
+import com.banking.deposit.enums.DepositFileStatus;
+import com.banking.deposit.repository.DepositBatchWriter;
+import com.banking.deposit.repository.DepositFileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads bulk deposit files. A file is read sequentially through a memory-mapped window, cut
+ * into chunks of {@code chunk-size} lines, and each chunk is parsed and validated on the
+ * validator pool while the previous chunk is written; a chunk is one JDBC batch insert
+ * committed together with the file's progress. Memory therefore holds about two chunks per
+ * file whatever its size.
+ *
+ * Rejected lines go to a per-file CSV report with the line number and reason. The report is
+ * flushed before the chunk commits and truncated back to the committed length on resume, and
+ * deposit ids are derived from the file id and line number, so a load interrupted at any point
+ * resumes after the last committed chunk without duplicating deposits or report lines.
+ */
+@Service
+public class DepositIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DepositIngestionService.class);
+
+    private static final String REPORT_HEADER = "line,error,content\n";
+
+    @Autowired
+    private DepositFileRepository depositFileRepository;
+
+    @Autowired
+    private DepositBatchWriter depositBatchWriter;
+
+    private final Path workDir;
+    private final Path reportDir;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int windowBytes;
+    private final String fixedWidthLayout;
+    private final ExecutorService jobs;
+    private final ExecutorService validators;
+    private final Map<String, DepositFile> running = new ConcurrentHashMap<>();
+
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Timer chunkTimer;
+
+    public DepositIngestionService(@Value("${deposit.ingest.work-dir:/tmp/deposit-ingest/work}") String workDir,
+                                   @Value("${deposit.ingest.report-dir:/tmp/deposit-ingest/reports}") String reportDir,
+                                   @Value("${deposit.ingest.chunk-size:5000}") int chunkSize,
+                                   @Value("${deposit.ingest.parallelism:4}") int parallelism,
+                                   @Value("${deposit.ingest.max-concurrent:2}") int maxConcurrent,
+                                   @Value("${deposit.ingest.window-mb:64}") int windowMb,
+                                   @Value("${deposit.ingest.fixed-width-layout:accountId:0-20,amount:20-35,currency:35-38,referenceNumber:38-68,description:68-}") String fixedWidthLayout,
+                                   MeterRegistry meterRegistry) {
+        this.workDir = Paths.get(workDir);
+        this.reportDir = Paths.get(reportDir);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.windowBytes = windowMb * 1024 * 1024;
+        this.fixedWidthLayout = fixedWidthLayout;
+        // Fail at startup rather than on the first fixed-width file
+        new DepositRowParser(DepositFileFormat.FIXED_WIDTH, fixedWidthLayout);
+
+        AtomicInteger jobThreads = new AtomicInteger();
+        this.jobs = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "deposit-ingest-" + jobThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger validatorThreads = new AtomicInteger();
+        this.validators = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "deposit-validate-" + validatorThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.acceptedCounter = Counter.builder("banking_deposit_ingest_rows_total")
+            .description("Deposit file rows loaded or rejected")
+            .tag("service", "deposit")
+            .tag("outcome", "accepted")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("banking_deposit_ingest_rows_total")
+            .description("Deposit file rows loaded or rejected")
+            .tag("service", "deposit")
+            .tag("outcome", "rejected")
+            .register(meterRegistry);
+        this.chunkTimer = Timer.builder("banking_deposit_ingest_chunk_seconds")
+            .description("Time to write one chunk of a deposit file")
+            .tag("service", "deposit")
+            .register(meterRegistry);
+        Gauge.builder("banking_deposit_ingest_files_running", running, Map::size)
+            .description("Deposit files currently loading")
+            .tag("service", "deposit")
+            .register(meterRegistry);
+    }
+
+    /** Stores the uploaded content in the work directory and starts loading it. */
+    public DepositFile ingest(InputStream content, String fileName, DepositFileFormat format) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Files.createDirectories(workDir);
+        Path source = workDir.resolve(id + extension(format));
+        long size = Files.copy(content, source);
+        return start(id, fileName != null ? fileName : source.getFileName().toString(), format, source, size);
+    }
+
+    /**
+     * Takes a file over from the inbox: it is recorded, moved into the work directory and
+     * loaded. A crash before the move leaves it in the inbox to be picked up again; the
+     * recorded load then fails for want of its file.
+     */
+    public DepositFile ingestInboxFile(Path file, DepositFileFormat format) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Files.createDirectories(workDir);
+        Path source = workDir.resolve(id + "-" + file.getFileName());
+        DepositFile depositFile = create(id, file.getFileName().toString(), format, source, Files.size(file));
+        try {
+            try {
+                Files.move(file, source, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(file, source);
+            }
+        } catch (IOException e) {
+            depositFile.setStatus(DepositFileStatus.FAILED.name());
+            depositFile.setError("Moving " + file + " failed: " + e.getMessage());
+            depositFile.setFinishedAt(LocalDateTime.now());
+            depositFileRepository.save(depositFile);
+            throw e;
+        }
+        submit(depositFile);
+        return depositFile;
+    }
+
+    /** The live state of a file being loaded, otherwise the stored one. */
+    public DepositFile getFile(String id) {
+        DepositFile live = running.get(id);
+        return live != null ? live : depositFileRepository.findById(id).orElse(null);
+    }
+
+    /** Resumes files that were still loading when the service stopped. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeFiles() {
+        for (DepositFile file : depositFileRepository.findByStatus(DepositFileStatus.RUNNING.name())) {
+            log.info("Resuming deposit file {} ({}) at line {}", file.getId(), file.getFileName(), file.getCommittedLines());
+            submit(file);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobs.shutdownNow();
+        validators.shutdownNow();
+    }
+
+    private DepositFile start(String id, String fileName, DepositFileFormat format, Path source, long size) {
+        DepositFile file = create(id, fileName, format, source, size);
+        submit(file);
+        return file;
+    }
+
+    private DepositFile create(String id, String fileName, DepositFileFormat format, Path source, long size) {
+        DepositFile file = new DepositFile();
+        file.setId(id);
+        file.setFileName(fileName);
+        file.setFormat(format.name());
+        file.setSourcePath(source.toString());
+        file.setReportPath(reportDir.resolve(id + "-rejects.csv").toString());
+        file.setFileSize(size);
+        file.setStatus(DepositFileStatus.RUNNING.name());
+        return depositFileRepository.save(file);
+    }
+
+    private void submit(DepositFile file) {
+        running.put(file.getId(), file);
+        jobs.execute(() -> {
+            try {
+                load(file);
+            } finally {
+                running.remove(file.getId());
+            }
+        });
+    }
+
+    private void load(DepositFile file) {
+        Path source = Paths.get(file.getSourcePath());
+        DepositFileFormat format = DepositFileFormat.valueOf(file.getFormat());
+        try {
+            if (!Files.exists(source)) {
+                throw new IOException("Source file " + source + " is missing");
+            }
+            DepositRowParser parser = new DepositRowParser(format, fixedWidthLayout);
+            boolean header = false;
+            if (format == DepositFileFormat.CSV) {
+                try (DepositFileReader first = new DepositFileReader(source, 0, windowBytes)) {
+                    String line = first.nextLine();
+                    header = line != null && parser.readHeader(line);
+                }
+            }
+
+            Path reportPath = Paths.get(file.getReportPath());
+            Files.createDirectories(reportPath.getParent());
+            try (DepositFileReader reader = new DepositFileReader(source, file.getCommittedOffset(), windowBytes);
+                 FileChannel report = FileChannel.open(reportPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Drops report lines written for a chunk that did not commit
+                report.truncate(file.getReportBytes());
+                report.position(file.getReportBytes());
+                if (file.getReportBytes() == 0) {
+                    write(report, REPORT_HEADER);
+                }
+
+                long lineNumber = file.getCommittedLines();
+                if (lineNumber == 0 && header) {
+                    reader.nextLine();
+                    lineNumber = 1;
+                }
+                CompletableFuture<Chunk> previous = null;
+                while (!Thread.currentThread().isInterrupted()) {
+                    List<String> lines = new ArrayList<>(chunkSize);
+                    long firstLine = lineNumber + 1;
+                    String line;
+                    while (lines.size() < chunkSize && (line = reader.nextLine()) != null) {
+                        lines.add(line);
+                        lineNumber++;
+                    }
+                    if (lines.isEmpty()) {
+                        break;
+                    }
+                    CompletableFuture<Chunk> next = validate(file.getId(), parser, lines, firstLine,
+                            reader.position(), lineNumber);
+                    if (previous != null) {
+                        commit(file, report, previous.join());
+                    }
+                    previous = next;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    // Shutting down; the file stays RUNNING and resumes on the next start
+                    return;
+                }
+                if (previous != null) {
+                    commit(file, report, previous.join());
+                }
+            }
+
+            synchronized (file) {
+                file.setStatus(DepositFileStatus.COMPLETED.name());
+                file.setFinishedAt(LocalDateTime.now());
+            }
+            depositFileRepository.save(file);
+            log.info("Deposit file {} ({}) loaded: {} rows, {} accepted totalling {}, {} rejected",
+                    file.getId(), file.getFileName(), file.getTotalRows(), file.getAcceptedRows(),
+                    file.getAcceptedAmount(), file.getRejectedRows());
+        } catch (ClosedByInterruptException e) {
+            log.info("Deposit file {} interrupted at line {}", file.getId(), file.getCommittedLines());
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Deposit file {} failed after line {}", file.getId(), file.getCommittedLines(), cause);
+            synchronized (file) {
+                file.setStatus(DepositFileStatus.FAILED.name());
+                file.setError(cause.getMessage());
+                file.setFinishedAt(LocalDateTime.now());
+            }
+            depositFileRepository.save(file);
+        }
+    }
+
+    /** Parses slices of the chunk in parallel, then rejects rows whose account does not exist. */
+    private CompletableFuture<Chunk> validate(String fileId, DepositRowParser parser, List<String> lines,
+                                              long firstLine, long endOffset, long endLine) {
+        Object[] results = new Object[lines.size()];
+        int sliceSize = (lines.size() + parallelism - 1) / parallelism;
+        CompletableFuture<?>[] slices = new CompletableFuture<?>[(lines.size() + sliceSize - 1) / sliceSize];
+        for (int s = 0; s < slices.length; s++) {
+            int from = s * sliceSize;
+            int to = Math.min(from + sliceSize, lines.size());
+            slices[s] = CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    String line = lines.get(i);
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        results[i] = parser.parse(line);
+                    } catch (IllegalArgumentException e) {
+                        results[i] = e.getMessage();
+                    }
+                }
+            }, validators);
+        }
+        return CompletableFuture.allOf(slices)
+                .thenApplyAsync(done -> assemble(fileId, lines, results, firstLine, endOffset, endLine), validators);
+    }
+
+    private Chunk assemble(String fileId, List<String> lines, Object[] results, long firstLine,
+                           long endOffset, long endLine) {
+        Set<String> accountIds = new HashSet<>();
+        for (Object result : results) {
+            if (result instanceof Deposit) {
+                accountIds.add(((Deposit) result).getAccountId());
+            }
+        }
+        Set<String> existing = depositBatchWriter.findExistingAccounts(accountIds);
+
+        Chunk chunk = new Chunk(endOffset, endLine);
+        LocalDateTime now = LocalDateTime.now();
+        StringBuilder report = new StringBuilder();
+        for (int i = 0; i < results.length; i++) {
+            Object result = results[i];
+            if (result == null) {
+                continue;
+            }
+            long lineNumber = firstLine + i;
+            chunk.rows++;
+            if (result instanceof Deposit && !existing.contains(((Deposit) result).getAccountId())) {
+                result = "unknown account " + ((Deposit) result).getAccountId();
+            }
+            if (result instanceof Deposit) {
+                Deposit deposit = (Deposit) result;
+                deposit.setId(UUID.nameUUIDFromBytes((fileId + ":" + lineNumber).getBytes(StandardCharsets.UTF_8)).toString());
+                deposit.setDepositMethod("FILE");
+                deposit.setStatus("COMPLETED");
+                deposit.setCreatedAt(now);
+                chunk.deposits.add(deposit);
+                chunk.acceptedAmount = chunk.acceptedAmount.add(deposit.getAmount());
+            } else {
+                chunk.rejected++;
+                report.append(lineNumber).append(',').append(csv((String) result)).append(',')
+                        .append(csv(lines.get(i))).append('\n');
+            }
+        }
+        chunk.report = report.toString();
+        return chunk;
+    }
+
+    private void commit(DepositFile file, FileChannel report, Chunk chunk) throws IOException {
+        Timer.Sample sample = Timer.start();
+        write(report, chunk.report);
+        report.force(false);
+
+        DepositFile progress = new DepositFile();
+        progress.setId(file.getId());
+        progress.setCommittedOffset(chunk.endOffset);
+        progress.setCommittedLines(chunk.endLine);
+        progress.setReportBytes(report.position());
+        progress.setTotalRows(file.getTotalRows() + chunk.rows);
+        progress.setAcceptedRows(file.getAcceptedRows() + chunk.deposits.size());
+        progress.setRejectedRows(file.getRejectedRows() + chunk.rejected);
+        progress.setAcceptedAmount(file.getAcceptedAmount().add(chunk.acceptedAmount));
+        depositBatchWriter.writeChunk(chunk.deposits, progress);
+
+        synchronized (file) {
+            file.setCommittedOffset(progress.getCommittedOffset());
+            file.setCommittedLines(progress.getCommittedLines());
+            file.setReportBytes(progress.getReportBytes());
+            file.setTotalRows(progress.getTotalRows());
+            file.setAcceptedRows(progress.getAcceptedRows());
+            file.setRejectedRows(progress.getRejectedRows());
+            file.setAcceptedAmount(progress.getAcceptedAmount());
+        }
+        acceptedCounter.increment(chunk.deposits.size());
+        rejectedCounter.increment(chunk.rejected);
+        sample.stop(chunkTimer);
+    }
+
+    private static void write(FileChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String csv(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String extension(DepositFileFormat format) {
+        return format == DepositFileFormat.CSV ? ".csv" : ".txt";
+    }
+
+    private static final class Chunk {
+        final long endOffset;
+        final long endLine;
+        final List<Deposit> deposits = new ArrayList<>();
+        BigDecimal acceptedAmount = BigDecimal.ZERO;
+        long rows;
+        long rejected;
+        String report;
+
+        Chunk(long endOffset, long endLine) {
+            this.endOffset = endOffset;
+            this.endLine = endLine;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.banking.deposit.service;
+
+import com.banking.deposit.entity.Deposit;
+import com.banking.deposit.enums.DepositFileFormat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Turns one line of a deposit file into a {@link Deposit}, or rejects it with the reason.
+ * Parsing holds no mutable state once the CSV header is known, so one parser is shared by
+ * all validating threads of a file.
+ *
+ * CSV lines are split on commas with RFC 4180 quoting inside a line (a quoted field cannot
+ * span lines). A first line naming an {@code account_id} column is a header and sets the
+ * column order; otherwise the columns are account id, amount, currency, reference number and
+ * description. Fixed-width lines are cut at the {@code name:start-end} ranges of the layout,
+ * with an open end meaning the rest of the line.
+ */
+final class DepositRowParser {
+
+    static final int ACCOUNT_ID = 0;
+    static final int AMOUNT = 1;
+    static final int CURRENCY = 2;
+    static final int REFERENCE_NUMBER = 3;
+    static final int DESCRIPTION = 4;
+
+    private static final String[] FIELD_NAMES = {"accountId", "amount", "currency", "referenceNumber", "description"};
+    private static final int MAX_INTEGER_DIGITS = 13;
+
+    private final DepositFileFormat format;
+    // CSV: column of each field, -1 if absent. Fixed width: start and end of each field.
+    private final int[] columns = {0, 1, 2, 3, 4};
+    private final int[] starts = new int[FIELD_NAMES.length];
+    private final int[] ends = new int[FIELD_NAMES.length];
+
+    DepositRowParser(DepositFileFormat format, String fixedWidthLayout) {
+        this.format = format;
+        if (format == DepositFileFormat.FIXED_WIDTH) {
+            parseLayout(fixedWidthLayout);
+        }
+    }
+
+    /** Takes the column order from a CSV header line; returns {@code false} if the line is data. */
+    boolean readHeader(String line) {
+        if (format != DepositFileFormat.CSV) {
+            return false;
+        }
+        List<String> names = splitCsv(line);
+        int accountColumn = indexOf(names, "account_id", "accountid");
+        if (accountColumn < 0) {
+            return false;
+        }
+        columns[ACCOUNT_ID] = accountColumn;
+        columns[AMOUNT] = indexOf(names, "amount");
+        columns[CURRENCY] = indexOf(names, "currency");
+        columns[REFERENCE_NUMBER] = indexOf(names, "reference_number", "referencenumber", "reference");
+        columns[DESCRIPTION] = indexOf(names, "description");
+        if (columns[AMOUNT] < 0) {
+            throw new IllegalArgumentException("Header has no amount column");
+        }
+        return true;
+    }
+
+    /** The deposit on the line, without id or timestamps; throws with the reason if it is invalid. */
+    Deposit parse(String line) {
+        String[] fields = format == DepositFileFormat.CSV ? csvFields(line) : fixedWidthFields(line);
+
+        String accountId = fields[ACCOUNT_ID];
+        if (accountId == null || accountId.isEmpty()) {
+            throw new IllegalArgumentException("missing account id");
+        }
+        if (accountId.length() > 50) {
+            throw new IllegalArgumentException("account id longer than 50 characters");
+        }
+
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(fields[AMOUNT]);
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException("invalid amount '" + fields[AMOUNT] + "'");
+        }
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("amount must be positive");
+        }
+        if (amount.scale() > 2) {
+            throw new IllegalArgumentException("amount has more than 2 decimal places");
+        }
+        if (amount.precision() - amount.scale() > MAX_INTEGER_DIGITS) {
+            throw new IllegalArgumentException("amount too large");
+        }
+
+        String currency = fields[CURRENCY] == null || fields[CURRENCY].isEmpty()
+                ? "USD" : fields[CURRENCY].toUpperCase(Locale.ROOT);
+        if (currency.length() != 3 || !currency.chars().allMatch(c -> c >= 'A' && c <= 'Z')) {
+            throw new IllegalArgumentException("invalid currency '" + fields[CURRENCY] + "'");
+        }
+
+        String reference = emptyToNull(fields[REFERENCE_NUMBER]);
+        if (reference != null && reference.length() > 100) {
+            throw new IllegalArgumentException("reference number longer than 100 characters");
+        }
+
+        Deposit deposit = new Deposit();
+        deposit.setAccountId(accountId);
+        deposit.setAmount(amount);
+        deposit.setCurrency(currency);
+        deposit.setReferenceNumber(reference);
+        deposit.setDescription(emptyToNull(fields[DESCRIPTION]));
+        return deposit;
+    }
+
+    private String[] csvFields(String line) {
+        List<String> values = splitCsv(line);
+        String[] fields = new String[FIELD_NAMES.length];
+        for (int i = 0; i < fields.length; i++) {
+            int column = columns[i];
+            fields[i] = column >= 0 && column < values.size() ? values.get(column).trim() : null;
+        }
+        return fields;
+    }
+
+    private String[] fixedWidthFields(String line) {
+        String[] fields = new String[FIELD_NAMES.length];
+        for (int i = 0; i < fields.length; i++) {
+            if (starts[i] < 0 || starts[i] >= line.length()) {
+                continue;
+            }
+            int end = ends[i] < 0 ? line.length() : Math.min(ends[i], line.length());
+            fields[i] = line.substring(starts[i], end).trim();
+        }
+        return fields;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>(FIELD_NAMES.length);
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private void parseLayout(String layout) {
+        Arrays.fill(starts, -1);
+        Arrays.fill(ends, -1);
+        for (String entry : layout.split(",")) {
+            String trimmed = entry.trim();
+            int colon = trimmed.indexOf(':');
+            int dash = trimmed.indexOf('-', colon);
+            if (colon < 0 || dash < 0) {
+                throw new IllegalArgumentException("Invalid fixed-width field '" + trimmed + "', expected name:start-end");
+            }
+            int field = fieldIndex(trimmed.substring(0, colon).trim());
+            starts[field] = Integer.parseInt(trimmed.substring(colon + 1, dash).trim());
+            String end = trimmed.substring(dash + 1).trim();
+            ends[field] = end.isEmpty() ? -1 : Integer.parseInt(end);
+        }
+        if (starts[ACCOUNT_ID] < 0 || starts[AMOUNT] < 0) {
+            throw new IllegalArgumentException("Fixed-width layout needs accountId and amount");
+        }
+    }
+
+    private static int fieldIndex(String name) {
+        for (int i = 0; i < FIELD_NAMES.length; i++) {
+            if (FIELD_NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown fixed-width field '" + name + "'");
+    }
+
+    private static int indexOf(List<String> names, String... candidates) {
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim().toLowerCase(Locale.ROOT);
+            for (String candidate : candidates) {
+                if (name.equals(candidate)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -1,5 +1,7 @@
 package com.banking.deposit.service;
 
+import com.banking.shared.idempotency.IdempotencyStore;
+import com.banking.shared.idempotency.IdempotentResult;
 import com.banking.deposit.entity.Deposit;
 import com.banking.deposit.repository.DepositRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +16,20 @@ public class DepositService {
     @Autowired
     private DepositRepository depositRepository;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    /**
+     * Creates the deposit once per idempotency key: a retry with the same key gets the deposit
+     * created the first time, and a concurrent one waits for it. Without a key this is
+     * {@link #createDeposit(Deposit)}.
+     */
+    public IdempotentResult<Deposit> createDeposit(Deposit deposit, String idempotencyKey) {
+        String fingerprint = IdempotencyStore.fingerprint(deposit.getAccountId(), deposit.getAmount(), deposit.getCurrency(),
+                deposit.getDepositMethod(), deposit.getReferenceNumber(), deposit.getDescription());
+        return idempotencyStore.execute(idempotencyKey, fingerprint, Deposit.class, () -> createDeposit(deposit));
+    }
+
     public Deposit createDeposit(Deposit deposit) {
         if (deposit.getId() == null) {
             deposit.setId(UUID.randomUUID().toString());
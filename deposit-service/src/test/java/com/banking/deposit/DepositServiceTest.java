@@ -1,5 +1,7 @@
 package com.banking.deposit;
 
+import com.banking.shared.idempotency.IdempotencyStore;
+import com.banking.shared.idempotency.IdempotentResult;
 import com.banking.deposit.entity.Deposit;
 import com.banking.deposit.repository.DepositRepository;
 import com.banking.deposit.service.DepositService;
@@ -15,6 +17,8 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class DepositServiceTest {
@@ -22,6 +26,9 @@ class DepositServiceTest {
     @Mock
     private DepositRepository depositRepository;
 
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
     @InjectMocks
     private DepositService depositService;
 
@@ -47,6 +54,29 @@ class DepositServiceTest {
         verify(depositRepository).save(deposit);
     }
 
+    @Test
+    void testCreateDepositReplaysIdempotencyKey() {
+        // Given
+        Deposit original = new Deposit();
+        original.setId("deposit-1");
+        original.setAccountId("acc1");
+        original.setAmount(new BigDecimal("100.00"));
+        Deposit retry = new Deposit();
+        retry.setAccountId("acc1");
+        retry.setAmount(new BigDecimal("100.00"));
+
+        when(idempotencyStore.execute(eq("key-1"), anyString(), eq(Deposit.class), any()))
+                .thenReturn(new IdempotentResult<>(original, true));
+
+        // When
+        IdempotentResult<Deposit> result = depositService.createDeposit(retry, "key-1");
+
+        // Then
+        assertTrue(result.isReplayed());
+        assertEquals("deposit-1", result.getBody().getId());
+        verify(depositRepository, never()).save(any(Deposit.class));
+    }
+
     @Test
     void testGetDeposits() {
         // Given
@@ -0,0 +1,126 @@
+package com.banking.deposit.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepositFileReaderTest {
+
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    @TempDir
+    Path dir;
+
+    private Path file(String content) throws IOException {
+        return Files.write(dir.resolve("deposits.csv"), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> readAll(DepositFileReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.nextLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    @Test
+    void testLineCrossingTheWindowIsReadWhole() throws IOException {
+        // Given: a 16-byte window; the second line's \r is its last byte and \n the first of the next
+        Path path = file("abc\ndefghijklmn\r\nopq\r\nrs");
+
+        // When
+        List<String> lines;
+        try (DepositFileReader reader = new DepositFileReader(path, 0, 16)) {
+            lines = readAll(reader);
+            assertEquals(reader.size(), reader.position());
+        }
+
+        // Then
+        assertEquals(List.of("abc", "defghijklmn", "opq", "rs"), lines);
+    }
+
+    @Test
+    void testLineEndingOnTheWindowBoundary() throws IOException {
+        // Given: the first line and its terminator fill the window exactly
+        Path path = file("0123456789abcde\n\nnext\n");
+
+        // When
+        List<String> lines;
+        long[] positions = new long[3];
+        try (DepositFileReader reader = new DepositFileReader(path, 0, 16)) {
+            lines = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                lines.add(reader.nextLine());
+                positions[i] = reader.position();
+            }
+            assertNull(reader.nextLine());
+        }
+
+        // Then
+        assertEquals(List.of("0123456789abcde", "", "next"), lines);
+        assertArrayEquals(new long[] {16, 17, 22}, positions);
+    }
+
+    @Test
+    void testReadingResumesAtAnOffset() throws IOException {
+        // Given
+        Path path = file("first\r\nsecond\r\nthird");
+
+        // When
+        List<String> lines;
+        try (DepositFileReader reader = new DepositFileReader(path, 7, 1024)) {
+            lines = readAll(reader);
+        }
+
+        // Then
+        assertEquals(List.of("second", "third"), lines);
+    }
+
+    @Test
+    void testByteOrderMarkIsSkipped() throws IOException {
+        // Given
+        byte[] content = "account_id,amount\nacc1,10.00\n".getBytes(StandardCharsets.UTF_8);
+        byte[] withBom = new byte[BOM.length + content.length];
+        System.arraycopy(BOM, 0, withBom, 0, BOM.length);
+        System.arraycopy(content, 0, withBom, BOM.length, content.length);
+        Path path = Files.write(dir.resolve("bom.csv"), withBom);
+
+        // When
+        String header;
+        long afterHeader;
+        try (DepositFileReader reader = new DepositFileReader(path, 0, 1024)) {
+            header = reader.nextLine();
+            afterHeader = reader.position();
+        }
+        String resumed;
+        try (DepositFileReader reader = new DepositFileReader(path, afterHeader, 1024)) {
+            resumed = reader.nextLine();
+        }
+
+        // Then
+        assertEquals("account_id,amount", header);
+        assertEquals(BOM.length + 18, afterHeader);
+        assertEquals("acc1,10.00", resumed);
+    }
+
+    @Test
+    void testLineLongerThanTheWindowIsRejected() throws IOException {
+        // Given
+        Path path = file("short\n" + "x".repeat(40) + "\n");
+
+        // When / Then
+        try (DepositFileReader reader = new DepositFileReader(path, 0, 16)) {
+            assertEquals("short", reader.nextLine());
+            assertThrows(IOException.class, reader::nextLine);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.banking.deposit.service;
+
+import com.banking.deposit.entity.Deposit;
+import com.banking.deposit.entity.DepositFile;
+import com.banking.deposit.enums.DepositFileFormat;
+import com.banking.deposit.enums.DepositFileStatus;
+import com.banking.deposit.repository.DepositBatchWriter;
+import com.banking.deposit.repository.DepositFileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DepositIngestionServiceTest {
+
+    private static final String REPORT_HEADER = "line,error,content\n";
+
+    @Mock
+    private DepositFileRepository depositFileRepository;
+
+    @Mock
+    private DepositBatchWriter depositBatchWriter;
+
+    @TempDir
+    Path dir;
+
+    private DepositIngestionService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(depositFileRepository.save(any(DepositFile.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(depositBatchWriter.findExistingAccounts(any())).thenAnswer(inv -> new HashSet<>(inv.getArgument(0)));
+        // Two-line chunks so every file spans several commits
+        service = new DepositIngestionService(dir.resolve("work").toString(), dir.resolve("reports").toString(),
+                2, 2, 1, 1, "accountId:0-10,amount:10-20", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "depositFileRepository", depositFileRepository);
+        ReflectionTestUtils.setField(service, "depositBatchWriter", depositBatchWriter);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void testResumeStartsAfterTheLastCommittedChunkAndTruncatesTheReport() throws Exception {
+        // Given: the chunk of lines 2-3 committed; the next one wrote its report line and stopped
+        String committed = "account_id,amount\nacc1,10.00\nacc1,20.00\n";
+        Path source = Files.writeString(dir.resolve("deposits.csv"),
+                committed + "bad,abc\nacc2,5.00\nacc1,1.00\n");
+        Path report = Files.createDirectories(dir.resolve("reports")).resolve("file-1-rejects.csv");
+        Files.writeString(report, REPORT_HEADER + "4,\"invalid amount 'abc'\",\"bad,abc\"\n");
+        DepositFile file = new DepositFile();
+        file.setId("file-1");
+        file.setFormat(DepositFileFormat.CSV.name());
+        file.setSourcePath(source.toString());
+        file.setReportPath(report.toString());
+        file.setStatus(DepositFileStatus.RUNNING.name());
+        file.setCommittedOffset(committed.length());
+        file.setCommittedLines(3);
+        file.setReportBytes(REPORT_HEADER.length());
+        file.setTotalRows(2);
+        file.setAcceptedRows(2);
+        file.setAcceptedAmount(new BigDecimal("30.00"));
+        when(depositFileRepository.findByStatus(DepositFileStatus.RUNNING.name())).thenReturn(List.of(file));
+
+        // When
+        service.resumeFiles();
+        await(file);
+
+        // Then
+        assertEquals(DepositFileStatus.COMPLETED.name(), file.getStatus());
+        List<Deposit> written = writtenDeposits(2);
+        assertEquals(2, written.size());
+        assertEquals(depositId("file-1", 5), written.get(0).getId());
+        assertEquals(new BigDecimal("5.00"), written.get(0).getAmount());
+        assertEquals(depositId("file-1", 6), written.get(1).getId());
+        assertEquals(6, file.getCommittedLines());
+        assertEquals(Files.size(source), file.getCommittedOffset());
+        assertEquals(5, file.getTotalRows());
+        assertEquals(4, file.getAcceptedRows());
+        assertEquals(1, file.getRejectedRows());
+        assertEquals(new BigDecimal("36.00"), file.getAcceptedAmount());
+        assertEquals(REPORT_HEADER + "4,\"invalid amount 'abc'\",\"bad,abc\"\n", Files.readString(report));
+        assertEquals(Files.size(report), file.getReportBytes());
+    }
+
+    @Test
+    void testHeaderAfterByteOrderMarkIsNotReportedAsARow() throws Exception {
+        // Given
+        byte[] content = "\uFEFFaccount_id,amount\r\nacc1,10.00\r\nacc2,2.50\r\n".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        DepositFile file = service.ingest(new ByteArrayInputStream(content), "deposits.csv", DepositFileFormat.CSV);
+        await(file);
+
+        // Then
+        assertEquals(DepositFileStatus.COMPLETED.name(), file.getStatus());
+        assertEquals(2, file.getAcceptedRows());
+        assertEquals(0, file.getRejectedRows());
+        assertEquals(REPORT_HEADER, Files.readString(Path.of(file.getReportPath())));
+        List<Deposit> written = writtenDeposits(1);
+        assertEquals(depositId(file.getId(), 2), written.get(0).getId());
+        assertEquals(new BigDecimal("2.50"), written.get(1).getAmount());
+    }
+
+    private List<Deposit> writtenDeposits(int chunks) {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Deposit>> deposits = ArgumentCaptor.forClass(List.class);
+        verify(depositBatchWriter, times(chunks)).writeChunk(deposits.capture(), any(DepositFile.class));
+        List<Deposit> all = new ArrayList<>();
+        deposits.getAllValues().forEach(all::addAll);
+        return all;
+    }
+
+    private static String depositId(String fileId, long lineNumber) {
+        return UUID.nameUUIDFromBytes((fileId + ":" + lineNumber).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static void await(DepositFile file) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (DepositFileStatus.RUNNING.name().equals(file.getStatus()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
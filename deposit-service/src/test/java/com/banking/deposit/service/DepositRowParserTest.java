@@ -0,0 +1,117 @@
+package com.banking.deposit.service;
+
+import com.banking.deposit.entity.Deposit;
+import com.banking.deposit.enums.DepositFileFormat;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepositRowParserTest {
+
+    private static final String LAYOUT = "accountId:0-10,amount:10-20,currency:20-23,description:23-";
+
+    private final DepositRowParser csv = new DepositRowParser(DepositFileFormat.CSV, null);
+
+    @Test
+    void testQuotedCsvFieldsKeepCommasAndEscapedQuotes() {
+        // When
+        Deposit deposit = csv.parse("acc1,100.50,usd,REF-1,\"Payroll, \"\"March\"\"\"");
+
+        // Then
+        assertEquals("acc1", deposit.getAccountId());
+        assertEquals(new BigDecimal("100.50"), deposit.getAmount());
+        assertEquals("USD", deposit.getCurrency());
+        assertEquals("REF-1", deposit.getReferenceNumber());
+        assertEquals("Payroll, \"March\"", deposit.getDescription());
+        assertEquals(List.of("a", "", "b,c"), DepositRowParser.splitCsv("a,,\"b,c\""));
+        assertThrows(IllegalArgumentException.class, () -> csv.parse("acc1,1.00,USD,REF,\"open"));
+    }
+
+    @Test
+    void testHeaderSetsTheColumnOrder() {
+        // Given
+        DepositRowParser parser = new DepositRowParser(DepositFileFormat.CSV, null);
+
+        // When
+        boolean header = parser.readHeader(" Amount ,Reference,ACCOUNT_ID");
+        Deposit deposit = parser.parse("25.00,REF-9,acc7");
+
+        // Then
+        assertTrue(header);
+        assertEquals("acc7", deposit.getAccountId());
+        assertEquals(new BigDecimal("25.00"), deposit.getAmount());
+        assertEquals("REF-9", deposit.getReferenceNumber());
+        assertEquals("USD", deposit.getCurrency());
+        assertNull(deposit.getDescription());
+    }
+
+    @Test
+    void testDataLineIsNotAHeader() {
+        // Given
+        DepositRowParser parser = new DepositRowParser(DepositFileFormat.CSV, null);
+
+        // When / Then
+        assertFalse(parser.readHeader("acc1,10.00,USD"));
+        assertEquals("acc1", parser.parse("acc1,10.00,USD").getAccountId());
+        assertThrows(IllegalArgumentException.class, () -> parser.readHeader("account_id,currency"));
+        assertFalse(new DepositRowParser(DepositFileFormat.FIXED_WIDTH, LAYOUT).readHeader("account_id,amount"));
+    }
+
+    @Test
+    void testFixedWidthFieldsAreCutAtTheLayout() {
+        // Given
+        DepositRowParser parser = new DepositRowParser(DepositFileFormat.FIXED_WIDTH, LAYOUT);
+
+        // When
+        Deposit deposit = parser.parse("acc1           12.34EURSalary top-up ");
+        Deposit shortLine = parser.parse("acc2            7");
+
+        // Then
+        assertEquals("acc1", deposit.getAccountId());
+        assertEquals(new BigDecimal("12.34"), deposit.getAmount());
+        assertEquals("EUR", deposit.getCurrency());
+        assertEquals("Salary top-up", deposit.getDescription());
+        assertEquals(new BigDecimal("7"), shortLine.getAmount());
+        assertEquals("USD", shortLine.getCurrency());
+    }
+
+    @Test
+    void testInvalidLayoutIsRejected() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+                () -> new DepositRowParser(DepositFileFormat.FIXED_WIDTH, "accountId:0-10"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DepositRowParser(DepositFileFormat.FIXED_WIDTH, "accountId:0-10,amount:10-20,iban:20-"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DepositRowParser(DepositFileFormat.FIXED_WIDTH, "accountId=0-10,amount:10-20"));
+    }
+
+    @Test
+    void testAmountsAreChecked() {
+        // When / Then
+        assertEquals("amount must be positive", reason("acc1,0.00"));
+        assertEquals("amount must be positive", reason("acc1,-5"));
+        assertEquals("amount has more than 2 decimal places", reason("acc1,1.005"));
+        assertEquals("amount too large", reason("acc1,12345678901234"));
+        assertEquals("invalid amount 'ten'", reason("acc1,ten"));
+        assertEquals("invalid amount 'null'", reason("acc1"));
+        assertEquals(new BigDecimal("1234567890123.99"), csv.parse("acc1,1234567890123.99").getAmount());
+    }
+
+    @Test
+    void testOtherFieldsAreChecked() {
+        // When / Then
+        assertEquals("missing account id", reason(",10.00"));
+        assertEquals("account id longer than 50 characters", reason("a".repeat(51) + ",10.00"));
+        assertEquals("invalid currency 'US'", reason("acc1,10.00,US"));
+        assertEquals("invalid currency 'U5D'", reason("acc1,10.00,U5D"));
+        assertEquals("reference number longer than 100 characters", reason("acc1,10.00,USD," + "r".repeat(101)));
+    }
+
+    private String reason(String line) {
+        return assertThrows(IllegalArgumentException.class, () -> csv.parse(line)).getMessage();
+    }
+}
@@ -0,0 +1,18 @@
+package com.banking.notification.channel;
+
+import com.banking.notification.entity.Notification;
+import com.banking.notification.enums.NotificationChannel;
+
+import java.util.List;
+
+/**
+ * Delivers notifications over one channel. Adapters receive whole batches so providers with a
+ * bulk API (SES, SNS, FCM multicast) can submit them in one request; the returned list holds
+ * one result per notification, in the same order.
+ */
+public interface ChannelAdapter {
+
+    NotificationChannel getChannel();
+
+    List<DeliveryResult> send(List<Notification> batch);
+}
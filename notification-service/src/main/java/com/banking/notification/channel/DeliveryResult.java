@@ -0,0 +1,33 @@
+package com.banking.notification.channel;
+
+/** Outcome of delivering one notification. Permanent failures are not retried. */
+public final class DeliveryResult {
+
+    private static final DeliveryResult DELIVERED = new DeliveryResult(true, false, null);
+
+    private final boolean delivered;
+    private final boolean retryable;
+    private final String error;
+
+    private DeliveryResult(boolean delivered, boolean retryable, String error) {
+        this.delivered = delivered;
+        this.retryable = retryable;
+        this.error = error;
+    }
+
+    public static DeliveryResult delivered() {
+        return DELIVERED;
+    }
+
+    public static DeliveryResult failed(String error) {
+        return new DeliveryResult(false, true, error);
+    }
+
+    public static DeliveryResult rejected(String error) {
+        return new DeliveryResult(false, false, error);
+    }
+
+    public boolean isDelivered() { return delivered; }
+    public boolean isRetryable() { return retryable; }
+    public String getError() { return error; }
+}
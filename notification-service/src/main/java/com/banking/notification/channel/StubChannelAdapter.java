@@ -0,0 +1,57 @@
+package com.banking.notification.channel;
+
+import com.banking.notification.entity.Notification;
+import com.banking.notification.enums.NotificationChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for a provider: logs each notification, waits {@code latency-ms} per batch to
+ * simulate the provider round trip and fails a {@code failure-rate} fraction of deliveries so
+ * retries and dead-lettering can be exercised without real credentials.
+ */
+public class StubChannelAdapter implements ChannelAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(StubChannelAdapter.class);
+
+    private final NotificationChannel channel;
+    private final long latencyMs;
+    private final double failureRate;
+
+    public StubChannelAdapter(NotificationChannel channel, long latencyMs, double failureRate) {
+        this.channel = channel;
+        this.latencyMs = latencyMs;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public NotificationChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public List<DeliveryResult> send(List<Notification> batch) {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while sending " + channel + " batch", e);
+            }
+        }
+        List<DeliveryResult> results = new ArrayList<>(batch.size());
+        for (Notification notification : batch) {
+            if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                results.add(DeliveryResult.failed("Simulated " + channel + " provider error"));
+            } else {
+                log.debug("[{}] to {}: {}", channel, notification.getUserId(), notification.getTitle());
+                results.add(DeliveryResult.delivered());
+            }
+        }
+        return results;
+    }
+}
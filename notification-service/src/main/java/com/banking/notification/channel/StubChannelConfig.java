@@ -0,0 +1,34 @@
+package com.banking.notification.channel;
+
+import com.banking.notification.enums.NotificationChannel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Registers stub adapters for every channel unless {@code notification.stub.enabled=false}. */
+@Configuration
+@ConditionalOnProperty(name = "notification.stub.enabled", havingValue = "true", matchIfMissing = true)
+public class StubChannelConfig {
+
+    @Value("${notification.stub.latency-ms:20}")
+    private long latencyMs;
+
+    @Value("${notification.stub.failure-rate:0.0}")
+    private double failureRate;
+
+    @Bean
+    public ChannelAdapter emailChannelAdapter() {
+        return new StubChannelAdapter(NotificationChannel.EMAIL, latencyMs, failureRate);
+    }
+
+    @Bean
+    public ChannelAdapter smsChannelAdapter() {
+        return new StubChannelAdapter(NotificationChannel.SMS, latencyMs, failureRate);
+    }
+
+    @Bean
+    public ChannelAdapter pushChannelAdapter() {
+        return new StubChannelAdapter(NotificationChannel.PUSH, latencyMs, failureRate);
+    }
+}
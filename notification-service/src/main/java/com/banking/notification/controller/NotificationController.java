@@ -1,25 +1,42 @@
 package com.banking.notification.controller;
 
+import com.banking.notification.dto.BroadcastRequest;
+import com.banking.notification.dto.InboxCursor;
+import com.banking.notification.dto.InboxResponse;
+import com.banking.notification.entity.Broadcast;
 import com.banking.notification.entity.Notification;
+import com.banking.notification.service.BroadcastService;
 import com.banking.notification.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notifications")
 @CrossOrigin(origins = "*")
 public class NotificationController {
 
+    private static final int MAX_INBOX_SIZE = 100;
+
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private BroadcastService broadcastService;
+
     @PostMapping
     public ResponseEntity<Notification> sendNotification(@RequestBody Notification notification) {
-        Notification sent = notificationService.sendNotification(notification);
-        return ResponseEntity.ok(sent);
+        try {
+            Notification pending = notificationService.sendNotification(notification);
+            return ResponseEntity.accepted().body(pending);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/user/{userId}")
@@ -28,9 +45,81 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    /** The badge count; served from an in-memory counter rather than counting rows. */
+    @GetMapping("/user/{userId}/unread-count")
+    public ResponseEntity<Map<String, Object>> getUnreadCount(@PathVariable String userId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("userId", userId);
+        response.put("unreadCount", notificationService.getUnreadCount(userId));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Keyset-paginated inbox, newest first. Pass the returned {@code nextCursor} as
+     * {@code cursor} to fetch the next page.
+     */
+    @GetMapping("/user/{userId}/inbox")
+    public ResponseEntity<InboxResponse> getInbox(@PathVariable String userId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_INBOX_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        InboxCursor after;
+        try {
+            after = InboxCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(new InboxResponse(notificationService.getInbox(userId, after, size),
+                notificationService.getUnreadCount(userId)));
+    }
+
+    @PostMapping("/{id}/read")
+    public ResponseEntity<Void> markRead(@PathVariable String id) {
+        return notificationService.markRead(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/user/{userId}/read-all")
+    public ResponseEntity<Map<String, Object>> markAllRead(@PathVariable String userId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("userId", userId);
+        response.put("marked", notificationService.markAllRead(userId));
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping
     public ResponseEntity<List<Notification>> getAllNotifications() {
         List<Notification> notifications = notificationService.getAllNotifications();
         return ResponseEntity.ok(notifications);
     }
+
+    /**
+     * Sends a templated notification to every user in the audience. Fan-out runs in the
+     * background; poll the returned broadcast for progress.
+     */
+    @PostMapping("/broadcasts")
+    public ResponseEntity<Broadcast> startBroadcast(@RequestBody BroadcastRequest request) {
+        try {
+            return ResponseEntity.accepted().body(broadcastService.startBroadcast(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/broadcasts/{id}")
+    public ResponseEntity<Broadcast> getBroadcast(@PathVariable String id) {
+        Broadcast broadcast = broadcastService.getBroadcast(id);
+        return broadcast != null ? ResponseEntity.ok(broadcast) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/broadcasts/{id}/cancel")
+    public ResponseEntity<Broadcast> cancelBroadcast(@PathVariable String id) {
+        try {
+            Broadcast broadcast = broadcastService.cancelBroadcast(id);
+            return broadcast != null ? ResponseEntity.ok(broadcast) : ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.banking.notification.dto;
+
+/**
+ * Broadcast to all users, users with a role or users holding an account of a given type.
+ * {@code message} may contain {@code {firstName}}, {@code {lastName}} and {@code {username}}.
+ */
+public class BroadcastRequest {
+    private String type;
+    private String title;
+    private String message;
+    private String channel = "EMAIL";
+    private String audience = "ALL";
+    private String audienceValue;
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public String getChannel() { return channel; }
+    public void setChannel(String channel) { this.channel = channel; }
+
+    public String getAudience() { return audience; }
+    public void setAudience(String audience) { this.audience = audience; }
+
+    public String getAudienceValue() { return audienceValue; }
+    public void setAudienceValue(String audienceValue) { this.audienceValue = audienceValue; }
+}
@@ -0,0 +1,59 @@
+package com.banking.notification.dto;
+
+import com.banking.notification.entity.Notification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in a user's inbox, ordered by {@code (created_at, id)} descending. Sent to
+ * clients as an opaque URL-safe token; the next page starts strictly after this position.
+ */
+public final class InboxCursor {
+
+    private final LocalDateTime createdAt;
+    private final String id;
+
+    public InboxCursor(LocalDateTime createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static InboxCursor of(Notification notification) {
+        return new InboxCursor(notification.getCreatedAt(), notification.getId());
+    }
+
+    /**
+     * Returns {@code null} for a blank token and throws {@link IllegalArgumentException} for a
+     * malformed one.
+     */
+    public static InboxCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int separator = raw.indexOf('|');
+        if (separator <= 0 || separator == raw.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new InboxCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public String getId() { return id; }
+}
@@ -0,0 +1,31 @@
+package com.banking.notification.dto;
+
+import com.banking.notification.entity.Notification;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+public class InboxResponse {
+
+    private final List<Notification> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+    private final long unreadCount;
+
+    public InboxResponse(Slice<Notification> slice, long unreadCount) {
+        this.content = slice.getContent();
+        this.size = slice.getNumberOfElements();
+        this.hasNext = slice.hasNext();
+        this.nextCursor = slice.hasNext() && slice.hasContent()
+                ? InboxCursor.of(content.get(content.size() - 1)).encode()
+                : null;
+        this.unreadCount = unreadCount;
+    }
+
+    public List<Notification> getContent() { return content; }
+    public int getSize() { return size; }
+    public boolean isHasNext() { return hasNext; }
+    public String getNextCursor() { return nextCursor; }
+    public long getUnreadCount() { return unreadCount; }
+}
@@ -0,0 +1,102 @@
+package com.banking.notification.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A notification sent to every user matching an audience selector. {@code lastUserId} is the
+ * keyset position reached in the users table; it is saved after every batch so an
+ * interrupted broadcast resumes where it stopped.
+ */
+@Entity
+@Table(name = "broadcasts")
+public class Broadcast {
+    @Id
+    private String id;
+
+    @Column(name = "type")
+    private String type;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "message_template")
+    private String messageTemplate;
+
+    @Column(name = "channel")
+    private String channel;
+
+    @Column(name = "audience")
+    private String audience;
+
+    @Column(name = "audience_value")
+    private String audienceValue;
+
+    @Column(name = "status")
+    private String status;
+
+    @Column(name = "estimated_recipients")
+    private long estimatedRecipients;
+
+    @Column(name = "recipients")
+    private long recipients;
+
+    @Column(name = "last_user_id")
+    private String lastUserId;
+
+    @Column(name = "error")
+    private String error;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public Broadcast() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getMessageTemplate() { return messageTemplate; }
+    public void setMessageTemplate(String messageTemplate) { this.messageTemplate = messageTemplate; }
+
+    public String getChannel() { return channel; }
+    public void setChannel(String channel) { this.channel = channel; }
+
+    public String getAudience() { return audience; }
+    public void setAudience(String audience) { this.audience = audience; }
+
+    public String getAudienceValue() { return audienceValue; }
+    public void setAudienceValue(String audienceValue) { this.audienceValue = audienceValue; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getEstimatedRecipients() { return estimatedRecipients; }
+    public void setEstimatedRecipients(long estimatedRecipients) { this.estimatedRecipients = estimatedRecipients; }
+
+    public long getRecipients() { return recipients; }
+    public void setRecipients(long recipients) { this.recipients = recipients; }
+
+    public String getLastUserId() { return lastUserId; }
+    public void setLastUserId(String lastUserId) { this.lastUserId = lastUserId; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_status_next_attempt", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_notifications_broadcast", columnList = "broadcast_id"),
+    @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at, id")
+})
 public class Notification {
     @Id
     private String id;
@@ -25,7 +29,7 @@ public class Notification {
     private String channel = "EMAIL";
     
     @Column(name = "status")
-    private String status = "SENT";
+    private String status = "PENDING";
     
     @Column(name = "sent_at")
     private LocalDateTime sentAt;
@@ -33,9 +37,24 @@ public class Notification {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "broadcast_id")
+    private String broadcastId;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
     public Notification() {
         this.createdAt = LocalDateTime.now();
-        this.sentAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
     }
 
     // Getters and Setters
@@ -65,4 +84,19 @@ public class Notification {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public String getBroadcastId() { return broadcastId; }
+    public void setBroadcastId(String broadcastId) { this.broadcastId = broadcastId; }
+
+    public LocalDateTime getReadAt() { return readAt; }
+    public void setReadAt(LocalDateTime readAt) { this.readAt = readAt; }
 }
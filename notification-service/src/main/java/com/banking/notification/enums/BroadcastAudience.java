@@ -0,0 +1,7 @@
+package com.banking.notification.enums;
+
+public enum BroadcastAudience {
+    ALL,
+    ROLE,
+    ACCOUNT_TYPE
+}
@@ -0,0 +1,8 @@
+package com.banking.notification.enums;
+
+public enum BroadcastStatus {
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED
+}
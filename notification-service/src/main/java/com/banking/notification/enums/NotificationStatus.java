@@ -0,0 +1,9 @@
+package com.banking.notification.enums;
+
+public enum NotificationStatus {
+    PENDING,
+    SENT,
+    DEAD_LETTER,
+    CANCELLED,
+    COALESCED
+}
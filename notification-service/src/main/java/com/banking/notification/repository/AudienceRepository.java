@@ -0,0 +1,74 @@
+package com.banking.notification.repository;
+
+import com.banking.notification.enums.BroadcastAudience;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Reads broadcast recipients from the users table in primary-key order, one page per query
+ * ({@code id > ? ORDER BY id LIMIT ?}), so the audience is never held in memory and each page
+ * costs an index range scan however far into the table the broadcast has got.
+ */
+@Repository
+public class AudienceRepository {
+
+    private static final String COLUMNS = "SELECT u.id, u.username, u.first_name, u.last_name FROM users u ";
+
+    private static final String ACCOUNT_TYPE_FILTER =
+            "AND EXISTS (SELECT 1 FROM accounts a WHERE a.user_id = u.id AND a.account_type = ? AND a.status = 'ACTIVE') ";
+
+    public static final class Recipient {
+        private final String id;
+        private final String username;
+        private final String firstName;
+        private final String lastName;
+
+        Recipient(String id, String username, String firstName, String lastName) {
+            this.id = id;
+            this.username = username;
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+
+        public String getId() { return id; }
+        public String getUsername() { return username; }
+        public String getFirstName() { return firstName; }
+        public String getLastName() { return lastName; }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public long count(BroadcastAudience audience, String value) {
+        String sql = "SELECT COUNT(*) FROM users u WHERE u.status = 'ACTIVE' " + filter(audience);
+        Long count = audience == BroadcastAudience.ALL
+                ? jdbcTemplate.queryForObject(sql, Long.class)
+                : jdbcTemplate.queryForObject(sql, Long.class, value);
+        return count != null ? count : 0;
+    }
+
+    /** Up to {@code limit} active recipients with an id greater than {@code afterId}. */
+    public List<Recipient> nextPage(BroadcastAudience audience, String value, String afterId, int limit) {
+        String sql = COLUMNS + "WHERE u.id > ? AND u.status = 'ACTIVE' " + filter(audience) + "ORDER BY u.id LIMIT ?";
+        Object[] args = audience == BroadcastAudience.ALL
+                ? new Object[] {afterId, limit}
+                : new Object[] {afterId, value, limit};
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Recipient(
+                rs.getString("id"), rs.getString("username"), rs.getString("first_name"), rs.getString("last_name")),
+                args);
+    }
+
+    private static String filter(BroadcastAudience audience) {
+        switch (audience) {
+            case ROLE:
+                return "AND u.role = ? ";
+            case ACCOUNT_TYPE:
+                return ACCOUNT_TYPE_FILTER;
+            default:
+                return "";
+        }
+    }
+}
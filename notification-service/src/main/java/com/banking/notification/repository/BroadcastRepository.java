@@ -0,0 +1,12 @@
+package com.banking.notification.repository;
+
+import com.banking.notification.entity.Broadcast;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BroadcastRepository extends JpaRepository<Broadcast, String> {
+    List<Broadcast> findByStatus(String status);
+}
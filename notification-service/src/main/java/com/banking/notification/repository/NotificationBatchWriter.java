@@ -0,0 +1,131 @@
+package com.banking.notification.repository;
+
+import com.banking.notification.entity.Notification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Notification writes over plain JDBC: delivery state updates as one batch statement per
+ * dispatched batch, and broadcast fan-out as multi-row inserts, instead of a select-and-merge
+ * or insert per entity through JPA.
+ */
+@Repository
+public class NotificationBatchWriter {
+
+    private static final String UPDATE_DELIVERY_SQL =
+            "UPDATE notifications SET status = ?, attempts = ?, next_attempt_at = ?, last_error = ?, sent_at = ? "
+            + "WHERE id = ?";
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO notifications (id, user_id, type, title, message, channel, status, attempts, "
+            + "created_at, next_attempt_at, broadcast_id) VALUES ";
+
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int INSERT_PARAMS_PER_ROW = 11;
+
+    // The PostgreSQL wire protocol carries at most 32767 bind parameters per statement
+    static final int MAX_INSERT_ROWS = 32767 / INSERT_PARAMS_PER_ROW;
+
+    private static final String CANCEL_BROADCAST_SQL =
+            "UPDATE notifications SET status = 'CANCELLED', next_attempt_at = NULL "
+            + "WHERE broadcast_id = ? AND status = 'PENDING' RETURNING user_id, read_at";
+
+    private static final String MARK_READ_SQL =
+            "UPDATE notifications SET read_at = ? WHERE id = ? AND read_at IS NULL AND status <> 'CANCELLED' "
+            + "RETURNING user_id";
+
+    private static final String MARK_ALL_READ_SQL =
+            "UPDATE notifications SET read_at = ? WHERE user_id = ? AND read_at IS NULL AND status <> 'CANCELLED'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the notifications in multi-row statements of at most {@link #MAX_INSERT_ROWS}
+     * rows. Rows whose id already exists are skipped; the ids actually inserted are returned,
+     * so a batch replayed after a restart does not queue notifications a second time.
+     */
+    public List<String> insertBatch(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (notifications.size() <= MAX_INSERT_ROWS) {
+            return insertRows(notifications);
+        }
+        List<String> inserted = new ArrayList<>(notifications.size());
+        for (int from = 0; from < notifications.size(); from += MAX_INSERT_ROWS) {
+            inserted.addAll(insertRows(notifications.subList(from, Math.min(notifications.size(), from + MAX_INSERT_ROWS))));
+        }
+        return inserted;
+    }
+
+    private List<String> insertRows(List<Notification> notifications) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + notifications.size() * (INSERT_ROW.length() + 1) + 40);
+        sql.append(INSERT_PREFIX);
+        List<Object> args = new ArrayList<>(notifications.size() * INSERT_PARAMS_PER_ROW);
+        for (int i = 0; i < notifications.size(); i++) {
+            Notification notification = notifications.get(i);
+            sql.append(i == 0 ? "" : ",").append(INSERT_ROW);
+            args.add(notification.getId());
+            args.add(notification.getUserId());
+            args.add(notification.getType());
+            args.add(notification.getTitle());
+            args.add(notification.getMessage());
+            args.add(notification.getChannel());
+            args.add(notification.getStatus());
+            args.add(notification.getAttempts());
+            args.add(timestamp(notification.getCreatedAt()));
+            args.add(timestamp(notification.getNextAttemptAt()));
+            args.add(notification.getBroadcastId());
+        }
+        sql.append(" ON CONFLICT (id) DO NOTHING RETURNING id");
+        return jdbcTemplate.queryForList(sql.toString(), String.class, args.toArray());
+    }
+
+    /**
+     * Marks a broadcast's undelivered notifications CANCELLED. Returns the user id of each
+     * cancelled notification that was still unread, once per notification.
+     */
+    public List<String> cancelBroadcast(String broadcastId) {
+        List<String> unreadUserIds = new ArrayList<>();
+        jdbcTemplate.query(CANCEL_BROADCAST_SQL, rs -> {
+            if (rs.getTimestamp("read_at") == null) {
+                unreadUserIds.add(rs.getString("user_id"));
+            }
+        }, broadcastId);
+        return unreadUserIds;
+    }
+
+    /** Returns the notification's user id if it was unread, otherwise {@code null}. */
+    public String markRead(String id, LocalDateTime readAt) {
+        List<String> userIds = jdbcTemplate.queryForList(MARK_READ_SQL, String.class, timestamp(readAt), id);
+        return userIds.isEmpty() ? null : userIds.get(0);
+    }
+
+    public int markAllRead(String userId, LocalDateTime readAt) {
+        return jdbcTemplate.update(MARK_ALL_READ_SQL, timestamp(readAt), userId);
+    }
+
+    public void updateDeliveryState(List<Notification> notifications) {
+        jdbcTemplate.batchUpdate(UPDATE_DELIVERY_SQL, notifications, notifications.size(), (ps, notification) -> {
+            ps.setString(1, notification.getStatus());
+            ps.setInt(2, notification.getAttempts());
+            ps.setTimestamp(3, timestamp(notification.getNextAttemptAt()));
+            ps.setString(4, notification.getLastError());
+            ps.setTimestamp(5, timestamp(notification.getSentAt()));
+            ps.setString(6, notification.getId());
+        });
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+}
@@ -1,12 +1,32 @@
 package com.banking.notification.repository;
 
 import com.banking.notification.entity.Notification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, String> {
     List<Notification> findByUserId(String userId);
+
+    List<Notification> findByStatusAndNextAttemptAtBeforeOrderByNextAttemptAt(String status, LocalDateTime before,
+                                                                               Pageable pageable);
+
+    /** Newest first; cancelled broadcast notifications never reach the inbox. */
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.status <> 'CANCELLED' "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    Slice<Notification> findInbox(@Param("userId") String userId, Pageable pageable);
+
+    /** The inbox page after {@code (createdAt, id)}, walking the (user_id, created_at, id) index. */
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.status <> 'CANCELLED' "
+            + "AND n.createdAt <= :createdAt AND (n.createdAt < :createdAt OR n.id < :id) "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    Slice<Notification> findInboxAfter(@Param("userId") String userId, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") String id, Pageable pageable);
 }
@@ -0,0 +1,66 @@
+package com.banking.notification.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persisted per-user unread counters in {@code notification_unread_counts}. A row exists only
+ * once a user's counter has been initialised from a count of the notifications table; deltas
+ * for users without a row are ignored, since that count will include them.
+ */
+@Repository
+public class UnreadCountStore {
+
+    private static final String SELECT_SQL = "SELECT unread FROM notification_unread_counts WHERE user_id = ?";
+
+    private static final String COUNT_UNREAD_SQL =
+            "SELECT COUNT(*) FROM notifications WHERE user_id = ? AND read_at IS NULL AND status <> 'CANCELLED'";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notification_unread_counts (user_id, unread, updated_at) VALUES (?, ?, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (user_id) DO NOTHING";
+
+    private static final String ADD_SQL =
+            "UPDATE notification_unread_counts SET unread = GREATEST(unread + ?, 0), updated_at = CURRENT_TIMESTAMP "
+            + "WHERE user_id = ?";
+
+    private static final String SET_SQL =
+            "INSERT INTO notification_unread_counts (user_id, unread, updated_at) VALUES (?, ?, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (user_id) DO UPDATE SET unread = EXCLUDED.unread, updated_at = EXCLUDED.updated_at";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** The stored counter, or {@code null} if the user has none yet. */
+    public Long find(String userId) {
+        List<Long> rows = jdbcTemplate.queryForList(SELECT_SQL, Long.class, userId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /** Counts the user's unread notifications and stores the result as their counter. */
+    public long initialise(String userId) {
+        Long count = jdbcTemplate.queryForObject(COUNT_UNREAD_SQL, Long.class, userId);
+        long unread = count != null ? count : 0;
+        if (jdbcTemplate.update(INSERT_SQL, userId, unread) == 0) {
+            // Initialised concurrently elsewhere; that row is the one deltas are applied to
+            Long stored = find(userId);
+            return stored != null ? stored : unread;
+        }
+        return unread;
+    }
+
+    public void addAll(Map<String, Long> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((userId, delta) -> args.add(new Object[] {delta, userId}));
+        jdbcTemplate.batchUpdate(ADD_SQL, args);
+    }
+
+    public void set(String userId, long unread) {
+        jdbcTemplate.update(SET_SQL, userId, unread);
+    }
+}
@@ -0,0 +1,286 @@
+package com.banking.notification.service;
+
+import com.banking.notification.dto.BroadcastRequest;
+import com.banking.notification.entity.Broadcast;
+import com.banking.notification.entity.Notification;
+import com.banking.notification.enums.BroadcastAudience;
+import com.banking.notification.enums.BroadcastStatus;
+import com.banking.notification.enums.NotificationChannel;
+import com.banking.notification.enums.NotificationStatus;
+import com.banking.notification.repository.AudienceRepository;
+import com.banking.notification.repository.BroadcastRepository;
+import com.banking.notification.repository.NotificationBatchWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans a broadcast out to its audience. Recipients are read a page at a time in user-id order,
+ * rendered, written with one multi-row insert per page and handed to the dispatcher, which
+ * blocks while the channel queue is full; a broadcast therefore advances at the rate the
+ * channel delivers and never holds more than one page in memory.
+ *
+ * Progress (the last user id reached and the recipient count) is saved after every page.
+ * Notification ids are derived from the broadcast and user id, so a page repeated after a
+ * restart inserts nothing new and queues nothing twice.
+ */
+@Service
+public class BroadcastService {
+
+    private static final Logger log = LoggerFactory.getLogger(BroadcastService.class);
+
+    @Autowired
+    private BroadcastRepository broadcastRepository;
+
+    @Autowired
+    private AudienceRepository audienceRepository;
+
+    @Autowired
+    private NotificationBatchWriter notificationBatchWriter;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private NotificationPush notificationPush;
+
+    private final int batchSize;
+    private final long enqueueTimeoutMs;
+    private final ExecutorService executor;
+    private final Map<String, Broadcast> running = new ConcurrentHashMap<>();
+    private final Set<String> cancelRequested = ConcurrentHashMap.newKeySet();
+    private final Counter recipientsCounter;
+
+    public BroadcastService(@Value("${notification.broadcast.batch-size:1000}") int batchSize,
+                            @Value("${notification.broadcast.max-concurrent:2}") int maxConcurrent,
+                            @Value("${notification.broadcast.enqueue-timeout-ms:30000}") long enqueueTimeoutMs,
+                            MeterRegistry meterRegistry) {
+        this.batchSize = batchSize;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "notification-broadcast-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.recipientsCounter = Counter.builder("banking_notification_broadcast_recipients_total")
+            .description("Notifications created by broadcasts")
+            .tag("service", "notification")
+            .register(meterRegistry);
+        Gauge.builder("banking_notification_broadcasts_running", running, Map::size)
+            .description("Broadcasts currently fanning out")
+            .tag("service", "notification")
+            .register(meterRegistry);
+    }
+
+    public Broadcast startBroadcast(BroadcastRequest request) {
+        if (request.getTitle() == null || request.getMessage() == null) {
+            throw new IllegalArgumentException("title and message are required");
+        }
+        BroadcastAudience audience = BroadcastAudience.valueOf(
+                request.getAudience() != null ? request.getAudience().toUpperCase(Locale.ROOT) : "ALL");
+        if (audience != BroadcastAudience.ALL && request.getAudienceValue() == null) {
+            throw new IllegalArgumentException("audienceValue is required for audience " + audience);
+        }
+        NotificationChannel channel = NotificationChannel.valueOf(
+                request.getChannel() != null ? request.getChannel().toUpperCase(Locale.ROOT) : "EMAIL");
+
+        Broadcast broadcast = new Broadcast();
+        broadcast.setId(UUID.randomUUID().toString());
+        broadcast.setType(request.getType() != null ? request.getType() : "BROADCAST");
+        broadcast.setTitle(request.getTitle());
+        broadcast.setMessageTemplate(request.getMessage());
+        broadcast.setChannel(channel.name());
+        broadcast.setAudience(audience.name());
+        broadcast.setAudienceValue(audience != BroadcastAudience.ALL ? request.getAudienceValue() : null);
+        broadcast.setStatus(BroadcastStatus.RUNNING.name());
+        broadcast.setLastUserId("");
+        broadcast.setEstimatedRecipients(audienceRepository.count(audience, broadcast.getAudienceValue()));
+        broadcastRepository.save(broadcast);
+        submit(broadcast);
+        return broadcast;
+    }
+
+    /** The live state of a running broadcast, otherwise the stored one. */
+    public Broadcast getBroadcast(String id) {
+        Broadcast live = running.get(id);
+        return live != null ? live : broadcastRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Stops the fan-out after the current page, drops its notifications still waiting in the
+     * channel queues and marks its undelivered notifications CANCELLED.
+     */
+    public Broadcast cancelBroadcast(String id) {
+        Broadcast broadcast = getBroadcast(id);
+        if (broadcast == null) {
+            return null;
+        }
+        if (!BroadcastStatus.RUNNING.name().equals(broadcast.getStatus())) {
+            throw new IllegalStateException("Broadcast " + id + " is " + broadcast.getStatus());
+        }
+        if (running.containsKey(id)) {
+            cancelRequested.add(id);
+        } else {
+            // Not fanning out in this process; finish the cancellation here
+            finishCancel(broadcast);
+        }
+        return broadcast;
+    }
+
+    /** Resumes broadcasts that were still running when the service stopped. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeBroadcasts() {
+        for (Broadcast broadcast : broadcastRepository.findByStatus(BroadcastStatus.RUNNING.name())) {
+            log.info("Resuming broadcast {} after user {} ({} recipients so far)",
+                    broadcast.getId(), broadcast.getLastUserId(), broadcast.getRecipients());
+            submit(broadcast);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void submit(Broadcast broadcast) {
+        running.put(broadcast.getId(), broadcast);
+        executor.execute(() -> {
+            try {
+                fanOut(broadcast);
+            } finally {
+                running.remove(broadcast.getId());
+                cancelRequested.remove(broadcast.getId());
+            }
+        });
+    }
+
+    private void fanOut(Broadcast broadcast) {
+        BroadcastAudience audience = BroadcastAudience.valueOf(broadcast.getAudience());
+        String after = broadcast.getLastUserId() != null ? broadcast.getLastUserId() : "";
+        try {
+            while (!cancelRequested.contains(broadcast.getId())) {
+                List<AudienceRepository.Recipient> page =
+                        audienceRepository.nextPage(audience, broadcast.getAudienceValue(), after, batchSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                LocalDateTime now = LocalDateTime.now();
+                List<Notification> notifications = new ArrayList<>(page.size());
+                for (AudienceRepository.Recipient recipient : page) {
+                    notifications.add(render(broadcast, recipient, now));
+                }
+                Set<String> inserted = new HashSet<>(notificationBatchWriter.insertBatch(notifications));
+                for (Notification notification : notifications) {
+                    if (inserted.contains(notification.getId())) {
+                        unreadCounterService.increment(notification.getUserId());
+                        notificationPush.publishNotification(notification,
+                                unreadCounterService.getCachedUnreadCount(notification.getUserId()));
+                    }
+                }
+                for (Notification notification : notifications) {
+                    if (cancelRequested.contains(broadcast.getId())) {
+                        break;
+                    }
+                    // A full queue past the timeout leaves the row PENDING for the dispatcher's sweep
+                    if (inserted.contains(notification.getId())) {
+                        notificationDispatcher.enqueue(notification, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+                    }
+                }
+
+                after = page.get(page.size() - 1).getId();
+                synchronized (broadcast) {
+                    broadcast.setLastUserId(after);
+                    broadcast.setRecipients(broadcast.getRecipients() + inserted.size());
+                }
+                broadcastRepository.save(broadcast);
+                recipientsCounter.increment(inserted.size());
+            }
+
+            if (cancelRequested.contains(broadcast.getId())) {
+                finishCancel(broadcast);
+                return;
+            }
+            synchronized (broadcast) {
+                broadcast.setStatus(BroadcastStatus.COMPLETED.name());
+                broadcast.setFinishedAt(LocalDateTime.now());
+            }
+            broadcastRepository.save(broadcast);
+            log.info("Broadcast {} completed: {} recipients", broadcast.getId(), broadcast.getRecipients());
+        } catch (InterruptedException e) {
+            // Shutting down; the broadcast stays RUNNING and resumes on the next start
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Broadcast {} failed after user {}", broadcast.getId(), after, e);
+            synchronized (broadcast) {
+                broadcast.setStatus(BroadcastStatus.FAILED.name());
+                broadcast.setError(e.getMessage());
+                broadcast.setFinishedAt(LocalDateTime.now());
+            }
+            broadcastRepository.save(broadcast);
+        }
+    }
+
+    private void finishCancel(Broadcast broadcast) {
+        int discarded = notificationDispatcher.discardBroadcast(broadcast.getId());
+        List<String> unreadUserIds = notificationBatchWriter.cancelBroadcast(broadcast.getId());
+        unreadUserIds.forEach(unreadCounterService::decrement);
+        synchronized (broadcast) {
+            broadcast.setStatus(BroadcastStatus.CANCELLED.name());
+            broadcast.setFinishedAt(LocalDateTime.now());
+        }
+        broadcastRepository.save(broadcast);
+        log.info("Broadcast {} cancelled after {} recipients; {} unread undelivered notifications cancelled ({} dequeued)",
+                broadcast.getId(), broadcast.getRecipients(), unreadUserIds.size(), discarded);
+    }
+
+    private static Notification render(Broadcast broadcast, AudienceRepository.Recipient recipient, LocalDateTime now) {
+        Notification notification = new Notification();
+        notification.setId(UUID.nameUUIDFromBytes(
+                (broadcast.getId() + "/" + recipient.getId()).getBytes(StandardCharsets.UTF_8)).toString());
+        notification.setUserId(recipient.getId());
+        notification.setType(broadcast.getType());
+        notification.setTitle(broadcast.getTitle());
+        notification.setMessage(broadcast.getMessageTemplate()
+                .replace("{firstName}", nullToEmpty(recipient.getFirstName()))
+                .replace("{lastName}", nullToEmpty(recipient.getLastName()))
+                .replace("{username}", nullToEmpty(recipient.getUsername())));
+        notification.setChannel(broadcast.getChannel());
+        notification.setStatus(NotificationStatus.PENDING.name());
+        notification.setCreatedAt(now);
+        notification.setNextAttemptAt(now);
+        notification.setBroadcastId(broadcast.getId());
+        return notification;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
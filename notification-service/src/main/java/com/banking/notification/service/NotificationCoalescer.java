@@ -0,0 +1,307 @@
+package com.banking.notification.service;
+
+import com.banking.notification.entity.Notification;
+import com.banking.notification.enums.NotificationStatus;
+import com.banking.notification.repository.NotificationBatchWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Merges bursts of notifications into digests. For each {@code type/channel} with a
+ * configured window, the first notification for a user opens a window; anything of the same
+ * type and channel for that user until the window closes is folded into it. When the window
+ * closes one notification is stored and queued: the original if nothing else arrived,
+ * otherwise a digest listing the first {@code digest-lines} messages and a count of the rest.
+ * Either way it carries the id of the notification that opened the window, which is the id
+ * every notification folded into that window is given back.
+ *
+ * Open windows exist only in memory and are closed by a timing wheel, so a crash loses at
+ * most one window's worth of notifications of the coalesced types; they are all flushed on a
+ * normal shutdown. Windows should therefore stay short, and types that must never be delayed
+ * or lost are simply left out of the windows list.
+ */
+@Service
+public class NotificationCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationCoalescer.class);
+
+    private static final String ANY_CHANNEL = "*";
+
+    @Autowired
+    private NotificationBatchWriter notificationBatchWriter;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private NotificationPush notificationPush;
+
+    private final boolean enabled;
+    private final Map<String, Long> windowMillis = new HashMap<>();
+    private final int digestLines;
+    private final int maxOpenWindows;
+    private final long tickMillis;
+    private final TimingWheel<Window> wheel;
+    private final Map<WindowKey, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicInteger openWindows = new AtomicInteger();
+    private final Counter coalescedIn;
+    private final Counter coalescedOut;
+    private volatile boolean running;
+    private Thread ticker;
+
+    public NotificationCoalescer(@Value("${notification.coalescing.enabled:false}") boolean enabled,
+                                 @Value("${notification.coalescing.windows:}") String windows,
+                                 @Value("${notification.coalescing.digest-lines:5}") int digestLines,
+                                 @Value("${notification.coalescing.max-open-windows:1000000}") int maxOpenWindows,
+                                 @Value("${notification.coalescing.tick-ms:1000}") long tickMillis,
+                                 @Value("${notification.coalescing.wheel-slots:512}") int wheelSlots,
+                                 MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.digestLines = digestLines;
+        this.maxOpenWindows = maxOpenWindows;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSlots, System.currentTimeMillis());
+        parseWindows(windows);
+
+        this.coalescedIn = Counter.builder("banking_notification_coalesced_in_total")
+            .description("Notifications taken into a coalescing window")
+            .tag("service", "notification")
+            .register(meterRegistry);
+        this.coalescedOut = Counter.builder("banking_notification_coalesced_out_total")
+            .description("Notifications stored when coalescing windows close")
+            .tag("service", "notification")
+            .register(meterRegistry);
+        Gauge.builder("banking_notification_coalesce_merge_ratio", this,
+                c -> c.coalescedOut.count() > 0 ? c.coalescedIn.count() / c.coalescedOut.count() : 1.0)
+            .description("Notifications received per notification stored by coalescing")
+            .tag("service", "notification")
+            .register(meterRegistry);
+        Gauge.builder("banking_notification_coalesce_open_windows", openWindows, AtomicInteger::get)
+            .description("Coalescing windows currently open")
+            .tag("service", "notification")
+            .register(meterRegistry);
+    }
+
+    /** Entries are {@code TYPE/CHANNEL=seconds}; {@code *} as the channel matches any channel. */
+    private void parseWindows(String windows) {
+        for (String entry : windows.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            int slash = trimmed.indexOf('/');
+            if (eq < 0 || slash < 0 || slash > eq) {
+                throw new IllegalArgumentException("Invalid coalescing window '" + trimmed + "', expected TYPE/CHANNEL=seconds");
+            }
+            String key = trimmed.substring(0, slash).trim().toUpperCase(Locale.ROOT) + "/"
+                    + trimmed.substring(slash + 1, eq).trim().toUpperCase(Locale.ROOT);
+            windowMillis.put(key, TimeUnit.SECONDS.toMillis(Long.parseLong(trimmed.substring(eq + 1).trim())));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || windowMillis.isEmpty()) {
+            return;
+        }
+        running = true;
+        ticker = new Thread(this::tickLoop, "notification-coalescer");
+        ticker.setDaemon(true);
+        ticker.start();
+        log.info("Notification coalescing windows: {}", windowMillis);
+    }
+
+    /**
+     * Takes the notification into a window if its type and channel are coalesced and returns
+     * the id the window's notification will be stored under. Returns {@code null} if it should
+     * be stored and sent as usual.
+     */
+    public String offer(Notification notification) {
+        if (!running || notification.getType() == null || notification.getUserId() == null) {
+            return null;
+        }
+        Long window = windowFor(notification.getType(), notification.getChannel());
+        if (window == null) {
+            return null;
+        }
+        WindowKey key = new WindowKey(notification.getUserId(), notification.getType(), notification.getChannel());
+        String[] taken = new String[1];
+        windows.compute(key, (k, open) -> {
+            if (open != null) {
+                open.add(notification, digestLines);
+                taken[0] = open.first.getId();
+                return open;
+            }
+            if (openWindows.get() >= maxOpenWindows) {
+                return null;
+            }
+            Window opened = new Window(key, notification);
+            openWindows.incrementAndGet();
+            wheel.schedule(opened, window);
+            taken[0] = notification.getId();
+            return opened;
+        });
+        if (taken[0] != null) {
+            coalescedIn.increment();
+        }
+        return taken[0];
+    }
+
+    private Long windowFor(String type, String channel) {
+        String normalizedType = type.toUpperCase(Locale.ROOT);
+        Long window = windowMillis.get(normalizedType + "/" + channel);
+        return window != null ? window : windowMillis.get(normalizedType + "/" + ANY_CHANNEL);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        ticker.interrupt();
+        ticker.join(TimeUnit.SECONDS.toMillis(5));
+        flush(wheel.drain());
+    }
+
+    private void tickLoop() {
+        while (running) {
+            try {
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                flush(wheel.advance(System.currentTimeMillis()));
+            } catch (RuntimeException e) {
+                log.error("Flushing coalesced notifications failed", e);
+            }
+        }
+    }
+
+    private void flush(List<Window> closing) {
+        if (closing.isEmpty()) {
+            return;
+        }
+        List<Notification> digests = new ArrayList<>(closing.size());
+        for (Window window : closing) {
+            // Removing under the map's lock means no late notification can join a window being flushed
+            windows.computeIfPresent(window.key, (k, open) -> open == window ? null : open);
+            openWindows.decrementAndGet();
+            digests.add(window.toNotification());
+        }
+        Set<String> inserted = new HashSet<>(notificationBatchWriter.insertBatch(digests));
+        for (Notification digest : digests) {
+            if (inserted.contains(digest.getId())) {
+                unreadCounterService.increment(digest.getUserId());
+                notificationPush.publishNotification(digest, unreadCounterService.getCachedUnreadCount(digest.getUserId()));
+                // A full queue leaves the digest PENDING for the dispatcher's sweep
+                notificationDispatcher.enqueue(digest);
+            }
+        }
+        coalescedOut.increment(digests.size());
+    }
+
+    private static final class WindowKey {
+        final String userId;
+        final String type;
+        final String channel;
+
+        WindowKey(String userId, String type, String channel) {
+            this.userId = userId;
+            this.type = type;
+            this.channel = channel;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof WindowKey)) {
+                return false;
+            }
+            WindowKey other = (WindowKey) o;
+            return userId.equals(other.userId) && type.equals(other.type) && Objects.equals(channel, other.channel);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, type, channel);
+        }
+    }
+
+    /** Guarded by the map's per-key lock while open; read only by the flushing thread after removal. */
+    private static final class Window {
+        final WindowKey key;
+        final Notification first;
+        final List<String> lines = new ArrayList<>();
+        int count = 1;
+
+        Window(WindowKey key, Notification first) {
+            this.key = key;
+            this.first = first;
+            lines.add(line(first));
+        }
+
+        void add(Notification notification, int maxLines) {
+            count++;
+            if (lines.size() < maxLines) {
+                lines.add(line(notification));
+            }
+        }
+
+        private static String line(Notification notification) {
+            return notification.getMessage() != null ? notification.getMessage() : notification.getTitle();
+        }
+
+        Notification toNotification() {
+            if (count == 1) {
+                first.setStatus(NotificationStatus.PENDING.name());
+                return first;
+            }
+            Notification digest = new Notification();
+            digest.setId(first.getId());
+            digest.setUserId(key.userId);
+            digest.setType(key.type);
+            digest.setChannel(key.channel);
+            digest.setTitle(count + " " + key.type.toLowerCase(Locale.ROOT).replace('_', ' ') + " notifications");
+            StringBuilder message = new StringBuilder();
+            for (String line : lines) {
+                message.append(message.length() > 0 ? "\n" : "").append(line);
+            }
+            if (count > lines.size()) {
+                message.append("\n...and ").append(count - lines.size()).append(" more");
+            }
+            digest.setMessage(message.toString());
+            digest.setStatus(NotificationStatus.PENDING.name());
+            LocalDateTime now = LocalDateTime.now();
+            digest.setCreatedAt(now);
+            digest.setNextAttemptAt(now);
+            return digest;
+        }
+    }
+}
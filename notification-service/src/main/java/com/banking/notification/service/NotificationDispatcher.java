@@ -0,0 +1,418 @@
+package com.banking.notification.service;
+
+import com.banking.notification.channel.ChannelAdapter;
+import com.banking.notification.channel.DeliveryResult;
+import com.banking.notification.entity.Notification;
+import com.banking.notification.enums.NotificationChannel;
+import com.banking.notification.enums.NotificationStatus;
+import com.banking.notification.repository.NotificationBatchWriter;
+import com.banking.notification.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers PENDING notifications. Each channel has its own bounded queue, worker threads,
+ * batch size and rate limit, so a slow SMS provider cannot hold up email or push. Workers
+ * take up to {@code batch-size} notifications at a time, wait for rate-limit permits and hand
+ * the batch to the channel's {@link ChannelAdapter}.
+ *
+ * Retryable failures are re-queued after an exponential backoff with jitter; after
+ * {@code max-attempts}, or on a permanent failure, the notification is moved to DEAD_LETTER.
+ * Delivery state lives in the table, so anything that was queued when the service stopped, or
+ * did not fit in a full queue, is picked up again by the periodic sweep.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationBatchWriter notificationBatchWriter;
+
+    @Autowired
+    private List<ChannelAdapter> channelAdapters;
+
+    @Autowired
+    private Environment environment;
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long backoffInitialMs;
+    private final long backoffMaxMs;
+    private final long sweepAgeMs;
+    private final int sweepBatchSize;
+
+    private final Map<NotificationChannel, ChannelWorker> workers = new EnumMap<>(NotificationChannel.class);
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running;
+
+    public NotificationDispatcher(@Value("${notification.dispatch.max-attempts:5}") int maxAttempts,
+                                  @Value("${notification.dispatch.backoff-initial-ms:1000}") long backoffInitialMs,
+                                  @Value("${notification.dispatch.backoff-max-ms:300000}") long backoffMaxMs,
+                                  @Value("${notification.dispatch.sweep-age-ms:30000}") long sweepAgeMs,
+                                  @Value("${notification.dispatch.sweep-batch-size:1000}") int sweepBatchSize,
+                                  MeterRegistry meterRegistry) {
+        this.maxAttempts = maxAttempts;
+        this.backoffInitialMs = backoffInitialMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.sweepAgeMs = sweepAgeMs;
+        this.sweepBatchSize = sweepBatchSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (ChannelAdapter adapter : channelAdapters) {
+            ChannelWorker worker = new ChannelWorker(adapter);
+            workers.put(adapter.getChannel(), worker);
+            worker.start();
+        }
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            if (!workers.containsKey(channel)) {
+                log.warn("No adapter for {} notifications; they will stay PENDING", channel);
+            }
+        }
+    }
+
+    /**
+     * Queues a stored PENDING notification for delivery. Returns {@code false} if the channel's
+     * queue is full; the notification then stays PENDING and is picked up by a later sweep.
+     */
+    public boolean enqueue(Notification notification) {
+        try {
+            return enqueue(notification, 0, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Like {@link #enqueue(Notification)} but waits up to {@code timeout} for queue space, so
+     * bulk producers are held back to the rate the channel actually delivers at.
+     */
+    public boolean enqueue(Notification notification, long timeout, TimeUnit unit) throws InterruptedException {
+        ChannelWorker worker = workers.get(NotificationChannel.valueOf(notification.getChannel()));
+        if (worker == null) {
+            return false;
+        }
+        if (!inFlight.add(notification.getId())) {
+            return true;
+        }
+        boolean queued = false;
+        try {
+            queued = timeout > 0 ? worker.queue.offer(notification, timeout, unit) : worker.queue.offer(notification);
+        } finally {
+            if (!queued) {
+                inFlight.remove(notification.getId());
+                worker.rejected.increment();
+            }
+        }
+        return queued;
+    }
+
+    /** Drops a broadcast's notifications that are still waiting in a channel queue. */
+    public int discardBroadcast(String broadcastId) {
+        int discarded = 0;
+        for (ChannelWorker worker : workers.values()) {
+            List<Notification> removed = new ArrayList<>();
+            worker.queue.removeIf(notification -> {
+                if (broadcastId.equals(notification.getBroadcastId())) {
+                    removed.add(notification);
+                    return true;
+                }
+                return false;
+            });
+            removed.forEach(notification -> inFlight.remove(notification.getId()));
+            discarded += removed.size();
+        }
+        return discarded;
+    }
+
+    /** Re-queues PENDING notifications that are due but not queued in this process. */
+    @Scheduled(fixedDelayString = "${notification.dispatch.sweep-interval-ms:10000}",
+               initialDelayString = "${notification.dispatch.sweep-initial-delay-ms:5000}")
+    public void sweep() {
+        LocalDateTime before = LocalDateTime.now().minus(Duration.ofMillis(sweepAgeMs));
+        List<Notification> due;
+        try {
+            due = notificationRepository.findByStatusAndNextAttemptAtBeforeOrderByNextAttemptAt(
+                    NotificationStatus.PENDING.name(), before, PageRequest.of(0, sweepBatchSize));
+        } catch (RuntimeException e) {
+            log.warn("Notification sweep failed, will retry", e);
+            return;
+        }
+        int queued = 0;
+        for (Notification notification : due) {
+            if (inFlight.contains(notification.getId())) {
+                continue;
+            }
+            if (enqueue(notification)) {
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            log.info("Re-queued {} pending notifications", queued);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        retryScheduler.shutdownNow();
+        for (ChannelWorker worker : workers.values()) {
+            for (Thread thread : worker.threads) {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            }
+        }
+    }
+
+    private long backoffMs(int attempt) {
+        long delay = backoffInitialMs << Math.min(attempt - 1, 30);
+        delay = Math.min(delay <= 0 ? backoffMaxMs : delay, backoffMaxMs);
+        // Half fixed, half random, so failures from one provider outage do not retry in lockstep
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private final class ChannelWorker {
+        final NotificationChannel channel;
+        final ChannelAdapter adapter;
+        final BlockingQueue<Notification> queue;
+        final int batchSize;
+        final int threadCount;
+        final TokenBucket rateLimiter;
+        final List<Thread> threads = new ArrayList<>();
+
+        final Counter sent;
+        final Counter retried;
+        final Counter deadLettered;
+        final Counter rejected;
+        final Timer adapterTimer;
+        final Timer deliveryLatency;
+
+        ChannelWorker(ChannelAdapter adapter) {
+            this.channel = adapter.getChannel();
+            this.adapter = adapter;
+            String prefix = "notification.channels." + channel.name().toLowerCase(Locale.ROOT) + ".";
+            this.queue = new ArrayBlockingQueue<>(environment.getProperty(prefix + "queue-capacity", Integer.class, 10000));
+            this.batchSize = environment.getProperty(prefix + "batch-size", Integer.class, 50);
+            this.threadCount = environment.getProperty(prefix + "workers", Integer.class, 2);
+            double ratePerSecond = environment.getProperty(prefix + "rate-per-second", Double.class, 0.0);
+            this.rateLimiter = ratePerSecond > 0 ? new TokenBucket(ratePerSecond, Math.max(ratePerSecond, batchSize)) : null;
+
+            String tag = channel.name();
+            this.sent = outcomeCounter(tag, "sent");
+            this.retried = outcomeCounter(tag, "retry");
+            this.deadLettered = outcomeCounter(tag, "dead_letter");
+            this.rejected = Counter.builder("banking_notification_queue_rejected_total")
+                .description("Notifications left PENDING because the channel queue was full")
+                .tag("service", "notification")
+                .tag("channel", tag)
+                .register(meterRegistry);
+            this.adapterTimer = Timer.builder("banking_notification_adapter_seconds")
+                .description("Time for a channel adapter to accept one batch")
+                .tag("service", "notification")
+                .tag("channel", tag)
+                .register(meterRegistry);
+            this.deliveryLatency = Timer.builder("banking_notification_dispatch_latency_seconds")
+                .description("Time from a notification being created to being delivered")
+                .tag("service", "notification")
+                .tag("channel", tag)
+                .register(meterRegistry);
+            Gauge.builder("banking_notification_queue_depth", queue, BlockingQueue::size)
+                .description("Notifications waiting in the channel queue")
+                .tag("service", "notification")
+                .tag("channel", tag)
+                .register(meterRegistry);
+        }
+
+        private Counter outcomeCounter(String channel, String outcome) {
+            return Counter.builder("banking_notification_dispatched_total")
+                .description("Notification delivery attempts by outcome")
+                .tag("service", "notification")
+                .tag("channel", channel)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
+
+        void start() {
+            for (int i = 0; i < threadCount; i++) {
+                Thread thread = new Thread(this::run, "notification-" + channel.name().toLowerCase(Locale.ROOT) + "-" + (i + 1));
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+            log.info("{} dispatch: {} workers, batch {}, queue {}, rate {}/s", channel, threadCount, batchSize,
+                    queue.remainingCapacity(), rateLimiter != null ? rateLimiter.ratePerSecond : "unlimited");
+        }
+
+        private void run() {
+            List<Notification> batch = new ArrayList<>(batchSize);
+            while (running) {
+                try {
+                    Notification first = queue.poll(200, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    if (rateLimiter != null) {
+                        rateLimiter.acquire(batch.size());
+                    }
+                    dispatch(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (RuntimeException e) {
+                    log.error("{} dispatch of {} notifications failed", channel, batch.size(), e);
+                    batch.forEach(notification -> inFlight.remove(notification.getId()));
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void dispatch(List<Notification> batch) {
+            List<DeliveryResult> results;
+            long started = System.nanoTime();
+            try {
+                results = adapter.send(batch);
+            } catch (RuntimeException e) {
+                log.warn("{} adapter failed for a batch of {}", channel, batch.size(), e);
+                DeliveryResult failure = DeliveryResult.failed(e.getMessage());
+                results = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    results.add(failure);
+                }
+            }
+            adapterTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+            LocalDateTime now = LocalDateTime.now();
+            List<Notification> retries = new ArrayList<>();
+            List<Long> retryDelays = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                Notification notification = batch.get(i);
+                DeliveryResult result = i < results.size() ? results.get(i) : DeliveryResult.failed("No result from adapter");
+                notification.setAttempts(notification.getAttempts() + 1);
+                if (result.isDelivered()) {
+                    notification.setStatus(NotificationStatus.SENT.name());
+                    notification.setSentAt(now);
+                    notification.setNextAttemptAt(null);
+                    notification.setLastError(null);
+                    sent.increment();
+                    if (notification.getCreatedAt() != null) {
+                        deliveryLatency.record(Duration.between(notification.getCreatedAt(), now));
+                    }
+                } else if (result.isRetryable() && notification.getAttempts() < maxAttempts) {
+                    long delay = backoffMs(notification.getAttempts());
+                    notification.setNextAttemptAt(now.plus(Duration.ofMillis(delay)));
+                    notification.setLastError(truncate(result.getError()));
+                    retries.add(notification);
+                    retryDelays.add(delay);
+                    retried.increment();
+                } else {
+                    notification.setStatus(NotificationStatus.DEAD_LETTER.name());
+                    notification.setNextAttemptAt(null);
+                    notification.setLastError(truncate(result.getError()));
+                    deadLettered.increment();
+                    log.warn("{} notification {} dead-lettered after {} attempts: {}", channel,
+                            notification.getId(), notification.getAttempts(), result.getError());
+                }
+            }
+
+            // Persist before releasing the ids, or a sweep could re-queue a row that still reads PENDING
+            notificationBatchWriter.updateDeliveryState(batch);
+
+            for (Notification notification : batch) {
+                if (!NotificationStatus.PENDING.name().equals(notification.getStatus())) {
+                    inFlight.remove(notification.getId());
+                }
+            }
+            for (int i = 0; i < retries.size(); i++) {
+                Notification notification = retries.get(i);
+                retryScheduler.schedule(() -> {
+                    if (!queue.offer(notification)) {
+                        inFlight.remove(notification.getId());
+                        rejected.increment();
+                    }
+                }, retryDelays.get(i), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    /** Token bucket shared by a channel's workers; {@code acquire} blocks until permits refill. */
+    private static final class TokenBucket {
+        final double ratePerSecond;
+        private final double permitsPerNano;
+        private final double capacity;
+        private double available;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(double ratePerSecond, double capacity) {
+            this.ratePerSecond = ratePerSecond;
+            this.permitsPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.available = capacity;
+        }
+
+        void acquire(int permits) throws InterruptedException {
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    long now = System.nanoTime();
+                    available = Math.min(capacity, available + (now - refilledAt) * permitsPerNano);
+                    refilledAt = now;
+                    if (available >= permits) {
+                        available -= permits;
+                        return;
+                    }
+                    waitNanos = (long) Math.ceil((permits - available) / permitsPerNano);
+                }
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
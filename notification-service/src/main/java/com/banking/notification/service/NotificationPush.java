@@ -0,0 +1,30 @@
+package com.banking.notification.service;
+
+import com.banking.notification.entity.Notification;
+import com.banking.shared.push.PushPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Notification events for users' open streams, sent through the shared {@link PushPublisher}. */
+@Component
+public class NotificationPush {
+
+    @Autowired
+    private PushPublisher pushPublisher;
+
+    /** Tells the user's open streams a notification was stored, with the unread count if known. */
+    public void publishNotification(Notification notification, Long unreadCount) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", notification.getId());
+        data.put("type", notification.getType());
+        data.put("title", notification.getTitle());
+        data.put("createdAt", String.valueOf(notification.getCreatedAt()));
+        if (unreadCount != null) {
+            data.put("unreadCount", unreadCount);
+        }
+        pushPublisher.publish(notification.getUserId(), "notification", data);
+    }
+}
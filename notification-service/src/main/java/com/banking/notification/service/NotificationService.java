@@ -1,11 +1,19 @@
 package com.banking.notification.service;
 
+import com.banking.notification.dto.InboxCursor;
 import com.banking.notification.entity.Notification;
+import com.banking.notification.enums.NotificationChannel;
+import com.banking.notification.enums.NotificationStatus;
+import com.banking.notification.repository.NotificationBatchWriter;
 import com.banking.notification.repository.NotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 @Service
@@ -14,17 +22,99 @@ public class NotificationService {
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private NotificationCoalescer notificationCoalescer;
+
+    @Autowired
+    private NotificationBatchWriter notificationBatchWriter;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private NotificationPush notificationPush;
+
+    /**
+     * Stores the notification as PENDING and queues it for delivery on its channel. Delivery
+     * happens asynchronously; the status moves to SENT or DEAD_LETTER once the channel
+     * adapter has been called. Notifications of a coalesced type are instead held in the
+     * user's open window and returned as COALESCED with the id of the window's notification,
+     * which is stored under that id when the window closes.
+     */
     public Notification sendNotification(Notification notification) {
         if (notification.getId() == null) {
             notification.setId(UUID.randomUUID().toString());
         }
-        return notificationRepository.save(notification);
+        NotificationChannel channel = notification.getChannel() != null
+                ? NotificationChannel.valueOf(notification.getChannel().toUpperCase(Locale.ROOT))
+                : NotificationChannel.EMAIL;
+        notification.setChannel(channel.name());
+        notification.setStatus(NotificationStatus.PENDING.name());
+        notification.setAttempts(0);
+        notification.setSentAt(null);
+        notification.setLastError(null);
+        if (notification.getCreatedAt() == null) {
+            notification.setCreatedAt(LocalDateTime.now());
+        }
+        notification.setNextAttemptAt(notification.getCreatedAt());
+
+        String windowId = notificationCoalescer.offer(notification);
+        if (windowId != null) {
+            Notification coalesced = new Notification();
+            coalesced.setId(windowId);
+            coalesced.setUserId(notification.getUserId());
+            coalesced.setType(notification.getType());
+            coalesced.setTitle(notification.getTitle());
+            coalesced.setMessage(notification.getMessage());
+            coalesced.setChannel(notification.getChannel());
+            coalesced.setCreatedAt(notification.getCreatedAt());
+            coalesced.setStatus(NotificationStatus.COALESCED.name());
+            return coalesced;
+        }
+
+        Notification saved = notificationRepository.save(notification);
+        unreadCounterService.increment(saved.getUserId());
+        notificationPush.publishNotification(saved, unreadCounterService.getCachedUnreadCount(saved.getUserId()));
+        // A full queue leaves the notification PENDING for the dispatcher's sweep
+        notificationDispatcher.enqueue(saved);
+        return saved;
     }
 
     public List<Notification> getNotificationsByUserId(String userId) {
         return notificationRepository.findByUserId(userId);
     }
 
+    public long getUnreadCount(String userId) {
+        return unreadCounterService.getUnreadCount(userId);
+    }
+
+    /** One page of the user's inbox, newest first, starting after {@code cursor} if given. */
+    public Slice<Notification> getInbox(String userId, InboxCursor cursor, int size) {
+        PageRequest page = PageRequest.of(0, size);
+        return cursor == null
+                ? notificationRepository.findInbox(userId, page)
+                : notificationRepository.findInboxAfter(userId, cursor.getCreatedAt(), cursor.getId(), page);
+    }
+
+    /** Returns {@code false} if the notification does not exist or was already read. */
+    public boolean markRead(String id) {
+        String userId = notificationBatchWriter.markRead(id, LocalDateTime.now());
+        if (userId == null) {
+            return false;
+        }
+        unreadCounterService.decrement(userId);
+        return true;
+    }
+
+    public int markAllRead(String userId) {
+        int marked = notificationBatchWriter.markAllRead(userId, LocalDateTime.now());
+        unreadCounterService.reset(userId);
+        return marked;
+    }
+
     public List<Notification> getAllNotifications() {
         return notificationRepository.findAll();
     }
@@ -0,0 +1,84 @@
+package com.banking.notification.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: {@code slots} buckets of {@code tickMillis} each. Scheduling and
+ * expiry are O(1) per item however many timers are pending, at the cost of firing up to one
+ * tick late. Items further out than one revolution share a bucket with nearer ones and are
+ * skipped until their tick comes round.
+ */
+final class TimingWheel<T> {
+
+    private static final class Entry<T> {
+        final T item;
+        final long deadlineTick;
+
+        Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<Entry<T>>[] buckets;
+    private final long startMillis;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int slots, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new List[slots];
+        for (int i = 0; i < slots; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.startMillis = nowMillis;
+    }
+
+    synchronized void schedule(T item, long delayMillis) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        long deadline = currentTick + ticks;
+        buckets[(int) (deadline % buckets.length)].add(new Entry<>(item, deadline));
+        size++;
+    }
+
+    /** Advances to {@code nowMillis} and returns the items that are due, in deadline order. */
+    synchronized List<T> advance(long nowMillis) {
+        long targetTick = (nowMillis - startMillis) / tickMillis;
+        List<T> due = new ArrayList<>();
+        while (currentTick < targetTick && size > 0) {
+            currentTick++;
+            Iterator<Entry<T>> entries = buckets[(int) (currentTick % buckets.length)].iterator();
+            while (entries.hasNext()) {
+                Entry<T> entry = entries.next();
+                if (entry.deadlineTick <= currentTick) {
+                    entries.remove();
+                    size--;
+                    due.add(entry.item);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return due;
+    }
+
+    /** Removes and returns everything still scheduled. */
+    synchronized List<T> drain() {
+        List<T> all = new ArrayList<>(size);
+        for (List<Entry<T>> bucket : buckets) {
+            for (Entry<T> entry : bucket) {
+                all.add(entry.item);
+            }
+            bucket.clear();
+        }
+        size = 0;
+        return all;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,189 @@
+package com.banking.notification.service;
+
+import com.banking.notification.repository.UnreadCountStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-user unread counts kept in memory and adjusted as notifications are stored, read or
+ * cancelled, so the badge poll is a map lookup. A user's counter is loaded on first use from
+ * {@code notification_unread_counts}, or initialised there from a count of their unread
+ * notifications; changes accumulate as deltas that are written every {@code persist-interval-ms}.
+ * Counters idle for {@code idle-ms} with nothing left to write are evicted.
+ *
+ * Deltas not yet written when the process dies are lost, so a counter can drift by what changed
+ * in the last interval; marking everything read resets it exactly.
+ */
+@Service
+public class UnreadCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(UnreadCounterService.class);
+
+    @Autowired
+    private UnreadCountStore unreadCountStore;
+
+    /** Guarded by the map's per-key lock: every access goes through compute. */
+    private static final class Entry {
+        Long value;
+        long pending;
+        long lastAccess = System.currentTimeMillis();
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Loads read the stored row and add pending deltas; a flush must not apply deltas in between
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+    private final long idleMillis;
+    private final Counter loads;
+
+    public UnreadCounterService(@Value("${notification.unread.idle-ms:600000}") long idleMillis,
+                                MeterRegistry meterRegistry) {
+        this.idleMillis = idleMillis;
+        this.loads = Counter.builder("banking_notification_unread_loads_total")
+            .description("Unread counters loaded or initialised from the database")
+            .tag("service", "notification")
+            .register(meterRegistry);
+        Gauge.builder("banking_notification_unread_counters", entries, Map::size)
+            .description("Per-user unread counters held in memory")
+            .tag("service", "notification")
+            .register(meterRegistry);
+    }
+
+    public void increment(String userId) {
+        add(userId, 1);
+    }
+
+    public void decrement(String userId) {
+        add(userId, -1);
+    }
+
+    private void add(String userId, long delta) {
+        entries.compute(userId, (k, entry) -> {
+            Entry updated = entry != null ? entry : new Entry();
+            updated.pending += delta;
+            if (updated.value != null) {
+                updated.value = Math.max(0, updated.value + delta);
+            }
+            return updated;
+        });
+    }
+
+    public long getUnreadCount(String userId) {
+        long now = System.currentTimeMillis();
+        Long[] cached = new Long[1];
+        entries.computeIfPresent(userId, (k, entry) -> {
+            entry.lastAccess = now;
+            cached[0] = entry.value;
+            return entry;
+        });
+        return cached[0] != null ? cached[0] : load(userId);
+    }
+
+    /** The counter if it is already in memory, without loading it; {@code null} otherwise. */
+    public Long getCachedUnreadCount(String userId) {
+        Long[] cached = new Long[1];
+        entries.computeIfPresent(userId, (k, entry) -> {
+            cached[0] = entry.value;
+            return entry;
+        });
+        return cached[0];
+    }
+
+    private long load(String userId) {
+        flushLock.readLock().lock();
+        try {
+            Long stored = unreadCountStore.find(userId);
+            boolean initialised = stored == null;
+            long base = initialised ? unreadCountStore.initialise(userId) : stored;
+            loads.increment();
+
+            long[] result = new long[1];
+            entries.compute(userId, (k, entry) -> {
+                Entry current = entry != null ? entry : new Entry();
+                if (current.value == null) {
+                    if (initialised) {
+                        // Changes are recorded after their rows commit, so the count already
+                        // includes whatever was pending; only later changes remain to be written
+                        current.pending = 0;
+                    }
+                    current.value = Math.max(0, base + current.pending);
+                }
+                current.lastAccess = System.currentTimeMillis();
+                result[0] = current.value;
+                return current;
+            });
+            return result[0];
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /** Sets the user's counter to zero, in memory and in the store. */
+    public void reset(String userId) {
+        flushLock.writeLock().lock();
+        try {
+            unreadCountStore.set(userId, 0);
+            entries.compute(userId, (k, entry) -> {
+                Entry current = entry != null ? entry : new Entry();
+                current.value = 0L;
+                current.pending = 0;
+                current.lastAccess = System.currentTimeMillis();
+                return current;
+            });
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.unread.persist-interval-ms:5000}")
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            long idleBefore = System.currentTimeMillis() - idleMillis;
+            Map<String, Long> deltas = new HashMap<>();
+            for (String userId : new ArrayList<>(entries.keySet())) {
+                entries.computeIfPresent(userId, (k, entry) -> {
+                    if (entry.pending != 0) {
+                        deltas.put(userId, entry.pending);
+                        entry.pending = 0;
+                        return entry;
+                    }
+                    return entry.value == null || entry.lastAccess < idleBefore ? null : entry;
+                });
+            }
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                unreadCountStore.addAll(deltas);
+            } catch (RuntimeException e) {
+                log.warn("Persisting {} unread counter changes failed, will retry", deltas.size(), e);
+                deltas.forEach((userId, delta) -> entries.compute(userId, (k, entry) -> {
+                    Entry current = entry != null ? entry : new Entry();
+                    current.pending += delta;
+                    return current;
+                }));
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+}
@@ -0,0 +1,64 @@
+package com.banking.notification;
+
+import com.banking.notification.entity.Notification;
+import com.banking.notification.repository.NotificationBatchWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationBatchWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private NotificationBatchWriter notificationBatchWriter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testLargeInsertIsSplitUnderTheBindParameterLimit() {
+        // Given
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < 7000; i++) {
+            Notification notification = new Notification();
+            notification.setId("n" + i);
+            notification.setUserId("user" + i);
+            notifications.add(notification);
+        }
+        List<Integer> statementParams = new ArrayList<>();
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenAnswer(inv -> {
+            Object[] args = (Object[]) inv.getRawArguments()[2];
+            statementParams.add(args.length);
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < args.length; i += 11) {
+                ids.add((String) args[i]);
+            }
+            return ids;
+        });
+
+        // When
+        List<String> inserted = notificationBatchWriter.insertBatch(notifications);
+
+        // Then
+        assertEquals(7000, inserted.size());
+        assertEquals("n6999", inserted.get(6999));
+        assertEquals(3, statementParams.size());
+        assertTrue(statementParams.stream().allMatch(params -> params <= 32767));
+    }
+}
@@ -0,0 +1,95 @@
+package com.banking.notification;
+
+import com.banking.notification.entity.Notification;
+import com.banking.notification.repository.NotificationBatchWriter;
+import com.banking.notification.service.NotificationCoalescer;
+import com.banking.notification.service.NotificationDispatcher;
+import com.banking.notification.service.NotificationPush;
+import com.banking.notification.service.UnreadCounterService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class NotificationCoalescerTest {
+
+    @Mock
+    private NotificationBatchWriter notificationBatchWriter;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @Mock
+    private UnreadCounterService unreadCounterService;
+
+    @Mock
+    private NotificationPush notificationPush;
+
+    private NotificationCoalescer coalescer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        coalescer = new NotificationCoalescer(true, "CARD_PAYMENT/*=300", 5, 100, 1000, 512, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(coalescer, "notificationBatchWriter", notificationBatchWriter);
+        ReflectionTestUtils.setField(coalescer, "notificationDispatcher", notificationDispatcher);
+        ReflectionTestUtils.setField(coalescer, "unreadCounterService", unreadCounterService);
+        ReflectionTestUtils.setField(coalescer, "notificationPush", notificationPush);
+        when(notificationBatchWriter.insertBatch(anyList())).thenAnswer(inv ->
+                ((List<Notification>) inv.getArgument(0)).stream().map(Notification::getId).toList());
+        coalescer.start();
+    }
+
+    private static Notification cardPayment(String id, String message) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setUserId("user1");
+        notification.setType("CARD_PAYMENT");
+        notification.setChannel("PUSH");
+        notification.setMessage(message);
+        return notification;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDigestIsStoredUnderTheIdEveryJoinerWasGiven() throws InterruptedException {
+        // When
+        String first = coalescer.offer(cardPayment("n1", "Card payment of 4.50"));
+        String second = coalescer.offer(cardPayment("n2", "Card payment of 3.20"));
+        coalescer.stop();
+
+        // Then
+        assertEquals("n1", first);
+        assertEquals("n1", second);
+        ArgumentCaptor<List<Notification>> stored = ArgumentCaptor.forClass(List.class);
+        verify(notificationBatchWriter).insertBatch(stored.capture());
+        assertEquals(1, stored.getValue().size());
+        Notification digest = stored.getValue().get(0);
+        assertEquals("n1", digest.getId());
+        assertEquals("Card payment of 4.50\nCard payment of 3.20", digest.getMessage());
+        verify(notificationDispatcher).enqueue(digest);
+    }
+
+    @Test
+    void testUncoalescedTypeIsNotTaken() throws InterruptedException {
+        // When
+        Notification deposit = cardPayment("n1", "Deposit of 100.00");
+        deposit.setType("DEPOSIT");
+        String taken = coalescer.offer(deposit);
+        coalescer.stop();
+
+        // Then
+        assertNull(taken);
+        verify(notificationBatchWriter, never()).insertBatch(anyList());
+    }
+}
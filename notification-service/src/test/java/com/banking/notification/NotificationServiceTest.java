@@ -1,8 +1,13 @@
 package com.banking.notification;
 
 import com.banking.notification.entity.Notification;
+import com.banking.notification.repository.NotificationBatchWriter;
 import com.banking.notification.repository.NotificationRepository;
+import com.banking.notification.service.NotificationCoalescer;
+import com.banking.notification.service.NotificationDispatcher;
+import com.banking.notification.service.NotificationPush;
 import com.banking.notification.service.NotificationService;
+import com.banking.notification.service.UnreadCounterService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -14,6 +19,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class NotificationServiceTest {
@@ -21,6 +27,21 @@ class NotificationServiceTest {
     @Mock
     private NotificationRepository notificationRepository;
 
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @Mock
+    private NotificationCoalescer notificationCoalescer;
+
+    @Mock
+    private NotificationBatchWriter notificationBatchWriter;
+
+    @Mock
+    private UnreadCounterService unreadCounterService;
+
+    @Mock
+    private NotificationPush notificationPush;
+
     @InjectMocks
     private NotificationService notificationService;
 
@@ -39,6 +60,7 @@ class NotificationServiceTest {
         notification.setMessage("Your deposit has been processed");
         
         when(notificationRepository.save(any(Notification.class))).thenReturn(notification);
+        when(unreadCounterService.getCachedUnreadCount("user1")).thenReturn(3L);
 
         // When
         Notification result = notificationService.sendNotification(notification);
@@ -46,7 +68,46 @@ class NotificationServiceTest {
         // Then
         assertNotNull(result);
         assertNotNull(result.getId());
+        assertEquals("PENDING", result.getStatus());
+        assertEquals("EMAIL", result.getChannel());
+        assertNull(result.getSentAt());
         verify(notificationRepository).save(notification);
+        verify(notificationDispatcher).enqueue(notification);
+        verify(unreadCounterService).increment("user1");
+        verify(notificationPush).publishNotification(notification, 3L);
+    }
+
+    @Test
+    void testSendNotificationCoalesced() {
+        // Given
+        Notification notification = new Notification();
+        notification.setUserId("user1");
+        notification.setType("CARD_PAYMENT");
+        notification.setMessage("Card payment of 4.50");
+
+        when(notificationCoalescer.offer(notification)).thenReturn("window-1");
+
+        // When
+        Notification result = notificationService.sendNotification(notification);
+
+        // Then
+        assertEquals("COALESCED", result.getStatus());
+        assertEquals("window-1", result.getId());
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(notificationDispatcher, never()).enqueue(any(Notification.class));
+    }
+
+    @Test
+    void testSendNotificationRejectsUnknownChannel() {
+        // Given
+        Notification notification = new Notification();
+        notification.setUserId("user1");
+        notification.setChannel("FAX");
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> notificationService.sendNotification(notification));
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(notificationDispatcher, never()).enqueue(any(Notification.class));
     }
 
     @Test
@@ -85,4 +146,29 @@ class NotificationServiceTest {
         assertEquals(1, result.size());
         verify(notificationRepository).findAll();
     }
+
+    @Test
+    void testGetUnreadCount() {
+        // Given
+        when(unreadCounterService.getUnreadCount("user1")).thenReturn(3L);
+
+        // When
+        long result = notificationService.getUnreadCount("user1");
+
+        // Then
+        assertEquals(3L, result);
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void testMarkRead() {
+        // Given
+        when(notificationBatchWriter.markRead(eq("n1"), any())).thenReturn("user1");
+        when(notificationBatchWriter.markRead(eq("n2"), any())).thenReturn(null);
+
+        // When / Then
+        assertTrue(notificationService.markRead("n1"));
+        assertFalse(notificationService.markRead("n2"));
+        verify(unreadCounterService, times(1)).decrement("user1");
+    }
 }
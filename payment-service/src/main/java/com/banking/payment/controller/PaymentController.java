@@ -1,12 +1,21 @@
 package com.banking.payment.controller;
 
+import com.banking.payment.dto.ActivityCursor;
+import com.banking.payment.dto.ActivityPage;
 import com.banking.payment.entity.Payment;
+import com.banking.payment.repository.PaymentActivityStore;
 import com.banking.payment.repository.PaymentRepository;
+import com.banking.shared.dto.ApiResponse;
+import com.banking.shared.exception.IdempotencyKeyException;
+import com.banking.shared.idempotency.IdempotencyStore;
+import com.banking.shared.idempotency.IdempotentResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -17,9 +26,17 @@ import java.util.UUID;
 @CrossOrigin(origins = "*")
 public class PaymentController {
 
+    private static final int MAX_ACTIVITY_SIZE = 100;
+
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private PaymentActivityStore paymentActivityStore;
+
     @GetMapping
     public List<Payment> getAllPayments() {
         return paymentRepository.findAll();
@@ -31,24 +48,59 @@ public class PaymentController {
         return payment.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Payments sent or received by the account, newest first and keyset-paginated. Pass the
+     * returned {@code nextCursor} as {@code cursor} to fetch the next page. {@code from} and
+     * {@code to} are inclusive dates.
+     */
     @GetMapping("/account/{accountNumber}")
-    public List<Payment> getPaymentsByAccount(@PathVariable String accountNumber) {
-        return paymentRepository.findByFromAccountOrToAccount(accountNumber, accountNumber);
+    public ResponseEntity<?> getPaymentsByAccount(@PathVariable String accountNumber,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "20") int size,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                  @RequestParam(required = false) String type) {
+        if (size < 1 || size > MAX_ACTIVITY_SIZE) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("size must be between 1 and " + MAX_ACTIVITY_SIZE));
+        }
+        ActivityCursor after;
+        try {
+            after = ActivityCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+        List<Payment> fetched = paymentActivityStore.findActivity(accountNumber, after,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                type, size + 1);
+        return ResponseEntity.ok(new ActivityPage(fetched, size));
     }
 
     @PostMapping
-    public ResponseEntity<Payment> createPayment(@RequestBody Map<String, Object> request) {
-        Payment payment = new Payment();
-        payment.setId("pay-" + UUID.randomUUID().toString().substring(0, 8));
-        payment.setFromAccount((String) request.get("fromAccount"));
-        payment.setToAccount((String) request.get("toAccount"));
-        payment.setAmount(new BigDecimal(request.get("amount").toString()));
-        payment.setCurrency((String) request.getOrDefault("currency", "USD"));
-        payment.setType((String) request.get("type"));
-        payment.setStatus("PENDING");
-        payment.setDescription((String) request.get("description"));
-        
-        Payment savedPayment = paymentRepository.save(payment);
-        return ResponseEntity.ok(savedPayment);
+    public ResponseEntity<?> createPayment(@RequestBody Map<String, Object> request,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        BigDecimal amount = new BigDecimal(request.get("amount").toString());
+        String currency = (String) request.getOrDefault("currency", "USD");
+        String fingerprint = IdempotencyStore.fingerprint(request.get("fromAccount"), request.get("toAccount"),
+                amount, currency, request.get("type"), request.get("description"));
+        try {
+            IdempotentResult<Payment> created = idempotencyStore.execute(idempotencyKey, fingerprint, Payment.class, () -> {
+                Payment payment = new Payment();
+                payment.setId("pay-" + UUID.randomUUID().toString().substring(0, 8));
+                payment.setFromAccount((String) request.get("fromAccount"));
+                payment.setToAccount((String) request.get("toAccount"));
+                payment.setAmount(amount);
+                payment.setCurrency(currency);
+                payment.setType((String) request.get("type"));
+                payment.setStatus("PENDING");
+                payment.setDescription((String) request.get("description"));
+                return paymentRepository.save(payment);
+            });
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(created.isReplayed()))
+                    .body(created.getBody());
+        } catch (IdempotencyKeyException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        }
     }
 }
@@ -0,0 +1,26 @@
+package com.banking.payment.dto;
+
+import com.banking.payment.entity.Payment;
+
+import java.util.List;
+
+public class ActivityPage {
+
+    private final List<Payment> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    /** {@code fetched} holds up to one payment more than the page, which only signals a next page. */
+    public ActivityPage(List<Payment> fetched, int pageSize) {
+        this.hasNext = fetched.size() > pageSize;
+        this.content = hasNext ? fetched.subList(0, pageSize) : fetched;
+        this.size = content.size();
+        this.nextCursor = hasNext ? ActivityCursor.of(content.get(content.size() - 1)).encode() : null;
+    }
+
+    public List<Payment> getContent() { return content; }
+    public int getSize() { return size; }
+    public boolean isHasNext() { return hasNext; }
+    public String getNextCursor() { return nextCursor; }
+}
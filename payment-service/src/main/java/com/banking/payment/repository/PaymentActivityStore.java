@@ -0,0 +1,89 @@
+package com.banking.payment.repository;
+
+import com.banking.payment.dto.ActivityCursor;
+import com.banking.payment.entity.Payment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An account's payments, sent and received, newest first. Rather than one scan with
+ * {@code from_account = ? OR to_account = ?}, each side is a range scan of its own
+ * {@code (account, created_at, id)} index that stops after {@code limit} rows, and the two
+ * ordered results are merged; a page reads at most twice its size whatever the table holds.
+ */
+@Repository
+public class PaymentActivityStore {
+
+    private static final String COLUMNS =
+            "id, from_account, to_account, amount, currency, type, status, description, created_at, updated_at, failure_reason";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Up to {@code limit} payments of the account after {@code cursor}, created in
+     * {@code [from, to)} and of {@code type}; each filter is skipped when {@code null}.
+     */
+    public List<Payment> findActivity(String accountId, ActivityCursor cursor, LocalDateTime from, LocalDateTime to,
+                                      String type, int limit) {
+        StringBuilder filters = new StringBuilder();
+        List<Object> filterArgs = new ArrayList<>();
+        if (cursor != null) {
+            filters.append(" AND (created_at, id) < (?, ?)");
+            filterArgs.add(Timestamp.valueOf(cursor.getCreatedAt()));
+            filterArgs.add(cursor.getId());
+        }
+        if (from != null) {
+            filters.append(" AND created_at >= ?");
+            filterArgs.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            filters.append(" AND created_at < ?");
+            filterArgs.add(Timestamp.valueOf(to));
+        }
+        if (type != null) {
+            filters.append(" AND type = ?");
+            filterArgs.add(type);
+        }
+        String order = " ORDER BY created_at DESC, id DESC LIMIT ?";
+        String sql = "SELECT " + COLUMNS + " FROM ("
+                + "(SELECT " + COLUMNS + " FROM payments WHERE from_account = ?" + filters + order + ")"
+                + " UNION ALL "
+                // A payment to the account itself is already on the sending side
+                + "(SELECT " + COLUMNS + " FROM payments WHERE to_account = ? AND from_account <> ?" + filters + order + ")"
+                + ") activity" + order;
+
+        List<Object> args = new ArrayList<>();
+        args.add(accountId);
+        args.addAll(filterArgs);
+        args.add(limit);
+        args.add(accountId);
+        args.add(accountId);
+        args.addAll(filterArgs);
+        args.add(limit);
+        args.add(limit);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Payment payment = new Payment();
+            payment.setId(rs.getString(1));
+            payment.setFromAccount(rs.getString(2));
+            payment.setToAccount(rs.getString(3));
+            payment.setAmount(rs.getBigDecimal(4));
+            payment.setCurrency(rs.getString(5));
+            payment.setType(rs.getString(6));
+            payment.setStatus(rs.getString(7));
+            payment.setDescription(rs.getString(8));
+            Timestamp createdAt = rs.getTimestamp(9);
+            payment.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+            Timestamp updatedAt = rs.getTimestamp(10);
+            payment.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null);
+            payment.setFailureReason(rs.getString(11));
+            return payment;
+        }, args.toArray());
+    }
+}
@@ -0,0 +1,172 @@
+package com.banking.payment.repository;
+
+import com.banking.payment.entity.Payment;
+import com.banking.shared.ledger.AccountRows;
+import com.banking.shared.ledger.LockedAccount;
+import com.banking.shared.push.PushPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The SQL of payment processing. A worker claims PENDING payments by marking them PROCESSING
+ * under its name; the inner {@code FOR UPDATE SKIP LOCKED} makes concurrent claims, from any
+ * instance, pass over rows another claim is taking instead of waiting for it, so each payment
+ * goes to exactly one worker. Executing re-locks the claimed rows that are still the worker's,
+ * which a claim released as stuck in the meantime no longer is.
+ */
+@Repository
+public class PaymentProcessingStore {
+
+    private static final String CLAIM_SQL =
+            "UPDATE payments p SET status = 'PROCESSING', claimed_by = ?, claimed_at = ?, updated_at = ? "
+            + "FROM (SELECT id FROM payments WHERE status = 'PENDING' ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED) c "
+            + "WHERE p.id = c.id "
+            + "RETURNING p.id, p.from_account, p.to_account, p.amount, p.currency, p.type, p.description, p.created_at";
+
+    private static final String CONFIRM_SQL =
+            "SELECT id FROM payments WHERE id = ANY (?) AND status = 'PROCESSING' AND claimed_by = ? FOR UPDATE";
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO transactions (id, account_id, amount, type, description, balance, reference, created_at) "
+            + "VALUES (?, ?, ?, 'PAYMENT', ?, ?, ?, ?)";
+
+    private static final String FINISH_SQL =
+            "UPDATE payments SET status = ?, failure_reason = ?, claimed_by = NULL, updated_at = ? WHERE id = ?";
+
+    private static final String RELEASE_STUCK_SQL =
+            "UPDATE payments SET status = 'PENDING', claimed_by = NULL, claimed_at = NULL, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE status = 'PROCESSING' AND claimed_at < ?";
+
+    private static final String OLDEST_PENDING_SQL = "SELECT MIN(created_at) FROM payments WHERE status = 'PENDING'";
+
+    /** One side of an executed payment, written to {@code transactions}. */
+    public static final class Leg {
+        private final String accountId;
+        private final BigDecimal amount;
+        private final BigDecimal balance;
+        private final String description;
+        private final String paymentId;
+
+        public Leg(String accountId, BigDecimal amount, BigDecimal balance, String description, String paymentId) {
+            this.accountId = accountId;
+            this.amount = amount;
+            this.balance = balance;
+            this.description = description;
+            this.paymentId = paymentId;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private PushPublisher pushPublisher;
+
+    /** Claims up to {@code limit} of the oldest pending payments for {@code worker}. */
+    public List<Payment> claim(String worker, int limit, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> {
+            Payment payment = new Payment();
+            payment.setId(rs.getString(1));
+            payment.setFromAccount(rs.getString(2));
+            payment.setToAccount(rs.getString(3));
+            payment.setAmount(rs.getBigDecimal(4));
+            payment.setCurrency(rs.getString(5));
+            payment.setType(rs.getString(6));
+            payment.setDescription(rs.getString(7));
+            payment.setCreatedAt(rs.getTimestamp(8).toLocalDateTime());
+            payment.setStatus("PROCESSING");
+            payment.setClaimedBy(worker);
+            payment.setClaimedAt(now);
+            return payment;
+        }, worker, timestamp, timestamp, limit);
+    }
+
+    /** Locks the payments among {@code paymentIds} still claimed by {@code worker} and returns their ids. */
+    public Set<String> confirmClaim(String worker, Collection<String> paymentIds) {
+        Set<String> confirmed = new HashSet<>();
+        jdbcTemplate.query(CONFIRM_SQL,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("varchar", paymentIds.toArray()));
+                    ps.setString(2, worker);
+                },
+                rs -> {
+                    confirmed.add(rs.getString(1));
+                });
+        return confirmed;
+    }
+
+    /** Locks the accounts that exist among {@code accountIds} until the transaction ends, keyed by id. */
+    public Map<String, LockedAccount> lockAccounts(Collection<String> accountIds) {
+        return AccountRows.lock(jdbcTemplate, accountIds);
+    }
+
+    public void updateBalances(Map<String, BigDecimal> balances) {
+        AccountRows.updateBalances(jdbcTemplate, balances);
+    }
+
+    /**
+     * Tells the owners' open streams about the new balances of these locked accounts once the
+     * transaction commits.
+     */
+    public void publishBalances(Map<String, LockedAccount> accounts, Map<String, BigDecimal> balances) {
+        AccountRows.publishBalances(pushPublisher, accounts, balances, "PAYMENT");
+    }
+
+    public void insertLegs(List<Leg> legs, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Leg leg = legs.get(i);
+                ps.setString(1, UUID.randomUUID().toString());
+                ps.setString(2, leg.accountId);
+                ps.setBigDecimal(3, leg.amount);
+                ps.setString(4, leg.description);
+                ps.setBigDecimal(5, leg.balance);
+                ps.setString(6, leg.paymentId);
+                ps.setTimestamp(7, timestamp);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return legs.size();
+            }
+        });
+    }
+
+    /** Moves the payments to COMPLETED, or FAILED with the reason, in one batch. */
+    public void finish(Collection<String> completed, Map<String, String> failed, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Object[]> args = new ArrayList<>(completed.size() + failed.size());
+        completed.forEach(paymentId -> args.add(new Object[] {"COMPLETED", null, timestamp, paymentId}));
+        failed.forEach((paymentId, reason) -> args.add(new Object[] {"FAILED", reason, timestamp, paymentId}));
+        jdbcTemplate.batchUpdate(FINISH_SQL, args);
+    }
+
+    /** Returns payments claimed before {@code claimedBefore} and never finished to PENDING. */
+    public int releaseStuck(LocalDateTime claimedBefore) {
+        return jdbcTemplate.update(RELEASE_STUCK_SQL, Timestamp.valueOf(claimedBefore));
+    }
+
+    /** Creation time of the oldest pending payment, or {@code null} if none is pending. */
+    public LocalDateTime oldestPending() {
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_PENDING_SQL, Timestamp.class);
+        return oldest != null ? oldest.toLocalDateTime() : null;
+    }
+}
@@ -10,5 +10,4 @@ import java.util.List;
 public interface PaymentRepository extends JpaRepository<Payment, String> {
     List<Payment> findByFromAccount(String fromAccount);
     List<Payment> findByToAccount(String toAccount);
-    List<Payment> findByFromAccountOrToAccount(String fromAccount, String toAccount);
 }
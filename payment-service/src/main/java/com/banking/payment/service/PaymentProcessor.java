@@ -0,0 +1,293 @@
+package com.banking.payment.service;
+
+import com.banking.payment.entity.Payment;
+import com.banking.payment.repository.PaymentProcessingStore;
+import com.banking.payment.repository.PaymentProcessingStore.Leg;
+import com.banking.shared.enums.AccountStatus;
+import com.banking.shared.ledger.LockedAccount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Advances PENDING payments. Each of {@code workers} threads claims up to {@code batch-size}
+ * of the oldest pending payments in a short transaction, then executes the batch in a second
+ * one: it locks every account of the batch in id order once, applies the payments in creation
+ * order against the running balances, and writes balances, transaction legs and the
+ * COMPLETED or FAILED statuses as JDBC batches. A worker that finds nothing waits
+ * {@code poll-ms} before looking again.
+ *
+ * Claims are rows marked PROCESSING, so any number of instances can run workers without
+ * processing a payment twice. A claim left behind by a crashed worker is returned to PENDING
+ * after {@code claim-timeout-ms}; a worker that was merely slow finds its claim gone when it
+ * re-locks the rows and skips those payments. If a batch fails as a whole, its payments are
+ * executed one at a time so one bad payment fails alone.
+ */
+@Service
+public class PaymentProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentProcessor.class);
+
+    @Autowired
+    private PaymentProcessingStore store;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final long pollMillis;
+    private final long claimTimeoutMillis;
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final ExecutorService executor;
+    private volatile boolean running;
+
+    private final Counter completedCounter;
+    private final Counter failedCounter;
+    private final Counter recoveredCounter;
+    private final Timer batchTimer;
+    private final Timer claimLagTimer;
+    private final AtomicLong pendingLagSeconds = new AtomicLong();
+
+    public PaymentProcessor(@Value("${payment.processor.enabled:true}") boolean enabled,
+                            @Value("${payment.processor.workers:4}") int workers,
+                            @Value("${payment.processor.batch-size:100}") int batchSize,
+                            @Value("${payment.processor.poll-ms:1000}") long pollMillis,
+                            @Value("${payment.processor.claim-timeout-ms:60000}") long claimTimeoutMillis,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollMillis = pollMillis;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "payment-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.completedCounter = Counter.builder("banking_payment_processed_total")
+            .description("Payments processed by outcome")
+            .tag("service", "payment")
+            .tag("outcome", "completed")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("banking_payment_processed_total")
+            .description("Payments processed by outcome")
+            .tag("service", "payment")
+            .tag("outcome", "failed")
+            .register(meterRegistry);
+        this.recoveredCounter = Counter.builder("banking_payment_claims_recovered_total")
+            .description("Stuck payment claims returned to PENDING")
+            .tag("service", "payment")
+            .register(meterRegistry);
+        this.batchTimer = Timer.builder("banking_payment_batch_seconds")
+            .description("Time to execute a claimed batch of payments")
+            .tag("service", "payment")
+            .register(meterRegistry);
+        this.claimLagTimer = Timer.builder("banking_payment_claim_lag_seconds")
+            .description("Time from payment creation to its claim by a worker")
+            .tag("service", "payment")
+            .register(meterRegistry);
+        Gauge.builder("banking_payment_pending_lag_seconds", pendingLagSeconds, AtomicLong::get)
+            .description("Age of the oldest pending payment")
+            .tag("service", "payment")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 1; i <= workers; i++) {
+            String worker = instanceId + "-" + i;
+            executor.execute(() -> work(worker));
+        }
+        log.info("Started {} payment workers as {}", workers, instanceId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        executor.shutdownNow();
+    }
+
+    /** Returns claims older than the timeout to PENDING and samples the pending lag. */
+    @Scheduled(fixedDelayString = "${payment.processor.recovery-interval-ms:15000}")
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+        int released = store.releaseStuck(LocalDateTime.now().minus(Duration.ofMillis(claimTimeoutMillis)));
+        if (released > 0) {
+            recoveredCounter.increment(released);
+            log.warn("Returned {} stuck payment claims to PENDING", released);
+        }
+        LocalDateTime oldest = store.oldestPending();
+        pendingLagSeconds.set(oldest != null ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()) : 0);
+    }
+
+    private void work(String worker) {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                if (processBatch(worker) == 0) {
+                    TimeUnit.MILLISECONDS.sleep(pollMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Payment worker {} failed, pausing", worker, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(pollMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /** Claims and executes one batch; returns how many payments were claimed. */
+    int processBatch(String worker) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Payment> claimed = transactionTemplate.execute(status -> store.claim(worker, batchSize, now));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        claimed.forEach(payment -> claimLagTimer.record(Duration.between(payment.getCreatedAt(), now)));
+        claimed.sort(Comparator.comparing(Payment::getCreatedAt).thenComparing(Payment::getId));
+        try {
+            batchTimer.record(() -> transactionTemplate.executeWithoutResult(status -> execute(worker, claimed)));
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} payments failed, executing them one at a time", claimed.size(), e);
+            for (Payment payment : claimed) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> execute(worker, List.of(payment)));
+                } catch (RuntimeException single) {
+                    log.error("Payment {} failed", payment.getId(), single);
+                    transactionTemplate.executeWithoutResult(status -> {
+                        if (!store.confirmClaim(worker, List.of(payment.getId())).isEmpty()) {
+                            store.finish(List.of(), Map.of(payment.getId(), "Processing failed: " + single.getMessage()),
+                                    LocalDateTime.now());
+                            failedCounter.increment();
+                        }
+                    });
+                }
+            }
+        }
+        return claimed.size();
+    }
+
+    /** Executes the payments still claimed by {@code worker}, in the given order. */
+    void execute(String worker, List<Payment> payments) {
+        List<String> ids = new ArrayList<>(payments.size());
+        payments.forEach(payment -> ids.add(payment.getId()));
+        Set<String> confirmed = store.confirmClaim(worker, ids);
+        if (confirmed.isEmpty()) {
+            return;
+        }
+        Set<String> accountIds = new HashSet<>();
+        for (Payment payment : payments) {
+            if (confirmed.contains(payment.getId())) {
+                accountIds.add(payment.getFromAccount());
+                accountIds.add(payment.getToAccount());
+            }
+        }
+        Map<String, LockedAccount> accounts = store.lockAccounts(accountIds);
+
+        Map<String, BigDecimal> balances = new HashMap<>();
+        List<Leg> legs = new ArrayList<>();
+        List<String> completed = new ArrayList<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (Payment payment : payments) {
+            if (!confirmed.contains(payment.getId())) {
+                continue;
+            }
+            LockedAccount from = accounts.get(payment.getFromAccount());
+            LockedAccount to = accounts.get(payment.getToAccount());
+            String reason = rejection(payment, from, to);
+            BigDecimal fromBalance = from != null ? balances.getOrDefault(from.getId(), from.getBalance()) : null;
+            if (reason == null && fromBalance.compareTo(payment.getAmount()) < 0) {
+                reason = "Insufficient funds";
+            }
+            if (reason != null) {
+                failed.put(payment.getId(), reason);
+                continue;
+            }
+            fromBalance = fromBalance.subtract(payment.getAmount());
+            BigDecimal toBalance = balances.getOrDefault(to.getId(), to.getBalance()).add(payment.getAmount());
+            balances.put(from.getId(), fromBalance);
+            balances.put(to.getId(), toBalance);
+            String description = payment.getDescription() != null ? ": " + payment.getDescription() : "";
+            legs.add(new Leg(from.getId(), payment.getAmount().negate(), fromBalance,
+                    "Payment to " + to.getId() + description, payment.getId()));
+            legs.add(new Leg(to.getId(), payment.getAmount(), toBalance,
+                    "Payment from " + from.getId() + description, payment.getId()));
+            completed.add(payment.getId());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        store.updateBalances(balances);
+        store.publishBalances(accounts, balances);
+        store.insertLegs(legs, now);
+        store.finish(completed, failed, now);
+        completedCounter.increment(completed.size());
+        failedCounter.increment(failed.size());
+    }
+
+    private static String rejection(Payment payment, LockedAccount from, LockedAccount to) {
+        if (payment.getAmount() == null || payment.getAmount().signum() <= 0) {
+            return "Amount must be positive";
+        }
+        if (payment.getFromAccount().equals(payment.getToAccount())) {
+            return "Source and destination accounts must differ";
+        }
+        if (from == null) {
+            return "Account " + payment.getFromAccount() + " not found";
+        }
+        if (to == null) {
+            return "Account " + payment.getToAccount() + " not found";
+        }
+        for (LockedAccount account : List.of(from, to)) {
+            if (!AccountStatus.ACTIVE.name().equals(account.getStatus())) {
+                return "Account " + account.getId() + " is " + account.getStatus();
+            }
+            if (!account.getCurrency().equals(payment.getCurrency())) {
+                return "Account " + account.getId() + " holds " + account.getCurrency() + ", not " + payment.getCurrency();
+            }
+        }
+        return null;
+    }
+}
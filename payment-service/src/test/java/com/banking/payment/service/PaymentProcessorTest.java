@@ -0,0 +1,206 @@
+package com.banking.payment.service;
+
+import com.banking.payment.entity.Payment;
+import com.banking.payment.repository.PaymentProcessingStore;
+import com.banking.shared.ledger.LockedAccount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PaymentProcessorTest {
+
+    private static final String WORKER = "test-1";
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @Mock
+    private PaymentProcessingStore store;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private PaymentProcessor processor;
+
+    /** Every payment the store was asked to finish, by outcome. */
+    private final List<String> completed = new ArrayList<>();
+    private final Map<String, String> failed = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        processor = new PaymentProcessor(false, 1, 10, 1000, 60000, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(processor, "store", store);
+        ReflectionTestUtils.setField(processor, "transactionTemplate", transactionTemplate);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        doAnswer(inv -> {
+            ((Consumer<Object>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doAnswer(inv -> {
+            completed.addAll(inv.getArgument(0));
+            failed.putAll(inv.getArgument(1));
+            return null;
+        }).when(store).finish(anyCollection(), anyMap(), any());
+    }
+
+    private static Payment payment(String id, String from, String to, String amount, int minutes) {
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setFromAccount(from);
+        payment.setToAccount(to);
+        payment.setAmount(new BigDecimal(amount));
+        payment.setCurrency("USD");
+        payment.setType("BILL");
+        payment.setCreatedAt(START.plusMinutes(minutes));
+        return payment;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubAccounts(LockedAccount... accounts) {
+        Map<String, LockedAccount> byId = new HashMap<>();
+        for (LockedAccount account : accounts) {
+            byId.put(account.getId(), account);
+        }
+        when(store.lockAccounts(anyCollection())).thenAnswer(inv -> {
+            Map<String, LockedAccount> locked = new HashMap<>();
+            for (String id : (Collection<String>) inv.getArgument(0)) {
+                if (byId.containsKey(id)) {
+                    locked.put(id, byId.get(id));
+                }
+            }
+            return locked;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void confirmAllClaims() {
+        when(store.confirmClaim(eq(WORKER), anyCollection())).thenAnswer(inv ->
+                new HashSet<>((Collection<String>) inv.getArgument(1)));
+    }
+
+    private static LockedAccount account(String id, String balance) {
+        return new LockedAccount(id, new BigDecimal(balance), "USD", "ACTIVE");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testInsufficientFundsMidBatchFailsOnlyThatPayment() {
+        // Given: 100 covers the first two payments but not the third; the fourth still fits
+        stubAccounts(account("acc-1", "100"), account("acc-2", "0"));
+        confirmAllClaims();
+        List<Payment> batch = List.of(
+                payment("p1", "acc-1", "acc-2", "40", 0),
+                payment("p2", "acc-1", "acc-2", "50", 1),
+                payment("p3", "acc-1", "acc-2", "30", 2),
+                payment("p4", "acc-1", "acc-2", "10", 3));
+
+        // When
+        processor.execute(WORKER, batch);
+
+        // Then
+        assertEquals(List.of("p1", "p2", "p4"), completed);
+        assertEquals(Map.of("p3", "Insufficient funds"), failed);
+        ArgumentCaptor<Map<String, BigDecimal>> balances = ArgumentCaptor.forClass(Map.class);
+        verify(store).updateBalances(balances.capture());
+        assertEquals(0, balances.getValue().get("acc-1").compareTo(BigDecimal.ZERO));
+        assertEquals(0, balances.getValue().get("acc-2").compareTo(new BigDecimal("100")));
+        ArgumentCaptor<List<PaymentProcessingStore.Leg>> legs = ArgumentCaptor.forClass(List.class);
+        verify(store).insertLegs(legs.capture(), any());
+        assertEquals(6, legs.getValue().size());
+        verify(store).publishBalances(anyMap(), eq(balances.getValue()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPaymentWhoseClaimWasLostIsSkipped() {
+        // Given: p2 was released as stuck and taken by another worker
+        stubAccounts(account("acc-1", "100"), account("acc-2", "0"), account("acc-3", "0"));
+        when(store.confirmClaim(eq(WORKER), anyCollection())).thenReturn(Set.of("p1"));
+        List<Payment> batch = List.of(
+                payment("p1", "acc-1", "acc-2", "40", 0),
+                payment("p2", "acc-1", "acc-3", "50", 1));
+
+        // When
+        processor.execute(WORKER, batch);
+
+        // Then
+        assertEquals(List.of("p1"), completed);
+        assertTrue(failed.isEmpty());
+        ArgumentCaptor<Collection<String>> locked = ArgumentCaptor.forClass(Collection.class);
+        verify(store).lockAccounts(locked.capture());
+        assertEquals(Set.of("acc-1", "acc-2"), new HashSet<>(locked.getValue()));
+        ArgumentCaptor<Map<String, BigDecimal>> balances = ArgumentCaptor.forClass(Map.class);
+        verify(store).updateBalances(balances.capture());
+        assertEquals(0, balances.getValue().get("acc-1").compareTo(new BigDecimal("60")));
+        assertFalse(balances.getValue().containsKey("acc-3"));
+    }
+
+    @Test
+    void testNothingIsWrittenWhenEveryClaimWasLost() {
+        // Given
+        when(store.confirmClaim(eq(WORKER), anyCollection())).thenReturn(Set.of());
+
+        // When
+        processor.execute(WORKER, List.of(payment("p1", "acc-1", "acc-2", "40", 0)));
+
+        // Then
+        verify(store, never()).lockAccounts(anyCollection());
+        verify(store, never()).updateBalances(anyMap());
+        verify(store, never()).finish(anyCollection(), anyMap(), any());
+    }
+
+    @Test
+    void testPoisonPaymentFailsAloneAfterTheBatchFails() {
+        // Given: locking the poison payment's account blows up, so the whole batch rolls back
+        Map<String, LockedAccount> healthy = Map.of("acc-1", account("acc-1", "100"), "acc-2", account("acc-2", "0"));
+        when(store.lockAccounts(anyCollection())).thenAnswer(inv -> {
+            Collection<?> ids = inv.getArgument(0);
+            if (ids.contains("acc-bad")) {
+                throw new IllegalStateException("row lock timeout");
+            }
+            return healthy;
+        });
+        confirmAllClaims();
+        List<Payment> claimed = new ArrayList<>(List.of(
+                payment("p2", "acc-1", "acc-bad", "10", 1),
+                payment("p1", "acc-1", "acc-2", "40", 0),
+                payment("p3", "acc-1", "acc-2", "30", 2)));
+        when(store.claim(eq(WORKER), anyInt(), any())).thenReturn(claimed);
+
+        // When
+        int processed = processor.processBatch(WORKER);
+
+        // Then
+        assertEquals(3, processed);
+        assertEquals(List.of("p1", "p3"), completed);
+        assertEquals(Map.of("p2", "Processing failed: row lock timeout"), failed);
+        verify(store, times(2)).insertLegs(anyList(), any());
+    }
+}
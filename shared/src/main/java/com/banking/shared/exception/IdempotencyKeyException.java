@@ -0,0 +1,23 @@
+package com.banking.shared.exception;
+
+public class IdempotencyKeyException extends BankingException {
+    public static final String INVALID = "INVALID_IDEMPOTENCY_KEY";
+    public static final String REUSED = "IDEMPOTENCY_KEY_REUSED";
+    public static final String IN_PROGRESS = "IDEMPOTENCY_KEY_IN_PROGRESS";
+
+    public IdempotencyKeyException(String errorCode, String message) {
+        super(errorCode, message);
+    }
+
+    /** The HTTP status to answer with. */
+    public int getStatus() {
+        switch (getErrorCode()) {
+            case REUSED:
+                return 422;
+            case IN_PROGRESS:
+                return 409;
+            default:
+                return 400;
+        }
+    }
+}
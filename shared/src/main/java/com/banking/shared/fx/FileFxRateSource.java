@@ -0,0 +1,57 @@
+package com.banking.shared.fx;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Rates from a local CSV file of {@code BASE,QUOTE,RATE} lines, one unit of BASE being RATE
+ * units of QUOTE. Blank lines and lines starting with {@code #} are skipped. The file's
+ * modification time is its version, so replacing the file publishes new rates.
+ */
+public class FileFxRateSource implements FxRateSource {
+
+    private final Path file;
+
+    public FileFxRateSource(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public long currentVersion() {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public FxRates load() {
+        long version = currentVersion();
+        FxRates.Builder builder = new FxRates.Builder(version);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != 3) {
+                    throw new IllegalArgumentException(file + " line " + lineNumber + ": expected BASE,QUOTE,RATE");
+                }
+                builder.rate(fields[0].strip(), fields[1].strip(), new BigDecimal(fields[2].strip()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.banking.shared.fx;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The FX rate table for the services that convert between currencies. Each one turns it on by
+ * setting {@code fx.source}, either {@code table} for the {@code fx_rates} table or {@code file}
+ * for the file at {@code fx.file}.
+ */
+@AutoConfiguration(after = JdbcTemplateAutoConfiguration.class)
+@ConditionalOnProperty(prefix = "fx", name = "source")
+public class FxAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public FxRateTable fxRateTable(@Value("${spring.application.name}") String applicationName,
+                                   JdbcTemplate jdbcTemplate,
+                                   @Value("${fx.source}") String source,
+                                   @Value("${fx.file:}") String file,
+                                   @Value("${fx.rounding:HALF_EVEN}") RoundingMode rounding,
+                                   @Value("${fx.refresh-ms:60000}") long refreshMillis) {
+        String scope = applicationName.endsWith("-service")
+                ? applicationName.substring(0, applicationName.length() - "-service".length()) : applicationName;
+        FxRateSource rateSource = "file".equals(source) ? new FileFxRateSource(Path.of(file)) : new JdbcFxRateSource(jdbcTemplate);
+        return new FxRateTable(scope, rateSource, rounding, Duration.ofMillis(refreshMillis));
+    }
+}
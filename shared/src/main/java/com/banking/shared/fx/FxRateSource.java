@@ -0,0 +1,10 @@
+package com.banking.shared.fx;
+
+/** Where an {@link FxRateTable} loads its rates from. */
+public interface FxRateSource {
+
+    /** The version of the rates the source holds now; cheap enough to poll. */
+    long currentVersion();
+
+    FxRates load();
+}
@@ -0,0 +1,79 @@
+package com.banking.shared.fx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The current FX rates of a service. Readers take the {@link FxRates} snapshot from a volatile
+ * field and never lock; a refresh polls the source's version and, when it changed, builds a
+ * whole new snapshot off to the side and publishes it with one write. A caller that takes
+ * {@link #snapshot()} once converts everything it needs at the same version.
+ *
+ * If the source cannot be read, the previous snapshot stays in use and the refresh is retried
+ * on the next tick; until a first load succeeds only same-currency conversion works.
+ */
+public class FxRateTable implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FxRateTable.class);
+
+    private final FxRateSource source;
+    private final RoundingMode rounding;
+    private final ScheduledExecutorService refresher;
+
+    private volatile FxRates rates = FxRates.empty();
+
+    public FxRateTable(String scope, FxRateSource source, RoundingMode rounding, Duration refreshInterval) {
+        this.source = source;
+        this.rounding = rounding;
+        refresh();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fx-refresh-" + scope);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = refreshInterval.toMillis();
+        refresher.scheduleWithFixedDelay(this::refresh, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public FxRates snapshot() {
+        return rates;
+    }
+
+    public RoundingMode getRounding() {
+        return rounding;
+    }
+
+    /** {@code amount} in {@code to} at the current rates, rounded to its minor units. */
+    public BigDecimal convert(BigDecimal amount, String from, String to) {
+        return rates.convert(amount, from, to, rounding);
+    }
+
+    /** Loads the source if its version moved on; returns whether new rates were published. */
+    public boolean refresh() {
+        try {
+            long version = source.currentVersion();
+            if (version == rates.getVersion()) {
+                return false;
+            }
+            FxRates loaded = source.load();
+            rates = loaded;
+            log.info("Loaded FX rates version {}", loaded.getVersion());
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh FX rates, keeping version {}", rates.getVersion(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+}
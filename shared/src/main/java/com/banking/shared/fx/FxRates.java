@@ -0,0 +1,163 @@
+package com.banking.shared.fx;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One version of the FX rate table, immutable once built. Every pair between the loaded
+ * currencies is resolved when the snapshot is built: quoted pairs as given, their inverses and
+ * crosses through a shared currency to 34 significant digits. A conversion is then two hash
+ * lookups, an array read and one multiplication, with the result rounded once to the target
+ * currency's minor units.
+ */
+public final class FxRates {
+
+    private final long version;
+    private final LocalDateTime loadedAt;
+    private final Map<String, Integer> index;
+    private final String[] currencies;
+    private final int[] scales;
+    private final BigDecimal[][] rates;
+
+    private FxRates(long version, Map<String, Integer> index, BigDecimal[][] rates) {
+        this.version = version;
+        this.loadedAt = LocalDateTime.now();
+        this.index = index;
+        this.rates = rates;
+        this.currencies = new String[index.size()];
+        this.scales = new int[index.size()];
+        index.forEach((code, i) -> {
+            currencies[i] = code;
+            scales[i] = Math.max(0, Currency.getInstance(code).getDefaultFractionDigits());
+        });
+    }
+
+    /** A snapshot with no rates, which converts only between equal currencies. */
+    public static FxRates empty() {
+        return new Builder(0).build();
+    }
+
+    public long getVersion() { return version; }
+
+    public LocalDateTime getLoadedAt() { return loadedAt; }
+
+    /** Units of {@code to} per unit of {@code from}. */
+    public BigDecimal rate(String from, String to) {
+        if (from.equals(to)) {
+            return BigDecimal.ONE;
+        }
+        Integer i = index.get(from);
+        Integer j = index.get(to);
+        BigDecimal rate = i == null || j == null ? null : rates[i][j];
+        if (rate == null) {
+            throw new IllegalArgumentException("No FX rate from " + from + " to " + to);
+        }
+        return rate;
+    }
+
+    /** {@code amount} in {@code to}, unrounded; for sums that are rounded once at the end. */
+    public BigDecimal convertExact(BigDecimal amount, String from, String to) {
+        return from.equals(to) ? amount : amount.multiply(rate(from, to));
+    }
+
+    /** {@code amount} in {@code to}, rounded to its minor units. */
+    public BigDecimal convert(BigDecimal amount, String from, String to, RoundingMode rounding) {
+        return round(convertExact(amount, from, to), to, rounding);
+    }
+
+    /** Rounds an amount to the minor units of {@code currency}. */
+    public BigDecimal round(BigDecimal amount, String currency, RoundingMode rounding) {
+        Integer i = index.get(currency);
+        int scale = i != null ? scales[i] : Math.max(0, Currency.getInstance(currency).getDefaultFractionDigits());
+        return amount.setScale(scale, rounding);
+    }
+
+    /** The rates from each loaded currency to {@code base}. */
+    public Map<String, BigDecimal> ratesTo(String base) {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        Integer j = index.get(base);
+        if (j == null) {
+            return result;
+        }
+        for (int i = 0; i < currencies.length; i++) {
+            if (i != j && rates[i][j] != null) {
+                result.put(currencies[i], rates[i][j]);
+            }
+        }
+        return result;
+    }
+
+    /** Collects quoted rates; the last quote of a pair wins. */
+    public static final class Builder {
+        private final long version;
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<Object[]> quotes = new ArrayList<>();
+
+        public Builder(long version) {
+            this.version = version;
+        }
+
+        /** One unit of {@code base} is {@code rate} units of {@code quote}. */
+        public Builder rate(String base, String quote, BigDecimal rate) {
+            Currency.getInstance(base);
+            Currency.getInstance(quote);
+            if (base.equals(quote)) {
+                throw new IllegalArgumentException("FX rate from " + base + " to itself");
+            }
+            if (rate == null || rate.signum() <= 0) {
+                throw new IllegalArgumentException("FX rate from " + base + " to " + quote + " must be positive");
+            }
+            index.putIfAbsent(base, index.size());
+            index.putIfAbsent(quote, index.size());
+            quotes.add(new Object[] {base, quote, rate});
+            return this;
+        }
+
+        public FxRates build() {
+            int n = index.size();
+            BigDecimal[][] rates = new BigDecimal[n][n];
+            boolean[][] quoted = new boolean[n][n];
+            for (Object[] quote : quotes) {
+                int i = index.get((String) quote[0]);
+                int j = index.get((String) quote[1]);
+                BigDecimal rate = (BigDecimal) quote[2];
+                rates[i][j] = rate;
+                quoted[i][j] = true;
+                if (!quoted[j][i]) {
+                    rates[j][i] = BigDecimal.ONE.divide(rate, MathContext.DECIMAL128);
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                rates[i][i] = BigDecimal.ONE;
+            }
+            // Cross pairs through an intermediate currency, until no missing pair can be reached
+            boolean added = true;
+            while (added) {
+                added = false;
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        if (rates[i][j] != null) {
+                            continue;
+                        }
+                        for (int k = 0; k < n; k++) {
+                            if (rates[i][k] != null && rates[k][j] != null) {
+                                rates[i][j] = rates[i][k].multiply(rates[k][j], MathContext.DECIMAL128);
+                                added = true;
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+            return new FxRates(version, Map.copyOf(index), rates);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.banking.shared.fx;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Rates from the {@code fx_rates} table. Each row carries the version it was written in; the
+ * highest version present is the table's version, so a writer bumps it with every change.
+ */
+public class JdbcFxRateSource implements FxRateSource {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcFxRateSource(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long currentVersion() {
+        Long version = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(version), 0) FROM fx_rates", Long.class);
+        return version != null ? version : 0;
+    }
+
+    @Override
+    public FxRates load() {
+        // Read the version and the rates in one statement so they belong together
+        long[] version = {0};
+        FxRates.Builder[] builder = {null};
+        jdbcTemplate.query("SELECT base_currency, quote_currency, rate, MAX(version) OVER () FROM fx_rates", rs -> {
+            if (builder[0] == null) {
+                version[0] = rs.getLong(4);
+                builder[0] = new FxRates.Builder(version[0]);
+            }
+            builder[0].rate(rs.getString(1), rs.getString(2), rs.getBigDecimal(3));
+        });
+        return builder[0] != null ? builder[0].build() : FxRates.empty();
+    }
+}
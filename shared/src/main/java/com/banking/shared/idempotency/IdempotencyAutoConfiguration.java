@@ -0,0 +1,40 @@
+package com.banking.shared.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Idempotency-Key handling for the services that create money movements. Each one turns it on
+ * by setting {@code idempotency.scope}, which keeps its keys apart from the other services' in
+ * the shared {@code idempotency_keys} table.
+ */
+@AutoConfiguration(after = {JdbcTemplateAutoConfiguration.class, TransactionAutoConfiguration.class,
+        JacksonAutoConfiguration.class})
+@ConditionalOnProperty(prefix = "idempotency", name = "scope")
+public class IdempotencyAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdempotencyStore idempotencyStore(@Value("${idempotency.scope}") String scope,
+                                             JdbcTemplate jdbcTemplate,
+                                             TransactionTemplate transactionTemplate,
+                                             ObjectMapper objectMapper,
+                                             @Value("${idempotency.memory-max-entries:100000}") int memoryMaxEntries,
+                                             @Value("${idempotency.memory-ttl-ms:600000}") long memoryTtlMillis,
+                                             @Value("${idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis,
+                                             @Value("${idempotency.retention-hours:24}") long retentionHours) {
+        return new IdempotencyStore(scope, jdbcTemplate, transactionTemplate, objectMapper, memoryMaxEntries,
+                Duration.ofMillis(memoryTtlMillis), Duration.ofMillis(waitTimeoutMillis), Duration.ofHours(retentionHours));
+    }
+}
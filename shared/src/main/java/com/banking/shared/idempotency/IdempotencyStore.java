@@ -0,0 +1,283 @@
+package com.banking.shared.idempotency;
+
+import com.banking.shared.exception.IdempotencyKeyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Makes creation requests carrying an {@code Idempotency-Key} safe to retry. The first request
+ * with a key runs; later requests with the same key get its response back instead of running
+ * again, and a request arriving while the first is still running waits for it.
+ *
+ * Keys are held at two levels. Completed responses stay in memory for {@code memoryTtl}, up to
+ * {@code memoryMaxEntries} of them, and in-flight requests are tracked there too, so retries
+ * reaching the same instance are answered without touching the database. The
+ * {@code idempotency_keys} table is the record across instances and restarts: the key row is
+ * inserted in the same transaction as whatever the request creates, and its primary key makes
+ * a second insert wait for the first transaction and then do nothing. A request that loses that
+ * race rolls back what it created and replays the stored response. A new key therefore costs
+ * one more insert in a transaction that happens anyway, not an extra round trip.
+ *
+ * A key reused with a different request is rejected rather than replayed.
+ */
+public class IdempotencyStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final String scope;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int memoryMaxEntries;
+    private final long memoryTtlMillis;
+    private final long waitTimeoutMillis;
+    private final Duration retention;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Completed entries in completion order; with a single TTL this is also expiry order
+    private final Queue<Entry> completionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger completedEntries = new AtomicInteger();
+    private final ScheduledExecutorService purger;
+
+    public IdempotencyStore(String scope, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper, int memoryMaxEntries, Duration memoryTtl,
+                            Duration waitTimeout, Duration retention) {
+        this.scope = scope;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.memoryMaxEntries = memoryMaxEntries;
+        this.memoryTtlMillis = memoryTtl.toMillis();
+        this.waitTimeoutMillis = waitTimeout.toMillis();
+        this.retention = retention;
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-purge-" + scope);
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purge, 1, 60, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Runs {@code action} unless a request with this key already ran, in which case its
+     * response is returned. Without a key the action simply runs.
+     *
+     * @param fingerprint identifies the request's content, see {@link #fingerprint(Object...)}
+     */
+    public <T> IdempotentResult<T> execute(String key, String fingerprint, Class<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return new IdempotentResult<>(action.get(), false);
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyException(IdempotencyKeyException.INVALID,
+                    "Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry mine = new Entry(key, fingerprint);
+            Entry current = entries.compute(key, (k, entry) -> entry == null || entry.expiresAt <= now ? mine : entry);
+
+            if (current != mine) {
+                checkFingerprint(current.fingerprint, fingerprint, key);
+                String body = await(current, deadline, key);
+                if (body != null) {
+                    return new IdempotentResult<>(read(body, type), true);
+                }
+                // The first request failed, so nothing was recorded; try again as the first
+                continue;
+            }
+
+            try {
+                Outcome<T> outcome = claimAndRun(key, fingerprint, type, action);
+                complete(mine, outcome.body);
+                return new IdempotentResult<>(outcome.result, outcome.replayed);
+            } catch (RuntimeException e) {
+                entries.remove(key, mine);
+                mine.response.complete(null);
+                throw e;
+            }
+        }
+    }
+
+    /** A hash of the request fields that must match for a retry to be a replay. */
+    public static String fingerprint(Object... parts) {
+        StringBuilder joined = new StringBuilder();
+        for (Object part : parts) {
+            // 10 and 10.00 are the same amount
+            String value = part instanceof BigDecimal
+                    ? ((BigDecimal) part).stripTrailingZeros().toPlainString() : String.valueOf(part);
+            joined.append(value).append('\u001f');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(joined.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        purger.shutdownNow();
+    }
+
+    private <T> Outcome<T> claimAndRun(String key, String fingerprint, Class<T> type, Supplier<T> action) {
+        try {
+            return transactionTemplate.execute(status -> {
+                T result = action.get();
+                String body = write(result);
+                int inserted = jdbcTemplate.update(
+                        "INSERT INTO idempotency_keys (scope, idempotency_key, request_hash, response_body, created_at) "
+                                + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (scope, idempotency_key) DO NOTHING",
+                        scope, key, fingerprint, body, Timestamp.valueOf(LocalDateTime.now()));
+                if (inserted == 0) {
+                    // Another instance, or this one before a restart, got there first
+                    throw new AlreadyRecorded();
+                }
+                return new Outcome<>(result, body, false);
+            });
+        } catch (AlreadyRecorded e) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT request_hash, response_body FROM idempotency_keys WHERE scope = ? AND idempotency_key = ?",
+                    scope, key);
+            if (rows.isEmpty()) {
+                // Purged between the insert and the read
+                throw new IdempotencyKeyException(IdempotencyKeyException.IN_PROGRESS,
+                        "Request with Idempotency-Key " + key + " could not be recorded, retry it");
+            }
+            checkFingerprint((String) rows.get(0).get("request_hash"), fingerprint, key);
+            String body = (String) rows.get(0).get("response_body");
+            return new Outcome<>(read(body, type), body, true);
+        }
+    }
+
+    private String await(Entry entry, long deadline, String key) {
+        try {
+            return entry.response.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyException(IdempotencyKeyException.IN_PROGRESS,
+                    "A request with Idempotency-Key " + key + " is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyException(IdempotencyKeyException.IN_PROGRESS,
+                    "A request with Idempotency-Key " + key + " is still being processed");
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void complete(Entry entry, String body) {
+        long now = System.currentTimeMillis();
+        entry.expiresAt = now + memoryTtlMillis;
+        entry.response.complete(body);
+        completionOrder.add(entry);
+        completedEntries.incrementAndGet();
+        evict(now);
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = completionOrder.peek()) != null
+                && (oldest.expiresAt <= now || completedEntries.get() > memoryMaxEntries)) {
+            if (completionOrder.remove(oldest)) {
+                completedEntries.decrementAndGet();
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    private void purge() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE scope = ? AND created_at < ?",
+                    scope, Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+            if (deleted > 0) {
+                log.info("Purged {} {} idempotency keys older than {}", deleted, scope, retention);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Purging {} idempotency keys failed", scope, e);
+        }
+    }
+
+    private static void checkFingerprint(String stored, String fingerprint, String key) {
+        if (!stored.equals(fingerprint)) {
+            throw new IdempotencyKeyException(IdempotencyKeyException.REUSED,
+                    "Idempotency-Key " + key + " was already used for a different request");
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response is not serializable", e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response is not readable as " + type.getSimpleName(), e);
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final String fingerprint;
+        // Completed with the response body, or with null if the request failed
+        final CompletableFuture<String> response = new CompletableFuture<>();
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static final class Outcome<T> {
+        final T result;
+        final String body;
+        final boolean replayed;
+
+        Outcome(T result, String body, boolean replayed) {
+            this.result = result;
+            this.body = body;
+            this.replayed = replayed;
+        }
+    }
+
+    private static final class AlreadyRecorded extends RuntimeException {
+        AlreadyRecorded() {
+            super(null, null, false, false);
+        }
+    }
+}
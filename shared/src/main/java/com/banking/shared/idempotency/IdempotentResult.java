@@ -0,0 +1,16 @@
+package com.banking.shared.idempotency;
+
+/** The response to an idempotent request, and whether it was replayed from an earlier one. */
+public class IdempotentResult<T> {
+    private final T body;
+    private final boolean replayed;
+
+    public IdempotentResult(T body, boolean replayed) {
+        this.body = body;
+        this.replayed = replayed;
+    }
+
+    public T getBody() { return body; }
+
+    public boolean isReplayed() { return replayed; }
+}
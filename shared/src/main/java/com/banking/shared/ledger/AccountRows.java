@@ -0,0 +1,77 @@
+package com.banking.shared.ledger;
+
+import com.banking.shared.push.PushPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code accounts} statements shared by the services that move money inside their own
+ * transactions. {@link #lock} takes the row locks in account id order, so two transactions
+ * over overlapping accounts queue behind one another instead of deadlocking.
+ */
+public final class AccountRows {
+
+    // LockRows sits above the sort, so rows are locked in id order
+    private static final String LOCK_SQL =
+            "SELECT id, balance, currency, status, user_id FROM accounts WHERE id = ANY (?) ORDER BY id FOR UPDATE";
+
+    private static final String FIND_SQL = "SELECT id, balance, currency, status, user_id FROM accounts WHERE id = ANY (?)";
+
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE accounts SET balance = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private AccountRows() {
+    }
+
+    /** Locks the accounts that exist among {@code accountIds} until the transaction ends, keyed by id. */
+    public static Map<String, LockedAccount> lock(JdbcTemplate jdbcTemplate, Collection<String> accountIds) {
+        return query(jdbcTemplate, LOCK_SQL, accountIds);
+    }
+
+    /** The accounts that exist among {@code accountIds}, read without locking them. */
+    public static Map<String, LockedAccount> find(JdbcTemplate jdbcTemplate, Collection<String> accountIds) {
+        return query(jdbcTemplate, FIND_SQL, accountIds);
+    }
+
+    private static Map<String, LockedAccount> query(JdbcTemplate jdbcTemplate, String sql, Collection<String> accountIds) {
+        Map<String, LockedAccount> accounts = new LinkedHashMap<>();
+        jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", accountIds.toArray())),
+                rs -> {
+                    String id = rs.getString(1);
+                    accounts.put(id, new LockedAccount(id, rs.getBigDecimal(2), rs.getString(3), rs.getString(4),
+                            rs.getString(5)));
+                });
+        return accounts;
+    }
+
+    public static void updateBalances(JdbcTemplate jdbcTemplate, Map<String, BigDecimal> balances) {
+        List<Object[]> args = new ArrayList<>(balances.size());
+        balances.forEach((accountId, balance) -> args.add(new Object[] {balance, accountId}));
+        jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, args);
+    }
+
+    /**
+     * Tells the owners' open streams about the new balances of these locked accounts once the
+     * transaction commits; a no-op without a publisher.
+     */
+    public static void publishBalances(PushPublisher pushPublisher, Map<String, LockedAccount> accounts,
+                                       Map<String, BigDecimal> balances, String changeType) {
+        if (pushPublisher == null) {
+            return;
+        }
+        balances.forEach((accountId, balance) -> {
+            LockedAccount account = accounts.get(accountId);
+            if (account != null && account.getUserId() != null) {
+                pushPublisher.publishBalanceAfterCommit(account.getUserId(), accountId, balance,
+                        balance.subtract(account.getBalance()), changeType);
+            }
+        });
+    }
+}
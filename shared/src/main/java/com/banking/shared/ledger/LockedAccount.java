@@ -0,0 +1,30 @@
+package com.banking.shared.ledger;
+
+import java.math.BigDecimal;
+
+/** An account row as read or locked by {@link AccountRows}. */
+public final class LockedAccount {
+    private final String id;
+    private final BigDecimal balance;
+    private final String currency;
+    private final String status;
+    private final String userId;
+
+    public LockedAccount(String id, BigDecimal balance, String currency, String status) {
+        this(id, balance, currency, status, null);
+    }
+
+    public LockedAccount(String id, BigDecimal balance, String currency, String status, String userId) {
+        this.id = id;
+        this.balance = balance;
+        this.currency = currency;
+        this.status = status;
+        this.userId = userId;
+    }
+
+    public String getId() { return id; }
+    public BigDecimal getBalance() { return balance; }
+    public String getCurrency() { return currency; }
+    public String getStatus() { return status; }
+    public String getUserId() { return userId; }
+}
@@ -0,0 +1,30 @@
+package com.banking.shared.push;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Stream event publishing for the services that raise user-facing events. Each one turns it on
+ * by setting {@code push.gateway-url}; its metrics are named after {@code spring.application.name}.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(prefix = "push", name = "gateway-url")
+public class PushAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public PushPublisher pushPublisher(@Value("${spring.application.name}") String applicationName,
+                                       @Value("${push.gateway-url}") String gatewayUrl,
+                                       @Value("${push.resolve-all:false}") boolean resolveAll,
+                                       @Value("${push.queue-capacity:10000}") int queueCapacity,
+                                       @Value("${push.batch-size:500}") int batchSize,
+                                       MeterRegistry meterRegistry) {
+        String service = applicationName.endsWith("-service")
+                ? applicationName.substring(0, applicationName.length() - "-service".length()) : applicationName;
+        return new PushPublisher(service, gatewayUrl, resolveAll, queueCapacity, batchSize, meterRegistry);
+    }
+}
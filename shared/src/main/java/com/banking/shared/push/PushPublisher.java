@@ -0,0 +1,178 @@
+package com.banking.shared.push;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends events for users' open streams to the API gateway. Publishing only offers to a bounded
+ * queue, so a slow or unavailable gateway never delays the operation that raised the event; a
+ * background thread posts what has queued up in batches. Stream events are hints for the UI to
+ * update what it shows, so events that do not fit in the queue or fail to send are dropped.
+ *
+ * With {@code push.resolve-all} set, every address behind the gateway host name gets each batch,
+ * since a user's stream may be open on any gateway instance.
+ *
+ * Created by {@link PushAutoConfiguration} in every service that sets {@code push.gateway-url}.
+ */
+public class PushPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(PushPublisher.class);
+
+    private final String gatewayUrl;
+    private final boolean resolveAll;
+    private final int batchSize;
+    private final BlockingQueue<Map<String, Object>> queue;
+    private final RestTemplate restTemplate;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private volatile boolean running;
+    private Thread sender;
+
+    public PushPublisher(String service, String gatewayUrl, boolean resolveAll, int queueCapacity, int batchSize,
+                         MeterRegistry meterRegistry) {
+        this.gatewayUrl = gatewayUrl;
+        this.resolveAll = resolveAll;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(1000);
+        requestFactory.setReadTimeout(2000);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.droppedCounter = Counter.builder("banking_" + service + "_push_dropped_total")
+            .description("Stream events dropped because the push queue was full")
+            .tag("service", service)
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("banking_" + service + "_push_failed_total")
+            .description("Stream event batches the gateway did not accept")
+            .tag("service", service)
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        sender = new Thread(this::sendLoop, "push-publisher");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        sender.interrupt();
+    }
+
+    public void publish(String userId, String type, Map<String, Object> data) {
+        if (userId == null) {
+            return;
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("userId", userId);
+        event.put("type", type);
+        event.put("data", data);
+        if (!queue.offer(event)) {
+            droppedCounter.increment();
+        }
+    }
+
+    /** Tells the user's open streams that an account balance changed. */
+    public void publishBalance(String userId, String accountId, BigDecimal balance, BigDecimal changeAmount,
+                               String changeType) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("accountId", accountId);
+        event.put("balance", balance);
+        event.put("changeAmount", changeAmount);
+        event.put("changeType", changeType);
+        publish(userId, "balance", event);
+    }
+
+    /**
+     * {@link #publishBalance} once the current transaction commits, so a rolled back change is
+     * never announced; immediately when no transaction is active.
+     */
+    public void publishBalanceAfterCommit(String userId, String accountId, BigDecimal balance, BigDecimal changeAmount,
+                                          String changeType) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishBalance(userId, accountId, balance, changeAmount, changeType);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishBalance(userId, accountId, balance, changeAmount, changeType);
+            }
+        });
+    }
+
+    private void sendLoop() {
+        List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Map<String, Object> first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<Map<String, Object>> batch) {
+        for (String target : targets()) {
+            try {
+                restTemplate.postForEntity(target + "/internal/events", batch, Map.class);
+            } catch (RestClientException e) {
+                failedCounter.increment();
+                log.debug("Pushing {} events to {} failed: {}", batch.size(), target, e.getMessage());
+            }
+        }
+    }
+
+    private List<String> targets() {
+        if (!resolveAll) {
+            return List.of(gatewayUrl);
+        }
+        URI uri = URI.create(gatewayUrl);
+        try {
+            List<String> targets = new ArrayList<>();
+            for (InetAddress address : InetAddress.getAllByName(uri.getHost())) {
+                String host = address instanceof Inet6Address
+                        ? "[" + address.getHostAddress() + "]" : address.getHostAddress();
+                targets.add(uri.getScheme() + "://" + host + (uri.getPort() > 0 ? ":" + uri.getPort() : ""));
+            }
+            return targets;
+        } catch (UnknownHostException e) {
+            log.debug("Resolving gateway {} failed: {}", uri.getHost(), e.getMessage());
+            return List.of();
+        }
+    }
+}
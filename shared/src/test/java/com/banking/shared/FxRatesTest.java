@@ -0,0 +1,119 @@
+package com.banking.shared;
+
+import com.banking.shared.fx.FxRateSource;
+import com.banking.shared.fx.FxRateTable;
+import com.banking.shared.fx.FxRates;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRatesTest {
+
+    private static FxRates rates() {
+        return new FxRates.Builder(1)
+                .rate("USD", "EUR", new BigDecimal("0.9"))
+                .rate("USD", "JPY", new BigDecimal("150"))
+                .build();
+    }
+
+    @Test
+    void testInverseOfAQuotedPairIsDerived() {
+        // When
+        BigDecimal inverse = rates().rate("EUR", "USD");
+
+        // Then
+        assertEquals(BigDecimal.ONE.divide(new BigDecimal("0.9"), MathContext.DECIMAL128), inverse);
+        assertEquals(new BigDecimal("100.00"), rates().convert(new BigDecimal("90.00"), "EUR", "USD", RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    void testQuotedInverseWinsOverTheDerivedOne() {
+        // Given
+        FxRates rates = new FxRates.Builder(1)
+                .rate("USD", "EUR", new BigDecimal("0.9"))
+                .rate("EUR", "USD", new BigDecimal("1.12"))
+                .build();
+
+        // When / Then
+        assertEquals(new BigDecimal("1.12"), rates.rate("EUR", "USD"));
+        assertEquals(new BigDecimal("0.9"), rates.rate("USD", "EUR"));
+    }
+
+    @Test
+    void testCrossRateGoesThroughASharedCurrency() {
+        // When
+        BigDecimal cross = rates().rate("EUR", "JPY");
+
+        // Then
+        // 150 / 0.9 to 34 significant digits
+        assertTrue(cross.subtract(new BigDecimal("166.666666666666666666666666666666667")).abs()
+                .compareTo(new BigDecimal("1E-30")) < 0);
+        assertEquals(new BigDecimal("16667"), rates().convert(new BigDecimal("100.00"), "EUR", "JPY", RoundingMode.HALF_EVEN));
+        assertEquals(Set.of("EUR", "JPY"), rates().ratesTo("USD").keySet());
+    }
+
+    @Test
+    void testYenIsRoundedToWholeUnits() {
+        // Given
+        FxRates rates = new FxRates.Builder(1).rate("USD", "JPY", new BigDecimal("2.5")).build();
+
+        // When / Then
+        assertEquals(new BigDecimal("2"), rates.convert(BigDecimal.ONE, "USD", "JPY", RoundingMode.HALF_EVEN));
+        assertEquals(new BigDecimal("3"), rates.convert(BigDecimal.ONE, "USD", "JPY", RoundingMode.HALF_UP));
+        assertEquals(new BigDecimal("0.40"), rates.convert(BigDecimal.ONE, "JPY", "USD", RoundingMode.HALF_EVEN));
+        assertEquals(new BigDecimal("1234"), rates.round(new BigDecimal("1234.4"), "JPY", RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    void testMissingAndInvalidRatesAreRejected() {
+        // When / Then
+        assertEquals(BigDecimal.ONE, FxRates.empty().rate("USD", "USD"));
+        assertThrows(IllegalArgumentException.class, () -> FxRates.empty().rate("USD", "EUR"));
+        assertThrows(IllegalArgumentException.class, () -> rates().rate("USD", "GBP"));
+        assertThrows(IllegalArgumentException.class, () -> new FxRates.Builder(1).rate("USD", "USD", BigDecimal.ONE));
+        assertThrows(IllegalArgumentException.class, () -> new FxRates.Builder(1).rate("USD", "EUR", BigDecimal.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new FxRates.Builder(1).rate("USD", "XYZW", BigDecimal.ONE));
+    }
+
+    @Test
+    void testTableKeepsItsRatesWhenTheSourceFails() {
+        // Given
+        AtomicLong version = new AtomicLong(1);
+        FxRateSource source = new FxRateSource() {
+            @Override
+            public long currentVersion() {
+                if (version.get() < 0) {
+                    throw new IllegalStateException("fx_rates unavailable");
+                }
+                return version.get();
+            }
+
+            @Override
+            public FxRates load() {
+                return new FxRates.Builder(version.get()).rate("USD", "EUR", new BigDecimal("0.9")).build();
+            }
+        };
+        try (FxRateTable table = new FxRateTable("test", source, RoundingMode.HALF_EVEN, Duration.ofHours(1))) {
+            FxRates loaded = table.snapshot();
+
+            // When
+            boolean unchanged = table.refresh();
+            version.set(-1);
+            boolean failed = table.refresh();
+
+            // Then
+            assertEquals(1, loaded.getVersion());
+            assertFalse(unchanged);
+            assertFalse(failed);
+            assertSame(loaded, table.snapshot());
+            assertEquals(new BigDecimal("9.00"), table.convert(BigDecimal.TEN, "USD", "EUR"));
+        }
+    }
+}
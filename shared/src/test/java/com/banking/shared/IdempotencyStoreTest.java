@@ -0,0 +1,200 @@
+package com.banking.shared;
+
+import com.banking.shared.exception.IdempotencyKeyException;
+import com.banking.shared.idempotency.IdempotencyStore;
+import com.banking.shared.idempotency.IdempotentResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class IdempotencyStoreTest {
+
+    private static final String INSERT = "INSERT INTO idempotency_keys";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(jdbcTemplate.update(startsWith(INSERT), any(Object[].class))).thenReturn(1);
+        store = open(100, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+        executor.shutdownNow();
+    }
+
+    private IdempotencyStore open(int memoryMaxEntries, Duration waitTimeout) {
+        return new IdempotencyStore("test", jdbcTemplate, transactionTemplate, new ObjectMapper(), memoryMaxEntries,
+                Duration.ofMinutes(10), waitTimeout, Duration.ofHours(24));
+    }
+
+    @Test
+    void testConcurrentRetryWaitsForTheFirstRequestAndReplaysIt() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Future<IdempotentResult<String>> first = executor.submit(() ->
+                store.execute("key-1", "fp", String.class, () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "created";
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        Future<IdempotentResult<String>> retry = executor.submit(() ->
+                store.execute("key-1", "fp", String.class, () -> {
+                    runs.incrementAndGet();
+                    return "duplicate";
+                }));
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then
+        assertFalse(first.get(5, TimeUnit.SECONDS).isReplayed());
+        IdempotentResult<String> replayed = retry.get(5, TimeUnit.SECONDS);
+        assertTrue(replayed.isReplayed());
+        assertEquals("created", replayed.getBody());
+        assertEquals(1, runs.get());
+        verify(jdbcTemplate, times(1)).update(startsWith(INSERT), any(Object[].class));
+    }
+
+    @Test
+    void testFailedRequestLeavesTheKeyFreeForARetry() {
+        // Given
+        assertThrows(IllegalStateException.class, () -> store.execute("key-1", "fp", String.class, () -> {
+            throw new IllegalStateException("insufficient funds");
+        }));
+
+        // When
+        IdempotentResult<String> retried = store.execute("key-1", "fp", String.class, () -> "created");
+
+        // Then
+        assertFalse(retried.isReplayed());
+        assertEquals("created", retried.getBody());
+    }
+
+    @Test
+    void testKeyReusedForADifferentRequestIsRejected() {
+        // Given
+        store.execute("key-1", "fp", String.class, () -> "created");
+
+        // When
+        IdempotencyKeyException e = assertThrows(IdempotencyKeyException.class,
+                () -> store.execute("key-1", "other", String.class, () -> "created"));
+
+        // Then
+        assertEquals(IdempotencyKeyException.REUSED, e.getErrorCode());
+        assertEquals(422, e.getStatus());
+    }
+
+    @Test
+    void testRetryGivesUpWhenTheFirstRequestRunsPastTheWaitTimeout() throws Exception {
+        // Given
+        store.close();
+        store = open(100, Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<IdempotentResult<String>> first = executor.submit(() ->
+                store.execute("key-1", "fp", String.class, () -> {
+                    started.countDown();
+                    await(release);
+                    return "created";
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        IdempotencyKeyException e = assertThrows(IdempotencyKeyException.class,
+                () -> store.execute("key-1", "fp", String.class, () -> "duplicate"));
+        release.countDown();
+
+        // Then
+        assertEquals(IdempotencyKeyException.IN_PROGRESS, e.getErrorCode());
+        assertEquals(409, e.getStatus());
+        assertEquals("created", first.get(5, TimeUnit.SECONDS).getBody());
+    }
+
+    @Test
+    void testEvictedKeyFallsThroughToTheTable() {
+        // Given
+        store.close();
+        store = open(1, Duration.ofSeconds(10));
+        store.execute("key-1", "fp", String.class, () -> "first");
+        store.execute("key-2", "fp", String.class, () -> "second");
+        when(jdbcTemplate.update(startsWith(INSERT), eq("test"), eq("key-1"), any(), any(), any())).thenReturn(0);
+        when(jdbcTemplate.queryForList(anyString(), eq("test"), eq("key-1")))
+                .thenReturn(List.of(Map.of("request_hash", "fp", "response_body", "\"first\"")));
+
+        // When
+        IdempotentResult<String> replayed = store.execute("key-1", "fp", String.class, () -> "again");
+
+        // Then
+        assertTrue(replayed.isReplayed());
+        assertEquals("first", replayed.getBody());
+        verify(jdbcTemplate).queryForList(anyString(), eq("test"), eq("key-1"));
+    }
+
+    @Test
+    void testKeyRecordedElsewhereIsReplayedFromTheTable() {
+        // Given
+        when(jdbcTemplate.update(startsWith(INSERT), any(Object[].class))).thenReturn(0);
+        when(jdbcTemplate.queryForList(anyString(), eq("test"), anyString()))
+                .thenReturn(List.of(Map.of("request_hash", "fp", "response_body", "\"stored\"")));
+
+        // When
+        IdempotentResult<String> replayed = store.execute("key-1", "fp", String.class, () -> "created");
+        IdempotencyKeyException mismatch = assertThrows(IdempotencyKeyException.class,
+                () -> store.execute("key-2", "other", String.class, () -> "created"));
+
+        // Then
+        assertTrue(replayed.isReplayed());
+        assertEquals("stored", replayed.getBody());
+        assertEquals(IdempotencyKeyException.REUSED, mismatch.getErrorCode());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.banking.transfer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TransferServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(TransferServiceApplication.class, args);
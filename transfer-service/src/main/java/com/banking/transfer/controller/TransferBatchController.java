@@ -0,0 +1,66 @@
+package com.banking.transfer.controller;
+
+import com.banking.shared.dto.ApiResponse;
+import com.banking.shared.exception.AccountNotFoundException;
+import com.banking.shared.exception.BankingException;
+import com.banking.shared.exception.IdempotencyKeyException;
+import com.banking.shared.exception.InsufficientFundsException;
+import com.banking.shared.idempotency.IdempotentResult;
+import com.banking.transfer.dto.TransferBatchRequest;
+import com.banking.transfer.entity.TransferBatch;
+import com.banking.transfer.service.TransferBatchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/transfers/batches")
+public class TransferBatchController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private TransferBatchService transferBatchService;
+
+    @PostMapping
+    public ResponseEntity<?> submitBatch(@RequestBody TransferBatchRequest request,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            IdempotentResult<TransferBatch> submitted = transferBatchService.submit(request, idempotencyKey);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header("Idempotent-Replayed", String.valueOf(submitted.isReplayed()))
+                    .body(submitted.getBody());
+        } catch (IdempotencyKeyException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        } catch (AccountNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (InsufficientFundsException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ApiResponse.error(e.getMessage()));
+        } catch (BankingException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{batchId}")
+    public ResponseEntity<?> getBatch(@PathVariable String batchId) {
+        TransferBatch batch = transferBatchService.getBatch(batchId);
+        if (batch == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Transfer batch not found"));
+        }
+        return ResponseEntity.ok(batch);
+    }
+
+    @GetMapping("/{batchId}/items")
+    public ResponseEntity<?> getItems(@PathVariable String batchId,
+                                      @RequestParam(required = false) String status,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "100") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("page must be at least 0 and size between 1 and " + MAX_PAGE_SIZE));
+        }
+        return ResponseEntity.ok(transferBatchService.getItems(batchId, status, page, size));
+    }
+}
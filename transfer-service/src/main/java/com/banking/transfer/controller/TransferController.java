@@ -1,6 +1,21 @@
 package com.banking.transfer.controller;
 
+import com.banking.shared.dto.ApiResponse;
+import com.banking.shared.exception.AccountNotFoundException;
+import com.banking.shared.exception.BankingException;
+import com.banking.shared.exception.IdempotencyKeyException;
+import com.banking.shared.exception.InsufficientFundsException;
+import com.banking.shared.fx.FxRateTable;
+import com.banking.shared.fx.FxRates;
+import com.banking.shared.idempotency.IdempotentResult;
+import com.banking.transfer.entity.Transfer;
+import com.banking.transfer.service.NettingService;
+import com.banking.transfer.service.TransferService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
@@ -9,34 +24,158 @@ import java.util.Map;
 @RequestMapping("/api/transfers")
 public class TransferController {
 
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private NettingService nettingService;
+
+    @Autowired
+    private FxRateTable fxRateTable;
+
+    @PostMapping
+    public ResponseEntity<?> createTransfer(@RequestBody Transfer transfer,
+                                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            IdempotentResult<Transfer> created = transferService.createTransfer(transfer, idempotencyKey);
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(created.isReplayed()))
+                    .body(created.getBody());
+        } catch (IdempotencyKeyException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        } catch (BankingException e) {
+            return ResponseEntity.status(statusOf(e)).body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PostMapping("/domestic")
-    public Map<String, Object> domesticTransfer(@RequestParam String fromAccountId,
+    public ResponseEntity<?> domesticTransfer(@RequestParam String fromAccountId,
                                               @RequestParam String toAccountId,
                                               @RequestParam BigDecimal amount,
-                                              @RequestParam String description) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("transferId", "TRF" + System.currentTimeMillis());
-        response.put("status", "COMPLETED");
-        response.put("type", "DOMESTIC");
-        response.put("amount", amount);
-        response.put("fromAccountId", fromAccountId);
-        response.put("toAccountId", toAccountId);
-        return response;
+                                              @RequestParam(required = false) String currency,
+                                              @RequestParam(required = false) String description,
+                                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount(fromAccountId);
+        transfer.setToAccount(toAccountId);
+        transfer.setAmount(amount);
+        // Without one, the transfer is in the source account's currency
+        transfer.setCurrency(currency != null ? currency.toUpperCase() : null);
+        transfer.setTransferType("DOMESTIC");
+        transfer.setDescription(description);
+        try {
+            IdempotentResult<Transfer> created = transferService.createTransfer(transfer, idempotencyKey);
+            Transfer completed = created.getBody();
+            Map<String, Object> response = new HashMap<>();
+            response.put("transferId", completed.getId());
+            response.put("status", completed.getStatus());
+            response.put("type", "DOMESTIC");
+            response.put("amount", completed.getAmount());
+            response.put("currency", completed.getCurrency());
+            response.put("fromAccountId", completed.getFromAccount());
+            response.put("toAccountId", completed.getToAccount());
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(created.isReplayed()))
+                    .body(response);
+        } catch (IdempotencyKeyException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        } catch (BankingException e) {
+            return ResponseEntity.status(statusOf(e)).body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
     }
 
+    /**
+     * Moves {@code amount} of the source account's currency into an account held in
+     * {@code currency}, converted at the current rates.
+     */
     @PostMapping("/international")
-    public Map<String, Object> internationalTransfer(@RequestParam String fromAccountId,
-                                                   @RequestParam String toAccountNumber,
-                                                   @RequestParam String swiftCode,
+    public ResponseEntity<?> internationalTransfer(@RequestParam String fromAccountId,
+                                                   @RequestParam String toAccountId,
                                                    @RequestParam BigDecimal amount,
-                                                   @RequestParam String currency) {
+                                                   @RequestParam String currency,
+                                                   @RequestParam(required = false) String description,
+                                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount(fromAccountId);
+        transfer.setToAccount(toAccountId);
+        transfer.setAmount(amount);
+        // Debited in the source account's currency
+        transfer.setCurrency(null);
+        transfer.setTransferType("INTERNATIONAL");
+        transfer.setDescription(description);
+        try {
+            IdempotentResult<Transfer> created = transferService.createInternational(transfer, currency.toUpperCase(), idempotencyKey);
+            Transfer completed = created.getBody();
+            Map<String, Object> response = new HashMap<>();
+            response.put("transferId", completed.getId());
+            response.put("status", completed.getStatus());
+            response.put("type", "INTERNATIONAL");
+            response.put("amount", completed.getAmount());
+            response.put("sourceCurrency", completed.getCurrency());
+            response.put("convertedAmount", completed.getCreditAmount());
+            response.put("currency", completed.getCreditCurrency());
+            response.put("rate", completed.getFxRate());
+            response.put("rateVersion", completed.getFxRateVersion());
+            response.put("fromAccountId", completed.getFromAccount());
+            response.put("toAccountId", completed.getToAccount());
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(created.isReplayed()))
+                    .body(response);
+        } catch (IdempotencyKeyException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        } catch (BankingException e) {
+            return ResponseEntity.status(statusOf(e)).body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /** Prices an international transfer at the current rates; it moves no money. */
+    @GetMapping("/international/quote")
+    public ResponseEntity<?> internationalQuote(@RequestParam String fromAccountId,
+                                                @RequestParam BigDecimal amount,
+                                                @RequestParam String currency) {
+        try {
+            Map<String, Object> response = new HashMap<>(
+                    transferService.quoteInternational(fromAccountId, amount, currency.toUpperCase()));
+            response.put("type", "INTERNATIONAL");
+            response.put("amount", amount);
+            response.put("currency", currency.toUpperCase());
+            return ResponseEntity.ok(response);
+        } catch (BankingException e) {
+            return ResponseEntity.status(statusOf(e)).body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/fx/rates")
+    public Map<String, Object> fxRates(@RequestParam(defaultValue = "USD") String base) {
+        FxRates rates = fxRateTable.snapshot();
         Map<String, Object> response = new HashMap<>();
-        response.put("transferId", "INTL" + System.currentTimeMillis());
-        response.put("status", "PROCESSING");
-        response.put("type", "INTERNATIONAL");
-        response.put("amount", amount);
-        response.put("currency", currency);
-        response.put("estimatedDays", "3-5");
+        response.put("base", base.toUpperCase());
+        response.put("version", rates.getVersion());
+        response.put("loadedAt", rates.getLoadedAt());
+        response.put("rates", rates.ratesTo(base.toUpperCase()));
         return response;
     }
+
+    @GetMapping("/netting/window")
+    public Map<String, Object> nettingWindow() {
+        return nettingService.openWindow();
+    }
+
+    private static HttpStatus statusOf(BankingException e) {
+        if (e instanceof AccountNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (e instanceof InsufficientFundsException) {
+            return HttpStatus.UNPROCESSABLE_ENTITY;
+        }
+        return HttpStatus.CONFLICT;
+    }
 }
@@ -0,0 +1,30 @@
+package com.banking.transfer.dto;
+
+import com.banking.shared.dto.TransferRequest;
+import com.fasterxml.jackson.annotation.JsonAlias;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransferBatchRequest {
+    @JsonAlias("fromAccountId")
+    private String fromAccount;
+    private String currency;
+    private String description;
+    private List<TransferRequest> transfers = new ArrayList<>();
+
+    public TransferBatchRequest() {}
+
+    // Getters and Setters
+    public String getFromAccount() { return fromAccount; }
+    public void setFromAccount(String fromAccount) { this.fromAccount = fromAccount; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public List<TransferRequest> getTransfers() { return transfers; }
+    public void setTransfers(List<TransferRequest> transfers) { this.transfers = transfers; }
+}
@@ -1,5 +1,6 @@
 package com.banking.transfer.entity;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -11,9 +12,11 @@ public class Transfer {
     private String id;
     
     @Column(name = "from_account")
+    @JsonAlias("fromAccountId")
     private String fromAccount;
     
     @Column(name = "to_account")
+    @JsonAlias("toAccountId")
     private String toAccount;
     
     @Column(name = "amount")
@@ -37,6 +40,30 @@ public class Transfer {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    @Column(name = "batch_id")
+    private String batchId;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    /** The netting window that settled this transfer, if it was netted. */
+    @Column(name = "settlement_id")
+    private String settlementId;
+
+    /** What an international transfer credits, in the destination account's currency. */
+    @Column(name = "credit_amount")
+    private BigDecimal creditAmount;
+
+    @Column(name = "credit_currency")
+    private String creditCurrency;
+
+    /** The FX rate an international transfer was converted at and the rate table version it came from. */
+    @Column(name = "fx_rate")
+    private BigDecimal fxRate;
+
+    @Column(name = "fx_rate_version")
+    private Long fxRateVersion;
+
     public Transfer() {
         this.createdAt = LocalDateTime.now();
     }
@@ -71,4 +98,25 @@ public class Transfer {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getBatchId() { return batchId; }
+    public void setBatchId(String batchId) { this.batchId = batchId; }
+
+    public String getFailureReason() { return failureReason; }
+    public void setFailureReason(String failureReason) { this.failureReason = failureReason; }
+
+    public String getSettlementId() { return settlementId; }
+    public void setSettlementId(String settlementId) { this.settlementId = settlementId; }
+
+    public BigDecimal getCreditAmount() { return creditAmount; }
+    public void setCreditAmount(BigDecimal creditAmount) { this.creditAmount = creditAmount; }
+
+    public String getCreditCurrency() { return creditCurrency; }
+    public void setCreditCurrency(String creditCurrency) { this.creditCurrency = creditCurrency; }
+
+    public BigDecimal getFxRate() { return fxRate; }
+    public void setFxRate(BigDecimal fxRate) { this.fxRate = fxRate; }
+
+    public Long getFxRateVersion() { return fxRateVersion; }
+    public void setFxRateVersion(Long fxRateVersion) { this.fxRateVersion = fxRateVersion; }
 }
@@ -0,0 +1,92 @@
+package com.banking.transfer.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A batch of transfers from one source account, such as a payroll run. Its items are rows of
+ * {@code transfers} carrying the batch id; the counts and amounts here are filled in when the
+ * batch finishes.
+ */
+@Entity
+@Table(name = "transfer_batches")
+public class TransferBatch {
+    @Id
+    private String id;
+
+    @Column(name = "from_account")
+    private String fromAccount;
+
+    @Column(name = "currency")
+    private String currency;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "status")
+    private String status;
+
+    @Column(name = "item_count")
+    private int itemCount;
+
+    /** Total of the items that passed validation, debited from the source up front. */
+    @Column(name = "reserved_amount")
+    private BigDecimal reservedAmount = BigDecimal.ZERO;
+
+    @Column(name = "completed_count")
+    private int completedCount;
+
+    @Column(name = "failed_count")
+    private int failedCount;
+
+    @Column(name = "completed_amount")
+    private BigDecimal completedAmount = BigDecimal.ZERO;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public TransferBatch() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFromAccount() { return fromAccount; }
+    public void setFromAccount(String fromAccount) { this.fromAccount = fromAccount; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getItemCount() { return itemCount; }
+    public void setItemCount(int itemCount) { this.itemCount = itemCount; }
+
+    public BigDecimal getReservedAmount() { return reservedAmount; }
+    public void setReservedAmount(BigDecimal reservedAmount) { this.reservedAmount = reservedAmount; }
+
+    public int getCompletedCount() { return completedCount; }
+    public void setCompletedCount(int completedCount) { this.completedCount = completedCount; }
+
+    public int getFailedCount() { return failedCount; }
+    public void setFailedCount(int failedCount) { this.failedCount = failedCount; }
+
+    public BigDecimal getCompletedAmount() { return completedAmount; }
+    public void setCompletedAmount(BigDecimal completedAmount) { this.completedAmount = completedAmount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
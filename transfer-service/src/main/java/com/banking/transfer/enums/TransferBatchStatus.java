@@ -0,0 +1,7 @@
+package com.banking.transfer.enums;
+
+public enum TransferBatchStatus {
+    PROCESSING,
+    COMPLETED,
+    COMPLETED_WITH_ERRORS
+}
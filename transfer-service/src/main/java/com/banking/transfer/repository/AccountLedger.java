@@ -0,0 +1,81 @@
+package com.banking.transfer.repository;
+
+import com.banking.transfer.entity.Transaction;
+import com.banking.shared.ledger.AccountRows;
+import com.banking.shared.ledger.LockedAccount;
+import com.banking.shared.push.PushPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Account balances and their transaction legs over plain JDBC, for use inside a transaction.
+ * Every writer locks the accounts it touches through {@link #lockAccounts}, which takes the row
+ * locks in account id order, see {@link AccountRows}.
+ */
+@Repository
+public class AccountLedger {
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO transactions (id, account_id, amount, type, description, balance, reference, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private PushPublisher pushPublisher;
+
+    /** Locks the accounts that exist among {@code accountIds} until the transaction ends, keyed by id. */
+    public Map<String, LockedAccount> lockAccounts(Collection<String> accountIds) {
+        return AccountRows.lock(jdbcTemplate, accountIds);
+    }
+
+    /** The accounts that exist among {@code accountIds}, read without locking them. */
+    public Map<String, LockedAccount> findAccounts(Collection<String> accountIds) {
+        return AccountRows.find(jdbcTemplate, accountIds);
+    }
+
+    public void updateBalances(Map<String, BigDecimal> balances) {
+        AccountRows.updateBalances(jdbcTemplate, balances);
+    }
+
+    /**
+     * Tells the owners' open streams about the new balances of these locked accounts once the
+     * transaction commits.
+     */
+    public void publishBalances(Map<String, LockedAccount> accounts, Map<String, BigDecimal> balances) {
+        AccountRows.publishBalances(pushPublisher, accounts, balances, "TRANSFER");
+    }
+
+    public void insertTransactions(List<Transaction> transactions) {
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Transaction transaction = transactions.get(i);
+                ps.setString(1, transaction.getId());
+                ps.setString(2, transaction.getAccountId());
+                ps.setBigDecimal(3, transaction.getAmount());
+                ps.setString(4, transaction.getType());
+                ps.setString(5, transaction.getDescription());
+                ps.setBigDecimal(6, transaction.getBalance());
+                ps.setString(7, transaction.getReference());
+                ps.setTimestamp(8, Timestamp.valueOf(transaction.getCreatedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return transactions.size();
+            }
+        });
+    }
+}
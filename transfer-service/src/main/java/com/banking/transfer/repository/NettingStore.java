@@ -0,0 +1,76 @@
+package com.banking.transfer.repository;
+
+import com.banking.transfer.entity.Transfer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Netted transfers over plain JDBC. A netted transfer is stored PENDING when accepted and has
+ * no batch; settling a window claims its rows and stamps them with the window id.
+ */
+@Repository
+public class NettingStore {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transfers (id, from_account, to_account, amount, currency, transfer_type, reference_number, "
+            + "status, description, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, 'PENDING', ?, ?)";
+
+    private static final String CLAIM_SQL =
+            "UPDATE transfers SET status = 'COMPLETED', settlement_id = ?, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id = ANY (?) AND status = 'PENDING' AND batch_id IS NULL RETURNING id";
+
+    private static final String PENDING_SQL =
+            "SELECT id, from_account, to_account, amount, currency, transfer_type, description, created_at FROM transfers "
+            + "WHERE status = 'PENDING' AND batch_id IS NULL ORDER BY created_at";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void insertPending(Transfer transfer) {
+        jdbcTemplate.update(INSERT_SQL, transfer.getId(), transfer.getFromAccount(), transfer.getToAccount(),
+                transfer.getAmount(), transfer.getCurrency(), transfer.getTransferType(), transfer.getReferenceNumber(),
+                transfer.getDescription(), Timestamp.valueOf(transfer.getCreatedAt()));
+    }
+
+    /**
+     * Marks the transfers still pending among {@code transferIds} completed under
+     * {@code settlementId} and returns their ids; the caller fails the ones it cannot settle in
+     * the same transaction.
+     */
+    public Set<String> claimPending(String settlementId, Collection<String> transferIds) {
+        Set<String> claimed = new HashSet<>();
+        jdbcTemplate.query(CLAIM_SQL,
+                ps -> {
+                    ps.setString(1, settlementId);
+                    ps.setArray(2, ps.getConnection().createArrayOf("varchar", transferIds.toArray()));
+                },
+                rs -> {
+                    claimed.add(rs.getString(1));
+                });
+        return claimed;
+    }
+
+    /** Accepted transfers not yet settled, oldest first. */
+    public List<Transfer> findPending() {
+        return jdbcTemplate.query(PENDING_SQL, (rs, rowNum) -> {
+            Transfer transfer = new Transfer();
+            transfer.setId(rs.getString(1));
+            transfer.setFromAccount(rs.getString(2));
+            transfer.setToAccount(rs.getString(3));
+            transfer.setAmount(rs.getBigDecimal(4));
+            transfer.setCurrency(rs.getString(5));
+            transfer.setTransferType(rs.getString(6));
+            transfer.setDescription(rs.getString(7));
+            transfer.setCreatedAt(rs.getTimestamp(8).toLocalDateTime());
+            transfer.setStatus("PENDING");
+            return transfer;
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package com.banking.transfer.repository;
+
+import com.banking.transfer.entity.TransferBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TransferBatchRepository extends JpaRepository<TransferBatch, String> {
+    List<TransferBatch> findByStatus(String status);
+}
@@ -0,0 +1,149 @@
+package com.banking.transfer.repository;
+
+import com.banking.transfer.entity.Transfer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk writes of transfer batch items over plain JDBC: items are inserted and moved between
+ * statuses a chunk at a time rather than a row at a time.
+ */
+@Repository
+public class TransferBatchStore {
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO transfers (id, from_account, to_account, amount, currency, transfer_type, reference_number, "
+            + "status, description, created_at, batch_id, failure_reason) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String CLAIM_SQL =
+            "UPDATE transfers SET status = 'COMPLETED', updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id = ANY (?) AND status = 'PENDING' RETURNING id";
+
+    private static final String FAIL_SQL =
+            "UPDATE transfers SET status = 'FAILED', failure_reason = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private static final String PENDING_SQL =
+            "SELECT id, from_account, to_account, amount, currency, description FROM transfers "
+            + "WHERE batch_id = ? AND status = 'PENDING'";
+
+    private static final String SUMMARY_SQL =
+            "SELECT status, COUNT(*), COALESCE(SUM(amount), 0) FROM transfers WHERE batch_id = ? GROUP BY status";
+
+    private static final String FINISH_SQL =
+            "UPDATE transfer_batches SET status = ?, completed_count = ?, failed_count = ?, completed_amount = ?, "
+            + "finished_at = ? WHERE id = ? AND status = 'PROCESSING'";
+
+    /** Item count and amount per status. */
+    public static final class StatusTotal {
+        private final long count;
+        private final BigDecimal amount;
+
+        public StatusTotal(long count, BigDecimal amount) {
+            this.count = count;
+            this.amount = amount;
+        }
+
+        public long getCount() { return count; }
+        public BigDecimal getAmount() { return amount; }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void insertItems(List<Transfer> items) {
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Transfer item = items.get(i);
+                ps.setString(1, item.getId());
+                ps.setString(2, item.getFromAccount());
+                ps.setString(3, item.getToAccount());
+                ps.setBigDecimal(4, item.getAmount());
+                ps.setString(5, item.getCurrency());
+                ps.setString(6, item.getTransferType());
+                ps.setString(7, item.getReferenceNumber());
+                ps.setString(8, item.getStatus());
+                ps.setString(9, item.getDescription());
+                ps.setTimestamp(10, Timestamp.valueOf(item.getCreatedAt()));
+                ps.setString(11, item.getBatchId());
+                ps.setString(12, item.getFailureReason());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+    }
+
+    /**
+     * Marks the items still pending among {@code itemIds} completed and returns their ids. An
+     * item is therefore claimed by exactly one transaction, even if two processes work the same
+     * batch; the caller credits only what it claimed, or marks it failed.
+     */
+    public Set<String> claimPending(Collection<String> itemIds) {
+        Set<String> claimed = new HashSet<>();
+        jdbcTemplate.query(CLAIM_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", itemIds.toArray())),
+                rs -> {
+                    claimed.add(rs.getString(1));
+                });
+        return claimed;
+    }
+
+    /** Marks claimed items failed, with the reason per item id. */
+    public void markFailed(Map<String, String> reasons) {
+        if (reasons.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(reasons.size());
+        reasons.forEach((itemId, reason) -> args.add(new Object[] {reason, itemId}));
+        jdbcTemplate.batchUpdate(FAIL_SQL, args);
+    }
+
+    public List<Transfer> findPendingItems(String batchId) {
+        return jdbcTemplate.query(PENDING_SQL, (rs, rowNum) -> {
+            Transfer item = new Transfer();
+            item.setId(rs.getString(1));
+            item.setFromAccount(rs.getString(2));
+            item.setToAccount(rs.getString(3));
+            item.setAmount(rs.getBigDecimal(4));
+            item.setCurrency(rs.getString(5));
+            item.setDescription(rs.getString(6));
+            item.setBatchId(batchId);
+            item.setStatus("PENDING");
+            return item;
+        }, batchId);
+    }
+
+    /** Item totals of the batch keyed by status. */
+    public Map<String, StatusTotal> summarize(String batchId) {
+        Map<String, StatusTotal> totals = new HashMap<>();
+        jdbcTemplate.query(SUMMARY_SQL, rs -> {
+            totals.put(rs.getString(1), new StatusTotal(rs.getLong(2), rs.getBigDecimal(3)));
+        }, batchId);
+        return totals;
+    }
+
+    /** Records the batch outcome; returns {@code false} if it was already finished. */
+    public boolean finish(String batchId, String status, long completedCount, long failedCount, BigDecimal completedAmount,
+                          LocalDateTime finishedAt) {
+        return jdbcTemplate.update(FINISH_SQL, status, completedCount, failedCount, completedAmount,
+                Timestamp.valueOf(finishedAt), batchId) == 1;
+    }
+}
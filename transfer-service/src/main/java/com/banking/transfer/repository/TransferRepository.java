@@ -1,6 +1,7 @@
 package com.banking.transfer.repository;
 
 import com.banking.transfer.entity.Transfer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +11,6 @@ import java.util.List;
 public interface TransferRepository extends JpaRepository<Transfer, String> {
     List<Transfer> findByFromAccount(String fromAccount);
     List<Transfer> findByToAccount(String toAccount);
+    List<Transfer> findByBatchIdAndStatus(String batchId, String status, Pageable pageable);
+    List<Transfer> findByBatchId(String batchId, Pageable pageable);
 }
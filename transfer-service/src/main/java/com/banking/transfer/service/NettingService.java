@@ -0,0 +1,337 @@
+package com.banking.transfer.service;
+
+import com.banking.shared.exception.InsufficientFundsException;
+import com.banking.shared.ledger.LockedAccount;
+import com.banking.transfer.entity.Transaction;
+import com.banking.transfer.entity.Transfer;
+import com.banking.transfer.repository.AccountLedger;
+import com.banking.transfer.repository.NettingStore;
+import com.banking.transfer.repository.TransferBatchStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multilateral netting of small internal transfers. When enabled, an eligible transfer is
+ * checked against its accounts without locking them, stored PENDING and added to the open
+ * netting window; it is accepted in one insert. Every {@code window-ms} the window is closed and
+ * settled in one transaction: its accounts are locked once, each gets one balance update and one
+ * transaction leg for its net position, and the transfers are stamped with the window id. A hot
+ * merchant account receiving thousands of transfers a window is locked and written once.
+ *
+ * Acceptance reserves the amount against the source balance as read, ignoring incoming pending
+ * credits, so a window rarely overdraws. If one does, because a gross transfer drew the account
+ * down meanwhile, settlement fails that account's outgoing transfers of the window and nets the
+ * rest again. Netted transfers keep their own rows in {@code transfers}. The open window lives in
+ * memory only; on startup every pending netted transfer is put back into a window.
+ */
+@Service
+public class NettingService {
+
+    private static final Logger log = LoggerFactory.getLogger(NettingService.class);
+
+    @Autowired
+    private NettingStore nettingStore;
+
+    @Autowired
+    private TransferBatchStore transferBatchStore;
+
+    @Autowired
+    private AccountLedger accountLedger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final Set<String> transferTypes;
+    private final BigDecimal maxAmount;
+
+    private final AtomicReference<NettingWindow> current = new AtomicReference<>(new NettingWindow());
+    private final ConcurrentLinkedDeque<NettingWindow> unsettled = new ConcurrentLinkedDeque<>();
+    // Amount of accepted, unsettled transfers per source account
+    private final ConcurrentHashMap<String, BigDecimal> reserved = new ConcurrentHashMap<>();
+
+    private final Counter acceptedCounter;
+    private final Counter settledCounter;
+    private final Counter failedCounter;
+    private final Counter postingsCounter;
+    private final Timer settlementTimer;
+
+    public NettingService(@Value("${transfer.netting.enabled:false}") boolean enabled,
+                          @Value("${transfer.netting.transfer-types:INTERNAL}") Set<String> transferTypes,
+                          @Value("${transfer.netting.max-amount:10000}") BigDecimal maxAmount,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.transferTypes = transferTypes;
+        this.maxAmount = maxAmount;
+
+        this.acceptedCounter = Counter.builder("banking_transfer_netting_transfers_total")
+            .description("Netted transfers by outcome")
+            .tag("service", "transfer")
+            .tag("outcome", "accepted")
+            .register(meterRegistry);
+        this.settledCounter = Counter.builder("banking_transfer_netting_transfers_total")
+            .description("Netted transfers by outcome")
+            .tag("service", "transfer")
+            .tag("outcome", "settled")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("banking_transfer_netting_transfers_total")
+            .description("Netted transfers by outcome")
+            .tag("service", "transfer")
+            .tag("outcome", "failed")
+            .register(meterRegistry);
+        this.postingsCounter = Counter.builder("banking_transfer_netting_postings_total")
+            .description("Net balance postings written by netting settlement")
+            .tag("service", "transfer")
+            .register(meterRegistry);
+        this.settlementTimer = Timer.builder("banking_transfer_netting_settlement_seconds")
+            .description("Time to settle a netting window")
+            .tag("service", "transfer")
+            .register(meterRegistry);
+        Gauge.builder("banking_transfer_netting_window_transfers", current, window -> window.get().size())
+            .description("Transfers in the open netting window")
+            .tag("service", "transfer")
+            .register(meterRegistry);
+    }
+
+    /** Whether the transfer is settled by netting rather than on its own. */
+    public boolean accepts(Transfer transfer) {
+        return enabled
+                && transferTypes.contains(transfer.getTransferType())
+                && transfer.getAmount() != null
+                && transfer.getAmount().compareTo(maxAmount) <= 0;
+    }
+
+    /**
+     * Accepts the transfer as PENDING. Inside a transaction it joins the window only once that
+     * commits, so a rolled back acceptance never reaches settlement.
+     */
+    public Transfer submit(Transfer transfer) {
+        TransferEngine.validate(transfer);
+        if (transfer.getId() == null) {
+            transfer.setId(UUID.randomUUID().toString());
+        }
+        String fromId = transfer.getFromAccount();
+        Map<String, LockedAccount> accounts = accountLedger.findAccounts(List.of(fromId, transfer.getToAccount()));
+        LockedAccount from = TransferEngine.usable(accounts, fromId, transfer.getCurrency());
+        TransferEngine.usable(accounts, transfer.getToAccount(), transfer.getCurrency());
+
+        reserve(fromId, from.getBalance(), transfer.getAmount());
+        try {
+            transfer.setStatus("PENDING");
+            nettingStore.insertPending(transfer);
+        } catch (RuntimeException e) {
+            release(transfer);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        enqueue(transfer);
+                    } else {
+                        release(transfer);
+                    }
+                }
+            });
+        } else {
+            enqueue(transfer);
+        }
+        acceptedCounter.increment();
+        return transfer;
+    }
+
+    /** The open window at a glance. */
+    public Map<String, Object> openWindow() {
+        NettingWindow window = current.get();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("enabled", enabled);
+        summary.put("windowId", window.getId());
+        summary.put("openedAt", window.getOpenedAt());
+        summary.put("transfers", window.size());
+        summary.put("accounts", window.netPositions().size());
+        summary.put("unsettledWindows", unsettled.size());
+        return summary;
+    }
+
+    /** Puts transfers accepted before a restart back into the open window. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPending() {
+        List<Transfer> pending = nettingStore.findPending();
+        for (Transfer transfer : pending) {
+            reserved.merge(transfer.getFromAccount(), transfer.getAmount(), BigDecimal::add);
+            enqueue(transfer);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Recovered {} pending netted transfers", pending.size());
+        }
+    }
+
+    /** Closes the open window and settles it, along with any window an earlier attempt could not. */
+    @Scheduled(fixedDelayString = "${transfer.netting.window-ms:5000}")
+    public void closeWindow() {
+        NettingWindow window = current.getAndSet(new NettingWindow());
+        window.close();
+        if (window.size() > 0) {
+            unsettled.add(window);
+        }
+        NettingWindow next;
+        while ((next = unsettled.peek()) != null) {
+            try {
+                settle(next);
+            } catch (RuntimeException e) {
+                log.error("Settling netting window {} failed; retrying with the next window", next.getId(), e);
+                return;
+            }
+            unsettled.poll();
+        }
+    }
+
+    private void settle(NettingWindow window) {
+        int[] outcome = settlementTimer.record(() -> transactionTemplate.execute(status -> settleInTransaction(window)));
+        window.transfers().forEach(this::release);
+        settledCounter.increment(outcome[0]);
+        failedCounter.increment(outcome[1]);
+        postingsCounter.increment(outcome[2]);
+        log.info("Settled netting window {}: {} transfers, {} failed, {} postings",
+                window.getId(), outcome[0], outcome[1], outcome[2]);
+    }
+
+    /** Returns the settled, failed and posting counts. */
+    private int[] settleInTransaction(NettingWindow window) {
+        List<Transfer> transfers = window.transfers();
+        List<String> ids = new ArrayList<>(transfers.size());
+        transfers.forEach(transfer -> ids.add(transfer.getId()));
+        Set<String> claimed = nettingStore.claimPending(window.getId(), ids);
+        List<Transfer> included = new ArrayList<>(claimed.size());
+        Set<String> accountIds = new HashSet<>();
+        for (Transfer transfer : transfers) {
+            if (claimed.contains(transfer.getId())) {
+                included.add(transfer);
+                accountIds.add(transfer.getFromAccount());
+                accountIds.add(transfer.getToAccount());
+            }
+        }
+        if (included.isEmpty()) {
+            return new int[] {0, 0, 0};
+        }
+
+        Map<String, LockedAccount> accounts = accountLedger.lockAccounts(accountIds);
+        Map<String, String> failed = exclusions(included, accounts);
+        Map<String, BigDecimal> nets = failed.isEmpty() && included.size() == transfers.size()
+                ? window.netPositions()
+                : netPositions(included, failed.keySet());
+
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        List<Transaction> legs = new ArrayList<>();
+        nets.forEach((accountId, net) -> {
+            if (net.signum() != 0) {
+                BigDecimal balance = accounts.get(accountId).getBalance().add(net);
+                balances.put(accountId, balance);
+                legs.add(TransferEngine.leg(window.getId(), accountId, net, balance,
+                        "Net settlement of netted transfers, window " + window.getId()));
+            }
+        });
+        accountLedger.updateBalances(balances);
+        accountLedger.publishBalances(accounts, balances);
+        accountLedger.insertTransactions(legs);
+        transferBatchStore.markFailed(failed);
+        return new int[] {included.size() - failed.size(), failed.size(), legs.size()};
+    }
+
+    /**
+     * The transfers that cannot settle, with the reason: those touching an account that is gone,
+     * inactive or in another currency, then the outgoing transfers of every account the rest
+     * would overdraw, repeated until every remaining net position is covered. Failing an
+     * account's outgoing transfers can only take credits away from others, so this ends.
+     */
+    static Map<String, String> exclusions(List<Transfer> transfers, Map<String, LockedAccount> accounts) {
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (Transfer transfer : transfers) {
+            String problem = TransferEngine.unusableReason(accounts.get(transfer.getFromAccount()), transfer.getCurrency());
+            if (problem == null) {
+                problem = TransferEngine.unusableReason(accounts.get(transfer.getToAccount()), transfer.getCurrency());
+            }
+            if (problem != null) {
+                failed.put(transfer.getId(), problem);
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<String, BigDecimal> net : netPositions(transfers, failed.keySet()).entrySet()) {
+                if (accounts.get(net.getKey()).getBalance().add(net.getValue()).signum() >= 0) {
+                    continue;
+                }
+                for (Transfer transfer : transfers) {
+                    if (transfer.getFromAccount().equals(net.getKey()) && !failed.containsKey(transfer.getId())) {
+                        failed.put(transfer.getId(), "Insufficient funds at settlement");
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return failed;
+    }
+
+    static Map<String, BigDecimal> netPositions(List<Transfer> transfers, Set<String> excluded) {
+        Map<String, BigDecimal> nets = new TreeMap<>();
+        for (Transfer transfer : transfers) {
+            if (!excluded.contains(transfer.getId())) {
+                nets.merge(transfer.getFromAccount(), transfer.getAmount().negate(), BigDecimal::add);
+                nets.merge(transfer.getToAccount(), transfer.getAmount(), BigDecimal::add);
+            }
+        }
+        return nets;
+    }
+
+    private void enqueue(Transfer transfer) {
+        // The window can close between reading and adding; the next one is already open then
+        while (!current.get().add(transfer)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void reserve(String accountId, BigDecimal balance, BigDecimal amount) {
+        reserved.compute(accountId, (id, total) -> {
+            BigDecimal next = total == null ? amount : total.add(amount);
+            if (balance.compareTo(next) < 0) {
+                throw new InsufficientFundsException();
+            }
+            return next;
+        });
+    }
+
+    private void release(Transfer transfer) {
+        reserved.computeIfPresent(transfer.getFromAccount(), (id, total) -> {
+            BigDecimal left = total.subtract(transfer.getAmount());
+            return left.signum() > 0 ? left : null;
+        });
+    }
+}
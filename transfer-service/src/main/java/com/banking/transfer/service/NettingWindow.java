@@ -0,0 +1,70 @@
+package com.banking.transfer.service;
+
+import com.banking.transfer.entity.Transfer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The transfers accepted during one netting window and the net position they add up to per
+ * account: the row sums of the window's bilateral matrix, which is all settlement posts.
+ * Adding takes the read lock so any number of threads add at once; closing takes the write
+ * lock, so once {@link #close} returns no transfer can slip in after the window was read.
+ */
+class NettingWindow {
+
+    private final String id = UUID.randomUUID().toString();
+    private final LocalDateTime openedAt = LocalDateTime.now();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentLinkedQueue<Transfer> transfers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<String, BigDecimal> netPositions = new ConcurrentHashMap<>();
+    private boolean closed;
+
+    /** Adds the transfer unless the window is already closed. */
+    boolean add(Transfer transfer) {
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            transfers.add(transfer);
+            netPositions.merge(transfer.getFromAccount(), transfer.getAmount().negate(), BigDecimal::add);
+            netPositions.merge(transfer.getToAccount(), transfer.getAmount(), BigDecimal::add);
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void close() {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    String getId() { return id; }
+
+    LocalDateTime getOpenedAt() { return openedAt; }
+
+    int size() { return transfers.size(); }
+
+    List<Transfer> transfers() {
+        return new ArrayList<>(transfers);
+    }
+
+    /** Net position per account in account id order, the order settlement locks them in. */
+    Map<String, BigDecimal> netPositions() {
+        return new TreeMap<>(netPositions);
+    }
+}
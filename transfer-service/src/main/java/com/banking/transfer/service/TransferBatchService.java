@@ -0,0 +1,440 @@
+package com.banking.transfer.service;
+
+import com.banking.shared.dto.TransferRequest;
+import com.banking.shared.exception.InsufficientFundsException;
+import com.banking.shared.idempotency.IdempotencyStore;
+import com.banking.shared.idempotency.IdempotentResult;
+import com.banking.shared.ledger.LockedAccount;
+import com.banking.transfer.dto.TransferBatchRequest;
+import com.banking.transfer.entity.Transaction;
+import com.banking.transfer.entity.Transfer;
+import com.banking.transfer.entity.TransferBatch;
+import com.banking.transfer.enums.TransferBatchStatus;
+import com.banking.transfer.repository.AccountLedger;
+import com.banking.transfer.repository.TransferBatchRepository;
+import com.banking.transfer.repository.TransferBatchStore;
+import com.banking.transfer.repository.TransferBatchStore.StatusTotal;
+import com.banking.transfer.repository.TransferRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batches of transfers from one source account, such as a payroll run. Submitting validates
+ * every item, debits the total of the payable items from the source once and stores the items
+ * as PENDING transfers, all in one transaction; the source is locked once per batch rather than
+ * once per item.
+ *
+ * The credits then run in the background on {@code parallelism} partitions split by
+ * destination account, so no two workers of a batch ever wait on the same account row. Each
+ * partition credits {@code chunk-size} items per transaction: it claims them, locks their
+ * destinations in id order, and writes balances, transaction legs and item statuses as JDBC
+ * batches. When all partitions are done, whatever did not arrive is refunded to the source and
+ * the batch summary is recorded. Items are claimed in the same transaction that credits them,
+ * so a batch interrupted by a restart is resumed without paying anyone twice.
+ */
+@Service
+public class TransferBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferBatchService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    @Autowired
+    private TransferBatchRepository transferBatchRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private TransferBatchStore transferBatchStore;
+
+    @Autowired
+    private AccountLedger accountLedger;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxItems;
+    private final ExecutorService jobs;
+    private final ExecutorService workers;
+
+    private final Counter completedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    public TransferBatchService(@Value("${transfer.batch.chunk-size:1000}") int chunkSize,
+                                @Value("${transfer.batch.parallelism:8}") int parallelism,
+                                @Value("${transfer.batch.max-items:100000}") int maxItems,
+                                @Value("${transfer.batch.max-concurrent:2}") int maxConcurrent,
+                                MeterRegistry meterRegistry) {
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.maxItems = maxItems;
+
+        AtomicInteger jobThreads = new AtomicInteger();
+        this.jobs = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "transfer-batch-" + jobThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger workerThreads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "transfer-batch-worker-" + workerThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.completedCounter = Counter.builder("banking_transfer_batch_items_total")
+            .description("Transfer batch items credited or failed")
+            .tag("service", "transfer")
+            .tag("outcome", "completed")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("banking_transfer_batch_items_total")
+            .description("Transfer batch items credited or failed")
+            .tag("service", "transfer")
+            .tag("outcome", "failed")
+            .register(meterRegistry);
+        this.batchTimer = Timer.builder("banking_transfer_batch_seconds")
+            .description("Time to credit all items of a transfer batch")
+            .tag("service", "transfer")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Validates the batch, reserves its total and starts crediting. A retry with the same
+     * idempotency key gets the batch submitted the first time.
+     */
+    public IdempotentResult<TransferBatch> submit(TransferBatchRequest request, String idempotencyKey) {
+        List<Transfer> pending = new ArrayList<>();
+        IdempotentResult<TransferBatch> result = idempotencyStore.execute(idempotencyKey, fingerprint(request),
+                TransferBatch.class, () -> transactionTemplate.execute(status -> reserve(request, pending)));
+        if (!result.isReplayed()) {
+            start(result.getBody().getId(), pending);
+        }
+        return result;
+    }
+
+    public TransferBatch getBatch(String batchId) {
+        return transferBatchRepository.findById(batchId).orElse(null);
+    }
+
+    /** A page of the batch's items, optionally of one status, in creation order. */
+    public List<Transfer> getItems(String batchId, String status, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by("createdAt", "id"));
+        return status == null
+                ? transferRepository.findByBatchId(batchId, pageRequest)
+                : transferRepository.findByBatchIdAndStatus(batchId, status, pageRequest);
+    }
+
+    /** Picks up batches a previous run left unfinished. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeBatches() {
+        for (TransferBatch batch : transferBatchRepository.findByStatus(TransferBatchStatus.PROCESSING.name())) {
+            List<Transfer> pending = transferBatchStore.findPendingItems(batch.getId());
+            log.info("Resuming transfer batch {} with {} pending items", batch.getId(), pending.size());
+            start(batch.getId(), pending);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobs.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    TransferBatch reserve(TransferBatchRequest request, List<Transfer> pending) {
+        String fromId = request.getFromAccount();
+        List<TransferRequest> requests = request.getTransfers();
+        validate(fromId, requests);
+
+        Set<String> destinations = new LinkedHashSet<>();
+        requests.forEach(item -> destinations.add(item.getToAccount()));
+        Map<String, LockedAccount> found = accountLedger.findAccounts(destinations);
+        List<String> unknown = new ArrayList<>();
+        for (String destination : destinations) {
+            if (!found.containsKey(destination) && unknown.size() < MAX_REPORTED_ERRORS) {
+                unknown.add(destination);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown destination accounts: " + String.join(", ", unknown));
+        }
+
+        // A batch without a currency is in the source account's
+        Map<String, LockedAccount> locked = accountLedger.lockAccounts(List.of(fromId));
+        LockedAccount source = TransferEngine.usable(locked, fromId, request.getCurrency());
+        String currency = source.getCurrency();
+
+        String batchId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        List<Transfer> items = new ArrayList<>(requests.size());
+        BigDecimal reserved = BigDecimal.ZERO;
+        for (TransferRequest itemRequest : requests) {
+            Transfer item = new Transfer();
+            item.setId(UUID.randomUUID().toString());
+            item.setFromAccount(fromId);
+            item.setToAccount(itemRequest.getToAccount());
+            item.setAmount(itemRequest.getAmount());
+            item.setCurrency(currency);
+            item.setTransferType("BATCH");
+            item.setDescription(itemRequest.getDescription() != null ? itemRequest.getDescription() : request.getDescription());
+            item.setBatchId(batchId);
+            item.setCreatedAt(now);
+            // An account that cannot take the credit fails its item without holding up the rest
+            String problem = TransferEngine.unusableReason(found.get(itemRequest.getToAccount()), currency);
+            if (problem != null) {
+                item.setStatus("FAILED");
+                item.setFailureReason(problem);
+            } else {
+                item.setStatus("PENDING");
+                reserved = reserved.add(item.getAmount());
+                pending.add(item);
+            }
+            items.add(item);
+        }
+
+        if (source.getBalance().compareTo(reserved) < 0) {
+            throw new InsufficientFundsException();
+        }
+        BigDecimal balance = source.getBalance().subtract(reserved);
+        accountLedger.updateBalances(Map.of(fromId, balance));
+        accountLedger.publishBalances(locked, Map.of(fromId, balance));
+        accountLedger.insertTransactions(List.of(TransferEngine.leg(batchId, fromId, reserved.negate(), balance,
+                "Transfer batch of " + pending.size() + " transfers" + (request.getDescription() != null ? ": " + request.getDescription() : ""))));
+
+        TransferBatch batch = new TransferBatch();
+        batch.setId(batchId);
+        batch.setFromAccount(fromId);
+        batch.setCurrency(currency);
+        batch.setDescription(request.getDescription());
+        batch.setStatus(TransferBatchStatus.PROCESSING.name());
+        batch.setItemCount(items.size());
+        batch.setReservedAmount(reserved);
+        batch.setFailedCount(items.size() - pending.size());
+        batch.setCreatedAt(now);
+        transferBatchRepository.save(batch);
+        transferBatchStore.insertItems(items);
+        return batch;
+    }
+
+    private void validate(String fromId, List<TransferRequest> requests) {
+        if (fromId == null || fromId.isBlank()) {
+            throw new IllegalArgumentException("Source account is required");
+        }
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("A batch needs at least one transfer");
+        }
+        if (requests.size() > maxItems) {
+            throw new IllegalArgumentException("A batch holds at most " + maxItems + " transfers");
+        }
+        List<String> errors = new ArrayList<>();
+        int errorCount = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            String error = itemError(fromId, requests.get(i));
+            if (error != null) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("transfer " + i + ": " + error);
+                }
+                errorCount++;
+            }
+        }
+        if (errorCount > 0) {
+            throw new IllegalArgumentException(errorCount + " invalid transfers; " + String.join("; ", errors));
+        }
+    }
+
+    private static String itemError(String fromId, TransferRequest item) {
+        if (item.getToAccount() == null || item.getToAccount().isBlank()) {
+            return "destination account is required";
+        }
+        if (item.getFromAccount() != null && !item.getFromAccount().equals(fromId)) {
+            return "source account differs from the batch's";
+        }
+        if (item.getToAccount().equals(fromId)) {
+            return "destination is the source account";
+        }
+        if (item.getAmount() == null || item.getAmount().signum() <= 0) {
+            return "amount must be positive";
+        }
+        if (item.getAmount().stripTrailingZeros().scale() > 2) {
+            return "amount has more than 2 decimal places";
+        }
+        return null;
+    }
+
+    private void start(String batchId, List<Transfer> pending) {
+        jobs.execute(() -> {
+            try {
+                batchTimer.record(() -> run(batchId, pending));
+            } catch (RuntimeException e) {
+                log.error("Transfer batch {} stopped; it resumes on the next start", batchId, e);
+            }
+        });
+    }
+
+    private void run(String batchId, List<Transfer> pending) {
+        List<List<Transfer>> partitions = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (Transfer item : pending) {
+            partitions.get(Math.floorMod(item.getToAccount().hashCode(), parallelism)).add(item);
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(parallelism);
+        for (List<Transfer> partition : partitions) {
+            if (!partition.isEmpty()) {
+                partition.sort(Comparator.comparing(Transfer::getToAccount));
+                futures.add(CompletableFuture.runAsync(() -> creditPartition(batchId, partition), workers));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        transactionTemplate.executeWithoutResult(status -> finish(batchId));
+    }
+
+    private void creditPartition(String batchId, List<Transfer> partition) {
+        for (int from = 0; from < partition.size(); from += chunkSize) {
+            List<Transfer> chunk = partition.subList(from, Math.min(from + chunkSize, partition.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> creditChunk(chunk));
+            } catch (RuntimeException first) {
+                log.warn("Crediting {} items of transfer batch {} failed, retrying", chunk.size(), batchId, first);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> creditChunk(chunk));
+                } catch (RuntimeException e) {
+                    log.error("Crediting {} items of transfer batch {} failed again; marking them failed", chunk.size(), batchId, e);
+                    transactionTemplate.executeWithoutResult(status -> failChunk(chunk, "Crediting failed: " + e.getMessage()));
+                }
+            }
+        }
+    }
+
+    void creditChunk(List<Transfer> chunk) {
+        List<String> ids = new ArrayList<>(chunk.size());
+        chunk.forEach(item -> ids.add(item.getId()));
+        Set<String> claimed = transferBatchStore.claimPending(ids);
+        if (claimed.isEmpty()) {
+            return;
+        }
+        Set<String> destinations = new HashSet<>();
+        for (Transfer item : chunk) {
+            if (claimed.contains(item.getId())) {
+                destinations.add(item.getToAccount());
+            }
+        }
+        Map<String, LockedAccount> accounts = accountLedger.lockAccounts(destinations);
+
+        Map<String, BigDecimal> balances = new HashMap<>();
+        List<Transaction> legs = new ArrayList<>(claimed.size());
+        Map<String, String> failed = new HashMap<>();
+        for (Transfer item : chunk) {
+            if (!claimed.contains(item.getId())) {
+                continue;
+            }
+            LockedAccount account = accounts.get(item.getToAccount());
+            String problem = TransferEngine.unusableReason(account, item.getCurrency());
+            if (problem != null) {
+                failed.put(item.getId(), problem);
+                continue;
+            }
+            BigDecimal balance = balances.getOrDefault(account.getId(), account.getBalance()).add(item.getAmount());
+            balances.put(account.getId(), balance);
+            legs.add(TransferEngine.leg(item.getId(), account.getId(), item.getAmount(), balance,
+                    "Transfer from " + item.getFromAccount() + (item.getDescription() != null ? ": " + item.getDescription() : "")));
+        }
+        accountLedger.updateBalances(balances);
+        accountLedger.publishBalances(accounts, balances);
+        accountLedger.insertTransactions(legs);
+        transferBatchStore.markFailed(failed);
+        completedCounter.increment(legs.size());
+        failedCounter.increment(failed.size());
+    }
+
+    private void failChunk(List<Transfer> chunk, String reason) {
+        List<String> ids = new ArrayList<>(chunk.size());
+        chunk.forEach(item -> ids.add(item.getId()));
+        Map<String, String> failed = new HashMap<>();
+        transferBatchStore.claimPending(ids).forEach(id -> failed.put(id, reason));
+        transferBatchStore.markFailed(failed);
+        failedCounter.increment(failed.size());
+    }
+
+    /** Refunds what was reserved but not credited and records the summary, once. */
+    void finish(String batchId) {
+        TransferBatch batch = transferBatchRepository.findById(batchId).orElse(null);
+        if (batch == null) {
+            return;
+        }
+        Map<String, StatusTotal> totals = transferBatchStore.summarize(batchId);
+        StatusTotal none = new StatusTotal(0, BigDecimal.ZERO);
+        if (totals.getOrDefault("PENDING", none).getCount() > 0) {
+            log.warn("Transfer batch {} still has pending items; leaving it open", batchId);
+            return;
+        }
+        StatusTotal completed = totals.getOrDefault("COMPLETED", none);
+        StatusTotal failed = totals.getOrDefault("FAILED", none);
+        TransferBatchStatus status = failed.getCount() > 0 ? TransferBatchStatus.COMPLETED_WITH_ERRORS : TransferBatchStatus.COMPLETED;
+        if (!transferBatchStore.finish(batchId, status.name(), completed.getCount(), failed.getCount(),
+                completed.getAmount(), LocalDateTime.now())) {
+            return;
+        }
+        BigDecimal refund = batch.getReservedAmount().subtract(completed.getAmount());
+        if (refund.signum() > 0) {
+            String fromId = batch.getFromAccount();
+            Map<String, LockedAccount> locked = accountLedger.lockAccounts(List.of(fromId));
+            BigDecimal balance = locked.get(fromId).getBalance().add(refund);
+            accountLedger.updateBalances(Map.of(fromId, balance));
+            accountLedger.publishBalances(locked, Map.of(fromId, balance));
+            accountLedger.insertTransactions(List.of(TransferEngine.leg(batchId, fromId, refund, balance,
+                    "Refund of transfers in batch " + batchId + " that could not be credited")));
+        }
+        log.info("Transfer batch {} finished: {} completed, {} failed", batchId, completed.getCount(), failed.getCount());
+    }
+
+    private static String fingerprint(TransferBatchRequest request) {
+        List<TransferRequest> requests = request.getTransfers() != null ? request.getTransfers() : List.of();
+        Object[] parts = new Object[3 + requests.size() * 3];
+        parts[0] = request.getFromAccount();
+        parts[1] = request.getCurrency();
+        parts[2] = request.getDescription();
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest item = requests.get(i);
+            parts[3 + i * 3] = item.getToAccount();
+            parts[4 + i * 3] = item.getAmount();
+            parts[5 + i * 3] = item.getDescription();
+        }
+        return IdempotencyStore.fingerprint(parts);
+    }
+}
@@ -0,0 +1,160 @@
+package com.banking.transfer.service;
+
+import com.banking.shared.enums.AccountStatus;
+import com.banking.shared.enums.TransactionType;
+import com.banking.shared.exception.AccountNotFoundException;
+import com.banking.shared.exception.BankingException;
+import com.banking.shared.exception.InsufficientFundsException;
+import com.banking.shared.ledger.LockedAccount;
+import com.banking.transfer.entity.Transaction;
+import com.banking.transfer.entity.Transfer;
+import com.banking.transfer.repository.AccountLedger;
+import com.banking.transfer.repository.TransferRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Moves money between two accounts in one database transaction: both account rows are locked
+ * in id order, the debit is checked against the source balance, both balances are updated and
+ * the transfer is recorded with a debit and a credit leg in {@code transactions}. Because every
+ * transfer locks in the same order, A to B and B to A running together wait for each other
+ * rather than deadlock. An international transfer debits its amount and credits the converted
+ * amount it was priced at, in the destination account's currency.
+ */
+@Service
+public class TransferEngine {
+
+    private final AccountLedger accountLedger;
+    private final TransferRepository transferRepository;
+    private final Counter completedCounter;
+    private final Counter rejectedCounter;
+    private final Timer lockTimer;
+
+    public TransferEngine(AccountLedger accountLedger, TransferRepository transferRepository, MeterRegistry meterRegistry) {
+        this.accountLedger = accountLedger;
+        this.transferRepository = transferRepository;
+        this.completedCounter = Counter.builder("banking_transfer_executed_total")
+            .description("Transfers executed by the engine")
+            .tag("service", "transfer")
+            .tag("outcome", "completed")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("banking_transfer_executed_total")
+            .description("Transfers executed by the engine")
+            .tag("service", "transfer")
+            .tag("outcome", "rejected")
+            .register(meterRegistry);
+        this.lockTimer = Timer.builder("banking_transfer_lock_wait_seconds")
+            .description("Time to lock the accounts of a transfer")
+            .tag("service", "transfer")
+            .register(meterRegistry);
+    }
+
+    @Transactional
+    public Transfer execute(Transfer transfer) {
+        try {
+            validate(transfer);
+            if (transfer.getId() == null) {
+                transfer.setId(UUID.randomUUID().toString());
+            }
+            String fromId = transfer.getFromAccount();
+            String toId = transfer.getToAccount();
+            BigDecimal amount = transfer.getAmount();
+            BigDecimal credit = transfer.getCreditAmount() != null ? transfer.getCreditAmount() : amount;
+            String creditCurrency = transfer.getCreditCurrency() != null ? transfer.getCreditCurrency() : transfer.getCurrency();
+
+            Map<String, LockedAccount> accounts = lockTimer.record(() -> accountLedger.lockAccounts(List.of(fromId, toId)));
+            LockedAccount from = usable(accounts, fromId, transfer.getCurrency());
+            LockedAccount to = usable(accounts, toId, creditCurrency);
+            if (from.getBalance().compareTo(amount) < 0) {
+                throw new InsufficientFundsException();
+            }
+
+            BigDecimal fromBalance = from.getBalance().subtract(amount);
+            BigDecimal toBalance = to.getBalance().add(credit);
+            Map<String, BigDecimal> balances = new LinkedHashMap<>();
+            balances.put(fromId, fromBalance);
+            balances.put(toId, toBalance);
+            accountLedger.updateBalances(balances);
+            accountLedger.publishBalances(accounts, balances);
+
+            String description = transfer.getDescription() != null ? ": " + transfer.getDescription() : "";
+            accountLedger.insertTransactions(List.of(
+                    leg(transfer.getId(), fromId, amount.negate(), fromBalance, "Transfer to " + toId + description),
+                    leg(transfer.getId(), toId, credit, toBalance, "Transfer from " + fromId + description)));
+
+            transfer.setStatus("COMPLETED");
+            Transfer saved = transferRepository.save(transfer);
+            completedCounter.increment();
+            return saved;
+        } catch (RuntimeException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
+    }
+
+    static void validate(Transfer transfer) {
+        if (transfer.getFromAccount() == null || transfer.getToAccount() == null) {
+            throw new IllegalArgumentException("Source and destination accounts are required");
+        }
+        if (transfer.getFromAccount().equals(transfer.getToAccount())) {
+            throw new IllegalArgumentException("Source and destination accounts must differ");
+        }
+        if (transfer.getAmount() == null || transfer.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        if (transfer.getAmount().stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("Amount has more than 2 decimal places");
+        }
+    }
+
+    static LockedAccount usable(Map<String, LockedAccount> accounts, String accountId, String currency) {
+        LockedAccount account = accounts.get(accountId);
+        if (account == null) {
+            throw new AccountNotFoundException(accountId);
+        }
+        if (!AccountStatus.ACTIVE.name().equals(account.getStatus())) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", "Account " + accountId + " is " + account.getStatus());
+        }
+        if (currency != null && !currency.equals(account.getCurrency())) {
+            throw new IllegalArgumentException("Account " + accountId + " holds " + account.getCurrency() + ", not " + currency);
+        }
+        return account;
+    }
+
+    /** Why the account cannot take part in a transfer in {@code currency}, or {@code null} if it can. */
+    static String unusableReason(LockedAccount account, String currency) {
+        if (account == null) {
+            return "Account not found";
+        }
+        if (!AccountStatus.ACTIVE.name().equals(account.getStatus())) {
+            return "Account is " + account.getStatus();
+        }
+        if (!currency.equals(account.getCurrency())) {
+            return "Account holds " + account.getCurrency() + ", not " + currency;
+        }
+        return null;
+    }
+
+    static Transaction leg(String reference, String accountId, BigDecimal amount, BigDecimal balance, String description) {
+        Transaction leg = new Transaction();
+        leg.setId(UUID.randomUUID().toString());
+        leg.setAccountId(accountId);
+        leg.setAmount(amount);
+        leg.setType(TransactionType.TRANSFER.name());
+        leg.setDescription(description);
+        leg.setBalance(balance);
+        leg.setReference(reference);
+        leg.setCreatedAt(LocalDateTime.now());
+        return leg;
+    }
+}
@@ -1,11 +1,20 @@
 package com.banking.transfer.service;
 
+import com.banking.shared.idempotency.IdempotencyStore;
+import com.banking.shared.idempotency.IdempotentResult;
+import com.banking.shared.fx.FxRateTable;
+import com.banking.shared.fx.FxRates;
+import com.banking.shared.ledger.LockedAccount;
 import com.banking.transfer.entity.Transfer;
+import com.banking.transfer.repository.AccountLedger;
 import com.banking.transfer.repository.TransferRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -14,11 +23,105 @@ public class TransferService {
     @Autowired
     private TransferRepository transferRepository;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private NettingService nettingService;
+
+    @Autowired
+    private AccountLedger accountLedger;
+
+    @Autowired
+    private FxRateTable fxRateTable;
+
+    /**
+     * Creates the transfer once per idempotency key: a retry with the same key gets the transfer
+     * created the first time, and a concurrent one waits for it. Without a key this is
+     * {@link #createTransfer(Transfer)}.
+     */
+    public IdempotentResult<Transfer> createTransfer(Transfer transfer, String idempotencyKey) {
+        defaultCurrency(transfer);
+        String fingerprint = IdempotencyStore.fingerprint(transfer.getFromAccount(), transfer.getToAccount(),
+                transfer.getAmount(), transfer.getCurrency(), transfer.getTransferType(),
+                transfer.getReferenceNumber(), transfer.getDescription());
+        return idempotencyStore.execute(idempotencyKey, fingerprint, Transfer.class, () -> createTransfer(transfer));
+    }
+
+    /**
+     * Moves the money and records the transfer, see {@link TransferEngine}, or accepts it as
+     * PENDING for the next netting window when netting takes it, see {@link NettingService}.
+     */
     public Transfer createTransfer(Transfer transfer) {
+        defaultCurrency(transfer);
         if (transfer.getId() == null) {
             transfer.setId(UUID.randomUUID().toString());
         }
-        return transferRepository.save(transfer);
+        if (nettingService.accepts(transfer)) {
+            return nettingService.submit(transfer);
+        }
+        return transferEngine.execute(transfer);
+    }
+
+    /**
+     * Prices an international transfer of {@code amount} from the source account's currency into
+     * {@code currency} at the in-memory rates; the rate version is returned with it.
+     */
+    public Map<String, Object> quoteInternational(String fromAccountId, BigDecimal amount, String currency) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        LockedAccount from = TransferEngine.usable(accountLedger.findAccounts(List.of(fromAccountId)), fromAccountId, null);
+        FxRates rates = fxRateTable.snapshot();
+        Map<String, Object> quote = new LinkedHashMap<>();
+        quote.put("sourceCurrency", from.getCurrency());
+        quote.put("rate", rates.rate(from.getCurrency(), currency));
+        quote.put("convertedAmount", rates.convert(amount, from.getCurrency(), currency, fxRateTable.getRounding()));
+        quote.put("rateVersion", rates.getVersion());
+        return quote;
+    }
+
+    /**
+     * Executes an international transfer once per idempotency key: its amount, in the source
+     * account's currency, is converted into {@code creditCurrency} at the in-memory rates and the
+     * rate and its version are stamped on the transfer. International transfers are never netted.
+     */
+    public IdempotentResult<Transfer> createInternational(Transfer transfer, String creditCurrency, String idempotencyKey) {
+        TransferEngine.validate(transfer);
+        defaultCurrency(transfer);
+        String fingerprint = IdempotencyStore.fingerprint(transfer.getFromAccount(), transfer.getToAccount(),
+                transfer.getAmount(), transfer.getCurrency(), creditCurrency, transfer.getTransferType(),
+                transfer.getReferenceNumber(), transfer.getDescription());
+        return idempotencyStore.execute(idempotencyKey, fingerprint, Transfer.class, () -> {
+            price(transfer, creditCurrency);
+            if (transfer.getId() == null) {
+                transfer.setId(UUID.randomUUID().toString());
+            }
+            return transferEngine.execute(transfer);
+        });
+    }
+
+    private void price(Transfer transfer, String creditCurrency) {
+        FxRates rates = fxRateTable.snapshot();
+        BigDecimal credit = rates.convert(transfer.getAmount(), transfer.getCurrency(), creditCurrency, fxRateTable.getRounding());
+        if (credit.signum() <= 0) {
+            throw new IllegalArgumentException("Amount is too small to convert into " + creditCurrency);
+        }
+        transfer.setCreditAmount(credit);
+        transfer.setCreditCurrency(creditCurrency);
+        transfer.setFxRate(rates.rate(transfer.getCurrency(), creditCurrency));
+        transfer.setFxRateVersion(rates.getVersion());
+    }
+
+    /** A transfer without a currency is in the source account's. */
+    private void defaultCurrency(Transfer transfer) {
+        String fromId = transfer.getFromAccount();
+        if (transfer.getCurrency() == null && fromId != null) {
+            transfer.setCurrency(TransferEngine.usable(accountLedger.findAccounts(List.of(fromId)), fromId, null).getCurrency());
+        }
     }
 
     public List<Transfer> getTransfersByFromAccount(String fromAccount) {
@@ -1,20 +1,48 @@
 package com.banking.transfer;
 
+import com.banking.shared.fx.FxRateTable;
+import com.banking.shared.fx.FxRates;
+import com.banking.shared.idempotency.IdempotencyStore;
+import com.banking.shared.idempotency.IdempotentResult;
+import com.banking.shared.exception.InsufficientFundsException;
+import com.banking.shared.dto.TransferRequest;
+import com.banking.shared.ledger.LockedAccount;
+import com.banking.transfer.dto.TransferBatchRequest;
+import com.banking.transfer.entity.Transaction;
 import com.banking.transfer.entity.Transfer;
+import com.banking.transfer.entity.TransferBatch;
+import com.banking.transfer.repository.AccountLedger;
+import com.banking.transfer.repository.NettingStore;
+import com.banking.transfer.repository.TransferBatchRepository;
+import com.banking.transfer.repository.TransferBatchStore;
 import com.banking.transfer.repository.TransferRepository;
+import com.banking.transfer.service.NettingService;
+import com.banking.transfer.service.TransferBatchService;
+import com.banking.transfer.service.TransferEngine;
 import com.banking.transfer.service.TransferService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class TransferServiceTest {
@@ -22,12 +50,33 @@ class TransferServiceTest {
     @Mock
     private TransferRepository transferRepository;
 
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private TransferEngine transferEngine;
+
+    @Mock
+    private AccountLedger accountLedger;
+
+    @Mock
+    private NettingService nettingService;
+
+    @Mock
+    private TransferBatchStore transferBatchStore;
+
+    @Mock
+    private FxRateTable fxRateTable;
+
     @InjectMocks
     private TransferService transferService;
 
+    private TransferEngine engine;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        engine = new TransferEngine(accountLedger, transferRepository, new SimpleMeterRegistry());
     }
 
     @Test
@@ -38,7 +87,7 @@ class TransferServiceTest {
         transfer.setToAccount("acc2");
         transfer.setAmount(new BigDecimal("100.00"));
         
-        when(transferRepository.save(any(Transfer.class))).thenReturn(transfer);
+        when(transferEngine.execute(any(Transfer.class))).thenReturn(transfer);
 
         // When
         Transfer result = transferService.createTransfer(transfer);
@@ -46,7 +95,373 @@ class TransferServiceTest {
         // Then
         assertNotNull(result);
         assertNotNull(result.getId());
-        verify(transferRepository).save(transfer);
+        verify(transferEngine).execute(transfer);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEngineMovesMoneyAndRecordsBothLegs() {
+        // Given
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount("acc2");
+        transfer.setToAccount("acc1");
+        transfer.setAmount(new BigDecimal("100.00"));
+
+        when(accountLedger.lockAccounts(any())).thenReturn(Map.of(
+                "acc1", new LockedAccount("acc1", new BigDecimal("50.00"), "USD", "ACTIVE"),
+                "acc2", new LockedAccount("acc2", new BigDecimal("250.00"), "USD", "ACTIVE")));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Transfer result = engine.execute(transfer);
+
+        // Then
+        assertEquals("COMPLETED", result.getStatus());
+        ArgumentCaptor<Map<String, BigDecimal>> balances = ArgumentCaptor.forClass(Map.class);
+        verify(accountLedger).updateBalances(balances.capture());
+        assertEquals(new BigDecimal("150.00"), balances.getValue().get("acc2"));
+        assertEquals(new BigDecimal("150.00"), balances.getValue().get("acc1"));
+        verify(accountLedger).publishBalances(any(), eq(balances.getValue()));
+        ArgumentCaptor<List<Transaction>> legs = ArgumentCaptor.forClass(List.class);
+        verify(accountLedger).insertTransactions(legs.capture());
+        assertEquals(2, legs.getValue().size());
+        assertEquals(new BigDecimal("-100.00"), legs.getValue().get(0).getAmount());
+        assertEquals(result.getId(), legs.getValue().get(1).getReference());
+    }
+
+    @Test
+    void testEngineRejectsTransferOverBalance() {
+        // Given
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount("acc1");
+        transfer.setToAccount("acc2");
+        transfer.setAmount(new BigDecimal("100.01"));
+
+        when(accountLedger.lockAccounts(any())).thenReturn(Map.of(
+                "acc1", new LockedAccount("acc1", new BigDecimal("100.00"), "USD", "ACTIVE"),
+                "acc2", new LockedAccount("acc2", BigDecimal.ZERO, "USD", "ACTIVE")));
+
+        // When / Then
+        assertThrows(InsufficientFundsException.class, () -> engine.execute(transfer));
+        verify(accountLedger, never()).updateBalances(any());
+        verify(transferRepository, never()).save(any(Transfer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchReservesOnlyPayableItems() {
+        // Given
+        TransferBatchRepository batchRepository = mock(TransferBatchRepository.class);
+        TransferBatchStore batchStore = mock(TransferBatchStore.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        when(idempotencyStore.execute(any(), anyString(), eq(TransferBatch.class), any())).thenAnswer(invocation ->
+                new IdempotentResult<>(invocation.getArgument(3, Supplier.class).get(), false));
+        when(accountLedger.findAccounts(any())).thenReturn(Map.of(
+                "acc2", new LockedAccount("acc2", BigDecimal.ZERO, "USD", "ACTIVE"),
+                "acc3", new LockedAccount("acc3", BigDecimal.ZERO, "USD", "FROZEN")));
+        when(accountLedger.lockAccounts(any())).thenReturn(Map.of(
+                "acc1", new LockedAccount("acc1", new BigDecimal("500.00"), "USD", "ACTIVE")));
+
+        TransferBatchService batchService = new TransferBatchService(1000, 2, 100, 1, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(batchService, "transferBatchRepository", batchRepository);
+        ReflectionTestUtils.setField(batchService, "transferRepository", transferRepository);
+        ReflectionTestUtils.setField(batchService, "transferBatchStore", batchStore);
+        ReflectionTestUtils.setField(batchService, "accountLedger", accountLedger);
+        ReflectionTestUtils.setField(batchService, "idempotencyStore", idempotencyStore);
+        ReflectionTestUtils.setField(batchService, "transactionTemplate", transactionTemplate);
+
+        TransferBatchRequest request = new TransferBatchRequest();
+        request.setFromAccount("acc1");
+        request.setDescription("Payroll");
+        request.setTransfers(List.of(
+                new TransferRequest(null, "acc2", new BigDecimal("100.00"), null),
+                new TransferRequest(null, "acc3", new BigDecimal("50.00"), null)));
+
+        try {
+            // When
+            TransferBatch batch = batchService.submit(request, null).getBody();
+
+            // Then
+            assertEquals("PROCESSING", batch.getStatus());
+            assertEquals(new BigDecimal("100.00"), batch.getReservedAmount());
+            assertEquals(1, batch.getFailedCount());
+            verify(accountLedger).updateBalances(Map.of("acc1", new BigDecimal("400.00")));
+            ArgumentCaptor<List<Transfer>> items = ArgumentCaptor.forClass(List.class);
+            verify(batchStore).insertItems(items.capture());
+            assertEquals("PENDING", items.getValue().get(0).getStatus());
+            assertEquals("FAILED", items.getValue().get(1).getStatus());
+        } finally {
+            batchService.stop();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchWithoutCurrencyTakesTheSourceAccounts() {
+        // Given: a EUR source account and one EUR and one USD destination
+        TransferBatchStore batchStore = mock(TransferBatchStore.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        when(idempotencyStore.execute(any(), anyString(), eq(TransferBatch.class), any())).thenAnswer(invocation ->
+                new IdempotentResult<>(invocation.getArgument(3, Supplier.class).get(), false));
+        when(accountLedger.findAccounts(any())).thenReturn(Map.of(
+                "acc2", new LockedAccount("acc2", BigDecimal.ZERO, "EUR", "ACTIVE"),
+                "acc3", new LockedAccount("acc3", BigDecimal.ZERO, "USD", "ACTIVE")));
+        when(accountLedger.lockAccounts(any())).thenReturn(Map.of(
+                "acc1", new LockedAccount("acc1", new BigDecimal("500.00"), "EUR", "ACTIVE")));
+
+        TransferBatchService batchService = new TransferBatchService(1000, 2, 100, 1, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(batchService, "transferBatchRepository", mock(TransferBatchRepository.class));
+        ReflectionTestUtils.setField(batchService, "transferRepository", transferRepository);
+        ReflectionTestUtils.setField(batchService, "transferBatchStore", batchStore);
+        ReflectionTestUtils.setField(batchService, "accountLedger", accountLedger);
+        ReflectionTestUtils.setField(batchService, "idempotencyStore", idempotencyStore);
+        ReflectionTestUtils.setField(batchService, "transactionTemplate", transactionTemplate);
+
+        TransferBatchRequest request = new TransferBatchRequest();
+        request.setFromAccount("acc1");
+        request.setTransfers(List.of(
+                new TransferRequest(null, "acc2", new BigDecimal("100.00"), null),
+                new TransferRequest(null, "acc3", new BigDecimal("50.00"), null)));
+
+        try {
+            // When
+            TransferBatch batch = batchService.submit(request, null).getBody();
+
+            // Then
+            assertEquals("EUR", batch.getCurrency());
+            assertEquals(new BigDecimal("100.00"), batch.getReservedAmount());
+            ArgumentCaptor<List<Transfer>> items = ArgumentCaptor.forClass(List.class);
+            verify(batchStore).insertItems(items.capture());
+            assertEquals("EUR", items.getValue().get(0).getCurrency());
+            assertEquals("PENDING", items.getValue().get(0).getStatus());
+            assertEquals("FAILED", items.getValue().get(1).getStatus());
+        } finally {
+            batchService.stop();
+        }
+    }
+
+    @Test
+    void testBatchRejectsInvalidItemsBeforeTouchingBalances() {
+        // Given
+        TransferBatchService batchService = new TransferBatchService(1000, 2, 100, 1, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(batchService, "accountLedger", accountLedger);
+        ReflectionTestUtils.setField(batchService, "idempotencyStore", idempotencyStore);
+        when(idempotencyStore.execute(any(), anyString(), eq(TransferBatch.class), any())).thenAnswer(invocation ->
+                new IdempotentResult<>(invocation.getArgument(3, Supplier.class).get(), false));
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        ReflectionTestUtils.setField(batchService, "transactionTemplate", transactionTemplate);
+
+        TransferBatchRequest request = new TransferBatchRequest();
+        request.setFromAccount("acc1");
+        request.setTransfers(List.of(
+                new TransferRequest(null, "acc2", new BigDecimal("-5.00"), null),
+                new TransferRequest(null, "acc3", new BigDecimal("1.005"), null)));
+
+        try {
+            // When / Then
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> batchService.submit(request, null));
+            assertTrue(e.getMessage().startsWith("2 invalid transfers"));
+            verify(accountLedger, never()).lockAccounts(any());
+            verify(accountLedger, never()).updateBalances(any());
+        } finally {
+            batchService.stop();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testNettingPostsOneNetAmountPerAccount() {
+        // Given
+        NettingStore nettingStore = mock(NettingStore.class);
+        NettingService netting = nettingService(nettingStore);
+        Map<String, LockedAccount> accounts = Map.of(
+                "acc1", new LockedAccount("acc1", new BigDecimal("500.00"), "USD", "ACTIVE"),
+                "acc2", new LockedAccount("acc2", new BigDecimal("100.00"), "USD", "ACTIVE"),
+                "acc3", new LockedAccount("acc3", new BigDecimal("1000.00"), "USD", "ACTIVE"));
+        when(accountLedger.findAccounts(any())).thenReturn(accounts);
+        when(accountLedger.lockAccounts(any())).thenReturn(accounts);
+        when(nettingStore.claimPending(anyString(), any())).thenAnswer(invocation -> Set.copyOf(invocation.getArgument(1)));
+
+        List<Transfer> accepted = List.of(
+                netting.submit(netted("acc1", "acc2", "100.00")),
+                netting.submit(netted("acc2", "acc1", "90.00")),
+                netting.submit(netted("acc3", "acc2", "50.00")));
+
+        // When
+        netting.closeWindow();
+
+        // Then
+        accepted.forEach(transfer -> assertEquals("PENDING", transfer.getStatus()));
+        verify(nettingStore, times(3)).insertPending(any(Transfer.class));
+        verify(accountLedger, times(1)).lockAccounts(any());
+        verify(accountLedger).updateBalances(Map.of(
+                "acc1", new BigDecimal("490.00"),
+                "acc2", new BigDecimal("160.00"),
+                "acc3", new BigDecimal("950.00")));
+        ArgumentCaptor<List<Transaction>> legs = ArgumentCaptor.forClass(List.class);
+        verify(accountLedger).insertTransactions(legs.capture());
+        assertEquals(3, legs.getValue().size());
+    }
+
+    @Test
+    void testNettingFailsTransfersOfAnOverdrawnAccount() {
+        // Given
+        NettingStore nettingStore = mock(NettingStore.class);
+        NettingService netting = nettingService(nettingStore);
+        when(accountLedger.findAccounts(any())).thenReturn(Map.of(
+                "acc1", new LockedAccount("acc1", new BigDecimal("500.00"), "USD", "ACTIVE"),
+                "acc2", new LockedAccount("acc2", new BigDecimal("100.00"), "USD", "ACTIVE")));
+        // A gross transfer drew acc1 down after the netted ones were accepted
+        when(accountLedger.lockAccounts(any())).thenReturn(Map.of(
+                "acc1", new LockedAccount("acc1", new BigDecimal("5.00"), "USD", "ACTIVE"),
+                "acc2", new LockedAccount("acc2", new BigDecimal("100.00"), "USD", "ACTIVE")));
+        when(nettingStore.claimPending(anyString(), any())).thenAnswer(invocation -> Set.copyOf(invocation.getArgument(1)));
+
+        Transfer overdrawing = netting.submit(netted("acc1", "acc2", "100.00"));
+        netting.submit(netted("acc2", "acc1", "90.00"));
+
+        // When
+        netting.closeWindow();
+
+        // Then
+        verify(transferBatchStore).markFailed(Map.of(overdrawing.getId(), "Insufficient funds at settlement"));
+        verify(accountLedger).updateBalances(Map.of(
+                "acc1", new BigDecimal("95.00"),
+                "acc2", new BigDecimal("10.00")));
+    }
+
+    private NettingService nettingService(NettingStore nettingStore) {
+        NettingService netting = new NettingService(true, Set.of("INTERNAL"), new BigDecimal("10000"), new SimpleMeterRegistry());
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        ReflectionTestUtils.setField(netting, "nettingStore", nettingStore);
+        ReflectionTestUtils.setField(netting, "transferBatchStore", transferBatchStore);
+        ReflectionTestUtils.setField(netting, "accountLedger", accountLedger);
+        ReflectionTestUtils.setField(netting, "transactionTemplate", transactionTemplate);
+        return netting;
+    }
+
+    private static Transfer netted(String from, String to, String amount) {
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount(from);
+        transfer.setToAccount(to);
+        transfer.setAmount(new BigDecimal(amount));
+        return transfer;
+    }
+
+    @Test
+    void testCreateTransferReplaysIdempotencyKey() {
+        // Given
+        Transfer original = new Transfer();
+        original.setId("transfer-1");
+        original.setFromAccount("acc1");
+        original.setAmount(new BigDecimal("100.00"));
+        Transfer retry = new Transfer();
+        retry.setFromAccount("acc1");
+        retry.setAmount(new BigDecimal("100.00"));
+
+        when(idempotencyStore.execute(eq("key-1"), anyString(), eq(Transfer.class), any()))
+                .thenReturn(new IdempotentResult<>(original, true));
+
+        // When
+        IdempotentResult<Transfer> result = transferService.createTransfer(retry, "key-1");
+
+        // Then
+        assertTrue(result.isReplayed());
+        assertEquals("transfer-1", result.getBody().getId());
+        verify(transferRepository, never()).save(any(Transfer.class));
+    }
+
+    @Test
+    void testTransferWithoutCurrencyTakesTheSourceAccounts() {
+        // Given
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount("acc1");
+        transfer.setToAccount("acc2");
+        transfer.setAmount(new BigDecimal("10.00"));
+        transfer.setCurrency(null);
+        when(accountLedger.findAccounts(List.of("acc1"))).thenReturn(Map.of(
+                "acc1", new LockedAccount("acc1", new BigDecimal("50.00"), "EUR", "ACTIVE")));
+        when(idempotencyStore.execute(eq("key-1"), anyString(), eq(Transfer.class), any()))
+                .thenAnswer(inv -> new IdempotentResult<>(inv.<Supplier<Transfer>>getArgument(3).get(), false));
+        when(transferEngine.execute(any(Transfer.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Transfer created = transferService.createTransfer(transfer, "key-1").getBody();
+
+        // Then
+        assertEquals("EUR", created.getCurrency());
+        verify(idempotencyStore).execute(eq("key-1"), eq(IdempotencyStore.fingerprint("acc1", "acc2",
+                new BigDecimal("10.00"), "EUR", "INTERNAL", null, null)), eq(Transfer.class), any());
+    }
+
+    @Test
+    void testInternationalTransferIsConvertedAndStampedWithTheRateVersion() {
+        // Given
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount("acc1");
+        transfer.setToAccount("acc2");
+        transfer.setAmount(new BigDecimal("100.00"));
+        transfer.setCurrency(null);
+        transfer.setTransferType("INTERNATIONAL");
+        when(accountLedger.findAccounts(List.of("acc1"))).thenReturn(Map.of(
+                "acc1", new LockedAccount("acc1", new BigDecimal("500.00"), "EUR", "ACTIVE")));
+        when(fxRateTable.snapshot()).thenReturn(new FxRates.Builder(7).rate("EUR", "USD", new BigDecimal("1.085")).build());
+        when(fxRateTable.getRounding()).thenReturn(RoundingMode.HALF_EVEN);
+        when(idempotencyStore.execute(eq("key-1"), anyString(), eq(Transfer.class), any()))
+                .thenAnswer(inv -> new IdempotentResult<>(inv.<Supplier<Transfer>>getArgument(3).get(), false));
+        when(transferEngine.execute(any(Transfer.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Transfer created = transferService.createInternational(transfer, "USD", "key-1").getBody();
+
+        // Then
+        assertEquals("EUR", created.getCurrency());
+        assertEquals(new BigDecimal("108.50"), created.getCreditAmount());
+        assertEquals("USD", created.getCreditCurrency());
+        assertEquals(0, new BigDecimal("1.085").compareTo(created.getFxRate()));
+        assertEquals(7L, created.getFxRateVersion());
+        verify(transferEngine).execute(transfer);
+        verify(nettingService, never()).submit(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEngineCreditsTheConvertedAmountOfAnInternationalTransfer() {
+        // Given
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount("acc1");
+        transfer.setToAccount("acc2");
+        transfer.setAmount(new BigDecimal("100.00"));
+        transfer.setCurrency("EUR");
+        transfer.setCreditAmount(new BigDecimal("108.50"));
+        transfer.setCreditCurrency("USD");
+
+        when(accountLedger.lockAccounts(any())).thenReturn(Map.of(
+                "acc1", new LockedAccount("acc1", new BigDecimal("500.00"), "EUR", "ACTIVE"),
+                "acc2", new LockedAccount("acc2", new BigDecimal("10.00"), "USD", "ACTIVE")));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        engine.execute(transfer);
+
+        // Then
+        ArgumentCaptor<Map<String, BigDecimal>> balances = ArgumentCaptor.forClass(Map.class);
+        verify(accountLedger).updateBalances(balances.capture());
+        assertEquals(new BigDecimal("400.00"), balances.getValue().get("acc1"));
+        assertEquals(new BigDecimal("118.50"), balances.getValue().get("acc2"));
+        ArgumentCaptor<List<Transaction>> legs = ArgumentCaptor.forClass(List.class);
+        verify(accountLedger).insertTransactions(legs.capture());
+        assertEquals(new BigDecimal("-100.00"), legs.getValue().get(0).getAmount());
+        assertEquals(new BigDecimal("108.50"), legs.getValue().get(1).getAmount());
     }
 
     @Test
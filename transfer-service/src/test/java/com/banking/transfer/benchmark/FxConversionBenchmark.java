@@ -0,0 +1,80 @@
+package com.banking.transfer.benchmark;
+
+import com.banking.shared.fx.FxRateSource;
+import com.banking.shared.fx.FxRateTable;
+import com.banking.shared.fx.FxRates;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting a transfer amount at the in-memory FX rates, for a quoted pair and for a
+ * cross pair, from 4 threads while the table is left to refresh in the background. Run
+ * {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class FxConversionBenchmark {
+
+    private FxRateTable table;
+    private BigDecimal[] amounts;
+
+    @Setup
+    public void setUp() {
+        FxRates rates = new FxRates.Builder(1)
+                .rate("EUR", "USD", new BigDecimal("1.085"))
+                .rate("GBP", "USD", new BigDecimal("1.265"))
+                .rate("USD", "JPY", new BigDecimal("149.5"))
+                .rate("USD", "CAD", new BigDecimal("1.36"))
+                .rate("USD", "CHF", new BigDecimal("0.885"))
+                .build();
+        table = new FxRateTable("bench", new FxRateSource() {
+            @Override
+            public long currentVersion() {
+                return 1;
+            }
+
+            @Override
+            public FxRates load() {
+                return rates;
+            }
+        }, RoundingMode.HALF_EVEN, Duration.ofSeconds(1));
+        amounts = new BigDecimal[1024];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = new BigDecimal(ThreadLocalRandom.current().nextLong(1, 10_000_000)).movePointLeft(2);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal quotedPair() {
+        return table.convert(amounts[ThreadLocalRandom.current().nextInt(amounts.length)], "EUR", "USD");
+    }
+
+    @Benchmark
+    public BigDecimal crossPair() {
+        return table.convert(amounts[ThreadLocalRandom.current().nextInt(amounts.length)], "GBP", "JPY");
+    }
+
+    @TearDown
+    public void tearDown() {
+        table.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FxConversionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.banking.transfer.benchmark;
+
+import com.banking.shared.exception.InsufficientFundsException;
+import com.banking.transfer.TransferServiceApplication;
+import com.banking.transfer.entity.Transfer;
+import com.banking.transfer.service.TransferEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transfers between random pairs of a small hot set of accounts from 32 threads, so most
+ * transfers wait on a lock held by another and A to B races B to A all the time. Needs a
+ * PostgreSQL database with the banking schema: pass {@code -Dbench.db.url}, and
+ * {@code -Dbench.db.user} and {@code -Dbench.db.password} if they differ from the defaults.
+ * Benchmark accounts are created under a {@code bench-} prefix; teardown prints the deadlocks
+ * seen, which should be zero, and checks that the hot set's total balance is unchanged.
+ * Run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class TransferContentionBenchmark {
+
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    @Param({"2", "8", "64"})
+    private int hotAccounts;
+
+    private ConfigurableApplicationContext context;
+    private TransferEngine engine;
+    private JdbcTemplate jdbcTemplate;
+    private String[] accounts;
+    private BigDecimal openingTotal;
+    private final AtomicLong deadlocks = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(TransferServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + System.getProperty("bench.db.url", "jdbc:postgresql://localhost:5432/banking_db"),
+                        "spring.datasource.username=" + System.getProperty("bench.db.user", "banking_user"),
+                        "spring.datasource.password=" + System.getProperty("bench.db.password", "banking_pass"),
+                        "spring.datasource.hikari.maximum-pool-size=40",
+                        "spring.jpa.show-sql=false")
+                .run();
+        engine = context.getBean(TransferEngine.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        jdbcTemplate.update("INSERT INTO users (id, username, password, first_name, last_name, email) "
+                + "VALUES ('bench-user', 'bench-user', 'x', 'Bench', 'User', 'bench@example.com') ON CONFLICT (id) DO NOTHING");
+        accounts = new String[hotAccounts];
+        for (int i = 0; i < hotAccounts; i++) {
+            accounts[i] = "bench-hot-" + i;
+            jdbcTemplate.update("INSERT INTO accounts (id, user_id, account_number, account_type, balance, currency, status) "
+                    + "VALUES (?, 'bench-user', ?, 'CHECKING', ?, 'USD', 'ACTIVE') "
+                    + "ON CONFLICT (id) DO UPDATE SET balance = EXCLUDED.balance, status = 'ACTIVE'",
+                    accounts[i], "BENCH" + i, OPENING_BALANCE);
+        }
+        openingTotal = total();
+    }
+
+    @Benchmark
+    public Object transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(hotAccounts);
+        int to = (from + 1 + random.nextInt(hotAccounts - 1)) % hotAccounts;
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount(accounts[from]);
+        transfer.setToAccount(accounts[to]);
+        transfer.setAmount(new BigDecimal(random.nextInt(1, 10_000)).movePointLeft(2));
+        transfer.setDescription("contention benchmark");
+        try {
+            return engine.execute(transfer);
+        } catch (InsufficientFundsException e) {
+            return e;
+        } catch (PessimisticLockingFailureException e) {
+            deadlocks.incrementAndGet();
+            return e;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BigDecimal closingTotal = total();
+        System.out.println("hotAccounts=" + hotAccounts + " deadlocks=" + deadlocks.get()
+                + " totalUnchanged=" + (openingTotal.compareTo(closingTotal) == 0));
+        context.close();
+    }
+
+    private BigDecimal total() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM accounts WHERE id = ANY (?)",
+                BigDecimal.class, (Object) accounts);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransferContentionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -1,6 +1,19 @@
 package com.banking.withdrawal.controller;
 
+import com.banking.shared.dto.ApiResponse;
+import com.banking.shared.exception.AccountNotFoundException;
+import com.banking.shared.exception.BankingException;
+import com.banking.shared.exception.InsufficientFundsException;
+import com.banking.shared.exception.IdempotencyKeyException;
+import com.banking.shared.idempotency.IdempotentResult;
+import com.banking.withdrawal.entity.Withdrawal;
+import com.banking.withdrawal.exception.VelocityLimitExceededException;
+import com.banking.withdrawal.service.WithdrawalService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
@@ -9,31 +22,90 @@ import java.util.Map;
 @RequestMapping("/api/withdrawals")
 public class WithdrawalController {
 
+    @Autowired
+    private WithdrawalService withdrawalService;
+
+    @PostMapping
+    public ResponseEntity<?> createWithdrawal(@RequestBody Withdrawal withdrawal,
+                                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            IdempotentResult<Withdrawal> created = withdrawalService.createWithdrawal(withdrawal, idempotencyKey);
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(created.isReplayed()))
+                    .body(created.getBody());
+        } catch (IdempotencyKeyException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        } catch (BankingException e) {
+            return ResponseEntity.status(statusOf(e)).body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PostMapping("/atm")
-    public Map<String, Object> atmWithdrawal(@RequestParam String accountId,
+    public ResponseEntity<?> atmWithdrawal(@RequestParam String accountId,
                                            @RequestParam BigDecimal amount,
-                                           @RequestParam String atmId) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("withdrawalId", "ATM" + System.currentTimeMillis());
-        response.put("status", "COMPLETED");
-        response.put("type", "ATM");
-        response.put("amount", amount);
-        response.put("accountId", accountId);
-        response.put("atmId", atmId);
-        return response;
+                                           @RequestParam String atmId,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            IdempotentResult<Withdrawal> created = withdrawalService.atmWithdrawal(accountId, amount, atmId, idempotencyKey);
+            Map<String, Object> response = withdrawalResponse(created.getBody(), "ATM");
+            response.put("atmId", atmId);
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(created.isReplayed()))
+                    .body(response);
+        } catch (VelocityLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(ApiResponse.error(e.getMessage()));
+        } catch (IdempotencyKeyException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        } catch (BankingException e) {
+            return ResponseEntity.status(statusOf(e)).body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
     }
 
     @PostMapping("/branch")
-    public Map<String, Object> branchWithdrawal(@RequestParam String accountId,
+    public ResponseEntity<?> branchWithdrawal(@RequestParam String accountId,
                                               @RequestParam BigDecimal amount,
-                                              @RequestParam String branchCode) {
+                                              @RequestParam String branchCode,
+                                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            IdempotentResult<Withdrawal> created = withdrawalService.branchWithdrawal(accountId, amount, branchCode, idempotencyKey);
+            Map<String, Object> response = withdrawalResponse(created.getBody(), "BRANCH");
+            response.put("branchCode", branchCode);
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(created.isReplayed()))
+                    .body(response);
+        } catch (VelocityLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(ApiResponse.error(e.getMessage()));
+        } catch (IdempotencyKeyException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        } catch (BankingException e) {
+            return ResponseEntity.status(statusOf(e)).body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> withdrawalResponse(Withdrawal withdrawal, String type) {
         Map<String, Object> response = new HashMap<>();
-        response.put("withdrawalId", "BRN" + System.currentTimeMillis());
-        response.put("status", "COMPLETED");
-        response.put("type", "BRANCH");
-        response.put("amount", amount);
-        response.put("accountId", accountId);
-        response.put("branchCode", branchCode);
+        response.put("withdrawalId", withdrawal.getId());
+        response.put("status", withdrawal.getStatus());
+        response.put("type", type);
+        response.put("amount", withdrawal.getAmount());
+        response.put("accountId", withdrawal.getAccountId());
+        response.put("createdAt", withdrawal.getCreatedAt());
         return response;
     }
+
+    private static HttpStatus statusOf(BankingException e) {
+        if (e instanceof AccountNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (e instanceof InsufficientFundsException) {
+            return HttpStatus.UNPROCESSABLE_ENTITY;
+        }
+        return HttpStatus.CONFLICT;
+    }
 }
@@ -17,7 +17,7 @@ public class Withdrawal {
     private BigDecimal amount;
     
     @Column(name = "currency")
-    private String currency = "USD";
+    private String currency;
     
     @Column(name = "withdrawal_method")
     private String withdrawalMethod = "WEB";
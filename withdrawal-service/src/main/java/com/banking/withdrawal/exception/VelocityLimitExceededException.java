@@ -0,0 +1,9 @@
+package com.banking.withdrawal.exception;
+
+import com.banking.shared.exception.BankingException;
+
+public class VelocityLimitExceededException extends BankingException {
+    public VelocityLimitExceededException(String message) {
+        super("VELOCITY_LIMIT_EXCEEDED", message);
+    }
+}
@@ -0,0 +1,65 @@
+package com.banking.withdrawal.repository;
+
+import com.banking.shared.enums.TransactionType;
+import com.banking.shared.ledger.AccountRows;
+import com.banking.shared.ledger.LockedAccount;
+import com.banking.shared.push.PushPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The account side of a withdrawal over plain JDBC, for use inside a transaction. The account
+ * row is locked through {@link AccountRows}, like the transfer and payment ledgers do, so a
+ * withdrawal queues behind any transfer or payment touching the same account.
+ */
+@Repository
+public class AccountLedger {
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO transactions (id, account_id, amount, type, description, balance, reference, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private PushPublisher pushPublisher;
+
+    /** Locks the accounts that exist among {@code accountIds} until the transaction ends, keyed by id. */
+    public Map<String, LockedAccount> lockAccounts(Collection<String> accountIds) {
+        return AccountRows.lock(jdbcTemplate, accountIds);
+    }
+
+    /** The accounts that exist among {@code accountIds}, read without locking them. */
+    public Map<String, LockedAccount> findAccounts(Collection<String> accountIds) {
+        return AccountRows.find(jdbcTemplate, accountIds);
+    }
+
+    public void updateBalances(Map<String, BigDecimal> balances) {
+        AccountRows.updateBalances(jdbcTemplate, balances);
+    }
+
+    /**
+     * Tells the owners' open streams about the new balances of these locked accounts once the
+     * transaction commits.
+     */
+    public void publishBalances(Map<String, LockedAccount> accounts, Map<String, BigDecimal> balances) {
+        AccountRows.publishBalances(pushPublisher, accounts, balances, "WITHDRAWAL");
+    }
+
+    /** Records the debit as a WITHDRAWAL leg referencing the withdrawal. */
+    public void insertDebit(String accountId, BigDecimal amount, BigDecimal balance, String description,
+                            String withdrawalId) {
+        jdbcTemplate.update(INSERT_TRANSACTION_SQL, UUID.randomUUID().toString(), accountId, amount.negate(),
+                TransactionType.WITHDRAWAL.name(), description, balance, withdrawalId,
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,97 @@
+package com.banking.withdrawal.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Checkpointed velocity counters in {@code withdrawal_velocity_counters}: the raw buckets of a
+ * counter's hourly and daily windows, one row per counter.
+ */
+@Repository
+public class VelocityCheckpointStore {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO withdrawal_velocity_counters (counter_key, hourly_buckets, daily_buckets, updated_at) "
+            + "VALUES (?, ?, ?, CURRENT_TIMESTAMP) ON CONFLICT (counter_key) DO UPDATE SET "
+            + "hourly_buckets = EXCLUDED.hourly_buckets, daily_buckets = EXCLUDED.daily_buckets, "
+            + "updated_at = EXCLUDED.updated_at";
+
+    private static final String SELECT_SQL =
+            "SELECT counter_key, hourly_buckets, daily_buckets FROM withdrawal_velocity_counters WHERE updated_at >= ?";
+
+    private static final String DELETE_SQL = "DELETE FROM withdrawal_velocity_counters WHERE updated_at < ?";
+
+    /** One counter's buckets. */
+    public static final class Checkpoint {
+        private final String key;
+        private final long[] hourly;
+        private final long[] daily;
+
+        public Checkpoint(String key, long[] hourly, long[] daily) {
+            this.key = key;
+            this.hourly = hourly;
+            this.daily = daily;
+        }
+
+        public String getKey() { return key; }
+        public long[] getHourly() { return hourly; }
+        public long[] getDaily() { return daily; }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void saveAll(List<Checkpoint> checkpoints) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Checkpoint checkpoint = checkpoints.get(i);
+                ps.setString(1, checkpoint.getKey());
+                ps.setArray(2, toArray(ps, checkpoint.getHourly()));
+                ps.setArray(3, toArray(ps, checkpoint.getDaily()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return checkpoints.size();
+            }
+        });
+    }
+
+    /** Streams the counters written since {@code since} to {@code consumer}. */
+    public void loadSince(Timestamp since, Consumer<Checkpoint> consumer) {
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            consumer.accept(new Checkpoint(rs.getString(1), toLongs(rs.getArray(2)), toLongs(rs.getArray(3))));
+        }, since);
+    }
+
+    public int deleteBefore(Timestamp before) {
+        return jdbcTemplate.update(DELETE_SQL, before);
+    }
+
+    private static Array toArray(PreparedStatement ps, long[] values) throws SQLException {
+        Long[] boxed = new Long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return ps.getConnection().createArrayOf("bigint", boxed);
+    }
+
+    private static long[] toLongs(Array array) throws SQLException {
+        Object[] values = (Object[]) array.getArray();
+        long[] longs = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            longs[i] = ((Number) values[i]).longValue();
+        }
+        return longs;
+    }
+}
@@ -0,0 +1,318 @@
+package com.banking.withdrawal.service;
+
+import com.banking.withdrawal.exception.VelocityLimitExceededException;
+import com.banking.withdrawal.repository.VelocityCheckpointStore;
+import com.banking.withdrawal.repository.VelocityCheckpointStore.Checkpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hourly and daily velocity limits on ATM and branch withdrawals, checked in memory. ATM
+ * withdrawals count against the account's ATM limits and the terminal's; branch withdrawals
+ * against the account's branch limits. A limit of zero is off.
+ *
+ * Each account or terminal has a counter of two {@link VelocityWindow}s, held in sharded maps.
+ * A check adds the amount to every window it touches and takes it back from all of them if any
+ * total went over its limit, so concurrent withdrawals can never pass a limit together; at
+ * worst two that would each have fitted are both refused. Nothing blocks, and a check costs a
+ * few map lookups and a scan of the windows.
+ *
+ * Counters changed since the last checkpoint are written every {@code checkpoint-ms} and read
+ * back on startup, so a restart forgets at most one interval of withdrawals. Counters idle for
+ * longer than the daily window are dropped. The counters are per process: the service is meant
+ * to run as a single instance.
+ */
+@Service
+public class VelocityLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityLimiter.class);
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR_BUCKET = MINUTE;
+    private static final int HOUR_BUCKETS = 60;
+    private static final long DAY_BUCKET = 15 * MINUTE;
+    private static final int DAY_BUCKETS = 96;
+    private static final long DAY = DAY_BUCKET * DAY_BUCKETS;
+
+    enum Scope {
+        ATM_ACCOUNT("atm-account", "ATM withdrawal limit for the account"),
+        ATM("atm", "withdrawal limit of the ATM"),
+        BRANCH_ACCOUNT("branch-account", "branch withdrawal limit for the account");
+
+        final String prefix;
+        final String description;
+
+        Scope(String prefix, String description) {
+            this.prefix = prefix;
+            this.description = description;
+        }
+    }
+
+    static final class VelocityCounter {
+        final VelocityWindow hourly = new VelocityWindow(HOUR_BUCKET, HOUR_BUCKETS);
+        final VelocityWindow daily = new VelocityWindow(DAY_BUCKET, DAY_BUCKETS);
+        volatile long lastUsed;
+        volatile boolean dirty;
+    }
+
+    /** Amounts taken by an accepted withdrawal, to hand back with {@link #release} if it fails. */
+    public static final class Reservation {
+        private final VelocityCounter[] counters;
+        private final long hourEpoch;
+        private final long dayEpoch;
+        private final long cents;
+
+        Reservation(VelocityCounter[] counters, long hourEpoch, long dayEpoch, long cents) {
+            this.counters = counters;
+            this.hourEpoch = hourEpoch;
+            this.dayEpoch = dayEpoch;
+            this.cents = cents;
+        }
+    }
+
+    @Autowired
+    private VelocityCheckpointStore checkpointStore;
+
+    private final long[] hourlyLimits = new long[Scope.values().length];
+    private final long[] dailyLimits = new long[Scope.values().length];
+    private final Map<String, VelocityCounter>[] shards;
+    private final Clock clock;
+
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+
+    @Autowired
+    public VelocityLimiter(@Value("${withdrawal.velocity.atm.account-hourly:500.00}") BigDecimal atmAccountHourly,
+                           @Value("${withdrawal.velocity.atm.account-daily:1000.00}") BigDecimal atmAccountDaily,
+                           @Value("${withdrawal.velocity.atm.terminal-hourly:20000.00}") BigDecimal atmHourly,
+                           @Value("${withdrawal.velocity.atm.terminal-daily:100000.00}") BigDecimal atmDaily,
+                           @Value("${withdrawal.velocity.branch.account-hourly:10000.00}") BigDecimal branchAccountHourly,
+                           @Value("${withdrawal.velocity.branch.account-daily:25000.00}") BigDecimal branchAccountDaily,
+                           @Value("${withdrawal.velocity.shards:16}") int shards,
+                           MeterRegistry meterRegistry) {
+        this(atmAccountHourly, atmAccountDaily, atmHourly, atmDaily, branchAccountHourly, branchAccountDaily, shards,
+                Clock.systemUTC());
+        this.acceptedCounter = Counter.builder("banking_withdrawal_velocity_checks_total")
+            .description("Velocity limit checks of ATM and branch withdrawals")
+            .tag("service", "withdrawal")
+            .tag("outcome", "accepted")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("banking_withdrawal_velocity_checks_total")
+            .description("Velocity limit checks of ATM and branch withdrawals")
+            .tag("service", "withdrawal")
+            .tag("outcome", "rejected")
+            .register(meterRegistry);
+        Gauge.builder("banking_withdrawal_velocity_counters", this, VelocityLimiter::counterCount)
+            .description("Per-account and per-ATM velocity counters held in memory")
+            .tag("service", "withdrawal")
+            .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public VelocityLimiter(BigDecimal atmAccountHourly, BigDecimal atmAccountDaily, BigDecimal atmHourly,
+                           BigDecimal atmDaily, BigDecimal branchAccountHourly, BigDecimal branchAccountDaily,
+                           int shards, Clock clock) {
+        setLimit(Scope.ATM_ACCOUNT, atmAccountHourly, atmAccountDaily);
+        setLimit(Scope.ATM, atmHourly, atmDaily);
+        setLimit(Scope.BRANCH_ACCOUNT, branchAccountHourly, branchAccountDaily);
+        int size = Integer.highestOneBit(Math.max(1, shards - 1)) << 1;
+        this.shards = new Map[size];
+        for (int i = 0; i < size; i++) {
+            this.shards[i] = new ConcurrentHashMap<>();
+        }
+        this.clock = clock;
+    }
+
+    private void setLimit(Scope scope, BigDecimal hourly, BigDecimal daily) {
+        hourlyLimits[scope.ordinal()] = toCents(hourly);
+        dailyLimits[scope.ordinal()] = toCents(daily);
+    }
+
+    /** Takes {@code amount} from the account's and the ATM's limits, or throws if either would be exceeded. */
+    public Reservation acquireAtm(String accountId, String atmId, BigDecimal amount) {
+        return acquire(amount, new Scope[] {Scope.ATM_ACCOUNT, Scope.ATM}, new String[] {accountId, atmId});
+    }
+
+    /** Takes {@code amount} from the account's branch limits, or throws if they would be exceeded. */
+    public Reservation acquireBranch(String accountId, BigDecimal amount) {
+        return acquire(amount, new Scope[] {Scope.BRANCH_ACCOUNT}, new String[] {accountId});
+    }
+
+    /** Hands back what a withdrawal took, once it has failed. */
+    public void release(Reservation reservation) {
+        if (reservation != null) {
+            undo(reservation.counters, reservation.counters.length, reservation.hourEpoch, reservation.dayEpoch,
+                    reservation.cents);
+        }
+    }
+
+    private Reservation acquire(BigDecimal amount, Scope[] scopes, String[] ids) {
+        long cents = toCents(amount);
+        if (cents <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        long now = clock.millis();
+        long hourEpoch = now / HOUR_BUCKET;
+        long dayEpoch = now / DAY_BUCKET;
+        String[] keys = new String[scopes.length];
+        for (int i = 0; i < scopes.length; i++) {
+            keys[i] = scopes[i].prefix + ":" + ids[i];
+        }
+
+        while (true) {
+            VelocityCounter[] counters = new VelocityCounter[scopes.length];
+            for (int i = 0; i < scopes.length; i++) {
+                VelocityCounter counter = counter(keys[i]);
+                counter.lastUsed = now;
+                counters[i] = counter;
+                long hourly = counter.hourly.add(hourEpoch, cents);
+                long daily = counter.daily.add(dayEpoch, cents);
+                counter.dirty = true;
+                int scope = scopes[i].ordinal();
+                boolean hourlyExceeded = hourlyLimits[scope] > 0 && hourly > hourlyLimits[scope];
+                if (hourlyExceeded || dailyLimits[scope] > 0 && daily > dailyLimits[scope]) {
+                    undo(counters, i + 1, hourEpoch, dayEpoch, cents);
+                    if (rejectedCounter != null) {
+                        rejectedCounter.increment();
+                    }
+                    long limit = hourlyExceeded ? hourlyLimits[scope] : dailyLimits[scope];
+                    throw new VelocityLimitExceededException((hourlyExceeded ? "Hourly " : "Daily ")
+                            + scopes[i].description + " of " + BigDecimal.valueOf(limit, 2) + " exceeded");
+                }
+            }
+            // An idle counter may have been evicted while we added to it; start again with fresh ones
+            if (stillMapped(keys, counters)) {
+                if (acceptedCounter != null) {
+                    acceptedCounter.increment();
+                }
+                return new Reservation(counters, hourEpoch, dayEpoch, cents);
+            }
+            undo(counters, counters.length, hourEpoch, dayEpoch, cents);
+        }
+    }
+
+    private void undo(VelocityCounter[] counters, int count, long hourEpoch, long dayEpoch, long cents) {
+        for (int i = 0; i < count; i++) {
+            counters[i].hourly.subtract(hourEpoch, cents);
+            counters[i].daily.subtract(dayEpoch, cents);
+            counters[i].dirty = true;
+        }
+    }
+
+    private boolean stillMapped(String[] keys, VelocityCounter[] counters) {
+        for (int i = 0; i < keys.length; i++) {
+            if (shard(keys[i]).get(keys[i]) != counters[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private VelocityCounter counter(String key) {
+        Map<String, VelocityCounter> shard = shard(key);
+        VelocityCounter counter = shard.get(key);
+        return counter != null ? counter : shard.computeIfAbsent(key, k -> new VelocityCounter());
+    }
+
+    private Map<String, VelocityCounter> shard(String key) {
+        int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    private long counterCount() {
+        long count = 0;
+        for (Map<String, VelocityCounter> shard : shards) {
+            count += shard.size();
+        }
+        return count;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Amount is required");
+        }
+        if (amount.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("Amount has more than 2 decimal places");
+        }
+        BigDecimal cents = amount.movePointRight(2);
+        if (cents.compareTo(BigDecimal.valueOf(VelocityWindow.MAX_CENTS)) > 0) {
+            throw new IllegalArgumentException("Amount too large");
+        }
+        return cents.longValue();
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (checkpointStore == null) {
+            return;
+        }
+        long now = clock.millis();
+        int[] restored = new int[1];
+        try {
+            checkpointStore.loadSince(new Timestamp(now - DAY), checkpoint -> {
+                VelocityCounter counter = counter(checkpoint.getKey());
+                counter.hourly.restore(checkpoint.getHourly(), now / HOUR_BUCKET);
+                counter.daily.restore(checkpoint.getDaily(), now / DAY_BUCKET);
+                counter.lastUsed = now;
+                restored[0]++;
+            });
+            log.info("Restored {} velocity counters", restored[0]);
+        } catch (RuntimeException e) {
+            log.error("Restoring velocity counters failed; limits start from zero", e);
+        }
+    }
+
+    /** Writes counters changed since the last checkpoint and drops idle ones. */
+    @Scheduled(fixedDelayString = "${withdrawal.velocity.checkpoint-ms:10000}")
+    public void checkpoint() {
+        if (checkpointStore == null) {
+            return;
+        }
+        long now = clock.millis();
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        List<VelocityCounter> written = new ArrayList<>();
+        for (Map<String, VelocityCounter> shard : shards) {
+            for (Map.Entry<String, VelocityCounter> entry : shard.entrySet()) {
+                VelocityCounter counter = entry.getValue();
+                if (counter.dirty) {
+                    counter.dirty = false;
+                    checkpoints.add(new Checkpoint(entry.getKey(), counter.hourly.snapshot(), counter.daily.snapshot()));
+                    written.add(counter);
+                } else if (now - counter.lastUsed > DAY) {
+                    shard.remove(entry.getKey(), counter);
+                }
+            }
+        }
+        try {
+            if (!checkpoints.isEmpty()) {
+                checkpointStore.saveAll(checkpoints);
+            }
+            checkpointStore.deleteBefore(new Timestamp(now - DAY));
+        } catch (RuntimeException e) {
+            log.warn("Checkpointing {} velocity counters failed, will retry", checkpoints.size(), e);
+            written.forEach(counter -> counter.dirty = true);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        checkpoint();
+    }
+}
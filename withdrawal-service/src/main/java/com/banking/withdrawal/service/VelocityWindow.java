@@ -0,0 +1,121 @@
+package com.banking.withdrawal.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Amount withdrawn over a sliding window, kept as a ring of buckets with no locks. Each bucket
+ * is one long packing the low {@value #EPOCH_BITS} bits of the period it holds with the amount
+ * in cents, so moving a bucket on to a new period and adding to it is a single CAS. The window
+ * slides a bucket at a time: it covers the current bucket and the {@code buckets - 1} before it.
+ *
+ * A stale bucket could only be mistaken for a current one if it went untouched for a multiple
+ * of both 2^20 periods and the ring size, decades for the windows used here.
+ */
+final class VelocityWindow {
+
+    static final int EPOCH_BITS = 20;
+    private static final long EPOCH_MASK = (1L << EPOCH_BITS) - 1;
+    /** Largest amount a bucket can hold, about 87 billion. */
+    static final long MAX_CENTS = (1L << (63 - EPOCH_BITS)) - 1;
+
+    private final long bucketMillis;
+    private final AtomicLongArray slots;
+
+    VelocityWindow(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.slots = new AtomicLongArray(buckets);
+    }
+
+    /** Period of {@code nowMillis}, to pass back to {@link #subtract}. */
+    long epochOf(long nowMillis) {
+        return nowMillis / bucketMillis;
+    }
+
+    /** Adds to the bucket of {@code epoch}, the current period, and returns the window's new total. */
+    long add(long epoch, long cents) {
+        int index = (int) (epoch % slots.length());
+        long tag = epoch & EPOCH_MASK;
+        while (true) {
+            long current = slots.get(index);
+            long updated = (current & EPOCH_MASK) == tag
+                    ? current + (cents << EPOCH_BITS)
+                    : (cents << EPOCH_BITS) | tag;
+            if (slots.compareAndSet(index, current, updated)) {
+                break;
+            }
+        }
+        return sum(epoch);
+    }
+
+    /** Takes back an amount added in bucket {@code epoch}; a no-op once that bucket has moved on. */
+    void subtract(long epoch, long cents) {
+        int index = (int) (epoch % slots.length());
+        long tag = epoch & EPOCH_MASK;
+        while (true) {
+            long current = slots.get(index);
+            if ((current & EPOCH_MASK) != tag) {
+                return;
+            }
+            long amount = Math.max(0, (current >>> EPOCH_BITS) - cents);
+            if (slots.compareAndSet(index, current, (amount << EPOCH_BITS) | tag)) {
+                return;
+            }
+        }
+    }
+
+    /** Total of the buckets in the window ending at bucket {@code epoch}. */
+    long sum(long epoch) {
+        int buckets = slots.length();
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            long slot = slots.get(i);
+            if (inWindow(slot, epoch)) {
+                total += slot >>> EPOCH_BITS;
+            }
+        }
+        return total;
+    }
+
+    private boolean inWindow(long slot, long epoch) {
+        return ((epoch - (slot & EPOCH_MASK)) & EPOCH_MASK) < slots.length();
+    }
+
+    /** The raw buckets, for checkpointing. */
+    long[] snapshot() {
+        long[] copy = new long[slots.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = slots.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Merges checkpointed buckets still inside the window ending at {@code epoch}; a bucket
+     * that has since moved on to a newer period is left alone.
+     */
+    void restore(long[] saved, long epoch) {
+        if (saved.length != slots.length()) {
+            return;
+        }
+        for (int i = 0; i < saved.length; i++) {
+            long slot = saved[i];
+            if ((slot >>> EPOCH_BITS) == 0 || !inWindow(slot, epoch)) {
+                continue;
+            }
+            while (true) {
+                long current = slots.get(i);
+                long updated;
+                if ((current & EPOCH_MASK) == (slot & EPOCH_MASK)) {
+                    updated = current + (slot & ~EPOCH_MASK);
+                } else if (!inWindow(current, epoch) || (current >>> EPOCH_BITS) == 0) {
+                    updated = slot;
+                } else {
+                    break;
+                }
+                if (slots.compareAndSet(i, current, updated)) {
+                    break;
+                }
+            }
+        }
+    }
+}
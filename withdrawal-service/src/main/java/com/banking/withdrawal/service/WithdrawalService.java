@@ -1,12 +1,24 @@
 package com.banking.withdrawal.service;
 
+import com.banking.shared.enums.AccountStatus;
+import com.banking.shared.exception.AccountNotFoundException;
+import com.banking.shared.exception.BankingException;
+import com.banking.shared.exception.InsufficientFundsException;
+import com.banking.shared.idempotency.IdempotencyStore;
+import com.banking.shared.idempotency.IdempotentResult;
+import com.banking.shared.ledger.LockedAccount;
 import com.banking.withdrawal.entity.Withdrawal;
+import com.banking.withdrawal.repository.AccountLedger;
 import com.banking.withdrawal.repository.WithdrawalRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 public class WithdrawalService {
@@ -14,11 +26,134 @@ public class WithdrawalService {
     @Autowired
     private WithdrawalRepository withdrawalRepository;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private VelocityLimiter velocityLimiter;
+
+    @Autowired
+    private AccountLedger accountLedger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Creates the withdrawal once per idempotency key: a retry with the same key gets the withdrawal
+     * created the first time, and a concurrent one waits for it. Without a key this is
+     * {@link #createWithdrawal(Withdrawal)}.
+     */
+    public IdempotentResult<Withdrawal> createWithdrawal(Withdrawal withdrawal, String idempotencyKey) {
+        String fingerprint = IdempotencyStore.fingerprint(withdrawal.getAccountId(), withdrawal.getAmount(), withdrawal.getCurrency(),
+                withdrawal.getWithdrawalMethod(), withdrawal.getReferenceNumber(), withdrawal.getDescription());
+        return idempotencyStore.execute(idempotencyKey, fingerprint, Withdrawal.class, () -> createWithdrawal(withdrawal));
+    }
+
+    /**
+     * Debits the account and records the withdrawal in one transaction. The account row is
+     * locked first, so the balance check and the debit see the same balance. Without a
+     * currency the withdrawal takes the account's.
+     */
     public Withdrawal createWithdrawal(Withdrawal withdrawal) {
-        if (withdrawal.getId() == null) {
-            withdrawal.setId(UUID.randomUUID().toString());
+        validate(withdrawal);
+        return transactionTemplate.execute(status -> {
+            if (withdrawal.getId() == null) {
+                withdrawal.setId(UUID.randomUUID().toString());
+            }
+            String accountId = withdrawal.getAccountId();
+            Map<String, LockedAccount> accounts = accountLedger.lockAccounts(List.of(accountId));
+            LockedAccount account = usable(accounts, accountId, withdrawal.getCurrency());
+            if (account.getBalance().compareTo(withdrawal.getAmount()) < 0) {
+                throw new InsufficientFundsException();
+            }
+            withdrawal.setCurrency(account.getCurrency());
+
+            BigDecimal balance = account.getBalance().subtract(withdrawal.getAmount());
+            Map<String, BigDecimal> balances = Map.of(accountId, balance);
+            accountLedger.updateBalances(balances);
+            accountLedger.publishBalances(accounts, balances);
+            accountLedger.insertDebit(accountId, withdrawal.getAmount(), balance,
+                    withdrawal.getDescription() != null ? withdrawal.getDescription() : "Withdrawal", withdrawal.getId());
+
+            withdrawal.setStatus("COMPLETED");
+            return withdrawalRepository.save(withdrawal);
+        });
+    }
+
+    private static void validate(Withdrawal withdrawal) {
+        if (withdrawal.getAccountId() == null) {
+            throw new IllegalArgumentException("Account is required");
+        }
+        if (withdrawal.getAmount() == null || withdrawal.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        if (withdrawal.getAmount().stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("Amount has more than 2 decimal places");
+        }
+    }
+
+    private static LockedAccount usable(Map<String, LockedAccount> accounts, String accountId, String currency) {
+        LockedAccount account = accounts.get(accountId);
+        if (account == null) {
+            throw new AccountNotFoundException(accountId);
+        }
+        if (!AccountStatus.ACTIVE.name().equals(account.getStatus())) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", "Account " + accountId + " is " + account.getStatus());
+        }
+        if (currency != null && !currency.equals(account.getCurrency())) {
+            throw new IllegalArgumentException("Account " + accountId + " holds " + account.getCurrency() + ", not " + currency);
+        }
+        return account;
+    }
+
+    /**
+     * Withdraws cash at an ATM, within the account's and the ATM's velocity limits. With an
+     * idempotency key a retried request gets the original withdrawal and is not counted again.
+     */
+    public IdempotentResult<Withdrawal> atmWithdrawal(String accountId, BigDecimal amount, String atmId, String idempotencyKey) {
+        return createLimited(accountId, amount, "ATM", atmId, "ATM withdrawal at " + atmId, idempotencyKey,
+                () -> velocityLimiter.acquireAtm(accountId, atmId, amount));
+    }
+
+    /** Withdraws cash at a branch, within the account's branch velocity limits. */
+    public IdempotentResult<Withdrawal> branchWithdrawal(String accountId, BigDecimal amount, String branchCode,
+                                                         String idempotencyKey) {
+        return createLimited(accountId, amount, "BRANCH", branchCode, "Branch withdrawal at " + branchCode, idempotencyKey,
+                () -> velocityLimiter.acquireBranch(accountId, amount));
+    }
+
+    private IdempotentResult<Withdrawal> createLimited(String accountId, BigDecimal amount, String method, String location,
+                                                       String description, String idempotencyKey,
+                                                       Supplier<VelocityLimiter.Reservation> limits) {
+        String fingerprint = IdempotencyStore.fingerprint(accountId, amount, method, location);
+        VelocityLimiter.Reservation[] taken = new VelocityLimiter.Reservation[1];
+        IdempotentResult<Withdrawal> result;
+        try {
+            result = idempotencyStore.execute(idempotencyKey, fingerprint, Withdrawal.class, () -> {
+                Withdrawal withdrawal = new Withdrawal();
+                withdrawal.setAccountId(accountId);
+                withdrawal.setAmount(amount);
+                withdrawal.setWithdrawalMethod(method);
+                withdrawal.setReferenceNumber(location);
+                withdrawal.setDescription(description);
+                validate(withdrawal);
+                // Checked before the limits count it; the debit checks again under the row lock
+                LockedAccount account = usable(accountLedger.findAccounts(List.of(accountId)), accountId, null);
+                if (account.getBalance().compareTo(amount) < 0) {
+                    throw new InsufficientFundsException();
+                }
+                taken[0] = limits.get();
+                return createWithdrawal(withdrawal);
+            });
+        } catch (RuntimeException e) {
+            velocityLimiter.release(taken[0]);
+            throw e;
+        }
+        if (result.isReplayed()) {
+            // Recorded by an earlier request after this one had already counted; the insert rolled back
+            velocityLimiter.release(taken[0]);
         }
-        return withdrawalRepository.save(withdrawal);
+        return result;
     }
 
     public List<Withdrawal> getWithdrawalsByAccountId(String accountId) {
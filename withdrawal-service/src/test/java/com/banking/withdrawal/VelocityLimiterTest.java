@@ -0,0 +1,166 @@
+package com.banking.withdrawal;
+
+import com.banking.withdrawal.exception.VelocityLimitExceededException;
+import com.banking.withdrawal.repository.VelocityCheckpointStore;
+import com.banking.withdrawal.repository.VelocityCheckpointStore.Checkpoint;
+import com.banking.withdrawal.service.VelocityLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class VelocityLimiterTest {
+
+    @Mock
+    private VelocityCheckpointStore checkpointStore;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /** ATM account limits of 100.00 an hour and 150.00 a day, 50.00 an hour per terminal. */
+    private VelocityLimiter limiter() {
+        VelocityLimiter limiter = new VelocityLimiter(new BigDecimal("100.00"), new BigDecimal("150.00"),
+                new BigDecimal("50.00"), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 4, clock);
+        ReflectionTestUtils.setField(limiter, "checkpointStore", checkpointStore);
+        return limiter;
+    }
+
+    @Test
+    void testRejectionRollsBackEveryWindow() {
+        // Given
+        VelocityLimiter limiter = limiter();
+        limiter.acquireAtm("acc1", "atm1", new BigDecimal("40.00"));
+
+        // When: acc2 is within its limits but atm1 would go over
+        VelocityLimitExceededException e = assertThrows(VelocityLimitExceededException.class,
+                () -> limiter.acquireAtm("acc2", "atm1", new BigDecimal("20.00")));
+
+        // Then: neither acc2 nor atm1 kept the rejected amount
+        assertEquals("Hourly withdrawal limit of the ATM of 50.00 exceeded", e.getMessage());
+        assertDoesNotThrow(() -> limiter.acquireAtm("acc2", "atm2", new BigDecimal("50.00")));
+        assertDoesNotThrow(() -> limiter.acquireAtm("acc2", "atm3", new BigDecimal("50.00")));
+        assertDoesNotThrow(() -> limiter.acquireAtm("acc3", "atm1", new BigDecimal("10.00")));
+    }
+
+    @Test
+    void testHourlyLimitSlidesOffAfterAnHour() {
+        // Given
+        VelocityLimiter limiter = limiter();
+        limiter.acquireAtm("acc1", "atm1", new BigDecimal("50.00"));
+        clock.advance(Duration.ofMinutes(30));
+        limiter.acquireAtm("acc1", "atm2", new BigDecimal("50.00"));
+
+        // When / Then
+        clock.advance(Duration.ofMinutes(29));
+        assertThrows(VelocityLimitExceededException.class,
+                () -> limiter.acquireAtm("acc1", "atm3", new BigDecimal("0.01")));
+        clock.advance(Duration.ofMinutes(1));
+        assertDoesNotThrow(() -> limiter.acquireAtm("acc1", "atm3", new BigDecimal("50.00")));
+        clock.advance(Duration.ofMinutes(30));
+        VelocityLimitExceededException daily = assertThrows(VelocityLimitExceededException.class,
+                () -> limiter.acquireAtm("acc1", "atm4", new BigDecimal("0.01")));
+        assertEquals("Daily ATM withdrawal limit for the account of 150.00 exceeded", daily.getMessage());
+    }
+
+    @Test
+    void testReleaseHandsTheAmountBack() {
+        // Given
+        VelocityLimiter limiter = limiter();
+        VelocityLimiter.Reservation reservation = limiter.acquireAtm("acc1", "atm1", new BigDecimal("50.00"));
+
+        // When
+        limiter.release(reservation);
+
+        // Then
+        assertDoesNotThrow(() -> limiter.acquireAtm("acc1", "atm1", new BigDecimal("50.00")));
+    }
+
+    @Test
+    void testCountersSurviveARestartThroughTheCheckpoint() {
+        // Given
+        VelocityLimiter limiter = limiter();
+        limiter.acquireAtm("acc1", "atm1", new BigDecimal("45.00"));
+        limiter.checkpoint();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Checkpoint>> saved = ArgumentCaptor.forClass(List.class);
+        verify(checkpointStore).saveAll(saved.capture());
+        doAnswer(inv -> {
+            Consumer<Checkpoint> consumer = inv.getArgument(1);
+            saved.getValue().forEach(consumer);
+            return null;
+        }).when(checkpointStore).loadSince(any(), any());
+        clock.advance(Duration.ofSeconds(10));
+
+        // When
+        VelocityLimiter restarted = limiter();
+        restarted.restore();
+
+        // Then
+        assertEquals(2, saved.getValue().size());
+        assertThrows(VelocityLimitExceededException.class,
+                () -> restarted.acquireAtm("acc2", "atm1", new BigDecimal("10.00")));
+        assertDoesNotThrow(() -> restarted.acquireAtm("acc2", "atm1", new BigDecimal("5.00")));
+        verify(checkpointStore).deleteBefore(any());
+    }
+
+    @Test
+    void testUncheckedCountersAreNotWrittenAgain() {
+        // Given
+        VelocityLimiter limiter = limiter();
+        limiter.acquireBranch("acc1", new BigDecimal("10.00"));
+        limiter.checkpoint();
+
+        // When
+        limiter.checkpoint();
+
+        // Then
+        verify(checkpointStore, times(1)).saveAll(any());
+        verify(checkpointStore, times(2)).deleteBefore(any());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,20 +1,35 @@
 package com.banking.withdrawal;
 
+import com.banking.shared.idempotency.IdempotencyStore;
+import com.banking.shared.idempotency.IdempotentResult;
+import com.banking.shared.exception.AccountNotFoundException;
+import com.banking.shared.exception.InsufficientFundsException;
+import com.banking.shared.ledger.LockedAccount;
 import com.banking.withdrawal.entity.Withdrawal;
+import com.banking.withdrawal.exception.VelocityLimitExceededException;
+import com.banking.withdrawal.repository.AccountLedger;
 import com.banking.withdrawal.repository.WithdrawalRepository;
+import com.banking.withdrawal.service.VelocityLimiter;
 import com.banking.withdrawal.service.WithdrawalService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 class WithdrawalServiceTest {
@@ -22,12 +37,31 @@ class WithdrawalServiceTest {
     @Mock
     private WithdrawalRepository withdrawalRepository;
 
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private VelocityLimiter velocityLimiter;
+
+    @Mock
+    private AccountLedger accountLedger;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private WithdrawalService withdrawalService;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        Map<String, LockedAccount> accounts =
+                Map.of("acc1", new LockedAccount("acc1", new BigDecimal("1000.00"), "EUR", "ACTIVE", "user1"));
+        when(accountLedger.lockAccounts(List.of("acc1"))).thenReturn(accounts);
+        when(accountLedger.findAccounts(List.of("acc1"))).thenReturn(accounts);
     }
 
     @Test
@@ -46,7 +80,127 @@ class WithdrawalServiceTest {
         // Then
         assertNotNull(result);
         assertNotNull(result.getId());
+        assertEquals("EUR", result.getCurrency());
+        assertEquals("COMPLETED", result.getStatus());
         verify(withdrawalRepository).save(withdrawal);
+        Map<String, BigDecimal> balances = Map.of("acc1", new BigDecimal("950.00"));
+        verify(accountLedger).updateBalances(balances);
+        verify(accountLedger).publishBalances(any(), eq(balances));
+        verify(accountLedger).insertDebit("acc1", new BigDecimal("50.00"), new BigDecimal("950.00"), "Withdrawal",
+                result.getId());
+    }
+
+    @Test
+    void testWithdrawalOverTheBalanceIsRejected() {
+        // Given
+        Withdrawal withdrawal = new Withdrawal();
+        withdrawal.setAccountId("acc1");
+        withdrawal.setAmount(new BigDecimal("1000.01"));
+
+        // When / Then
+        assertThrows(InsufficientFundsException.class, () -> withdrawalService.createWithdrawal(withdrawal));
+        verify(accountLedger, never()).updateBalances(any());
+        verify(withdrawalRepository, never()).save(any(Withdrawal.class));
+    }
+
+    @Test
+    void testWithdrawalInAnotherCurrencyIsRejected() {
+        // Given
+        Withdrawal withdrawal = new Withdrawal();
+        withdrawal.setAccountId("acc1");
+        withdrawal.setAmount(new BigDecimal("50.00"));
+        withdrawal.setCurrency("USD");
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> withdrawalService.createWithdrawal(withdrawal));
+        verify(accountLedger, never()).updateBalances(any());
+        verify(withdrawalRepository, never()).save(any(Withdrawal.class));
+    }
+
+    @Test
+    void testCreateWithdrawalReplaysIdempotencyKey() {
+        // Given
+        Withdrawal original = new Withdrawal();
+        original.setId("withdrawal-1");
+        original.setAccountId("acc1");
+        original.setAmount(new BigDecimal("100.00"));
+        Withdrawal retry = new Withdrawal();
+        retry.setAccountId("acc1");
+        retry.setAmount(new BigDecimal("100.00"));
+
+        when(idempotencyStore.execute(eq("key-1"), anyString(), eq(Withdrawal.class), any()))
+                .thenReturn(new IdempotentResult<>(original, true));
+
+        // When
+        IdempotentResult<Withdrawal> result = withdrawalService.createWithdrawal(retry, "key-1");
+
+        // Then
+        assertTrue(result.isReplayed());
+        assertEquals("withdrawal-1", result.getBody().getId());
+        verify(withdrawalRepository, never()).save(any(Withdrawal.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAtmWithdrawalCreatesWithdrawalWithinLimits() {
+        // Given
+        when(idempotencyStore.execute(isNull(), anyString(), eq(Withdrawal.class), any()))
+                .thenAnswer(invocation -> new IdempotentResult<>(((Supplier<Withdrawal>) invocation.getArgument(3)).get(), false));
+        when(withdrawalRepository.save(any(Withdrawal.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        IdempotentResult<Withdrawal> result = withdrawalService.atmWithdrawal("acc1", new BigDecimal("60.00"), "ATM-7", null);
+
+        // Then
+        assertFalse(result.isReplayed());
+        assertEquals("ATM", result.getBody().getWithdrawalMethod());
+        assertEquals("ATM-7", result.getBody().getReferenceNumber());
+        verify(velocityLimiter).acquireAtm("acc1", "ATM-7", new BigDecimal("60.00"));
+        verify(velocityLimiter, never()).release(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAtmWithdrawalOverVelocityLimitIsNotCreated() {
+        // Given
+        when(idempotencyStore.execute(isNull(), anyString(), eq(Withdrawal.class), any()))
+                .thenAnswer(invocation -> new IdempotentResult<>(((Supplier<Withdrawal>) invocation.getArgument(3)).get(), false));
+        when(velocityLimiter.acquireAtm("acc1", "ATM-7", new BigDecimal("600.00")))
+                .thenThrow(new VelocityLimitExceededException("Hourly ATM withdrawal limit for the account of 500.00 exceeded"));
+
+        // When / Then
+        assertThrows(VelocityLimitExceededException.class,
+                () -> withdrawalService.atmWithdrawal("acc1", new BigDecimal("600.00"), "ATM-7", null));
+        verify(withdrawalRepository, never()).save(any(Withdrawal.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAtmWithdrawalFromUnknownAccountDoesNotCountAgainstLimits() {
+        // Given
+        when(idempotencyStore.execute(isNull(), anyString(), eq(Withdrawal.class), any()))
+                .thenAnswer(invocation -> new IdempotentResult<>(((Supplier<Withdrawal>) invocation.getArgument(3)).get(), false));
+        when(accountLedger.findAccounts(List.of("nope"))).thenReturn(Map.of());
+
+        // When / Then
+        assertThrows(AccountNotFoundException.class,
+                () -> withdrawalService.atmWithdrawal("nope", new BigDecimal("60.00"), "ATM-7", null));
+        verify(velocityLimiter, never()).acquireAtm(anyString(), anyString(), any());
+        verify(withdrawalRepository, never()).save(any(Withdrawal.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBranchWithdrawalOverTheBalanceDoesNotCountAgainstLimits() {
+        // Given
+        when(idempotencyStore.execute(isNull(), anyString(), eq(Withdrawal.class), any()))
+                .thenAnswer(invocation -> new IdempotentResult<>(((Supplier<Withdrawal>) invocation.getArgument(3)).get(), false));
+
+        // When / Then
+        assertThrows(InsufficientFundsException.class,
+                () -> withdrawalService.branchWithdrawal("acc1", new BigDecimal("1200.00"), "BR-1", null));
+        verify(velocityLimiter, never()).acquireBranch(anyString(), any());
+        verify(accountLedger, never()).lockAccounts(any());
     }
 
     @Test
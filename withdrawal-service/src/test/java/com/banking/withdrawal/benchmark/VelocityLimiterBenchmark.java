@@ -0,0 +1,83 @@
+package com.banking.withdrawal.benchmark;
+
+import com.banking.withdrawal.exception.VelocityLimitExceededException;
+import com.banking.withdrawal.service.VelocityLimiter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of an ATM velocity check on the accepted path (acquire and release, so limits never
+ * fill up) and on the rejected path (an account already at its daily limit), with 8 threads
+ * spread over 10,000 accounts and 200 ATMs, plus all threads hammering one account and one ATM.
+ * Run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class VelocityLimiterBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int ATMS = 200;
+    private static final BigDecimal AMOUNT = new BigDecimal("20.00");
+
+    private VelocityLimiter limiter;
+    private String[] accounts;
+    private String[] atms;
+
+    @Setup
+    public void setUp() {
+        limiter = new VelocityLimiter(new BigDecimal("500.00"), new BigDecimal("1000.00"), BigDecimal.ZERO,
+                BigDecimal.ZERO, new BigDecimal("10000.00"), new BigDecimal("25000.00"), 16, Clock.systemUTC());
+        accounts = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = "ACC" + i;
+        }
+        atms = new String[ATMS];
+        for (int i = 0; i < ATMS; i++) {
+            atms[i] = "ATM" + i;
+        }
+        // Use up the hourly limit of the account the rejected path withdraws from
+        for (int i = 0; i < 25; i++) {
+            limiter.acquireAtm("FULL", atms[0], AMOUNT);
+        }
+    }
+
+    @Benchmark
+    public void accepted() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        VelocityLimiter.Reservation reservation = limiter.acquireAtm(accounts[random.nextInt(ACCOUNTS)],
+                atms[random.nextInt(ATMS)], AMOUNT);
+        limiter.release(reservation);
+    }
+
+    @Benchmark
+    public void acceptedSameAccount() {
+        limiter.release(limiter.acquireAtm(accounts[0], atms[0], AMOUNT));
+    }
+
+    @Benchmark
+    public Object rejected() {
+        try {
+            return limiter.acquireAtm("FULL", atms[ThreadLocalRandom.current().nextInt(ATMS)], AMOUNT);
+        } catch (VelocityLimitExceededException e) {
+            return e;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VelocityLimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,73 @@
+package com.banking.withdrawal.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VelocityWindowTest {
+
+    @Test
+    void testBucketIsReusedForANewPeriod() {
+        // Given: four one-second buckets
+        VelocityWindow window = new VelocityWindow(1000, 4);
+        window.add(0, 100);
+        assertEquals(150, window.add(1, 50));
+
+        // When: period 4 lands on period 0's bucket
+        long total = window.add(4, 10);
+
+        // Then
+        assertEquals(60, total);
+        assertEquals(4, window.epochOf(4999));
+    }
+
+    @Test
+    void testAmountsSlideOutOfTheWindow() {
+        // Given
+        VelocityWindow window = new VelocityWindow(1000, 4);
+        window.add(10, 100);
+        window.add(12, 20);
+
+        // When / Then
+        assertEquals(120, window.sum(13));
+        assertEquals(20, window.sum(14));
+        assertEquals(0, window.sum(16));
+    }
+
+    @Test
+    void testSubtractOnlyTouchesItsOwnPeriod() {
+        // Given
+        VelocityWindow window = new VelocityWindow(1000, 4);
+        window.add(0, 100);
+        window.add(4, 30);
+        window.add(5, 40);
+
+        // When
+        window.subtract(0, 100);
+        window.subtract(5, 70);
+
+        // Then: period 0's bucket had moved on, and a bucket never goes below zero
+        assertEquals(30, window.sum(5));
+    }
+
+    @Test
+    void testRestoreMergesBucketsStillInTheWindow() {
+        // Given
+        VelocityWindow saved = new VelocityWindow(1000, 4);
+        saved.add(0, 100);
+        saved.add(2, 200);
+        long[] snapshot = saved.snapshot();
+        VelocityWindow restarted = new VelocityWindow(1000, 4);
+        restarted.add(2, 5);
+        VelocityWindow later = new VelocityWindow(1000, 4);
+
+        // When
+        restarted.restore(snapshot, 3);
+        later.restore(snapshot, 4);
+        later.restore(new long[2], 4);
+
+        // Then
+        assertEquals(305, restarted.sum(3));
+        assertEquals(200, later.sum(4));
+    }
+}